@@ -20,8 +20,16 @@
 package org.apache.dubbo.samples.callback;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.callback.event.EventListener;
+import org.apache.dubbo.samples.callback.event.EventService;
+import org.apache.dubbo.samples.callback.notify.GreetingNotify;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class CallbackConsumer {
 
     public static void main(String[] args) throws Exception {
@@ -45,6 +53,40 @@ public class CallbackConsumer {
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientResponseContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getServiceContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientAttachment().getAttachment("server-key2"));
+
+        GreetingNotify notify = context.getBean("greetingNotify", GreetingNotify.class);
+        System.out.println("notify counts, oninvoke: " + notify.getInvokedCount()
+                + ", onreturn: " + notify.getReturnedCount() + ", onthrow: " + notify.getThrownCount());
+
+        testSubscribe(context.getBean("eventService", EventService.class));
         context.close();
     }
+
+    /**
+     * 订阅/推送: 注册多个回调，服务端发布事件后通过回调推送给每个订阅者
+     */
+    private static void testSubscribe(EventService eventService) throws InterruptedException {
+        int listeners = 3;
+        int events = 10;
+        CountDownLatch received = new CountDownLatch(listeners * events);
+        List<EventListener> subscribed = new ArrayList<>();
+        for (int i = 0; i < listeners; i++) {
+            int id = i;
+            EventListener listener = event -> {
+                System.out.println("listener-" + id + " received: " + event);
+                received.countDown();
+            };
+            eventService.subscribe("news", listener);
+            subscribed.add(listener);
+        }
+
+        for (int i = 0; i < events; i++) {
+            eventService.publish("news", "key-" + i, "hello-" + i);
+        }
+        System.out.println("all events received: " + received.await(10, TimeUnit.SECONDS));
+
+        for (EventListener listener : subscribed) {
+            eventService.unsubscribe("news", listener);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package org.apache.dubbo.samples.callback.filter;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.filter.ClusterFilter;
+import org.apache.dubbo.rpc.model.AsyncMethodInfo;
+import org.apache.dubbo.rpc.model.ConsumerModel;
+import org.apache.dubbo.rpc.model.ServiceMetadata;
+import org.apache.dubbo.rpc.model.ServiceModel;
+import org.apache.dubbo.samples.callback.notify.NotifyHooks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.dubbo.common.constants.CommonConstants.$INVOKE;
+import static org.apache.dubbo.common.constants.CommonConstants.$INVOKE_ASYNC;
+
+/**
+ * 事件通知过滤器，替代内置的 future 过滤器
+ * <p>
+ * 沿用 &lt;dubbo:method oninvoke/onreturn/onthrow&gt; 的配置。每个引用方法的回调在第一次调用时
+ * 解析为 {@link NotifyHooks}，之后的调用直接执行缓存的MethodHandle。
+ * 缓存放在引用自己的 ServiceMetadata 属性中，随引用销毁释放，不会让回调bean在引用重建后仍被持有。
+ * 使用方式: &lt;dubbo:reference filter="-future,cachedNotify"&gt;
+ */
+public class CachedEventNotifyFilter implements ClusterFilter, ClusterFilter.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedEventNotifyFilter.class);
+
+    /**
+     * ServiceMetadata 属性名，值为该引用的 AsyncMethodInfo -> NotifyHooks
+     */
+    private static final String HOOKS_ATTRIBUTE = CachedEventNotifyFilter.class.getName() + ".hooks";
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        NotifyHooks hooks = getHooks(invocation);
+        if (hooks != null && hooks.hasOnInvoke()) {
+            try {
+                hooks.fireInvoke(invocation.getArguments());
+            } catch (Throwable t) {
+                fireThrow(hooks, invoker, invocation, t);
+            }
+        }
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result result, Invoker<?> invoker, Invocation invocation) {
+        NotifyHooks hooks = getHooks(invocation);
+        if (hooks == null) {
+            return;
+        }
+        if (result.hasException()) {
+            fireThrow(hooks, invoker, invocation, result.getException());
+        } else if (hooks.hasOnReturn()) {
+            try {
+                hooks.fireReturn(result.getValue(), invocation.getArguments());
+            } catch (Throwable t) {
+                fireThrow(hooks, invoker, invocation, t);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        NotifyHooks hooks = getHooks(invocation);
+        if (hooks != null) {
+            fireThrow(hooks, invoker, invocation, t);
+        }
+    }
+
+    private void fireThrow(NotifyHooks hooks, Invoker<?> invoker, Invocation invocation, Throwable exception) {
+        if (!hooks.hasOnThrow()) {
+            return;
+        }
+        try {
+            if (!hooks.fireThrow(exception, invocation.getArguments())) {
+                logger.warn(invocation.getMethodName() + ".onthrow doesn't handle exception "
+                        + exception.getClass().getName() + ", url: " + invoker.getUrl());
+            }
+        } catch (Throwable t) {
+            logger.error(invocation.getMethodName() + ".onthrow callback failed, url: " + invoker.getUrl(), t);
+        }
+    }
+
+    static NotifyHooks getHooks(Invocation invocation) {
+        ServiceModel serviceModel = invocation.getServiceModel();
+        if (!(serviceModel instanceof ConsumerModel)) {
+            return null;
+        }
+        String methodName = invocation.getMethodName();
+        if (($INVOKE.equals(methodName) || $INVOKE_ASYNC.equals(methodName))
+                && invocation.getArguments() != null && invocation.getArguments().length > 0) {
+            methodName = (String) invocation.getArguments()[0];
+        }
+        AsyncMethodInfo info = ((ConsumerModel) serviceModel).getAsyncInfo(methodName);
+        if (info == null) {
+            return null;
+        }
+        ConcurrentMap<AsyncMethodInfo, NotifyHooks> cache = hooksOf(serviceModel.getServiceMetadata());
+        NotifyHooks hooks = cache.get(info);
+        return hooks != null ? hooks : cache.computeIfAbsent(info, NotifyHooks::resolve);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<AsyncMethodInfo, NotifyHooks> hooksOf(ServiceMetadata metadata) {
+        Object cache = metadata.getAttribute(HOOKS_ATTRIBUTE);
+        if (cache == null) {
+            synchronized (metadata) {
+                cache = metadata.getAttribute(HOOKS_ATTRIBUTE);
+                if (cache == null) {
+                    cache = new ConcurrentHashMap<AsyncMethodInfo, NotifyHooks>();
+                    metadata.addAttribute(HOOKS_ATTRIBUTE, cache);
+                }
+            }
+        }
+        return (ConcurrentMap<AsyncMethodInfo, NotifyHooks>) cache;
+    }
+}
@@ -0,0 +1,42 @@
+package org.apache.dubbo.samples.callback.notify;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GreetingsService.sayHi 的事件通知回调
+ * <p>
+ * oninvoke 在发起调用前执行，onreturn 在收到正常结果后执行，onthrow 在调用异常时执行。
+ */
+public class GreetingNotify {
+
+    private final LongAdder invoked = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder thrown = new LongAdder();
+
+    public void onInvoke(String name) {
+        invoked.increment();
+        System.out.println("[notify] oninvoke, name: " + name);
+    }
+
+    public void onReturn(String result, String name) {
+        returned.increment();
+        System.out.println("[notify] onreturn, name: " + name + ", result: " + result);
+    }
+
+    public void onThrow(Throwable ex, String name) {
+        thrown.increment();
+        System.out.println("[notify] onthrow, name: " + name + ", exception: " + ex);
+    }
+
+    public long getInvokedCount() {
+        return invoked.sum();
+    }
+
+    public long getReturnedCount() {
+        return returned.sum();
+    }
+
+    public long getThrownCount() {
+        return thrown.sum();
+    }
+}
@@ -0,0 +1,136 @@
+package org.apache.dubbo.samples.callback.notify;
+
+import org.apache.dubbo.rpc.model.AsyncMethodInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 一个引用方法上配置的 oninvoke/onreturn/onthrow 回调
+ * <p>
+ * 创建时把回调方法解析为绑定了回调实例的MethodHandle，并确定参数的组织方式，
+ * 之后每次调用只需组装参数数组并invokeExact，不再做反射查找、参数类型判断和访问检查。
+ * 参数约定与Dubbo内置的FutureFilter一致:
+ * <ul>
+ *   <li>oninvoke: 与调用方法相同的参数</li>
+ *   <li>onreturn: (返回值) 或 (返回值, 调用参数...) 或 (返回值, Object[] 调用参数)</li>
+ *   <li>onthrow: (异常) 或 (异常, 调用参数...) 或 (异常, Object[] 调用参数)，异常类型不匹配时不回调</li>
+ * </ul>
+ */
+public final class NotifyHooks {
+
+    private final Hook onInvoke;
+    private final Hook onReturn;
+    private final Hook onThrow;
+
+    NotifyHooks(Hook onInvoke, Hook onReturn, Hook onThrow) {
+        this.onInvoke = onInvoke;
+        this.onReturn = onReturn;
+        this.onThrow = onThrow;
+    }
+
+    public static NotifyHooks resolve(AsyncMethodInfo info) {
+        return new NotifyHooks(
+                Hook.of(info.getOninvokeInstance(), info.getOninvokeMethod()),
+                Hook.of(info.getOnreturnInstance(), info.getOnreturnMethod()),
+                Hook.of(info.getOnthrowInstance(), info.getOnthrowMethod()));
+    }
+
+    public boolean hasOnInvoke() {
+        return onInvoke != null;
+    }
+
+    public boolean hasOnReturn() {
+        return onReturn != null;
+    }
+
+    public boolean hasOnThrow() {
+        return onThrow != null;
+    }
+
+    public void fireInvoke(Object[] args) throws Throwable {
+        if (onInvoke != null) {
+            onInvoke.handle.invokeExact(args);
+        }
+    }
+
+    public void fireReturn(Object result, Object[] args) throws Throwable {
+        if (onReturn != null) {
+            onReturn.handle.invokeExact(onReturn.params(result, args));
+        }
+    }
+
+    /**
+     * @return false 表示回调方法的第一个参数与异常类型不匹配，没有回调
+     */
+    public boolean fireThrow(Throwable exception, Object[] args) throws Throwable {
+        if (onThrow == null) {
+            return true;
+        }
+        if (!onThrow.firstType.isInstance(exception)) {
+            return false;
+        }
+        onThrow.handle.invokeExact(onThrow.params(exception, args));
+        return true;
+    }
+
+    static final class Hook {
+        private static final MethodType SPREAD_TYPE = MethodType.methodType(void.class, Object[].class);
+
+        /**
+         * (Object[])void，数组按回调方法的参数展开
+         */
+        private final MethodHandle handle;
+        private final int arity;
+        private final boolean argumentsAsArray;
+        private final Class<?> firstType;
+
+        private Hook(MethodHandle handle, int arity, boolean argumentsAsArray, Class<?> firstType) {
+            this.handle = handle;
+            this.arity = arity;
+            this.argumentsAsArray = argumentsAsArray;
+            this.firstType = firstType;
+        }
+
+        static Hook of(Object instance, Method method) {
+            if (method == null) {
+                return null;
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = MethodHandles.lookup().unreflect(method);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    if (instance == null) {
+                        throw new IllegalStateException("Notify instance is null for method " + method);
+                    }
+                    handle = handle.bindTo(instance);
+                }
+                Class<?>[] types = method.getParameterTypes();
+                handle = handle.asSpreader(Object[].class, types.length).asType(SPREAD_TYPE);
+                boolean argumentsAsArray = types.length == 2 && types[1].isAssignableFrom(Object[].class);
+                return new Hook(handle, types.length, argumentsAsArray, types.length > 0 ? types[0] : Object.class);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access notify method " + method, e);
+            }
+        }
+
+        /**
+         * onreturn/onthrow的参数: 第一个参数为返回值或异常，其余为调用参数
+         */
+        Object[] params(Object first, Object[] args) {
+            if (arity == 1) {
+                return new Object[]{first};
+            }
+            if (argumentsAsArray) {
+                return new Object[]{first, args};
+            }
+            Object[] params = new Object[arity];
+            params[0] = first;
+            System.arraycopy(args, 0, params, 1, Math.min(args.length, arity - 1));
+            return params;
+        }
+    }
+}
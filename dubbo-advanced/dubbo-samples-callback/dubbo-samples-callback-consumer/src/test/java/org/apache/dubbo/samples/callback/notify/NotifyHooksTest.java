@@ -0,0 +1,175 @@
+package org.apache.dubbo.samples.callback.notify;
+
+import org.apache.dubbo.rpc.model.AsyncMethodInfo;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * NotifyHooks 测试
+ * <p>
+ * 基准对比onreturn回调的三种执行方式的单次开销: 每次调用反射查找方法、
+ * 缓存Method后反射调用(内置future过滤器的做法)、缓存的MethodHandle。
+ */
+public class NotifyHooksTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotifyHooksTest.class);
+
+    private static final int CALLS = 2_000_000;
+    private static final Object[] ARGS = {"world"};
+
+    @Test
+    public void testParameterShapes() throws Throwable {
+        Recorder recorder = new Recorder();
+        NotifyHooks hooks = NotifyHooks.resolve(info(recorder, "onInvoke", "onReturnWithArgs", "onThrowIllegalState"));
+
+        hooks.fireInvoke(ARGS);
+        hooks.fireReturn("hello, world", ARGS);
+        assertTrue(hooks.fireThrow(new IllegalStateException("down"), ARGS));
+        // 异常类型与onthrow的第一个参数不匹配，不回调
+        assertFalse(hooks.fireThrow(new IllegalArgumentException("bad"), ARGS));
+        assertEquals(Arrays.asList("invoke:world", "return:hello, world:world", "throw:down:world"), recorder.calls);
+
+        recorder.calls.clear();
+        hooks = NotifyHooks.resolve(info(recorder, null, "onReturnOnly", "onThrowWithArray"));
+        assertFalse(hooks.hasOnInvoke());
+        hooks.fireInvoke(ARGS);
+        hooks.fireReturn("r", ARGS);
+        hooks.fireThrow(new RuntimeException("e"), ARGS);
+        assertEquals(Arrays.asList("return:r", "throw:e:[world]"), recorder.calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCallbackExceptionPropagates() throws Throwable {
+        Recorder recorder = new Recorder();
+        NotifyHooks.resolve(info(recorder, null, "onReturnFailing", null)).fireReturn("r", ARGS);
+    }
+
+    @Test
+    public void testNotifyOverheadPerCall() throws Throwable {
+        Recorder recorder = new Recorder();
+        recorder.record = false;
+        Method onReturn = Recorder.class.getMethod("onReturnWithArgs", String.class, String.class);
+        NotifyHooks hooks = NotifyHooks.resolve(info(recorder, null, "onReturnWithArgs", null));
+
+        // 预热
+        for (int i = 0; i < CALLS; i++) {
+            lookupEveryCall(recorder, "r");
+            reflective(recorder, onReturn, "r");
+            hooks.fireReturn("r", ARGS);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            lookupEveryCall(recorder, "r");
+        }
+        long lookupNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            reflective(recorder, onReturn, "r");
+        }
+        long reflectiveNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            hooks.fireReturn("r", ARGS);
+        }
+        long handleNanos = System.nanoTime() - begin;
+
+        logger.info("onreturn回调单次开销: 每次反射查找 {}ns, 缓存Method反射调用 {}ns, 缓存MethodHandle {}ns (count={})",
+                lookupNanos / CALLS, reflectiveNanos / CALLS, handleNanos / CALLS, recorder.count);
+        assertEquals(CALLS * 6L, recorder.count);
+        assertTrue(handleNanos < lookupNanos);
+    }
+
+    /**
+     * 每次调用按名称查找回调方法
+     */
+    private static void lookupEveryCall(Recorder target, Object result) throws Exception {
+        Method method = target.getClass().getMethod("onReturnWithArgs", String.class, String.class);
+        reflective(target, method, result);
+    }
+
+    /**
+     * 与内置future过滤器相同: 每次读取参数类型决定参数组织方式，再反射调用
+     */
+    private static void reflective(Object target, Method method, Object result) throws Exception {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] params;
+        if (types.length > 1) {
+            if (types.length == 2 && types[1].isAssignableFrom(Object[].class)) {
+                params = new Object[]{result, ARGS};
+            } else {
+                params = new Object[ARGS.length + 1];
+                params[0] = result;
+                System.arraycopy(ARGS, 0, params, 1, ARGS.length);
+            }
+        } else {
+            params = new Object[]{result};
+        }
+        method.invoke(target, params);
+    }
+
+    private static AsyncMethodInfo info(Object target, String onInvoke, String onReturn, String onThrow) {
+        AsyncMethodInfo info = new AsyncMethodInfo();
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(onInvoke)) {
+                info.setOninvokeInstance(target);
+                info.setOninvokeMethod(method);
+            } else if (method.getName().equals(onReturn)) {
+                info.setOnreturnInstance(target);
+                info.setOnreturnMethod(method);
+            } else if (method.getName().equals(onThrow)) {
+                info.setOnthrowInstance(target);
+                info.setOnthrowMethod(method);
+            }
+        }
+        return info;
+    }
+
+    public static class Recorder {
+        final List<String> calls = new ArrayList<>();
+        boolean record = true;
+        long count;
+
+        public void onInvoke(String name) {
+            add("invoke:" + name);
+        }
+
+        public void onReturnWithArgs(String result, String name) {
+            if (record) {
+                add("return:" + result + ":" + name);
+            } else {
+                count++;
+            }
+        }
+
+        public void onReturnOnly(String result) {
+            add("return:" + result);
+        }
+
+        public void onReturnFailing(String result) {
+            throw new IllegalStateException("callback failed");
+        }
+
+        public void onThrowIllegalState(IllegalStateException e, String name) {
+            add("throw:" + e.getMessage() + ":" + name);
+        }
+
+        public void onThrowWithArray(Throwable e, Object[] args) {
+            add("throw:" + e.getMessage() + ":" + Arrays.toString(args));
+        }
+
+        private void add(String call) {
+            calls.add(call);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.apache.dubbo.samples.callback.event;
+
+import java.io.Serializable;
+
+/**
+ * 推送给订阅者的事件
+ */
+public class Event implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 主题
+     */
+    private String topic;
+
+    /**
+     * 合并键，COALESCE策略下同一订阅者队列中相同key的事件只保留最新一条
+     */
+    private String key;
+
+    /**
+     * 主题内递增的序号
+     */
+    private long sequence;
+
+    private String payload;
+
+    /**
+     * 发布时间(毫秒)
+     */
+    private long timestamp;
+
+    public Event() {
+    }
+
+    public Event(String topic, String key, long sequence, String payload, long timestamp) {
+        this.topic = topic;
+        this.key = key;
+        this.sequence = sequence;
+        this.payload = payload;
+        this.timestamp = timestamp;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Event{topic=" + topic + ", key=" + key + ", sequence=" + sequence + ", payload=" + payload + "}";
+    }
+}
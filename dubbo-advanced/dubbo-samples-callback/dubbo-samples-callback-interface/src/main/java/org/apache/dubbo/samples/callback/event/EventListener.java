@@ -0,0 +1,25 @@
+package org.apache.dubbo.samples.callback.event;
+
+import java.util.List;
+
+/**
+ * 事件回调接口
+ * <p>
+ * 由消费者实现，作为参数回调传给 {@link EventService#subscribe}，服务端通过回调代理反向调用消费者。
+ */
+public interface EventListener {
+
+    void onEvent(Event event);
+
+    /**
+     * 批量推送，服务端开启批量投递时一次回调送达多个事件。
+     * 默认逐个交给 {@link #onEvent}，消费者可以覆盖以批量处理。
+     *
+     * @param events 按发布顺序排列的事件
+     */
+    default void onEvents(List<Event> events) {
+        for (Event event : events) {
+            onEvent(event);
+        }
+    }
+}
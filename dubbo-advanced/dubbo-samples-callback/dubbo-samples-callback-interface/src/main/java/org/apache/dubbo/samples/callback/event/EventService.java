@@ -0,0 +1,36 @@
+package org.apache.dubbo.samples.callback.event;
+
+/**
+ * 订阅/推送服务
+ * <p>
+ * subscribe的第二个参数配置为回调参数(callback="true")，同一个listener实例在同一连接上对应服务端的同一个回调代理；
+ * unsubscribe的第二个参数配置为 callback="false"，服务端拿到同一个代理后销毁它，消费者一端取消导出。
+ */
+public interface EventService {
+
+    /**
+     * 订阅主题
+     *
+     * @param topic    主题
+     * @param listener 事件回调
+     */
+    void subscribe(String topic, EventListener listener);
+
+    /**
+     * 取消订阅
+     *
+     * @param topic    主题
+     * @param listener 订阅时使用的事件回调
+     */
+    void unsubscribe(String topic, EventListener listener);
+
+    /**
+     * 向主题发布事件
+     *
+     * @param topic   主题
+     * @param key     合并键
+     * @param payload 内容
+     * @return 事件序号
+     */
+    long publish(String topic, String key, String payload);
+}
@@ -0,0 +1,59 @@
+package org.apache.dubbo.samples.callback.impl;
+
+import org.apache.dubbo.samples.callback.event.EventListener;
+import org.apache.dubbo.samples.callback.event.EventService;
+import org.apache.dubbo.samples.callback.push.EventBroker;
+import org.apache.dubbo.samples.callback.push.SlowConsumerPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 订阅/推送服务实现
+ * <p>
+ * listener 是Dubbo根据回调参数生成的代理，调用它即反向调用消费者；实际投递交给 {@link EventBroker}。
+ */
+public class EventServiceImpl implements EventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventServiceImpl.class);
+
+    private final EventBroker broker;
+
+    public EventServiceImpl(int queueCapacity, String slowConsumerPolicy, int deliveryThreads) {
+        this(queueCapacity, slowConsumerPolicy, deliveryThreads, 1, 0, 0);
+    }
+
+    /**
+     * 批量投递，batchSize不大于1时逐个事件回调
+     */
+    public EventServiceImpl(int queueCapacity, String slowConsumerPolicy, int deliveryThreads,
+                            int batchSize, long minWindowMicros, long maxWindowMicros) {
+        this.broker = new EventBroker(queueCapacity, SlowConsumerPolicy.parse(slowConsumerPolicy), deliveryThreads,
+                batchSize, minWindowMicros, maxWindowMicros);
+    }
+
+    @Override
+    public void subscribe(String topic, EventListener listener) {
+        broker.subscribe(topic, listener);
+        logger.info("订阅主题: {}, 当前订阅数: {}", topic, broker.getSubscriberCount(topic));
+    }
+
+    @Override
+    public void unsubscribe(String topic, EventListener listener) {
+        broker.unsubscribe(topic, listener);
+        logger.info("取消订阅主题: {}, 当前订阅数: {}", topic, broker.getSubscriberCount(topic));
+    }
+
+    @Override
+    public long publish(String topic, String key, String payload) {
+        return broker.publish(topic, key, payload);
+    }
+
+    public EventBroker getBroker() {
+        return broker;
+    }
+
+    public void destroy() {
+        logger.info("事件推送统计: {}", broker.metrics());
+        broker.shutdown();
+    }
+}
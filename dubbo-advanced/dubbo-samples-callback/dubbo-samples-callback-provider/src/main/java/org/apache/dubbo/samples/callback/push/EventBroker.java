@@ -0,0 +1,339 @@
+package org.apache.dubbo.samples.callback.push;
+
+import org.apache.dubbo.samples.callback.event.Event;
+import org.apache.dubbo.samples.callback.event.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件分发
+ * <p>
+ * 发布线程只把事件放入各订阅者的有界队列，不等待回调；
+ * 投递由固定大小的线程池完成，线程数与订阅者数量无关。
+ * 每个订阅者同一时刻最多一个投递任务，单次最多投递 {@link #MAX_DRAIN} 个事件后让出线程，
+ * 避免个别订阅者长时间占用投递线程。
+ * <p>
+ * 慢订阅者的队列满时按 {@link SlowConsumerPolicy} 处理；回调失败(例如消费者已断开连接)时移除订阅。
+ * <p>
+ * maxBatchSize大于1时开启批量投递: 事件先在订阅者队列中按时间窗口或数量攒批，
+ * 一批事件通过一次 {@link EventListener#onEvents} 回调送达。窗口随该订阅者的回调耗时自适应，
+ * 见 {@link Subscriber#windowNanos}。
+ */
+public class EventBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBroker.class);
+
+    static final int MAX_DRAIN = 64;
+
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final ThreadPoolExecutor deliveryExecutor;
+
+    private final int maxBatchSize;
+    private final long minWindowNanos;
+    private final long maxWindowNanos;
+    private final ScheduledThreadPoolExecutor windowTimer;
+
+    private final ConcurrentMap<String, CopyOnWriteArrayList<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder callbacks = new LongAdder();
+
+    /**
+     * 逐个事件回调
+     */
+    public EventBroker(int queueCapacity, SlowConsumerPolicy policy, int deliveryThreads) {
+        this(queueCapacity, policy, deliveryThreads, 1, 0, 0);
+    }
+
+    /**
+     * @param maxBatchSize      每次回调最多携带的事件数，不大于1时逐个事件回调
+     * @param minWindowMicros   批量窗口下限(微秒)
+     * @param maxWindowMicros   批量窗口上限(微秒)
+     */
+    public EventBroker(int queueCapacity, SlowConsumerPolicy policy, int deliveryThreads,
+                       int maxBatchSize, long minWindowMicros, long maxWindowMicros) {
+        if (queueCapacity <= 0 || deliveryThreads <= 0) {
+            throw new IllegalArgumentException("queueCapacity and deliveryThreads must be positive");
+        }
+        if (minWindowMicros < 0 || maxWindowMicros < minWindowMicros) {
+            throw new IllegalArgumentException("window must satisfy 0 <= min <= max");
+        }
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.minWindowNanos = TimeUnit.MICROSECONDS.toNanos(minWindowMicros);
+        this.maxWindowNanos = TimeUnit.MICROSECONDS.toNanos(maxWindowMicros);
+        if (isBatching()) {
+            this.windowTimer = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "EventBatchWindow");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.windowTimer.setRemoveOnCancelPolicy(true);
+        } else {
+            this.windowTimer = null;
+        }
+        AtomicInteger index = new AtomicInteger();
+        // 每个订阅者最多一个待执行的投递任务，任务队列长度不会超过订阅者数量
+        this.deliveryExecutor = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "EventDelivery-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 订阅；同一个listener重复订阅同一主题时忽略
+     */
+    public void subscribe(String topic, EventListener listener) {
+        CopyOnWriteArrayList<Subscriber> subscribers = topics.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>());
+        synchronized (subscribers) {
+            if (find(subscribers, listener) == null) {
+                subscribers.add(new Subscriber(topic, listener, policy, queueCapacity));
+            }
+        }
+    }
+
+    public void unsubscribe(String topic, EventListener listener) {
+        CopyOnWriteArrayList<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        Subscriber subscriber;
+        synchronized (subscribers) {
+            subscriber = find(subscribers, listener);
+            if (subscriber != null) {
+                subscribers.remove(subscriber);
+            }
+        }
+        if (subscriber != null) {
+            subscriber.close();
+        }
+    }
+
+    /**
+     * 发布事件，只入队不等待投递
+     *
+     * @return 事件序号
+     */
+    public long publish(String topic, String key, String payload) {
+        long sequence = sequences.computeIfAbsent(topic, t -> new AtomicLong()).incrementAndGet();
+        Event event = new Event(topic, key, sequence, payload, System.currentTimeMillis());
+        published.increment();
+
+        List<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) {
+            return sequence;
+        }
+        for (Subscriber subscriber : subscribers) {
+            switch (subscriber.offer(event)) {
+                case Subscriber.COALESCED:
+                    coalesced.increment();
+                    break;
+                case Subscriber.DROPPED_OLDEST:
+                    dropped.increment();
+                    break;
+                case Subscriber.REJECTED:
+                    if (remove(subscriber)) {
+                        disconnected.increment();
+                        logger.warn("Subscriber of topic {} is too slow, disconnected. queue capacity: {}",
+                                topic, queueCapacity);
+                    }
+                    continue;
+                default:
+            }
+            schedule(subscriber, false);
+        }
+        return sequence;
+    }
+
+    public int getSubscriberCount(String topic) {
+        List<Subscriber> subscribers = topics.get(topic);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDisconnectedCount() {
+        return disconnected.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 回调次数，批量投递时一次回调包含多个事件
+     */
+    public long getCallbackCount() {
+        return callbacks.sum();
+    }
+
+    public boolean isBatching() {
+        return maxBatchSize > 1;
+    }
+
+    public String metrics() {
+        return "policy=" + policy
+                + ", queueCapacity=" + queueCapacity
+                + ", maxBatchSize=" + maxBatchSize
+                + ", published=" + published.sum()
+                + ", delivered=" + delivered.sum()
+                + ", dropped=" + dropped.sum()
+                + ", coalesced=" + coalesced.sum()
+                + ", disconnected=" + disconnected.sum()
+                + ", failed=" + failed.sum()
+                + ", callbacks=" + callbacks.sum();
+    }
+
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+        if (windowTimer != null) {
+            windowTimer.shutdownNow();
+        }
+    }
+
+    /**
+     * @param immediate 为true时不等待批量窗口，用于上一批投递完成后仍有积压的情况
+     */
+    private void schedule(Subscriber subscriber, boolean immediate) {
+        if (!subscriber.trySchedule()) {
+            // 已有投递任务；如果它还在等待窗口且已攒够一批，提前发送
+            if (isBatching() && subscriber.size() >= maxBatchSize && subscriber.cancelDelay()) {
+                deliveryExecutor.execute(() -> drain(subscriber));
+            }
+            return;
+        }
+        if (!isBatching() || immediate || subscriber.size() >= maxBatchSize) {
+            deliveryExecutor.execute(() -> drain(subscriber));
+            return;
+        }
+        subscriber.markDelayed();
+        windowTimer.schedule(() -> {
+            if (subscriber.cancelDelay()) {
+                deliveryExecutor.execute(() -> drain(subscriber));
+            }
+        }, subscriber.windowNanos(minWindowNanos, maxWindowNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private void drain(Subscriber subscriber) {
+        int max = isBatching() ? maxBatchSize : MAX_DRAIN;
+        Event[] batch = new Event[max];
+        try {
+            int count = subscriber.poll(batch, max);
+            if (isBatching()) {
+                deliverBatch(subscriber, batch, count);
+            } else {
+                deliverOneByOne(subscriber, batch, count);
+            }
+        } catch (RuntimeException e) {
+            failed.increment();
+            if (remove(subscriber)) {
+                logger.warn("Failed to notify subscriber of topic {}, unsubscribed: {}", subscriber.getTopic(), e.toString());
+            }
+            return;
+        } finally {
+            subscriber.unschedule();
+        }
+        // 还有剩余事件，或解除调度标记前又有事件入队
+        if (!subscriber.isEmpty()) {
+            schedule(subscriber, true);
+        }
+    }
+
+    /**
+     * 回调前先计数，等回调返回的一方读到的计数已包含本次投递；回调失败时撤回送达数
+     */
+    private void deliverOneByOne(Subscriber subscriber, Event[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            if (subscriber.isClosed()) {
+                return;
+            }
+            callbacks.increment();
+            recordDelivered(subscriber, 1);
+            try {
+                subscriber.getListener().onEvent(batch[i]);
+            } catch (RuntimeException e) {
+                recordDelivered(subscriber, -1);
+                throw e;
+            }
+        }
+    }
+
+    private void deliverBatch(Subscriber subscriber, Event[] batch, int count) {
+        if (count == 0 || subscriber.isClosed()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(batch[i]);
+        }
+        // 与逐个回调一样先计数，回调失败时撤回送达数
+        callbacks.increment();
+        recordDelivered(subscriber, count);
+        long begin = System.nanoTime();
+        try {
+            subscriber.getListener().onEvents(events);
+        } catch (RuntimeException e) {
+            recordDelivered(subscriber, -count);
+            throw e;
+        }
+        subscriber.recordRtt(System.nanoTime() - begin);
+    }
+
+    private void recordDelivered(Subscriber subscriber, int count) {
+        subscriber.recordDelivered(count);
+        delivered.add(count);
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        subscriber.close();
+        CopyOnWriteArrayList<Subscriber> subscribers = topics.get(subscriber.getTopic());
+        return subscribers != null && subscribers.remove(subscriber);
+    }
+
+    private static Subscriber find(List<Subscriber> subscribers, EventListener listener) {
+        for (Subscriber subscriber : subscribers) {
+            // 回调代理的equals比较的是invoker，同一个代理实例直接按引用匹配
+            if (subscriber.getListener() == listener || subscriber.getListener().equals(listener)) {
+                return subscriber;
+            }
+        }
+        return null;
+    }
+}
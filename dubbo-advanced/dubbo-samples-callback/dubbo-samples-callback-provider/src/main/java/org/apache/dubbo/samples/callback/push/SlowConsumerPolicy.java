@@ -0,0 +1,29 @@
+package org.apache.dubbo.samples.callback.push;
+
+/**
+ * 订阅者出站队列满时的处理策略
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * 丢弃队列中最旧的事件
+     */
+    DROP_OLDEST,
+
+    /**
+     * 相同合并键的事件只保留最新一条；队列仍满时丢弃最旧的事件
+     */
+    COALESCE,
+
+    /**
+     * 断开订阅，释放队列
+     */
+    DISCONNECT;
+
+    public static SlowConsumerPolicy parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return DROP_OLDEST;
+        }
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,211 @@
+package org.apache.dubbo.samples.callback.push;
+
+import org.apache.dubbo.samples.callback.event.Event;
+import org.apache.dubbo.samples.callback.event.EventListener;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个订阅者及其有界出站队列
+ * <p>
+ * 发布线程只负责入队，投递由 {@link EventBroker} 的投递线程池完成；
+ * 每个订阅者同一时刻最多只有一个投递任务，保证事件按入队顺序送达。
+ */
+final class Subscriber {
+
+    private final String topic;
+    private final EventListener listener;
+    private final SlowConsumerPolicy policy;
+    private final int capacity;
+
+    /**
+     * DROP_OLDEST / DISCONNECT 使用
+     */
+    private final ArrayDeque<Event> queue;
+
+    /**
+     * COALESCE 使用，按首次入队的顺序保存每个合并键的最新事件
+     */
+    private final LinkedHashMap<Object, Event> latest;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean delayed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * 批量回调耗时的指数移动平均(纳秒)，0表示还没有样本；同一时刻只有一个投递任务写入
+     */
+    private volatile long rttNanos;
+
+    private long delivered;
+    private long dropped;
+    private long coalesced;
+
+    Subscriber(String topic, EventListener listener, SlowConsumerPolicy policy, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.topic = topic;
+        this.listener = listener;
+        this.policy = policy;
+        this.capacity = capacity;
+        if (policy == SlowConsumerPolicy.COALESCE) {
+            this.queue = null;
+            this.latest = new LinkedHashMap<>();
+        } else {
+            this.queue = new ArrayDeque<>(Math.min(capacity, 64));
+            this.latest = null;
+        }
+    }
+
+    static final int ENQUEUED = 0;
+    static final int COALESCED = 1;
+    static final int DROPPED_OLDEST = 2;
+    static final int REJECTED = 3;
+
+    /**
+     * 入队
+     *
+     * @return 入队结果；REJECTED 表示队列已满且策略为DISCONNECT，订阅者需要断开
+     */
+    synchronized int offer(Event event) {
+        if (closed) {
+            return REJECTED;
+        }
+        if (latest != null) {
+            Object key = event.getKey() != null ? event.getKey() : new Object();
+            if (latest.put(key, event) != null) {
+                coalesced++;
+                return COALESCED;
+            }
+            if (latest.size() > capacity) {
+                Iterator<Event> oldest = latest.values().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped++;
+                return DROPPED_OLDEST;
+            }
+            return ENQUEUED;
+        }
+        if (queue.size() >= capacity) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                return REJECTED;
+            }
+            queue.pollFirst();
+            queue.addLast(event);
+            dropped++;
+            return DROPPED_OLDEST;
+        }
+        queue.addLast(event);
+        return ENQUEUED;
+    }
+
+    /**
+     * 取出最多max个待投递事件
+     *
+     * @return 取出的数量
+     */
+    synchronized int poll(Event[] batch, int max) {
+        int n = 0;
+        if (latest != null) {
+            Iterator<Map.Entry<Object, Event>> it = latest.entrySet().iterator();
+            while (n < max && it.hasNext()) {
+                batch[n++] = it.next().getValue();
+                it.remove();
+            }
+        } else {
+            Event event;
+            while (n < max && (event = queue.pollFirst()) != null) {
+                batch[n++] = event;
+            }
+        }
+        return n;
+    }
+
+    synchronized boolean isEmpty() {
+        return latest != null ? latest.isEmpty() : queue.isEmpty();
+    }
+
+    synchronized int size() {
+        return latest != null ? latest.size() : queue.size();
+    }
+
+    synchronized void close() {
+        closed = true;
+        if (latest != null) {
+            latest.clear();
+        } else {
+            queue.clear();
+        }
+    }
+
+    synchronized void recordDelivered(int count) {
+        delivered += count;
+    }
+
+    /**
+     * 投递任务调度标记，入队后由false变为true的线程负责提交投递任务
+     */
+    boolean trySchedule() {
+        return !closed && scheduled.compareAndSet(false, true);
+    }
+
+    void unschedule() {
+        scheduled.set(false);
+    }
+
+    /**
+     * 标记当前的投递任务在等待批量窗口
+     */
+    void markDelayed() {
+        delayed.set(true);
+    }
+
+    /**
+     * 结束等待，窗口到期或提前攒够一批时由其中一方调用成功后提交投递
+     */
+    boolean cancelDelay() {
+        return delayed.compareAndSet(true, false);
+    }
+
+    void recordRtt(long nanos) {
+        long current = rttNanos;
+        rttNanos = current == 0 ? nanos : current - (current >> 3) + (nanos >> 3);
+    }
+
+    /**
+     * 批量窗口: 取回调耗时的一半，限制在[min, max]之间。
+     * 回调耗时短时窗口小，延迟低；消费者慢时窗口变大，每次回调带更多事件。
+     */
+    long windowNanos(long minNanos, long maxNanos) {
+        return Math.max(minNanos, Math.min(maxNanos, rttNanos >> 1));
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    EventListener getListener() {
+        return listener;
+    }
+
+    synchronized long getDelivered() {
+        return delivered;
+    }
+
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    synchronized long getCoalesced() {
+        return coalesced;
+    }
+}
@@ -0,0 +1,199 @@
+package org.apache.dubbo.samples.callback.push;
+
+import org.apache.dubbo.samples.callback.event.Event;
+import org.apache.dubbo.samples.callback.event.EventListener;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量投递测试
+ * <p>
+ * 对比基准中每次回调先把参数做一次JDK序列化，模拟每个回调请求的编码和帧开销，
+ * 比较逐个事件回调与批量回调的吞吐量和进程CPU时间。
+ */
+public class BatchedDeliveryTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchedDeliveryTest.class);
+
+    private EventBroker broker;
+
+    @After
+    public void tearDown() {
+        if (broker != null) {
+            broker.shutdown();
+        }
+    }
+
+    @Test
+    public void testEventsAccumulatedWithinWindow() throws InterruptedException {
+        broker = new EventBroker(1024, SlowConsumerPolicy.DROP_OLDEST, 1, 256, 50_000, 50_000);
+        RecordingListener listener = new RecordingListener(50);
+        broker.subscribe("t", listener);
+        for (int i = 0; i < 50; i++) {
+            broker.publish("t", null, "p" + i);
+        }
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listener.batchSizes.size());
+        assertEquals(50, (int) listener.batchSizes.get(0));
+        assertEquals(1, broker.getCallbackCount());
+    }
+
+    @Test
+    public void testFullBatchSentBeforeWindowExpires() throws InterruptedException {
+        broker = new EventBroker(1024, SlowConsumerPolicy.DROP_OLDEST, 1, 10, 10_000_000, 10_000_000);
+        RecordingListener listener = new RecordingListener(10);
+        broker.subscribe("t", listener);
+        for (int i = 0; i < 10; i++) {
+            broker.publish("t", null, "p" + i);
+        }
+        // 窗口为10秒，攒够10个后应立即发送
+        assertTrue(listener.done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWindowAdaptsToRoundTrip() {
+        Subscriber subscriber = new Subscriber("t", event -> {
+        }, SlowConsumerPolicy.DROP_OLDEST, 16);
+        long min = TimeUnit.MICROSECONDS.toNanos(200);
+        long max = TimeUnit.MILLISECONDS.toNanos(5);
+        assertEquals(min, subscriber.windowNanos(min, max));
+
+        for (int i = 0; i < 50; i++) {
+            subscriber.recordRtt(TimeUnit.MILLISECONDS.toNanos(4));
+        }
+        long window = subscriber.windowNanos(min, max);
+        assertTrue(window > TimeUnit.MICROSECONDS.toNanos(1900) && window <= TimeUnit.MILLISECONDS.toNanos(2));
+
+        for (int i = 0; i < 50; i++) {
+            subscriber.recordRtt(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertEquals(max, subscriber.windowNanos(min, max));
+
+        for (int i = 0; i < 100; i++) {
+            subscriber.recordRtt(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        assertEquals(min, subscriber.windowNanos(min, max));
+    }
+
+    @Test
+    public void testThroughputAndCpuComparedWithPerEvent() throws InterruptedException {
+        int subscribers = 20;
+        int events = 20_000;
+        // 预热
+        run(new EventBroker(events, SlowConsumerPolicy.DROP_OLDEST, 2), subscribers, 2_000);
+        run(new EventBroker(events, SlowConsumerPolicy.DROP_OLDEST, 2, 256, 200, 5_000), subscribers, 2_000);
+
+        long[] perEvent = run(new EventBroker(events, SlowConsumerPolicy.DROP_OLDEST, 2), subscribers, events);
+        long[] batched = run(new EventBroker(events, SlowConsumerPolicy.DROP_OLDEST, 2, 256, 200, 5_000),
+                subscribers, events);
+
+        long deliveries = (long) subscribers * events;
+        logger.info("{}个订阅者 x {}个事件: 逐个回调 {}个事件/秒 CPU {}ms 回调{}次; 批量回调 {}个事件/秒 CPU {}ms 回调{}次",
+                subscribers, events,
+                deliveries * 1_000_000_000L / perEvent[0], TimeUnit.NANOSECONDS.toMillis(perEvent[1]), perEvent[2],
+                deliveries * 1_000_000_000L / batched[0], TimeUnit.NANOSECONDS.toMillis(batched[1]), batched[2]);
+        assertEquals(deliveries, perEvent[2]);
+        assertTrue(batched[2] * 10 < perEvent[2]);
+        assertTrue("批量回调的CPU时间应更少", batched[1] < perEvent[1]);
+    }
+
+    /**
+     * @return {耗时纳秒, 进程CPU纳秒, 回调次数}
+     */
+    private static long[] run(EventBroker broker, int subscribers, int events) throws InterruptedException {
+        try {
+            CountDownLatch done = new CountDownLatch(subscribers * events);
+            for (int i = 0; i < subscribers; i++) {
+                broker.subscribe("bench", new EncodingListener(done));
+            }
+            long cpuBegin = processCpuNanos();
+            long begin = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                broker.publish("bench", null, "payload-" + i);
+            }
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            assertEquals(0, broker.getDroppedCount());
+            return new long[]{System.nanoTime() - begin, processCpuNanos() - cpuBegin, broker.getCallbackCount()};
+        } finally {
+            broker.shutdown();
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * 每次回调序列化一次参数，模拟回调请求的编码开销
+     */
+    private static class EncodingListener implements EventListener {
+        private final CountDownLatch done;
+        private final LongAdder bytes = new LongAdder();
+
+        EncodingListener(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            bytes.add(encode(event));
+            done.countDown();
+        }
+
+        @Override
+        public void onEvents(List<Event> events) {
+            bytes.add(encode(events));
+            for (int i = 0; i < events.size(); i++) {
+                done.countDown();
+            }
+        }
+
+        private static int encode(Object value) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bos.size();
+        }
+    }
+
+    private static class RecordingListener implements EventListener {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final CountDownLatch done;
+
+        RecordingListener(int expected) {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            onEvents(Collections.singletonList(event));
+        }
+
+        @Override
+        public void onEvents(List<Event> events) {
+            batchSizes.add(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.apache.dubbo.samples.callback.push;
+
+import org.apache.dubbo.samples.callback.event.Event;
+import org.apache.dubbo.samples.callback.event.EventListener;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * EventBroker 测试
+ * <p>
+ * 慢订阅者策略使用阻塞的回调模拟；推送基准在进程内注册1k/10k个回调，
+ * 统计每秒送达的事件数和每个订阅者从发布到收到事件的延迟。
+ */
+public class EventBrokerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBrokerTest.class);
+
+    private EventBroker broker;
+
+    @After
+    public void tearDown() {
+        if (broker != null) {
+            broker.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        broker = new EventBroker(4, SlowConsumerPolicy.DROP_OLDEST, 1);
+        BlockingListener listener = new BlockingListener();
+        broker.subscribe("t", listener);
+
+        broker.publish("t", null, "p1");
+        assertTrue(listener.inFlight.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 20; i++) {
+            broker.publish("t", null, "p" + i);
+        }
+        listener.release.countDown();
+        listener.awaitReceived(5);
+
+        assertEquals(Arrays.asList(1L, 17L, 18L, 19L, 20L), listener.sequences());
+        assertEquals(15, broker.getDroppedCount());
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        broker = new EventBroker(4, SlowConsumerPolicy.COALESCE, 1);
+        BlockingListener listener = new BlockingListener();
+        broker.subscribe("t", listener);
+
+        broker.publish("t", "a", "a0");
+        assertTrue(listener.inFlight.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            broker.publish("t", i % 2 == 0 ? "a" : "b", "v" + i);
+        }
+        listener.release.countDown();
+        listener.awaitReceived(3);
+
+        // 队列中每个key只保留最新一条，保持key首次入队的顺序
+        assertEquals(Arrays.asList(1L, 10L, 11L), listener.sequences());
+        assertEquals(8, broker.getCoalescedCount());
+        assertEquals(0, broker.getDroppedCount());
+    }
+
+    @Test
+    public void testDisconnect() throws InterruptedException {
+        broker = new EventBroker(2, SlowConsumerPolicy.DISCONNECT, 1);
+        BlockingListener listener = new BlockingListener();
+        broker.subscribe("t", listener);
+
+        broker.publish("t", null, "p1");
+        assertTrue(listener.inFlight.await(5, TimeUnit.SECONDS));
+        broker.publish("t", null, "p2");
+        broker.publish("t", null, "p3");
+        assertEquals(1, broker.getSubscriberCount("t"));
+        broker.publish("t", null, "p4");
+
+        assertEquals(0, broker.getSubscriberCount("t"));
+        assertEquals(1, broker.getDisconnectedCount());
+        listener.release.countDown();
+    }
+
+    @Test
+    public void testFailedListenerUnsubscribed() throws InterruptedException {
+        broker = new EventBroker(16, SlowConsumerPolicy.DROP_OLDEST, 1);
+        CountDownLatch called = new CountDownLatch(1);
+        broker.subscribe("t", event -> {
+            called.countDown();
+            throw new IllegalStateException("channel closed");
+        });
+        broker.publish("t", null, "p1");
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && broker.getSubscriberCount("t") > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broker.getSubscriberCount("t"));
+        assertEquals(1, broker.getFailedCount());
+    }
+
+    @Test
+    public void testSubscribeIdempotent() {
+        broker = new EventBroker(16, SlowConsumerPolicy.DROP_OLDEST, 1);
+        EventListener listener = event -> {
+        };
+        broker.subscribe("t", listener);
+        broker.subscribe("t", listener);
+        assertEquals(1, broker.getSubscriberCount("t"));
+        broker.unsubscribe("t", listener);
+        assertEquals(0, broker.getSubscriberCount("t"));
+    }
+
+    @Test
+    public void testFanOutThroughput() throws InterruptedException {
+        fanOut(1_000, 200);
+        fanOut(10_000, 20);
+    }
+
+    private void fanOut(int subscribers, int events) throws InterruptedException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        EventBroker broker = new EventBroker(events, SlowConsumerPolicy.DROP_OLDEST, threads);
+        try {
+            long[] publishNanos = new long[events + 1];
+            long[] latencies = new long[subscribers * events];
+            AtomicInteger index = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(subscribers * events);
+            for (int i = 0; i < subscribers; i++) {
+                broker.subscribe("bench", event -> {
+                    latencies[index.getAndIncrement()] = System.nanoTime() - publishNanos[(int) event.getSequence()];
+                    done.countDown();
+                });
+            }
+
+            long begin = System.nanoTime();
+            for (int i = 1; i <= events; i++) {
+                publishNanos[i] = System.nanoTime();
+                broker.publish("bench", null, "payload-" + i);
+            }
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            long elapsed = System.nanoTime() - begin;
+
+            Arrays.sort(latencies);
+            long deliveries = (long) subscribers * events;
+            logger.info("{}个订阅者 x {}个事件: 送达{}个, {}个事件/秒, 延迟 p50={}us p99={}us max={}us, {}",
+                    subscribers, events, deliveries, deliveries * 1_000_000_000L / elapsed,
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length * 99 / 100]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]),
+                    broker.metrics());
+            assertEquals(deliveries, broker.getDeliveredCount());
+            assertEquals(0, broker.getDroppedCount());
+        } finally {
+            broker.shutdown();
+        }
+    }
+
+    /**
+     * 第一次回调阻塞到release，用来制造积压
+     */
+    private static class BlockingListener implements EventListener {
+        final CountDownLatch inFlight = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Event> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onEvent(Event event) {
+            received.add(event);
+            inFlight.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void awaitReceived(int count) throws InterruptedException {
+            for (int i = 0; i < 500 && received.size() < count; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, received.size());
+        }
+
+        List<Long> sequences() {
+            List<Long> sequences = new ArrayList<>();
+            synchronized (received) {
+                for (Event event : received) {
+                    sequences.add(event.getSequence());
+                }
+            }
+            return sequences;
+        }
+    }
+}
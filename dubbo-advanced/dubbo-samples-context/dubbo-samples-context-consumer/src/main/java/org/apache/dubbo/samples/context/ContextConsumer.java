@@ -18,13 +18,15 @@
 package org.apache.dubbo.samples.context;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.context.param.ContextParams;
+import org.apache.dubbo.samples.context.param.ContextParamsCodec;
+import org.apache.dubbo.samples.context.trace.TraceIdGenerator;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -46,6 +48,9 @@ public class ContextConsumer {
     // 用于存储客户端本地上下文的Map（模拟ClientContext）
     private static final Map<String, Object> LOCAL_CONTEXT = new HashMap<>();
 
+    // 追踪ID生成器，不使用UUID.randomUUID()背后的SecureRandom
+    private static final TraceIdGenerator TRACE_ID_GENERATOR = TraceIdGenerator.getInstance();
+
     /**
      * 主方法：启动消费者并执行各种上下文传递测试
      */
@@ -66,6 +71,7 @@ public class ContextConsumer {
             testBasicInfo(contextService);
             testTrace(contextService);
             testCascadeCall(contextService);
+            testFanOutCascadeCall(contextService);
             testParameterPassing(contextService);
             testAsyncCall(contextService);
 
@@ -127,7 +133,7 @@ public class ContextConsumer {
         logger.info("======= 测试链路追踪场景 =======");
         try {
             // 1. 通过RpcContext隐式传递跟踪信息
-            String traceId = UUID.randomUUID().toString();
+            String traceId = TRACE_ID_GENERATOR.nextTraceId();
             String spanId = "1";
             RpcContext.getClientAttachment().setAttachment("traceId", traceId);
             RpcContext.getClientAttachment().setAttachment("spanId", spanId);
@@ -138,13 +144,13 @@ public class ContextConsumer {
 
             // 2. 通过方法参数显式传递跟踪信息
             Map<String, String> traceHeaders = new HashMap<>();
-            traceId = UUID.randomUUID().toString();
+            traceId = TRACE_ID_GENERATOR.nextTraceId();
             traceHeaders.put("traceId", traceId);
             traceHeaders.put("spanId", "1.0");
             traceHeaders.put("parentSpanId", "0");
             traceHeaders.put("samplingRate", "1.0");
             logger.info("发送跟踪请求（显式传递），TraceId: {}", traceId);
-            RpcContext.getClientAttachment().setAttachment("hiddenTraceId", "hidden-" + UUID.randomUUID().toString());
+            RpcContext.getClientAttachment().setAttachment("hiddenTraceId", "hidden-" + TRACE_ID_GENERATOR.nextTraceId());
             String explicitResult = contextService.trace("显式跟踪请求", traceHeaders);
             logger.info("显式跟踪结果: \n{}", explicitResult);
         } catch (Exception e) {
@@ -164,7 +170,7 @@ public class ContextConsumer {
         logger.info("======= 测试异步调用场景 =======");
 
         // 设置传递给服务方的附件
-        RpcContext.getClientAttachment().setAttachment("traceId", "ASYNC_" + UUID.randomUUID().toString());
+        RpcContext.getClientAttachment().setAttachment("traceId", "ASYNC_" + TRACE_ID_GENERATOR.nextTraceId());
         RpcContext.getClientAttachment().setAttachment("asyncMarker", "true");
         RpcContext.getClientAttachment().setAttachment("timestamp", String.valueOf(System.currentTimeMillis()));
 
@@ -208,7 +214,7 @@ public class ContextConsumer {
 
         try {
             // 设置级联调用的跟踪ID
-            String traceId = "CASCADE_" + UUID.randomUUID().toString();
+            String traceId = "CASCADE_" + TRACE_ID_GENERATOR.nextTraceId();
             RpcContext.getClientAttachment().setAttachment("traceId", traceId);
             RpcContext.getClientAttachment().setAttachment("spanId", "root");
             RpcContext.getClientAttachment().setAttachment("level", "1");
@@ -225,6 +231,37 @@ public class ContextConsumer {
         }
     }
 
+    /**
+     * 测试场景四(扩展)：并行扇出的级联调用
+     * 
+     * 服务端并行调用多个下游，按all/any/quorum合并结果，
+     * 每个下游调用携带相同的traceId和独立的子spanId
+     * 
+     * @param contextService 远程服务引用
+     */
+    private static void testFanOutCascadeCall(GreetingsService contextService) {
+        logger.info("======= 测试并行级联调用场景 =======");
+
+        try {
+            String traceId = "FANOUT_" + TRACE_ID_GENERATOR.nextTraceId();
+            RpcContext.getClientAttachment().setAttachment("traceId", traceId);
+            RpcContext.getClientAttachment().setAttachment("spanId", "root");
+            RpcContext.getClientAttachment().setAttachment("level", "1");
+            // 并行调用3个下游，2个成功即返回
+            RpcContext.getClientAttachment().setAttachment("fanOut", "3");
+            RpcContext.getClientAttachment().setAttachment("cascadeMode", "quorum");
+            RpcContext.getClientAttachment().setAttachment("quorum", "2");
+
+            logger.info("发起并行级联调用请求，TraceId: {}", traceId);
+            long start = System.currentTimeMillis();
+            String result = contextService.cascadeCall("并行级联调用请求", true);
+            logger.info("并行级联调用结果(耗时{}ms): \n{}", System.currentTimeMillis() - start, result);
+
+        } catch (Exception e) {
+            logger.error("并行级联调用失败", e);
+        }
+    }
+
     /**
      * 测试场景五：不同参数传递方式对比
      * 
@@ -257,6 +294,20 @@ public class ContextConsumer {
 
             logger.info("参数传递测试结果: \n{}", result);
 
+            // 3. 同样的显式参数使用紧凑编码传递，基本类型不装箱
+            ContextParams compactParams = new ContextParams()
+                    .putString("explicitParam1", "值1")
+                    .putInt("explicitParam2", 100)
+                    .putBoolean("explicitParam3", true);
+            byte[] encoded = ContextParamsCodec.encode(compactParams);
+            logger.info("紧凑编码显式参数: {}, 编码后{}字节", compactParams, encoded.length);
+
+            RpcContext.getClientAttachment().setAttachment("implicitParam1", "隐式值1");
+            RpcContext.getClientAttachment().setAttachment("implicitParam2", "隐式值2");
+            String compactResult = contextService.passCompactParameters("常规值", encoded);
+
+            logger.info("紧凑参数传递测试结果: \n{}", compactResult);
+
         } catch (Exception e) {
             logger.error("参数传递测试失败", e);
         }
@@ -0,0 +1,207 @@
+package org.apache.dubbo.samples.context.param;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ContextParamsCodec 测试
+ * <p>
+ * 对比10~100个参数时紧凑编码与HashMap经JDK序列化后的体积和编解码耗时。
+ */
+public class ContextParamsCodecTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextParamsCodecTest.class);
+
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    public void testRoundTrip() {
+        ContextParams params = new ContextParams(2)
+                .putLong("userId", -123456789012L)
+                .putInt("retry", 3)
+                .putDouble("weight", 0.75)
+                .putBoolean("gray", true)
+                .putBoolean("debug", false)
+                .putString("region", "华东")
+                .put("missing", null);
+
+        ContextParams decoded = ContextParamsCodec.decode(ContextParamsCodec.encode(params));
+        assertEquals(params.toMap(), decoded.toMap());
+        assertEquals(-123456789012L, decoded.getLong("userId", 0));
+        assertEquals(3, decoded.getInt("retry", 0));
+        assertEquals(0.75, decoded.getDouble("weight", 0), 0);
+        assertTrue(decoded.getBoolean("gray", false));
+        assertEquals("华东", decoded.getString("region"));
+        assertTrue(decoded.containsKey("missing"));
+        // 解码后的参数名已驻留
+        assertSame(params.keyAt(0), decoded.keyAt(0));
+
+        assertEquals("  weight: 0.75", decoded.appendValueTo(2, new StringBuilder("  weight: ")).toString());
+        assertEquals(0, ContextParamsCodec.decode(null).size());
+    }
+
+    @Test
+    public void testNullValues() {
+        // 只存过null值时对象数组还没有分配
+        assertNull(new ContextParams().putString("s", null).getString("s"));
+        assertNull(new ContextParams().put("o", null).get("o"));
+        assertEquals("null", new ContextParams().putString("s", null).appendValueTo(0, new StringBuilder()).toString());
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("k", null);
+        assertEquals(map, ContextParams.fromMap(map).toMap());
+
+        ContextParams decoded = ContextParamsCodec.decode(ContextParamsCodec.encode(new ContextParams().put("k", null)));
+        assertTrue(decoded.containsKey("k"));
+        assertNull(decoded.get("k"));
+        assertEquals(map, decoded.toMap());
+    }
+
+    @Test
+    public void testRejectsObjectValues() {
+        try {
+            ContextParamsCodec.encode(new ContextParams().put("amount", new BigDecimal("12.50")));
+            fail("不支持的类型不应编码");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("java.math.BigDecimal"));
+        }
+        // 解码不接受对象类型标记，不会对网络字节做反序列化
+        byte[] withObjectTag = {ContextParamsCodec.VERSION, 2, 2, 'k', 7, 0};
+        try {
+            ContextParamsCodec.decode(withObjectTag);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().startsWith("Unknown context param tag"));
+        }
+    }
+
+    @Test
+    public void testRejectsIllegalSize() {
+        // 几个字节声明Integer.MAX_VALUE个参数，不应按声明的个数分配数组
+        byte[] hugeSize = {ContextParamsCodec.VERSION, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 0};
+        byte[] negativeSize = {ContextParamsCodec.VERSION, 1};
+        for (byte[] bytes : new byte[][]{hugeSize, negativeSize}) {
+            try {
+                ContextParamsCodec.decode(bytes);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Illegal context params size"));
+            }
+        }
+    }
+
+    @Test
+    public void testMapCompatibility() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("explicitParam1", "值1");
+        map.put("explicitParam2", 100);
+        map.put("explicitParam3", true);
+        ContextParams params = ContextParams.fromMap(map);
+        assertEquals(map, params.toMap());
+
+        params.putInt("explicitParam2", 200);
+        assertEquals(3, params.size());
+        assertEquals(200, params.get("explicitParam2"));
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        byte[] encoded = ContextParamsCodec.encode(new ContextParams().putString("key", "value"));
+        byte[] truncated = new byte[encoded.length - 2];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        try {
+            ContextParamsCodec.decode(truncated);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void testSmallerAndFasterThanSerializedMap() throws Exception {
+        for (int count : new int[]{10, 50, 100}) {
+            Map<String, Object> map = sampleParams(count);
+            ContextParams params = ContextParams.fromMap(map);
+
+            byte[] compact = ContextParamsCodec.encode(params);
+            byte[] jdk = serialize(map);
+
+            // 预热
+            long checksum = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                checksum += ContextParamsCodec.decode(ContextParamsCodec.encode(params)).size();
+            }
+            for (int i = 0; i < ROUNDS / 10; i++) {
+                checksum += ((Map<?, ?>) deserialize(serialize(map))).size();
+            }
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                checksum += ContextParamsCodec.decode(ContextParamsCodec.encode(params)).size();
+            }
+            long compactNanos = (System.nanoTime() - begin) / ROUNDS;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS / 10; i++) {
+                checksum += ((Map<?, ?>) deserialize(serialize(map))).size();
+            }
+            long jdkNanos = (System.nanoTime() - begin) / (ROUNDS / 10);
+
+            logger.info("{}个参数: 紧凑编码{}字节/编解码{}us, HashMap+JDK序列化{}字节/编解码{}us (checksum={})",
+                    count, compact.length, TimeUnit.NANOSECONDS.toMicros(compactNanos),
+                    jdk.length, TimeUnit.NANOSECONDS.toMicros(jdkNanos), checksum);
+            assertTrue(compact.length < jdk.length);
+            assertTrue(compactNanos < jdkNanos);
+        }
+    }
+
+    /**
+     * 模拟常见的上下文参数: 以数值和开关为主，少量字符串
+     */
+    private static Map<String, Object> sampleParams(int count) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    map.put("ctx.long." + i, 1_700_000_000_000L + i);
+                    break;
+                case 1:
+                    map.put("ctx.int." + i, i * 10);
+                    break;
+                case 2:
+                    map.put("ctx.flag." + i, i % 3 == 0);
+                    break;
+                default:
+                    map.put("ctx.str." + i, "value-" + i);
+            }
+        }
+        return map;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        }
+        return bos.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        }
+    }
+}
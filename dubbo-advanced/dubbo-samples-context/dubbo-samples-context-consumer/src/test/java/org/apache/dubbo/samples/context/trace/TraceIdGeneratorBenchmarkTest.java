@@ -0,0 +1,115 @@
+package org.apache.dubbo.samples.context.trace;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * TraceIdGenerator 基准测试
+ * <p>
+ * 32个线程同时生成ID，对比 UUID.randomUUID() 的吞吐量，并检查生成的ID没有重复。
+ */
+public class TraceIdGeneratorBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceIdGeneratorBenchmarkTest.class);
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    public void testFasterThanRandomUuidAt32Threads() throws InterruptedException {
+        TraceIdGenerator generator = TraceIdGenerator.getInstance();
+        // 预热
+        run(generator::nextTraceId, 10_000);
+        run(() -> UUID.randomUUID().toString(), 10_000);
+
+        long generatorNanos = run(generator::nextTraceId, IDS_PER_THREAD);
+        long uuidNanos = run(() -> UUID.randomUUID().toString(), IDS_PER_THREAD);
+        long total = (long) THREADS * IDS_PER_THREAD;
+        logger.info("{}线程生成{}个ID: TraceIdGenerator {}ms ({}万个/秒), UUID.randomUUID {}ms ({}万个/秒)",
+                THREADS, total,
+                TimeUnit.NANOSECONDS.toMillis(generatorNanos), throughput(total, generatorNanos),
+                TimeUnit.NANOSECONDS.toMillis(uuidNanos), throughput(total, uuidNanos));
+        assertTrue("TraceIdGenerator应明显快于UUID.randomUUID()", generatorNanos * 2 < uuidNanos);
+    }
+
+    @Test
+    public void testNoCollisionsAcrossThreads() throws InterruptedException {
+        TraceIdGenerator generator = TraceIdGenerator.getInstance();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        run(() -> {
+            String id = generator.nextTraceId();
+            assertTrue("重复的traceId: " + id, ids.add(id));
+            return id;
+        }, 10_000);
+        assertEquals(THREADS * 10_000, ids.size());
+    }
+
+    @Test
+    public void testNoCollisionsAcrossNodes() {
+        // 两个节点标识不同的生成器，序号相同也不会冲突
+        TraceIdGenerator node1 = new TraceIdGenerator(1L);
+        TraceIdGenerator node2 = new TraceIdGenerator(2L);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(node1.nextTraceId()));
+            assertTrue(ids.add(node2.nextTraceId()));
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        TraceIdGenerator generator = new TraceIdGenerator(0x0123456789abcdefL);
+        String traceId = generator.nextTraceId();
+        assertEquals(32, traceId.length());
+        assertEquals("0123456789abcdef0000000000000000", traceId);
+        assertEquals(16, generator.nextSpanId().length());
+        assertNotEquals(generator.nextSpanId(), generator.nextSpanId());
+
+        byte[] bytes = new byte[20];
+        generator.nextTraceId(bytes, 2);
+        assertEquals(0x01, bytes[2]);
+        assertEquals((byte) 0xef, bytes[9]);
+        // 之前已生成1个traceId和3个spanId，这是第5个序号
+        assertEquals(4, bytes[17]);
+    }
+
+    private static long throughput(long total, long nanos) {
+        return total * TimeUnit.SECONDS.toNanos(1) / nanos / 10_000;
+    }
+
+    private static long run(Supplier<String> idSupplier, int idsPerThread) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    int length = 0;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        length += idSupplier.get().length();
+                    }
+                    assertTrue(length > 0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        return System.nanoTime() - begin;
+    }
+}
@@ -65,4 +65,14 @@ public interface GreetingsService {
      * @return 包含参数信息的响应
      */
     String passParameters(String normalParam, Map<String, Object> contextParams);
+
+    /**
+     * 参数传递场景：显式上下文参数使用 {@link org.apache.dubbo.samples.context.param.ContextParamsCodec} 编码，
+     * 基本类型不装箱，序列化体积比Map小
+     *
+     * @param normalParam 常规参数
+     * @param contextParams 编码后的显式上下文参数
+     * @return 包含参数信息的响应
+     */
+    String passCompactParameters(String normalParam, byte[] contextParams);
 }
@@ -0,0 +1,307 @@
+package org.apache.dubbo.samples.context.param;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 上下文参数容器
+ * <p>
+ * 与 {@code Map<String, Object>} 相比:
+ * <ul>
+ *   <li>long/int/double/boolean 直接存放在long数组中，不装箱</li>
+ *   <li>参数名经过驻留，相同的参数名在进程内共享同一个String实例，查找时先按引用比较</li>
+ *   <li>配合 {@link ContextParamsCodec} 使用紧凑的二进制格式传输</li>
+ * </ul>
+ * 其他类型的值按对象保存，但不能经 {@link ContextParamsCodec} 编码；通过 {@link #fromMap} 和 {@link #toMap} 与Map互相转换，兼容原有接口。
+ * 非线程安全。
+ */
+public final class ContextParams {
+
+    static final byte LONG = 0;
+    static final byte INT = 1;
+    static final byte DOUBLE = 2;
+    static final byte BOOLEAN = 3;
+    static final byte STRING = 4;
+    static final byte OBJECT = 5;
+
+    private static final int MAX_INTERNED_KEYS = 4096;
+    private static final Map<String, String> INTERNED_KEYS = new ConcurrentHashMap<>();
+
+    private String[] keys;
+    private byte[] types;
+    private long[] primitives;
+    private Object[] objects;
+    private int size;
+
+    public ContextParams() {
+        this(8);
+    }
+
+    public ContextParams(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        keys = new String[capacity];
+        types = new byte[capacity];
+        primitives = new long[capacity];
+    }
+
+    /**
+     * 从Map转换，Long/Integer/Double/Boolean/String使用对应的类型槽位
+     */
+    public static ContextParams fromMap(Map<String, ?> map) {
+        ContextParams params = new ContextParams(map == null ? 0 : map.size());
+        if (map != null) {
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                params.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return params;
+    }
+
+    public ContextParams putLong(String key, long value) {
+        set(key, LONG, value, null);
+        return this;
+    }
+
+    public ContextParams putInt(String key, int value) {
+        set(key, INT, value, null);
+        return this;
+    }
+
+    public ContextParams putDouble(String key, double value) {
+        set(key, DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    public ContextParams putBoolean(String key, boolean value) {
+        set(key, BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    public ContextParams putString(String key, String value) {
+        set(key, STRING, 0, value);
+        return this;
+    }
+
+    /**
+     * 按值的实际类型放入对应槽位
+     */
+    public ContextParams put(String key, Object value) {
+        if (value instanceof Long) {
+            return putLong(key, (Long) value);
+        } else if (value instanceof Integer) {
+            return putInt(key, (Integer) value);
+        } else if (value instanceof Double) {
+            return putDouble(key, (Double) value);
+        } else if (value instanceof Boolean) {
+            return putBoolean(key, (Boolean) value);
+        } else if (value instanceof String) {
+            return putString(key, (String) value);
+        }
+        set(key, OBJECT, 0, value);
+        return this;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 && (types[i] == LONG || types[i] == INT) ? primitives[i] : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 && types[i] == INT ? (int) primitives[i] : defaultValue;
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 && types[i] == DOUBLE ? Double.longBitsToDouble(primitives[i]) : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 && types[i] == BOOLEAN ? primitives[i] != 0 : defaultValue;
+    }
+
+    public String getString(String key) {
+        int i = indexOf(key);
+        return i >= 0 && types[i] == STRING ? (String) objectAt(i) : null;
+    }
+
+    /**
+     * 按装箱后的对象取值，兼容Map的用法
+     */
+    public Object get(String key) {
+        int i = indexOf(key);
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String keyAt(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    /**
+     * 把第index个值追加到sb，基本类型不装箱
+     */
+    public StringBuilder appendValueTo(int index, StringBuilder sb) {
+        checkIndex(index);
+        switch (types[index]) {
+            case LONG:
+            case INT:
+                return sb.append(primitives[index]);
+            case DOUBLE:
+                return sb.append(Double.longBitsToDouble(primitives[index]));
+            case BOOLEAN:
+                return sb.append(primitives[index] != 0);
+            default:
+                return sb.append(objectAt(index));
+        }
+    }
+
+    /**
+     * 转换为Map，保持放入顺序
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], valueAt(i));
+        }
+        return map;
+    }
+
+    byte typeAt(int index) {
+        return types[index];
+    }
+
+    long primitiveAt(int index) {
+        return primitives[index];
+    }
+
+    /**
+     * 只存过null的字符串或对象时objects数组还没有分配
+     */
+    Object objectAt(int index) {
+        return objects == null ? null : objects[index];
+    }
+
+    /**
+     * 解码时直接追加，调用方保证参数名不重复
+     */
+    void append(String key, byte type, long primitive, Object object) {
+        ensureCapacity(size + 1);
+        keys[size] = intern(key);
+        types[size] = type;
+        primitives[size] = primitive;
+        if (object != null) {
+            objects()[size] = object;
+        }
+        size++;
+    }
+
+    private Object valueAt(int i) {
+        switch (types[i]) {
+            case LONG:
+                return primitives[i];
+            case INT:
+                return (int) primitives[i];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[i]);
+            case BOOLEAN:
+                return primitives[i] != 0;
+            default:
+                return objectAt(i);
+        }
+    }
+
+    private void set(String key, byte type, long primitive, Object object) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            append(key, type, primitive, object);
+            return;
+        }
+        types[i] = type;
+        primitives[i] = primitive;
+        if (object != null || objects != null) {
+            objects()[i] = object;
+        }
+    }
+
+    private int indexOf(String key) {
+        // 参数名已驻留，大多数情况下引用比较即可命中
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Object[] objects() {
+        if (objects == null) {
+            objects = new Object[keys.length];
+        }
+        return objects;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        primitives = Arrays.copyOf(primitives, newCapacity);
+        if (objects != null) {
+            objects = Arrays.copyOf(objects, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * 驻留参数名；驻留表有上限，超过后不再驻留，避免任意参数名撑大内存
+     */
+    static String intern(String key) {
+        String interned = INTERNED_KEYS.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED_KEYS.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        interned = INTERNED_KEYS.putIfAbsent(key, key);
+        return interned != null ? interned : key;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
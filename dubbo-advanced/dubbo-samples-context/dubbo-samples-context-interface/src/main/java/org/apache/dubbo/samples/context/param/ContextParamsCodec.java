@@ -0,0 +1,273 @@
+package org.apache.dubbo.samples.context.param;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link ContextParams} 的紧凑二进制编码
+ * <p>
+ * 格式: 版本(1字节) + 参数个数(varint) + 逐个参数[参数名长度(varint) + 参数名(UTF-8) + 类型标记(1字节) + 值]
+ * <ul>
+ *   <li>long/int 使用zigzag变长编码，小数值只占1~2字节</li>
+ *   <li>double 固定8字节</li>
+ *   <li>boolean 只占类型标记本身</li>
+ *   <li>String 为长度(varint) + UTF-8</li>
+ *   <li>null 只占类型标记本身</li>
+ * </ul>
+ * 字节来自网络，解码时不做任何对象反序列化；其他类型的值不能编码，需要调用方先转换为字符串或数值。
+ */
+public final class ContextParamsCodec {
+
+    static final byte VERSION = 1;
+
+    private static final byte TAG_LONG = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_DOUBLE = 2;
+    private static final byte TAG_TRUE = 3;
+    private static final byte TAG_FALSE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_NULL = 6;
+
+    /**
+     * 最短的参数: 空参数名(长度1字节) + 类型标记(1字节)，用于在分配数组前校验参数个数
+     */
+    private static final int MIN_ENTRY_BYTES = 2;
+
+    private ContextParamsCodec() {
+    }
+
+    public static byte[] encode(ContextParams params) {
+        Writer writer = new Writer(16 + params.size() * 16);
+        writer.writeByte(VERSION);
+        writer.writeVarInt(params.size());
+        for (int i = 0; i < params.size(); i++) {
+            writer.writeString(params.keyAt(i));
+            writeValue(writer, params, i);
+        }
+        return writer.toByteArray();
+    }
+
+    public static ContextParams decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new ContextParams();
+        }
+        Reader reader = new Reader(bytes);
+        byte version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported context params version: " + version);
+        }
+        int size = reader.readVarInt();
+        if (size < 0 || size > reader.remaining() / MIN_ENTRY_BYTES) {
+            throw new IllegalArgumentException("Illegal context params size: " + size
+                    + ", remaining bytes: " + reader.remaining());
+        }
+        ContextParams params = new ContextParams(size);
+        for (int i = 0; i < size; i++) {
+            String key = reader.readString();
+            byte tag = reader.readByte();
+            switch (tag) {
+                case TAG_LONG:
+                    params.append(key, ContextParams.LONG, reader.readVarLong(), null);
+                    break;
+                case TAG_INT:
+                    params.append(key, ContextParams.INT, reader.readVarInt(), null);
+                    break;
+                case TAG_DOUBLE:
+                    params.append(key, ContextParams.DOUBLE, reader.readFixedLong(), null);
+                    break;
+                case TAG_TRUE:
+                    params.append(key, ContextParams.BOOLEAN, 1, null);
+                    break;
+                case TAG_FALSE:
+                    params.append(key, ContextParams.BOOLEAN, 0, null);
+                    break;
+                case TAG_STRING:
+                    params.append(key, ContextParams.STRING, 0, reader.readString());
+                    break;
+                case TAG_NULL:
+                    params.append(key, ContextParams.OBJECT, 0, null);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown context param tag: " + tag);
+            }
+        }
+        return params;
+    }
+
+    private static void writeValue(Writer writer, ContextParams params, int i) {
+        switch (params.typeAt(i)) {
+            case ContextParams.LONG:
+                writer.writeByte(TAG_LONG);
+                writer.writeVarLong(params.primitiveAt(i));
+                return;
+            case ContextParams.INT:
+                writer.writeByte(TAG_INT);
+                writer.writeVarInt((int) params.primitiveAt(i));
+                return;
+            case ContextParams.DOUBLE:
+                writer.writeByte(TAG_DOUBLE);
+                writer.writeFixedLong(params.primitiveAt(i));
+                return;
+            case ContextParams.BOOLEAN:
+                writer.writeByte(params.primitiveAt(i) != 0 ? TAG_TRUE : TAG_FALSE);
+                return;
+            default:
+                Object value = params.objectAt(i);
+                if (value == null) {
+                    writer.writeByte(TAG_NULL);
+                } else if (value instanceof String) {
+                    writer.writeByte(TAG_STRING);
+                    writer.writeString((String) value);
+                } else {
+                    throw new IllegalArgumentException("Unsupported context param type: "
+                            + params.keyAt(i) + "=" + value.getClass().getName());
+                }
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarInt(int value) {
+            int v = (value << 1) ^ (value >> 31);
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeVarLong(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeFixedLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeString(String s) {
+            // ASCII参数名/值直接按字节写入，其他情况再走UTF-8编码
+            int length = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii) {
+                writeVarInt(length);
+                ensure(length);
+                for (int i = 0; i < length; i++) {
+                    buf[pos++] = (byte) s.charAt(i);
+                }
+            } else {
+                writeBytes(s.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(pos + n, buf.length * 2));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int remaining() {
+            return buf.length - pos;
+        }
+
+        byte readByte() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated context params");
+            }
+            return buf[pos++];
+        }
+
+        int readVarInt() {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varlong");
+        }
+
+        long readFixedLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (readByte() & 0xFF);
+            }
+            return v;
+        }
+
+        String readString() {
+            int length = readLength();
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        private int readLength() {
+            int length = readVarInt();
+            if (length < 0 || length > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated context params");
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.apache.dubbo.samples.context.trace;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 链路追踪ID生成器
+ * <p>
+ * traceId为128位: 高64位是进程启动时生成的节点标识，低64位是进程内唯一的序号。
+ * <ul>
+ *   <li>同一进程内序号不重复，不同进程的节点标识相同的概率约为2^-64，跨节点不会冲突</li>
+ *   <li>每个线程一次领取一段序号，平时只操作线程本地变量，不加锁，也不依赖SecureRandom</li>
+ * </ul>
+ * spanId为64位，由序号经过可逆的位混合得到，同一进程内不重复且分布均匀。
+ */
+public final class TraceIdGenerator {
+
+    private static final TraceIdGenerator INSTANCE = new TraceIdGenerator(initialNodeId());
+
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long nodeId;
+    // 下一个可领取的序号段起点
+    private final AtomicLong nextBlock = new AtomicLong();
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+    TraceIdGenerator(long nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public static TraceIdGenerator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return 32位十六进制字符串
+     */
+    public String nextTraceId() {
+        char[] chars = new char[32];
+        writeHex(nodeId, chars, 0);
+        writeHex(nextSequence(), chars, 16);
+        return new String(chars);
+    }
+
+    /**
+     * 以16字节大端序写入traceId，用于二进制协议
+     */
+    public void nextTraceId(byte[] target, int offset) {
+        writeBytes(nodeId, target, offset);
+        writeBytes(nextSequence(), target, offset + 8);
+    }
+
+    /**
+     * @return 16位十六进制字符串
+     */
+    public String nextSpanId() {
+        char[] chars = new char[16];
+        writeHex(mix64(nextSequence() ^ nodeId), chars, 0);
+        return new String(chars);
+    }
+
+    private long nextSequence() {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            // 当前序号段用完，领取下一段
+            long start = nextBlock.getAndAdd(BLOCK_SIZE);
+            block[0] = start;
+            block[1] = start + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    private static void writeHex(long value, char[] target, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+
+    private static void writeBytes(long value, byte[] target, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * 可逆的64位混合函数(SplitMix64)，不同输入得到不同输出
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 节点标识由进程名(pid@host)、启动时刻和对象地址混合得到
+     */
+    private static long initialNodeId() {
+        long seed = System.nanoTime();
+        seed = mix64(seed ^ System.currentTimeMillis());
+        seed = mix64(seed ^ ManagementFactory.getRuntimeMXBean().getName().hashCode());
+        seed = mix64(seed ^ System.identityHashCode(new Object()));
+        return seed;
+    }
+}
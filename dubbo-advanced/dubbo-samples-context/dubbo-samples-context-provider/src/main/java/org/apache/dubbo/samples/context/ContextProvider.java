@@ -19,6 +19,7 @@
 
 package org.apache.dubbo.samples.context;
 
+import org.apache.dubbo.samples.context.trace.SpanRecorder;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import java.util.concurrent.CountDownLatch;
@@ -28,6 +29,12 @@ public class ContextProvider {
     public static void main(String[] args) throws Exception {
         new EmbeddedZooKeeper(2181, false).start();
 
+        // 指定 -Ddubbo.samples.span.file 时才把采样的Span导出到文件
+        String spanFile = System.getProperty(SpanRecorder.FILE_PROPERTY);
+        if (spanFile != null) {
+            SpanRecorder.startFileExporter(spanFile);
+        }
+
         ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("spring/context-provider.xml");
         context.start();
 
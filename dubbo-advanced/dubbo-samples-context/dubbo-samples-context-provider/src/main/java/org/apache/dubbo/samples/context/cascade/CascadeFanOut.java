@@ -0,0 +1,136 @@
+package org.apache.dubbo.samples.context.cascade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 并行级联调用
+ * <p>
+ * 依次发起N个下游异步调用(发起本身不等待结果)，再按 {@link FanOutMode} 合并结果，
+ * 级联的总耗时由各跳耗时之和变为最慢(或第k快)的一跳。
+ */
+public final class CascadeFanOut {
+
+    private CascadeFanOut() {
+    }
+
+    /**
+     * @param fanOut 下游调用数量
+     * @param call   按序号发起第i个下游调用，返回该调用的异步结果
+     * @param mode   结果合并方式
+     * @param quorum QUORUM模式下需要的成功数量，其他模式忽略
+     * @return 按完成顺序排列的成功结果
+     */
+    public static <T> CompletableFuture<List<T>> fanOut(int fanOut, IntFunction<CompletableFuture<T>> call,
+                                                        FanOutMode mode, int quorum) {
+        if (fanOut <= 0) {
+            throw new IllegalArgumentException("fanOut must be positive");
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            CompletableFuture<T> future;
+            try {
+                future = call.apply(i);
+            } catch (RuntimeException e) {
+                // 发起失败按该下游调用失败处理
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            futures.add(future);
+        }
+        return combine(futures, mode, quorum);
+    }
+
+    /**
+     * 按合并方式等待结果
+     */
+    public static <T> CompletableFuture<List<T>> combine(List<CompletableFuture<T>> futures, FanOutMode mode, int quorum) {
+        int total = futures.size();
+        int required;
+        switch (mode) {
+            case ANY_OF:
+                required = 1;
+                break;
+            case QUORUM:
+                if (quorum <= 0 || quorum > total) {
+                    throw new IllegalArgumentException("quorum must be in [1, " + total + "]: " + quorum);
+                }
+                required = quorum;
+                break;
+            default:
+                required = total;
+        }
+        return awaitSuccesses(futures, required);
+    }
+
+    /**
+     * 解析客户端附件中的扇出数
+     *
+     * @param value 附件值，缺省或格式不对时按1处理(只调用一个下游)
+     * @param max   服务端允许的最大扇出数
+     * @return [1, max] 之间的扇出数
+     */
+    public static int parseFanOut(String value, int max) {
+        int fanOut = parseInt(value, 1);
+        return fanOut <= 1 ? 1 : Math.min(fanOut, Math.max(1, max));
+    }
+
+    /**
+     * 解析客户端附件中的quorum，缺省为多数(fanOut / 2 + 1)，限制在[1, fanOut]之间
+     *
+     * @return 格式不对时返回-1，由调用方退回单路调用
+     */
+    public static int parseQuorum(String value, int fanOut) {
+        if (value == null) {
+            return fanOut / 2 + 1;
+        }
+        int quorum = parseInt(value, -1);
+        return quorum == -1 ? -1 : Math.max(1, Math.min(quorum, fanOut));
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 收到required个成功结果时完成；失败数使剩余调用不可能凑够required时立即失败
+     */
+    private static <T> CompletableFuture<List<T>> awaitSuccesses(List<CompletableFuture<T>> futures, int required) {
+        CompletableFuture<List<T>> combined = new CompletableFuture<>();
+        int maxFailures = futures.size() - required;
+        List<T> results = new ArrayList<>(required);
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (combined.isDone()) {
+                    return;
+                }
+                if (error == null) {
+                    synchronized (results) {
+                        if (results.size() < required) {
+                            results.add(value);
+                            if (results.size() == required) {
+                                combined.complete(new ArrayList<>(results));
+                            }
+                        }
+                    }
+                } else if (failures.incrementAndGet() > maxFailures) {
+                    combined.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            });
+        }
+        return combined;
+    }
+}
@@ -0,0 +1,41 @@
+package org.apache.dubbo.samples.context.cascade;
+
+/**
+ * 并行级联调用的结果合并方式
+ */
+public enum FanOutMode {
+
+    /**
+     * 等待全部下游成功，任意一个失败则整体失败
+     */
+    ALL_OF,
+
+    /**
+     * 任意一个下游成功即返回，全部失败才整体失败
+     */
+    ANY_OF,
+
+    /**
+     * 达到指定数量的下游成功即返回，失败数超过容忍数量则整体失败
+     */
+    QUORUM;
+
+    /**
+     * 按名称解析，忽略大小写并兼容 all/any/quorum 简写，无法识别时使用 ALL_OF
+     */
+    public static FanOutMode parse(String value) {
+        if (value == null) {
+            return ALL_OF;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "any":
+            case "any_of":
+            case "anyof":
+                return ANY_OF;
+            case "quorum":
+                return QUORUM;
+            default:
+                return ALL_OF;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.apache.dubbo.samples.context.executor;
+
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自动传递RpcContext附件的有界线程池
+ * <p>
+ * 提交任务时捕获调用线程的服务端附件快照，在工作线程执行前恢复、执行后清理，
+ * 业务代码在异步任务中可以像同步代码一样直接读取 RpcContext.getServerAttachment()。
+ * <p>
+ * 队列有界，线程和队列都满时立即抛出 {@link RpcException#LIMIT_EXCEEDED_EXCEPTION}，
+ * 请求快速失败，而不是在无界队列里排队到超时。
+ */
+public class ContextPropagatingExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(ContextPropagatingExecutor.class);
+
+    private static final Map<String, ContextPropagatingExecutor> POOLS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor delegate;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    public ContextPropagatingExecutor(String name, int threads, int queueCapacity) {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.delegate = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new NamedDaemonThreadFactory(name),
+                (task, executor) -> reject());
+        // 同名的线程池会从指标和统一关闭中消失，直接拒绝
+        if (POOLS.putIfAbsent(name, this) != null) {
+            delegate.shutdown();
+            throw new IllegalArgumentException("Duplicate executor name: " + name);
+        }
+    }
+
+    /**
+     * 所有线程池，用于统一输出指标
+     */
+    public static Collection<ContextPropagatingExecutor> getPools() {
+        return Collections.unmodifiableCollection(POOLS.values());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(new ContextTask(command, ContextSnapshot.capture()));
+        // 被拒绝的任务在上一行抛出异常，只统计真正进入线程池的任务
+        submitted.increment();
+    }
+
+    private void reject() {
+        rejected.increment();
+        // 拒绝发生在提交线程上，直接抛给调用方
+        throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION,
+                "线程池 " + name + " 已满(线程" + delegate.getMaximumPoolSize() + ", 队列" + queueCapacity + ")，请稍后重试");
+    }
+
+    public void shutdown() {
+        POOLS.remove(name, this);
+        delegate.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getActiveCount() {
+        return delegate.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return delegate.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 已执行任务的平均排队时间(微秒)
+     */
+    public long getAverageQueueWaitMicros() {
+        long started = completed.sum() + failed.sum();
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / started);
+    }
+
+    public String metrics() {
+        return String.format("pool=%s, threads=%d, active=%d, queue=%d/%d, submitted=%d, completed=%d, failed=%d, rejected=%d, avgQueueWait=%dus",
+                name, delegate.getPoolSize(), getActiveCount(), getQueueSize(), queueCapacity,
+                getSubmittedCount(), getCompletedCount(), getFailedCount(), getRejectedCount(), getAverageQueueWaitMicros());
+    }
+
+    /**
+     * 携带提交线程附件快照的任务
+     */
+    private final class ContextTask implements Runnable {
+        private final Runnable command;
+        private final ContextSnapshot snapshot;
+        private final long submitNanos = System.nanoTime();
+
+        ContextTask(Runnable command, ContextSnapshot snapshot) {
+            this.command = command;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void run() {
+            queueWaitNanos.add(System.nanoTime() - submitNanos);
+            ContextSnapshot previous = snapshot.restore();
+            try {
+                command.run();
+                completed.increment();
+            } catch (Throwable t) {
+                failed.increment();
+                logger.warn("线程池 {} 中的任务执行失败", name, t);
+                throw t;
+            } finally {
+                if (previous.isEmpty()) {
+                    RpcContext.removeServerAttachment();
+                } else {
+                    previous.restore();
+                }
+            }
+        }
+    }
+
+    private static final class NamedDaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        NamedDaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + "-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
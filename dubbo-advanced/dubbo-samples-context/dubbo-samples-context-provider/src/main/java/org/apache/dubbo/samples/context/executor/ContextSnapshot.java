@@ -0,0 +1,176 @@
+package org.apache.dubbo.samples.context.executor;
+
+import org.apache.dubbo.rpc.RpcContext;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * RpcContext服务端附件的不可变快照
+ * <p>
+ * 附件通常只有几个键，快照用两个数组保存键值，只分配两个数组，
+ * 不像HashMap拷贝那样为每个键值创建节点、计算哈希。
+ * 快照创建后不再改变，可以在线程间安全共享；
+ * 需要修改时通过 {@link #with} 得到新快照(写时复制)，原快照不受影响。
+ * 快照只由捕获它的任务持有，任务结束后即可回收，不在线程上缓存请求的附件。
+ */
+public final class ContextSnapshot {
+
+    public static final ContextSnapshot EMPTY = new ContextSnapshot(new String[0], new Object[0]);
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private ContextSnapshot(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * 捕获当前线程的服务端附件
+     */
+    public static ContextSnapshot capture() {
+        return of(RpcContext.getServerAttachment().getObjectAttachments());
+    }
+
+    public static ContextSnapshot of(Map<String, Object> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return EMPTY;
+        }
+        String[] keys = new String[attachments.size()];
+        Object[] values = new Object[keys.length];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : attachments.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new ContextSnapshot(keys, values);
+    }
+
+    public Object get(String key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    public String getString(String key) {
+        Object value = get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * 返回设置了新值的快照，当前快照不变
+     */
+    public ContextSnapshot with(String key, Object value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            Object[] newValues = values.clone();
+            newValues[index] = value;
+            return new ContextSnapshot(keys, newValues);
+        }
+        String[] newKeys = new String[keys.length + 1];
+        Object[] newValues = new Object[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, keys.length);
+        System.arraycopy(values, 0, newValues, 0, values.length);
+        newKeys[keys.length] = key;
+        newValues[keys.length] = value;
+        return new ContextSnapshot(newKeys, newValues);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * 只读Map视图，不复制数据
+     */
+    public Map<String, Object> asMap() {
+        return new SnapshotMap();
+    }
+
+    /**
+     * 把快照恢复为当前线程的服务端附件，返回恢复前的附件快照
+     */
+    ContextSnapshot restore() {
+        Map<String, Object> current = RpcContext.getServerAttachment().getObjectAttachments();
+        ContextSnapshot previous = of(current);
+        if (!previous.isEmpty()) {
+            current.clear();
+        }
+        for (int i = 0; i < keys.length; i++) {
+            current.put(keys[i], values[i]);
+        }
+        return previous;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private final class SnapshotMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? ContextSnapshot.this.get((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(keys[i], values[i]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package org.apache.dubbo.samples.context.impl;
 
-import org.apache.dubbo.common.URL;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcServiceContext;
 import org.apache.dubbo.samples.context.GreetingsService;
+import org.apache.dubbo.samples.context.cascade.CascadeFanOut;
+import org.apache.dubbo.samples.context.cascade.FanOutMode;
+import org.apache.dubbo.samples.context.executor.ContextPropagatingExecutor;
+import org.apache.dubbo.samples.context.metadata.BasicInfoCache;
+import org.apache.dubbo.samples.context.param.ContextParams;
+import org.apache.dubbo.samples.context.param.ContextParamsCodec;
+import org.apache.dubbo.samples.context.trace.SpanRecorder;
+import org.apache.dubbo.samples.context.trace.TraceIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
 
 /**
  * 问候服务接口实现类
@@ -21,20 +29,21 @@ import java.util.concurrent.Executors;
  * - 基础信息获取
  * - 链路追踪
  * - 异步调用
- * - 级联调用
+ * - 级联调用(支持并行扇出)
  * - 参数传递
  */
 public class GreetingImpl implements GreetingsService {
     private static final Logger logger = LoggerFactory.getLogger(GreetingImpl.class);
-    private static final ExecutorService ASYNC_EXECUTOR = Executors.newFixedThreadPool(
-        Runtime.getRuntime().availableProcessors() * 2,
-        r -> {
-            Thread t = new Thread(r, "AsyncServiceExecutor-" + r.hashCode());
-            t.setDaemon(true);
-            return t;
-        }
-    );
-    private final GreetingsService nextService = this;
+    // 有界线程池，提交时自动捕获RpcContext附件并在工作线程中恢复
+    private static final ContextPropagatingExecutor ASYNC_EXECUTOR = new ContextPropagatingExecutor(
+        "AsyncServiceExecutor", Runtime.getRuntime().availableProcessors() * 2, 1024);
+    private static final String SERVICE_NAME = GreetingsService.class.getName();
+    private static final BasicInfoCache BASIC_INFO_CACHE = new BasicInfoCache();
+    // 单次级联调用允许的最大扇出数，防止客户端附件放大下游调用量
+    private static final int MAX_FAN_OUT = Integer.getInteger("dubbo.samples.cascade.max-fan-out", 16);
+    // 级联调用的下游服务，未配置时调用本地实现
+    private List<GreetingsService> downstreamServices = Collections.singletonList(this);
+    private final SpanRecorder spanRecorder = SpanRecorder.getInstance();
 
     /**
      * 基础场景：获取基本的上下文信息
@@ -53,29 +62,17 @@ public class GreetingImpl implements GreetingsService {
             // 获取ServiceContext
             RpcServiceContext serviceContext = RpcContext.getServiceContext();
 
-            // 可用的API
-            boolean isProviderSide = serviceContext.isProviderSide();  // 是否为服务提供方
-            String remoteHost = serviceContext.getRemoteHost();        // 获取远程主机Host
-            String remoteAddress =serviceContext.getRemoteAddress().toString(); // 获取远程主机地址
-            String remoteApplication = serviceContext.getRemoteApplicationName(); // 获取远程应用名
-            String localHost = serviceContext.getLocalHost();          // 获取本地主机地址
-            String localAddress = serviceContext.getLocalAddress().toString(); // 获取ServiceContext信息
-            String InterfaceName = serviceContext.getInterfaceName(); // 获取接口类
+            // 远程/本地地址、远程应用名、接口名和URL不随请求变化，按 invoker + 连接 缓存
+            BasicInfoCache.BasicInfo basicInfo = BASIC_INFO_CACHE.get(serviceContext);
             String methodName = serviceContext.getMethodName();        // 获取当前调用的方法名
-            URL url = serviceContext.getUrl();                         // 获取URL
 
             // 构建响应
-            StringBuilder response = new StringBuilder(256);
+            StringBuilder response = new StringBuilder(
+                    128 + basicInfo.getBeforeMethod().length() + basicInfo.getAfterMethod().length());
             response.append("Hello ").append(clientName).append(", Basic Information:\n");
-            response.append("Provider Side: ").append(isProviderSide).append("\n");
-            response.append("Remote Host: ").append(remoteHost).append("\n");
-            response.append("Remote Address: ").append(remoteAddress).append("\n");
-            response.append("Remote Application: ").append(remoteApplication).append("\n");
-            response.append("Local Host: ").append(localHost).append("\n");
-            response.append("Local Address: ").append(localAddress).append("\n");
-            response.append("Interface Name: ").append(InterfaceName).append("\n");
+            response.append(basicInfo.getBeforeMethod());
             response.append("Method Name: ").append(methodName).append("\n");
-            response.append("url: ").append(url.toString()).append("\n");
+            response.append(basicInfo.getAfterMethod());
             response.append("Processing Time: ").append(System.currentTimeMillis() - startTime).append("ms\n");
 
             return response.toString();
@@ -99,9 +96,11 @@ public class GreetingImpl implements GreetingsService {
     public String trace(String request, Map<String, String> traceHeaders) {
         // 记录开始时间
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         String traceId = null;
         String spanId = null;
         String parentSpanId = null;
+        String currentSpanId = null;
         
         try {
             logger.debug("开始处理追踪请求: {}", request);
@@ -112,7 +111,7 @@ public class GreetingImpl implements GreetingsService {
             parentSpanId = getTraceValue(traceHeaders, "parentSpanId");
 
             // 生成当前服务的跟踪信息
-            String currentSpanId = (spanId != null) ? spanId + ".1" : "1";
+            currentSpanId = (spanId != null) ? spanId + ".1" : "1";
 
             // 构建响应
             StringBuilder response = new StringBuilder(256);
@@ -123,14 +122,15 @@ public class GreetingImpl implements GreetingsService {
             response.append("CurrentSpanId: ").append(currentSpanId).append("\n");
             response.append("Processing Time: ").append(System.currentTimeMillis() - startTime).append("ms\n");
 
-            // 记录追踪信息日志
-            logger.info("===== 追踪处理日志 =====\n{}\n=================", response);
+            // 追踪信息由spanRecorder记录，这里只输出调试日志
+            logger.debug("===== 追踪处理日志 =====\n{}\n=================", response);
 
             return response.toString();
         } catch (Exception e) {
             logger.error("处理追踪请求时发生错误, traceId: {}", traceId, e);
             return "Error processing trace request: " + e.getMessage();
         } finally {
+            spanRecorder.record(traceId, currentSpanId, spanId, SERVICE_NAME, "trace", startNanos, System.nanoTime());
             logger.debug("完成处理追踪请求, 耗时: {}ms, traceId: {}", 
                     System.currentTimeMillis() - startTime, traceId);
         }
@@ -146,13 +146,12 @@ public class GreetingImpl implements GreetingsService {
     public CompletableFuture<String> getInfoAsync(String request) {
         logger.debug("接收异步处理请求: {}", request);
         
-        // 在主线程中捕获上下文
-        final String traceId = RpcContext.getServerAttachment().getAttachment("traceId");
-        final String asyncMarker = RpcContext.getServerAttachment().getAttachment("asyncMarker");
-        
-        // 使用自定义的线程池提高性能
+        // 线程池在提交时捕获上下文，线程池已满时直接抛出RpcException快速失败
         return CompletableFuture.supplyAsync(() -> {
             long startTime = System.currentTimeMillis();
+            // 工作线程中已恢复提交时的附件
+            String traceId = RpcContext.getServerAttachment().getAttachment("traceId");
+            String asyncMarker = RpcContext.getServerAttachment().getAttachment("asyncMarker");
             logger.debug("开始异步处理, traceId: {}", traceId);
             
             try {
@@ -186,21 +185,25 @@ public class GreetingImpl implements GreetingsService {
     @Override
     public String cascadeCall(String request, boolean needCascade) {
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         logger.debug("接收级联调用请求: {}, needCascade: {}", request, needCascade);
+        String traceId = null;
+        String spanId = null;
+        String currentSpanId = null;
         
         try {
             // 获取上下文信息
-            String traceId = RpcContext.getServerAttachment().getAttachment("traceId");
-            String spanId = RpcContext.getServerAttachment().getAttachment("spanId");
+            traceId = RpcContext.getServerAttachment().getAttachment("traceId");
+            spanId = RpcContext.getServerAttachment().getAttachment("spanId");
             String level = RpcContext.getServerAttachment().getAttachment("level");
             
-            // 如果traceId为空，生成新的traceId
+            // 如果traceId为空，生成新的traceId(进程内唯一，并发时不重复)
             if (traceId == null) {
-                traceId = "Generated-" + System.currentTimeMillis();
+                traceId = TraceIdGenerator.getInstance().nextTraceId();
             }
 
             // 生成当前服务的跟踪信息
-            String currentSpanId = (spanId != null) ? spanId + ".1" : "1";
+            currentSpanId = (spanId != null) ? spanId + ".1" : "1";
             String currentLevel = (level != null) ? level : "1";
 
             StringBuilder response = new StringBuilder(256);
@@ -221,6 +224,8 @@ public class GreetingImpl implements GreetingsService {
         } catch (Exception e) {
             logger.error("级联调用处理失败, request: {}", request, e);
             return "Cascade call error: " + e.getMessage();
+        } finally {
+            spanRecorder.record(traceId, currentSpanId, spanId, SERVICE_NAME, "cascadeCall", startNanos, System.nanoTime());
         }
     }
 
@@ -258,6 +263,35 @@ public class GreetingImpl implements GreetingsService {
         }
     }
 
+    /**
+     * 参数传递场景：显式上下文参数为 {@link ContextParamsCodec} 编码的字节数组
+     *
+     * @param normalParam 常规参数
+     * @param contextParams 编码后的上下文参数
+     * @return 参数处理响应
+     */
+    @Override
+    public String passCompactParameters(String normalParam, byte[] contextParams) {
+        long startTime = System.currentTimeMillis();
+        logger.debug("接收紧凑参数传递请求, 常规参数: {}", normalParam);
+
+        try {
+            StringBuilder response = new StringBuilder(256);
+            response.append("参数传递演示:\n");
+
+            processNormalParameter(response, normalParam);
+            processExplicitContextParameters(response, ContextParamsCodec.decode(contextParams));
+            processImplicitContextParameters(response);
+
+            response.append("处理耗时: ").append(System.currentTimeMillis() - startTime).append("毫秒\n");
+            logger.debug("紧凑参数传递处理完成, 耗时: {}ms", System.currentTimeMillis() - startTime);
+            return response.toString();
+        } catch (Exception e) {
+            logger.error("紧凑参数传递处理失败, 常规参数: {}", normalParam, e);
+            return "参数处理错误: " + e.getMessage();
+        }
+    }
+
     /**
      * 处理常规参数
      * 
@@ -286,6 +320,25 @@ public class GreetingImpl implements GreetingsService {
         }
     }
 
+    /**
+     * 处理紧凑编码的显式上下文参数，基本类型的值直接追加，不装箱
+     *
+     * @param response 响应构建器
+     * @param contextParams 解码后的上下文参数
+     */
+    private void processExplicitContextParameters(StringBuilder response, ContextParams contextParams) {
+        response.append("显式上下文参数:\n");
+
+        if (!contextParams.isEmpty()) {
+            for (int i = 0; i < contextParams.size(); i++) {
+                response.append("  ").append(contextParams.keyAt(i)).append(": ");
+                contextParams.appendValueTo(i, response).append("\n");
+            }
+        } else {
+            response.append("  未提供显式参数\n");
+        }
+    }
+
     /**
      * 处理隐式上下文参数
      * 
@@ -343,8 +396,21 @@ public class GreetingImpl implements GreetingsService {
         return value;
     }
 
+    /**
+     * 设置级联调用的下游服务，并行扇出时按序号轮流使用
+     *
+     * @param downstreamServices 下游服务引用
+     */
+    public void setDownstreamServices(List<GreetingsService> downstreamServices) {
+        if (downstreamServices == null || downstreamServices.isEmpty()) {
+            throw new IllegalArgumentException("downstreamServices must not be empty");
+        }
+        this.downstreamServices = downstreamServices;
+    }
+
     /**
      * 处理级联调用逻辑
+     * 附件fanOut大于1时并行调用多个下游(最多MAX_FAN_OUT个)，否则只调用一个下游
      * 
      * @param request 原始请求
      * @param traceId 追踪ID
@@ -356,18 +422,59 @@ public class GreetingImpl implements GreetingsService {
         try {
             // 计算下一级别
             int nextLevel = Integer.parseInt(currentLevel) + 1;
+
+            // 扇出数和quorum来自客户端附件，限制在服务端配置的范围内；格式不对时退回单路调用
+            int fanOut = CascadeFanOut.parseFanOut(RpcContext.getServerAttachment().getAttachment("fanOut"), MAX_FAN_OUT);
+            int quorum = CascadeFanOut.parseQuorum(RpcContext.getServerAttachment().getAttachment("quorum"), fanOut);
+            if (fanOut > 1 && quorum > 0) {
+                return processFanOutCascadeCall(request, traceId, currentSpanId, nextLevel, fanOut, quorum);
+            }
             
             // 设置传递给下一级服务的上下文信息
-            RpcContext.getClientAttachment().setAttachment("traceId", traceId);
-            RpcContext.getClientAttachment().setAttachment("parentSpanId", currentSpanId);
-            RpcContext.getClientAttachment().setAttachment("spanId", currentSpanId + ".1");
-            RpcContext.getClientAttachment().setAttachment("level", String.valueOf(nextLevel));
+            setCascadeAttachments(traceId, currentSpanId, currentSpanId + ".1", nextLevel);
 
             // 级联调用（避免无限递归，第二个参数传false）
-            return nextService.cascadeCall("Cascaded-" + request, false);
+            return downstreamServices.get(0).cascadeCall("Cascaded-" + request, false);
         } catch (Exception e) {
             logger.error("级联调用下一级服务失败, traceId: {}", traceId, e);
             return "Cascade call to next level failed: " + e.getMessage();
         }
     }
+
+    /**
+     * 并行级联调用: 依次发起fanOut个异步调用后统一等待，
+     * 按附件cascadeMode(all/any/quorum)和quorum合并结果
+     */
+    private String processFanOutCascadeCall(String request, String traceId, String currentSpanId,
+                                            int nextLevel, int fanOut, int quorum) {
+        FanOutMode mode = FanOutMode.parse(RpcContext.getServerAttachment().getAttachment("cascadeMode"));
+
+        try {
+            List<String> responses = CascadeFanOut.fanOut(fanOut, i -> {
+                GreetingsService target = downstreamServices.get(i % downstreamServices.size());
+                // 每个下游调用使用独立的子Span
+                setCascadeAttachments(traceId, currentSpanId, currentSpanId + "." + (i + 1), nextLevel);
+                return RpcContext.getServiceContext().asyncCall(() -> target.cascadeCall("Cascaded-" + request, false));
+            }, mode, quorum).join();
+
+            StringBuilder response = new StringBuilder(256 * responses.size());
+            response.append("Fan-out ").append(mode).append(": ").append(responses.size())
+                    .append("/").append(fanOut).append(" responses\n");
+            for (String item : responses) {
+                response.append(item).append("\n");
+            }
+            return response.toString();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("并行级联调用失败, traceId: {}, mode: {}", traceId, mode, cause);
+            return "Fan-out cascade call failed: " + cause.getMessage();
+        }
+    }
+
+    private void setCascadeAttachments(String traceId, String parentSpanId, String spanId, int level) {
+        RpcContext.getClientAttachment().setAttachment("traceId", traceId);
+        RpcContext.getClientAttachment().setAttachment("parentSpanId", parentSpanId);
+        RpcContext.getClientAttachment().setAttachment("spanId", spanId);
+        RpcContext.getClientAttachment().setAttachment("level", String.valueOf(level));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package org.apache.dubbo.samples.context.metadata;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.RpcServiceContext;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * getBasicInfo使用的元数据缓存
+ * <p>
+ * URL、接口名、本地地址等信息对同一个invoker不会变化，远程地址对同一个连接不会变化，
+ * 每次请求都调用toString()会重复生成相同的字符串。
+ * 这里按 服务URL + 连接(远程地址) 缓存拼接好的文本:
+ * <ul>
+ *   <li>URL变化(例如服务重新导出)时使用新的缓存项</li>
+ *   <li>客户端重连后远程端口变化，按新连接重新生成；本地地址或远程应用名变化时同样重新生成</li>
+ *   <li>每个URL缓存的连接数有上限，超过时清空重建</li>
+ * </ul>
+ */
+public class BasicInfoCache {
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 1024;
+
+    private final int maxConnectionsPerUrl;
+    private final ConcurrentMap<URL, ConcurrentMap<InetSocketAddress, BasicInfo>> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BasicInfoCache() {
+        this(DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public BasicInfoCache(int maxConnectionsPerUrl) {
+        this.maxConnectionsPerUrl = maxConnectionsPerUrl;
+    }
+
+    /**
+     * 取当前调用对应的元数据，缓存中没有或已失效时重新生成
+     */
+    public BasicInfo get(RpcServiceContext serviceContext) {
+        URL url = serviceContext.getUrl();
+        InetSocketAddress remoteAddress = serviceContext.getRemoteAddress();
+        if (url == null || remoteAddress == null) {
+            misses.increment();
+            return BasicInfo.of(serviceContext);
+        }
+
+        ConcurrentMap<InetSocketAddress, BasicInfo> connections =
+                cache.computeIfAbsent(url, k -> new ConcurrentHashMap<>());
+        BasicInfo info = connections.get(remoteAddress);
+        if (info != null && info.matches(serviceContext)) {
+            hits.increment();
+            return info;
+        }
+
+        misses.increment();
+        info = BasicInfo.of(serviceContext);
+        if (connections.size() >= maxConnectionsPerUrl) {
+            connections.clear();
+        }
+        connections.put(remoteAddress, info);
+        return info;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 预先拼接好的基础信息文本，以方法名为界分为前后两段
+     */
+    public static final class BasicInfo {
+        private final InetSocketAddress localAddress;
+        private final String remoteApplication;
+        private final String beforeMethod;
+        private final String afterMethod;
+
+        private BasicInfo(InetSocketAddress localAddress, String remoteApplication,
+                          String beforeMethod, String afterMethod) {
+            this.localAddress = localAddress;
+            this.remoteApplication = remoteApplication;
+            this.beforeMethod = beforeMethod;
+            this.afterMethod = afterMethod;
+        }
+
+        static BasicInfo of(RpcServiceContext serviceContext) {
+            InetSocketAddress remoteAddress = serviceContext.getRemoteAddress();
+            InetSocketAddress localAddress = serviceContext.getLocalAddress();
+            String remoteApplication = serviceContext.getRemoteApplicationName();
+            URL url = serviceContext.getUrl();
+
+            StringBuilder before = new StringBuilder(256);
+            before.append("Provider Side: ").append(serviceContext.isProviderSide()).append("\n");
+            before.append("Remote Host: ").append(serviceContext.getRemoteHost()).append("\n");
+            before.append("Remote Address: ").append(remoteAddress).append("\n");
+            before.append("Remote Application: ").append(remoteApplication).append("\n");
+            before.append("Local Host: ").append(serviceContext.getLocalHost()).append("\n");
+            before.append("Local Address: ").append(localAddress).append("\n");
+            before.append("Interface Name: ").append(serviceContext.getInterfaceName()).append("\n");
+            String after = "url: " + url + "\n";
+            return new BasicInfo(localAddress, remoteApplication, before.toString(), after);
+        }
+
+        boolean matches(RpcServiceContext serviceContext) {
+            return Objects.equals(localAddress, serviceContext.getLocalAddress())
+                    && Objects.equals(remoteApplication, serviceContext.getRemoteApplicationName());
+        }
+
+        /**
+         * Provider Side 到 Interface Name 各行
+         */
+        public String getBeforeMethod() {
+            return beforeMethod;
+        }
+
+        /**
+         * url 行
+         */
+        public String getAfterMethod() {
+            return afterMethod;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.apache.dubbo.samples.context.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Span后台导出线程
+ * <p>
+ * 定期从 {@link SpanRecorder} 批量取出Span，每行一个写入本地文件:
+ * traceId spanId parentSpanId service method startNanos durationNanos
+ * 格式化和IO都在导出线程完成，不占用业务线程。
+ */
+public class SpanFileExporter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SpanFileExporter.class);
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final SpanRecorder recorder;
+    private final String file;
+    private final long intervalNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public SpanFileExporter(SpanRecorder recorder, String file, long intervalMillis) {
+        this.recorder = recorder;
+        this.file = file;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.thread = new Thread(this::run, "span-exporter");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+            logger.info("Span导出到文件: {}", file);
+            StringBuilder line = new StringBuilder(128);
+            SpanRecorder.SpanSink sink = (traceId, spanId, parentSpanId, service, method, start, end) -> {
+                line.setLength(0);
+                line.append(traceId).append(' ')
+                        .append(spanId).append(' ')
+                        .append(parentSpanId != null ? parentSpanId : "-").append(' ')
+                        .append(service).append(' ')
+                        .append(method).append(' ')
+                        .append(start).append(' ')
+                        .append(end - start).append('\n');
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            while (running) {
+                if (drain(sink) > 0) {
+                    writer.flush();
+                } else {
+                    LockSupport.parkNanos(intervalNanos);
+                }
+            }
+            drain(sink);
+            writer.flush();
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Span导出失败，停止导出: {}", file, e);
+        }
+    }
+
+    private int drain(SpanRecorder.SpanSink sink) {
+        int total = 0;
+        int drained;
+        do {
+            drained = recorder.drainTo(sink, BATCH_SIZE);
+            total += drained;
+        } while (drained == BATCH_SIZE);
+        return total;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
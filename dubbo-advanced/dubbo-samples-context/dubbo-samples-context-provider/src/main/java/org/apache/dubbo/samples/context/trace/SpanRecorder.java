@@ -0,0 +1,200 @@
+package org.apache.dubbo.samples.context.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内Span记录器
+ * <p>
+ * Span写入预分配的环形缓冲区，记录时不加锁、不分配对象、不格式化字符串，
+ * 由后台导出线程({@link SpanFileExporter})批量取走写入文件。
+ * 导出线程需要通过 {@link #startFileExporter} 显式启动，未启动时缓冲区写满后新的Span被丢弃。
+ * <ul>
+ *   <li>写入方通过CAS占用一个槽位，写完字段后发布序号</li>
+ *   <li>读取方按序号顺序读取，读完后推进消费位置释放槽位</li>
+ *   <li>缓冲区满时直接丢弃新的Span并计数，不阻塞业务线程，也不会覆盖未导出的数据</li>
+ * </ul>
+ * 采样在链路头部决定: 按traceId的哈希值判断，同一条链路在所有服务上的采样结果一致。
+ */
+public class SpanRecorder {
+
+    private static final String SAMPLE_RATE_PROPERTY = "dubbo.samples.span.sample-rate";
+    private static final String CAPACITY_PROPERTY = "dubbo.samples.span.capacity";
+    public static final String FILE_PROPERTY = "dubbo.samples.span.file";
+
+    private static volatile SpanRecorder instance;
+    private static SpanFileExporter exporter;
+
+    private final int mask;
+    private final int sampleThreshold;
+
+    // 按槽位保存的字段，可见性由published的发布序号保证
+    private final long[] startNanos;
+    private final long[] endNanos;
+    private final String[] traceIds;
+    private final String[] spanIds;
+    private final String[] parentSpanIds;
+    private final String[] services;
+    private final String[] methods;
+    private final AtomicLongArray published;
+
+    // 下一个可占用的序号
+    private final AtomicLong head = new AtomicLong();
+    // 下一个待读取的序号，只有导出线程推进
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param capacity   缓冲区大小，向上取整为2的幂
+     * @param sampleRate 采样率，0到1之间
+     */
+    public SpanRecorder(int capacity, double sampleRate) {
+        if (capacity <= 0 || sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("capacity must be positive and sampleRate must be in [0, 1]");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+        this.mask = size - 1;
+        this.sampleThreshold = (int) Math.round(sampleRate * 10000);
+        this.startNanos = new long[size];
+        this.endNanos = new long[size];
+        this.traceIds = new String[size];
+        this.spanIds = new String[size];
+        this.parentSpanIds = new String[size];
+        this.services = new String[size];
+        this.methods = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.lazySet(i, -1);
+        }
+    }
+
+    /**
+     * 进程级记录器，只分配缓冲区，不启动导出线程。
+     * 采样率和缓冲区大小可通过系统属性配置。
+     */
+    public static SpanRecorder getInstance() {
+        SpanRecorder recorder = instance;
+        if (recorder == null) {
+            synchronized (SpanRecorder.class) {
+                recorder = instance;
+                if (recorder == null) {
+                    recorder = new SpanRecorder(Integer.getInteger(CAPACITY_PROPERTY, 8192),
+                            Double.parseDouble(System.getProperty(SAMPLE_RATE_PROPERTY, "0.1")));
+                    instance = recorder;
+                }
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * 为进程级记录器启动文件导出线程，重复调用返回已启动的导出器
+     *
+     * @param file 导出文件，追加写入
+     */
+    public static synchronized SpanFileExporter startFileExporter(String file) {
+        if (exporter == null) {
+            exporter = new SpanFileExporter(getInstance(), file, 100);
+            exporter.start();
+        }
+        return exporter;
+    }
+
+    /**
+     * 头部采样决策，同一个traceId总是得到相同的结果
+     */
+    public boolean isSampled(String traceId) {
+        if (sampleThreshold >= 10000) {
+            return true;
+        }
+        if (traceId == null || sampleThreshold <= 0) {
+            return false;
+        }
+        return (traceId.hashCode() & 0x7fffffff) % 10000 < sampleThreshold;
+    }
+
+    /**
+     * 记录一个已结束的Span，未被采样或缓冲区已满时直接返回
+     *
+     * @return 是否写入了缓冲区
+     */
+    public boolean record(String traceId, String spanId, String parentSpanId,
+                          String service, String method, long start, long end) {
+        if (!isSampled(traceId)) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        startNanos[index] = start;
+        endNanos[index] = end;
+        traceIds[index] = traceId;
+        spanIds[index] = spanId;
+        parentSpanIds[index] = parentSpanId;
+        services[index] = service;
+        methods[index] = method;
+        published.lazySet(index, sequence);
+        recorded.increment();
+        return true;
+    }
+
+    /**
+     * 取出已发布的Span，只能由单个导出线程调用
+     *
+     * @return 取出的数量
+     */
+    public int drainTo(SpanSink sink, int maxSpans) {
+        long cursor = consumed.get();
+        int count = 0;
+        while (count < maxSpans) {
+            int index = (int) cursor & mask;
+            if (published.get(index) != cursor) {
+                // 下一个槽位还没写完
+                break;
+            }
+            sink.accept(traceIds[index], spanIds[index], parentSpanIds[index],
+                    services[index], methods[index], startNanos[index], endNanos[index]);
+            traceIds[index] = null;
+            spanIds[index] = null;
+            parentSpanIds[index] = null;
+            services[index] = null;
+            methods[index] = null;
+            cursor++;
+            count++;
+            // 释放槽位，写入方在此之后才能重新占用
+            consumed.lazySet(cursor);
+        }
+        return count;
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 导出目标
+     */
+    public interface SpanSink {
+        void accept(String traceId, String spanId, String parentSpanId,
+                    String service, String method, long startNanos, long endNanos);
+    }
+}
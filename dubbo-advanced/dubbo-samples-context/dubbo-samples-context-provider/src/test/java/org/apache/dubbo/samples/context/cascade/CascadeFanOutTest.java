@@ -0,0 +1,147 @@
+package org.apache.dubbo.samples.context.cascade;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * CascadeFanOut 测试
+ * <p>
+ * 用定时任务模拟下游调用(每跳约10ms)，对比逐个同步调用和并行扇出的总耗时，
+ * 并验证 all-of / any-of / quorum 三种合并方式。
+ */
+public class CascadeFanOutTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeFanOutTest.class);
+
+    private static final long HOP_MILLIS = 10;
+
+    private final ScheduledExecutorService downstream = Executors.newScheduledThreadPool(2);
+
+    @After
+    public void tearDown() {
+        downstream.shutdownNow();
+    }
+
+    @Test
+    public void testLatencyReduction() {
+        for (int fanOut : new int[]{3, 10, 50}) {
+            long sequentialMillis = elapsedMillis(() -> {
+                for (int i = 0; i < fanOut; i++) {
+                    call(i, HOP_MILLIS).join();
+                }
+            });
+            long parallelMillis = elapsedMillis(() -> {
+                List<String> responses = CascadeFanOut.fanOut(fanOut, i -> call(i, HOP_MILLIS), FanOutMode.ALL_OF, 0).join();
+                assertEquals(fanOut, responses.size());
+            });
+            logger.info("扇出{}个下游(每跳{}ms): 逐个调用{}ms, 并行扇出{}ms, 耗时降低{}%", fanOut, HOP_MILLIS,
+                    sequentialMillis, parallelMillis, 100 - parallelMillis * 100 / Math.max(1, sequentialMillis));
+            assertTrue(sequentialMillis >= fanOut * HOP_MILLIS);
+            assertTrue("并行扇出的耗时应接近单跳: " + parallelMillis, parallelMillis < HOP_MILLIS * 3 + 50);
+        }
+    }
+
+    @Test
+    public void testParseFanOutAndQuorum() {
+        // 扇出数: 缺省、格式不对、不大于1时只调用一个下游，超过上限时取上限
+        assertEquals(1, CascadeFanOut.parseFanOut(null, 16));
+        assertEquals(1, CascadeFanOut.parseFanOut("abc", 16));
+        assertEquals(1, CascadeFanOut.parseFanOut("-5", 16));
+        assertEquals(3, CascadeFanOut.parseFanOut(" 3 ", 16));
+        assertEquals(16, CascadeFanOut.parseFanOut("1000000", 16));
+
+        // quorum: 缺省为多数，限制在[1, fanOut]，格式不对时返回-1
+        assertEquals(3, CascadeFanOut.parseQuorum(null, 5));
+        assertEquals(1, CascadeFanOut.parseQuorum("0", 5));
+        assertEquals(5, CascadeFanOut.parseQuorum("99", 5));
+        assertEquals(2, CascadeFanOut.parseQuorum("2", 5));
+        assertEquals(-1, CascadeFanOut.parseQuorum("two", 5));
+    }
+
+    @Test
+    public void testAllOfFailsOnAnyFailure() {
+        CompletableFuture<List<String>> result = CascadeFanOut.combine(
+                Arrays.asList(ok("a"), failed("down"), ok("c")), FanOutMode.ALL_OF, 0);
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("down", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testAnyOfReturnsFirstSuccess() {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<List<String>> result = CascadeFanOut.combine(
+                Arrays.asList(failed("down"), slow, ok("fast")), FanOutMode.ANY_OF, 0);
+        assertEquals(Arrays.asList("fast"), result.join());
+
+        CompletableFuture<List<String>> allFailed = CascadeFanOut.combine(
+                Arrays.asList(failed("a"), failed("b")), FanOutMode.ANY_OF, 0);
+        assertTrue(allFailed.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testQuorum() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<List<String>> result = CascadeFanOut.combine(
+                Arrays.asList(ok("a"), failed("down"), pending, ok("d")), FanOutMode.QUORUM, 2);
+        // 2个成功即返回，不等待仍在执行的调用
+        assertEquals(Arrays.asList("a", "d"), result.join());
+
+        // 4个中失败2个，剩余的最多凑出2个成功，达不到3
+        CompletableFuture<List<String>> unreachable = CascadeFanOut.combine(
+                Arrays.asList(ok("a"), failed("b"), failed("c"), new CompletableFuture<>()), FanOutMode.QUORUM, 3);
+        assertTrue(unreachable.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testCallStartFailureCountsAsFailure() {
+        List<Integer> started = new ArrayList<>();
+        List<String> responses = CascadeFanOut.fanOut(3, i -> {
+            started.add(i);
+            if (i == 1) {
+                throw new IllegalStateException("no provider");
+            }
+            return ok("r" + i);
+        }, FanOutMode.QUORUM, 2).join();
+        assertEquals(Arrays.asList(0, 1, 2), started);
+        assertEquals(Arrays.asList("r0", "r2"), responses);
+    }
+
+    private CompletableFuture<String> call(int index, long millis) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        downstream.schedule(() -> future.complete("response-" + index), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static CompletableFuture<String> ok(String value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private static CompletableFuture<String> failed(String message) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new RuntimeException(message));
+        return future;
+    }
+
+    private static long elapsedMillis(Runnable task) {
+        long begin = System.nanoTime();
+        task.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+}
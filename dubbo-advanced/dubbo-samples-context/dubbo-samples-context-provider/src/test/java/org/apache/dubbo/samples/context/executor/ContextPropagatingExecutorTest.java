@@ -0,0 +1,110 @@
+package org.apache.dubbo.samples.context.executor;
+
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ContextPropagatingExecutor 测试
+ */
+public class ContextPropagatingExecutorTest {
+
+    private final ContextPropagatingExecutor executor = new ContextPropagatingExecutor("test-pool", 1, 2);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        RpcContext.removeServerAttachment();
+    }
+
+    @Test
+    public void testAttachmentsPropagatedAndCleared() throws Exception {
+        RpcContext.getServerAttachment().setAttachment("traceId", "trace-1");
+        RpcContext.getServerAttachment().setAttachment("asyncMarker", "async");
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                RpcContext.getServerAttachment().getAttachment("traceId") + "/"
+                        + RpcContext.getServerAttachment().getAttachment("asyncMarker"), executor);
+        // 提交后调用线程修改附件，不影响已提交的任务
+        RpcContext.getServerAttachment().setAttachment("traceId", "trace-2");
+        assertEquals("trace-1/async", first.get(1, TimeUnit.SECONDS));
+
+        // 同一个工作线程执行下一个任务时，上一个任务的附件已被清理
+        RpcContext.removeServerAttachment();
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() ->
+                RpcContext.getServerAttachment().getAttachment("traceId"), executor);
+        assertNull(second.get(1, TimeUnit.SECONDS));
+        assertEquals(2, executor.getCompletedCount());
+    }
+
+    @Test
+    public void testRejectsFastWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        // 1个线程忙，队列容量2
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+
+        long begin = System.nanoTime();
+        try {
+            CompletableFuture.supplyAsync(() -> "never", executor);
+            fail("线程池已满时应拒绝");
+        } catch (RpcException e) {
+            assertTrue(e.isLimitExceed());
+        }
+        assertTrue("拒绝应立即返回", System.nanoTime() - begin < TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(2, executor.getQueueSize());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(3, executor.getCompletedCount());
+        // 被拒绝的任务不计入提交数
+        assertEquals(3, executor.getSubmittedCount());
+    }
+
+    @Test
+    public void testSnapshotCopyOnWrite() {
+        RpcContext.getServerAttachment().setAttachment("traceId", "trace-1");
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        ContextSnapshot changed = snapshot.with("traceId", "trace-2").with("spanId", "1");
+
+        assertEquals("trace-1", snapshot.getString("traceId"));
+        assertEquals(1, snapshot.size());
+        assertEquals("trace-2", changed.getString("traceId"));
+        assertEquals("1", changed.asMap().get("spanId"));
+        assertEquals(2, changed.asMap().size());
+        assertSame(ContextSnapshot.EMPTY, ContextSnapshot.of(null));
+    }
+
+    @Test
+    public void testDuplicateNameRejected() {
+        try {
+            new ContextPropagatingExecutor("test-pool", 1, 1);
+            fail("同名线程池应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("test-pool"));
+        }
+        assertTrue(ContextPropagatingExecutor.getPools().contains(executor));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
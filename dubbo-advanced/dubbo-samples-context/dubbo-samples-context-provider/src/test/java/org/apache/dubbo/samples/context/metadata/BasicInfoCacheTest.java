@@ -0,0 +1,155 @@
+package org.apache.dubbo.samples.context.metadata;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcServiceContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.*;
+
+/**
+ * BasicInfoCache 测试
+ * <p>
+ * 分配测试: 持续请求下对比每次请求都调用toString()拼接(原实现)和使用缓存两种方式
+ * 每次请求在堆上分配的字节数，使用HotSpot的线程分配计数器统计。
+ * 分配量受JIT和GC影响，只输出不断言；断言检查命中缓存时不会重新生成。
+ */
+public class BasicInfoCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BasicInfoCacheTest.class);
+
+    private static final int REQUESTS = 200_000;
+    private static final URL URL_1 = URL.valueOf("dubbo://192.168.1.10:20880/org.apache.dubbo.samples.context.GreetingsService"
+            + "?anyhost=true&application=async-provider&deprecated=false&dubbo=2.0.2&dynamic=true&generic=false"
+            + "&interface=org.apache.dubbo.samples.context.GreetingsService&methods=cascadeCall,getBasicInfo,getInfoAsync,"
+            + "passParameters,trace&pid=12345&side=provider&token=true&timestamp=1700000000000");
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("127.0.0.1", 20880);
+
+    private final BasicInfoCache cache = new BasicInfoCache(4);
+    private RpcServiceContext serviceContext;
+
+    @Before
+    public void setUp() {
+        serviceContext = RpcContext.getServiceContext();
+        serviceContext.setUrl(URL_1);
+        serviceContext.setMethodName("getBasicInfo");
+        serviceContext.setLocalAddress(LOCAL);
+        serviceContext.setRemoteAddress(new InetSocketAddress("127.0.0.1", 50001));
+        serviceContext.setRemoteApplicationName("async-consumer");
+    }
+
+    @After
+    public void tearDown() {
+        RpcContext.removeServiceContext();
+    }
+
+    @Test
+    public void testCachedPerUrlAndConnection() {
+        BasicInfoCache.BasicInfo first = cache.get(serviceContext);
+        assertSame(first, cache.get(serviceContext));
+        assertTrue(first.getBeforeMethod().contains("Remote Address: /127.0.0.1:50001\n"));
+        assertTrue(first.getAfterMethod().startsWith("url: dubbo://192.168.1.10:20880/"));
+
+        // 客户端重连，远程端口变化
+        serviceContext.setRemoteAddress(new InetSocketAddress("127.0.0.1", 50002));
+        BasicInfoCache.BasicInfo reconnected = cache.get(serviceContext);
+        assertNotSame(first, reconnected);
+        assertTrue(reconnected.getBeforeMethod().contains("/127.0.0.1:50002"));
+
+        // 同一连接上远程应用名变化
+        serviceContext.setRemoteApplicationName("other-consumer");
+        assertNotSame(reconnected, cache.get(serviceContext));
+
+        // 服务重新导出得到新的URL
+        serviceContext.setUrl(URL.valueOf("dubbo://192.168.1.10:20881/org.apache.dubbo.samples.context.GreetingsService"));
+        assertTrue(cache.get(serviceContext).getAfterMethod().contains(":20881/"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testConnectionsBounded() {
+        for (int port = 50000; port < 50010; port++) {
+            serviceContext.setRemoteAddress(new InetSocketAddress("127.0.0.1", port));
+            cache.get(serviceContext);
+        }
+        // 最近的连接仍然命中
+        assertNotNull(cache.get(serviceContext));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testNoRebuildOnHit() {
+        BasicInfoCache.BasicInfo first = cache.get(serviceContext);
+        for (int i = 0; i < REQUESTS; i++) {
+            assertSame(first, cache.get(serviceContext));
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(REQUESTS, cache.getHitCount());
+    }
+
+    @Test
+    public void testAllocationPerRequest() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // 预热
+        long checksum = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            checksum += uncached(serviceContext).length() + cached(serviceContext).length();
+        }
+
+        long missesAfterWarmup = cache.getMissCount();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REQUESTS; i++) {
+            checksum += uncached(serviceContext).length();
+        }
+        long uncachedBytes = (threads.getThreadAllocatedBytes(threadId) - before) / REQUESTS;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REQUESTS; i++) {
+            checksum += cached(serviceContext).length();
+        }
+        long cachedBytes = (threads.getThreadAllocatedBytes(threadId) - before) / REQUESTS;
+
+        logger.info("getBasicInfo每次请求分配: 不缓存{}字节, 使用缓存{}字节 (checksum={})", uncachedBytes, cachedBytes, checksum);
+        assertEquals(uncached(serviceContext), cached(serviceContext));
+        assertEquals("命中缓存时不应重新生成", missesAfterWarmup, cache.getMissCount());
+    }
+
+    /**
+     * 原实现: 每次请求重新生成各个字符串
+     */
+    private static String uncached(RpcServiceContext serviceContext) {
+        StringBuilder response = new StringBuilder(256);
+        response.append("Hello ").append("BasicInfoClient").append(", Basic Information:\n");
+        response.append("Provider Side: ").append(serviceContext.isProviderSide()).append("\n");
+        response.append("Remote Host: ").append(serviceContext.getRemoteHost()).append("\n");
+        response.append("Remote Address: ").append(serviceContext.getRemoteAddress().toString()).append("\n");
+        response.append("Remote Application: ").append(serviceContext.getRemoteApplicationName()).append("\n");
+        response.append("Local Host: ").append(serviceContext.getLocalHost()).append("\n");
+        response.append("Local Address: ").append(serviceContext.getLocalAddress().toString()).append("\n");
+        response.append("Interface Name: ").append(serviceContext.getInterfaceName()).append("\n");
+        response.append("Method Name: ").append(serviceContext.getMethodName()).append("\n");
+        response.append("url: ").append(serviceContext.getUrl().toString()).append("\n");
+        return response.toString();
+    }
+
+    private String cached(RpcServiceContext serviceContext) {
+        BasicInfoCache.BasicInfo basicInfo = cache.get(serviceContext);
+        StringBuilder response = new StringBuilder(
+                128 + basicInfo.getBeforeMethod().length() + basicInfo.getAfterMethod().length());
+        response.append("Hello ").append("BasicInfoClient").append(", Basic Information:\n");
+        response.append(basicInfo.getBeforeMethod());
+        response.append("Method Name: ").append(serviceContext.getMethodName()).append("\n");
+        response.append(basicInfo.getAfterMethod());
+        return response.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package org.apache.dubbo.samples.context.trace;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpanRecorder 测试
+ * <p>
+ * 开销测试: 导出线程持续取走数据的情况下，多个业务线程同时记录Span，
+ * 全部采样时平均每个Span的记录开销应低于200ns。
+ * 起止时间使用固定值，只测量记录本身的开销。
+ */
+public class SpanRecorderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanRecorderTest.class);
+
+    private static final String SERVICE = "org.apache.dubbo.samples.context.GreetingsService";
+    // 线程数不超过CPU核数，避免时间片切换计入单个Span的耗时
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int SPANS_PER_THREAD = 1_000_000;
+
+    @Test
+    public void testInstanceDoesNotStartExporter() {
+        assertSame(SpanRecorder.getInstance(), SpanRecorder.getInstance());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertNotEquals("获取记录器不应启动导出线程", "span-exporter", thread.getName());
+        }
+    }
+
+    @Test
+    public void testRecordAndDrain() {
+        SpanRecorder recorder = new SpanRecorder(4, 1.0);
+        assertTrue(recorder.record("trace-1", "1.1", "1", SERVICE, "trace", 100, 250));
+        assertTrue(recorder.record("trace-1", "1.1.1", "1.1", SERVICE, "cascadeCall", 120, 200));
+
+        List<String> lines = new ArrayList<>();
+        int drained = recorder.drainTo((traceId, spanId, parentSpanId, service, method, start, end) ->
+                lines.add(traceId + " " + spanId + " " + parentSpanId + " " + method + " " + (end - start)), 10);
+        assertEquals(2, drained);
+        assertEquals("trace-1 1.1 1 trace 150", lines.get(0));
+        assertEquals("trace-1 1.1.1 1.1 cascadeCall 80", lines.get(1));
+        assertEquals(0, recorder.drainTo((a, b, c, d, e, f, g) -> fail(), 10));
+    }
+
+    @Test
+    public void testDropsWhenFullWithoutOverwriting() {
+        SpanRecorder recorder = new SpanRecorder(4, 1.0);
+        for (int i = 0; i < 6; i++) {
+            recorder.record("trace-" + i, "1", null, SERVICE, "trace", 0, 1);
+        }
+        assertEquals(4, recorder.getRecordedCount());
+        assertEquals(2, recorder.getDroppedCount());
+
+        List<String> traceIds = new ArrayList<>();
+        recorder.drainTo((traceId, spanId, parentSpanId, service, method, start, end) -> traceIds.add(traceId), 10);
+        assertEquals("未导出的数据不应被覆盖", "[trace-0, trace-1, trace-2, trace-3]", traceIds.toString());
+
+        // 取走后槽位可以重新使用
+        assertTrue(recorder.record("trace-6", "1", null, SERVICE, "trace", 0, 1));
+    }
+
+    @Test
+    public void testHeadSamplingIsConsistentPerTrace() {
+        SpanRecorder recorder = new SpanRecorder(1024, 0.1);
+        int sampled = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String traceId = "trace-" + i;
+            boolean decision = recorder.isSampled(traceId);
+            assertEquals(decision, recorder.isSampled(traceId));
+            if (decision) {
+                sampled++;
+            }
+        }
+        assertTrue("采样率应接近10%: " + sampled, sampled > 8_000 && sampled < 12_000);
+        assertFalse(new SpanRecorder(16, 0).isSampled("trace-1"));
+        assertFalse(recorder.isSampled(null));
+    }
+
+    @Test
+    public void testRecordOverheadUnder200Nanos() throws InterruptedException {
+        // 预热
+        measure(new SpanRecorder(1 << 16, 1.0), 200_000);
+
+        SpanRecorder recorder = new SpanRecorder(1 << 16, 1.0);
+        long nanosPerSpan = measure(recorder, SPANS_PER_THREAD);
+        logger.info("{}线程各记录{}个Span: 平均{}ns/个, 写入{}个, 丢弃{}个", THREADS, SPANS_PER_THREAD,
+                nanosPerSpan, recorder.getRecordedCount(), recorder.getDroppedCount());
+        assertEquals((long) THREADS * SPANS_PER_THREAD, recorder.getRecordedCount() + recorder.getDroppedCount());
+        assertTrue("平均每个Span的记录开销应低于200ns: " + nanosPerSpan, nanosPerSpan < 200);
+    }
+
+    /**
+     * @return 每个线程平均每个Span的耗时(ns)
+     */
+    private static long measure(SpanRecorder recorder, int spansPerThread) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder exported = new LongAdder();
+        Thread exporter = new Thread(() -> {
+            SpanRecorder.SpanSink sink = (traceId, spanId, parentSpanId, service, method, start, end) -> exported.increment();
+            while (running.get()) {
+                if (recorder.drainTo(sink, 1024) == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        exporter.start();
+
+        String[] traceIds = new String[1024];
+        for (int i = 0; i < traceIds.length; i++) {
+            traceIds[i] = "trace-" + i;
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        LongAdder totalNanos = new LongAdder();
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < spansPerThread; i++) {
+                        recorder.record(traceIds[i & 1023], "1.1", "1", SERVICE, "trace", i, i + 100);
+                    }
+                    totalNanos.add(System.nanoTime() - begin);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        running.set(false);
+        exporter.join();
+        return totalNanos.sum() / ((long) THREADS * spansPerThread);
+    }
+}
@@ -0,0 +1,179 @@
+package org.apache.dubbo.samples.direct.benchmark;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.samples.direct.GreetingsService;
+import org.apache.dubbo.samples.direct.pool.ConnectionPool;
+import org.apache.dubbo.samples.direct.pool.ConnectionPoolMetrics;
+import org.apache.dubbo.samples.direct.pool.ConnectionPoolProtocolWrapper;
+import org.apache.dubbo.samples.direct.pool.PooledConnection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 直连时连接池大小对吞吐量的影响
+ * <p>
+ * 依次用默认的单条共享连接和1到16个连接的连接池调用 sayHi，多个线程并发发送固定大小的字符串，
+ * 输出每秒调用次数、双向数据量、平均延迟和请求在各连接上的分布(最少/最多的连接)。
+ * <ul>
+ *   <li>-Dbenchmark.address: 提供者地址，不指定时在本进程内暴露服务并经回环网络调用</li>
+ *   <li>-Dbenchmark.token: 远端提供者的令牌</li>
+ *   <li>-Dbenchmark.connections: 连接池大小，逗号分隔，默认 1,2,4,8,16</li>
+ *   <li>-Dbenchmark.threads、-Dbenchmark.payload-bytes、-Dbenchmark.seconds: 并发线程数、参数大小、每轮时长</li>
+ * </ul>
+ * 回环网络上的结果受本机CPU核数限制，需要在实际的网卡上验证时指定远端地址。
+ */
+public class ConnectionPoolBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+    private static final int PAYLOAD_BYTES = Integer.getInteger("benchmark.payload-bytes", 4096);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 5);
+    private static final int WARMUP_SECONDS = Math.max(SECONDS / 2, 1);
+
+    public static void main(String[] args) throws InterruptedException {
+        int port = Integer.getInteger("benchmark.port", 20891);
+        String address = System.getProperty("benchmark.address");
+        String token = System.getProperty("benchmark.token");
+        int[] sizes = Arrays.stream(System.getProperty("benchmark.connections", "1,2,4,8,16").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+        Map<String, ReferenceConfig<GreetingsService>> references = new LinkedHashMap<>();
+        String url = "dubbo://" + (address != null ? address : "127.0.0.1:" + port);
+        references.put("shared", reference("shared", url, token, 0));
+        for (int size : sizes) {
+            references.put("pool-" + size, reference("pool" + size, url, token, size));
+        }
+
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("direct-pool-benchmark"))
+                .registry(new RegistryConfig("N/A"));
+        if (address == null) {
+            ServiceConfig<GreetingsService> service = new ServiceConfig<>();
+            service.setInterface(GreetingsService.class);
+            service.setRef(new EchoGreetingsService());
+            bootstrap.protocol(new ProtocolConfig("dubbo", port)).service(service);
+        }
+        references.values().forEach(bootstrap::reference);
+        bootstrap.start();
+
+        char[] chars = new char[PAYLOAD_BYTES];
+        Arrays.fill(chars, 'x');
+        String payload = new String(chars);
+
+        System.out.printf("threads=%d, payload=%d bytes, %d s per round%n", THREADS, PAYLOAD_BYTES, SECONDS);
+        System.out.printf("%-10s %12s %10s %12s %9s %18s%n", "mode", "ops/s", "MB/s", "avg(ms)", "speedup",
+                "requests min/max");
+        double baseline = 0;
+        for (Map.Entry<String, ReferenceConfig<GreetingsService>> entry : references.entrySet()) {
+            GreetingsService service = entry.getValue().get();
+            run(service, payload, WARMUP_SECONDS);
+            Map<PooledConnection<?>, Long> before = requestsByConnection();
+            double opsPerSecond = run(service, payload, SECONDS);
+            Map<PooledConnection<?>, Long> after = requestsByConnection();
+            if (entry.getKey().startsWith("pool-") && used(before, after) == 0) {
+                throw new IllegalStateException(entry.getKey() + " did not send any request through a connection pool");
+            }
+            if (baseline == 0 && entry.getKey().startsWith("pool-")) {
+                baseline = opsPerSecond;
+            }
+            System.out.printf("%-10s %12.0f %10.1f %12.3f %9s %18s%n", entry.getKey(), opsPerSecond,
+                    opsPerSecond * PAYLOAD_BYTES * 2 / 1024 / 1024, THREADS * 1000.0 / opsPerSecond,
+                    baseline == 0 ? "-" : String.format("%.2fx", opsPerSecond / baseline), spread(before, after));
+        }
+        System.out.println();
+        System.out.println(ConnectionPoolMetrics.report());
+        bootstrap.stop();
+    }
+
+    private static ReferenceConfig<GreetingsService> reference(String id, String url, String token, int connections) {
+        ReferenceConfig<GreetingsService> reference = new ReferenceConfig<>();
+        reference.setId(id);
+        reference.setInterface(GreetingsService.class);
+        reference.setUrl(url);
+        reference.setTimeout(10_000);
+        Map<String, String> parameters = new HashMap<>();
+        if (token != null) {
+            parameters.put("token", token);
+        }
+        if (connections > 0) {
+            parameters.put(ConnectionPoolProtocolWrapper.POOL_CONNECTIONS_KEY, String.valueOf(connections));
+        }
+        reference.setParameters(parameters);
+        return reference;
+    }
+
+    /**
+     * @return 每秒调用次数
+     */
+    private static double run(GreetingsService service, String payload, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder calls = new LongAdder();
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                while (running.get()) {
+                    if (service.sayHi(payload).length() != PAYLOAD_BYTES) {
+                        throw new IllegalStateException("unexpected response");
+                    }
+                    calls.increment();
+                }
+            }, "benchmark-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return calls.sum() * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    /**
+     * 所有连接池各连接累计的请求数，只在本轮有变化的连接会被统计
+     */
+    private static Map<PooledConnection<?>, Long> requestsByConnection() {
+        Map<PooledConnection<?>, Long> requests = new HashMap<>();
+        for (ConnectionPool<?> pool : ConnectionPoolMetrics.getPools()) {
+            for (PooledConnection<?> connection : pool.getConnections()) {
+                requests.put(connection, connection.getRequests());
+            }
+        }
+        return requests;
+    }
+
+    private static int used(Map<PooledConnection<?>, Long> before, Map<PooledConnection<?>, Long> after) {
+        int used = 0;
+        for (Map.Entry<PooledConnection<?>, Long> entry : after.entrySet()) {
+            if (entry.getValue() > before.getOrDefault(entry.getKey(), 0L)) {
+                used++;
+            }
+        }
+        return used;
+    }
+
+    private static String spread(Map<PooledConnection<?>, Long> before, Map<PooledConnection<?>, Long> after) {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (Map.Entry<PooledConnection<?>, Long> entry : after.entrySet()) {
+            long delta = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            if (delta > 0) {
+                min = Math.min(min, delta);
+                max = Math.max(max, delta);
+            }
+        }
+        return max == 0 ? "-" : min + "/" + max;
+    }
+}
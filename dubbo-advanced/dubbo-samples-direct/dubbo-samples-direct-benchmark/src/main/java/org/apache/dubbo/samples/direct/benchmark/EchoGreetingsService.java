@@ -0,0 +1,14 @@
+package org.apache.dubbo.samples.direct.benchmark;
+
+import org.apache.dubbo.samples.direct.GreetingsService;
+
+/**
+ * 压测用的服务实现，原样返回参数，请求和响应的大小相同，不打印日志
+ */
+public class EchoGreetingsService implements GreetingsService {
+
+    @Override
+    public String sayHi(String name) {
+        return name;
+    }
+}
@@ -20,8 +20,11 @@
 package org.apache.dubbo.samples.direct;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.direct.pool.ConnectionPoolMetrics;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.util.stream.IntStream;
+
 public class DirectConsumer {
 
     public static void main(String[] args) throws Exception {
@@ -45,6 +48,15 @@ public class DirectConsumer {
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientResponseContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getServiceContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientAttachment().getAttachment("server-key2"));
+
+        // 通过多连接连接池直连调用，并发请求分散到各个连接上；需要与提供者用 -Ddirect.token 约定同一个令牌
+        if (System.getProperty("direct.token") != null) {
+            GreetingsService pooledDirectService = context.getBean("pooledDirectService", GreetingsService.class);
+            IntStream.range(0, 20).parallel().forEach(i -> pooledDirectService.sayHi("pool-" + i));
+            System.out.println(ConnectionPoolMetrics.report());
+        } else {
+            System.out.println("skip pooledDirectService: start provider and consumer with the same -Ddirect.token");
+        }
         context.close();
     }
 }
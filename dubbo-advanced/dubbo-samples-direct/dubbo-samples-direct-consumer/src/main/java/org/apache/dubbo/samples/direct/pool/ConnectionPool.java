@@ -0,0 +1,90 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 到一个提供者的多个连接，每次选择在途请求最少的可用连接
+ * <p>
+ * 在途请求数相同时从轮转的位置开始比较，空闲时请求依次分散到各个连接上。
+ */
+public final class ConnectionPool<T> {
+
+    private final String key;
+    private final String address;
+    private final List<PooledConnection<T>> connections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ConnectionPool(String key, String address, int size, long reconnectIntervalMillis,
+                   IntFunction<Invoker<T>> factory) {
+        this.key = key;
+        this.address = address;
+        List<PooledConnection<T>> connections = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            connections.add(new PooledConnection<>(i, factory, reconnectIntervalMillis));
+        }
+        this.connections = Collections.unmodifiableList(connections);
+    }
+
+    PooledConnection<T> select() {
+        int size = connections.size();
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        PooledConnection<T> selected = null;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            PooledConnection<T> connection = connections.get((start + i) % size);
+            int pending = connection.getPending();
+            if (pending < least && connection.prepare()) {
+                selected = connection;
+                least = pending;
+                if (pending == 0) {
+                    break;
+                }
+            }
+        }
+        if (selected == null) {
+            throw new RpcException(RpcException.NETWORK_EXCEPTION, "No available connection in pool " + key
+                    + ", all " + size + " connections to " + address + " are disconnected and waiting to reconnect");
+        }
+        return selected;
+    }
+
+    /**
+     * 有可用的连接，或者有断开的连接已过重连间隔、下次选中时可以重建
+     */
+    boolean isAvailable() {
+        for (PooledConnection<T> connection : connections) {
+            if (connection.isAvailable() || connection.canReconnect()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void destroy() {
+        for (PooledConnection<T> connection : connections) {
+            connection.destroy();
+        }
+    }
+
+    /**
+     * 服务键@提供者地址
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public List<PooledConnection<T>> getConnections() {
+        return connections;
+    }
+}
@@ -0,0 +1,68 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * 一个提供者的连接池，每次调用交给在途请求最少的连接，由 {@link ConnectionPoolProtocolWrapper} 创建
+ */
+final class ConnectionPoolInvoker<T> implements Invoker<T> {
+
+    private final Class<T> type;
+    private final URL url;
+    private final ConnectionPool<T> pool;
+    private volatile boolean destroyed;
+
+    ConnectionPoolInvoker(Class<T> type, URL url, ConnectionPool<T> pool) {
+        this.type = type;
+        this.url = url;
+        this.pool = pool;
+        ConnectionPoolMetrics.register(pool);
+    }
+
+    @Override
+    public Result invoke(Invocation invocation) throws RpcException {
+        if (destroyed) {
+            throw new RpcException("Connection pool " + pool.getKey() + " is destroyed, can not be invoked any more");
+        }
+        PooledConnection<T> connection = pool.select();
+        connection.begin();
+        Result result;
+        try {
+            result = connection.getInvoker().invoke(invocation);
+        } catch (RuntimeException e) {
+            connection.end(!(e instanceof RpcException) || !((RpcException) e).isBiz());
+            throw e;
+        }
+        result.whenCompleteWithContext((r, t) -> connection.end(t != null));
+        return result;
+    }
+
+    @Override
+    public Class<T> getInterface() {
+        return type;
+    }
+
+    @Override
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return !destroyed && pool.isAvailable();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        ConnectionPoolMetrics.unregister(pool);
+        pool.destroy();
+    }
+}
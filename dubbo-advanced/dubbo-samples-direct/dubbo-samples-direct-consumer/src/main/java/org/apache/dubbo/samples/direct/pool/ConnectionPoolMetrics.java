@@ -0,0 +1,52 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 所有连接池的各个连接上的在途请求、请求数、失败数和重连次数
+ * <p>
+ * 同一服务的多个引用直连同一提供者时各有一个连接池，报表中会出现相同的 服务键@提供者地址。
+ */
+public final class ConnectionPoolMetrics {
+
+    private static final Set<ConnectionPool<?>> POOLS = ConcurrentHashMap.newKeySet();
+
+    private ConnectionPoolMetrics() {
+    }
+
+    static void register(ConnectionPool<?> pool) {
+        POOLS.add(pool);
+    }
+
+    static void unregister(ConnectionPool<?> pool) {
+        POOLS.remove(pool);
+    }
+
+    /**
+     * @return 按 服务键@提供者地址 排序
+     */
+    public static List<ConnectionPool<?>> getPools() {
+        List<ConnectionPool<?>> pools = new ArrayList<>(POOLS);
+        pools.sort(Comparator.comparing(ConnectionPool::getKey));
+        return pools;
+    }
+
+    public static String report() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-50s %5s %10s %9s %6s %10s %8s %10s%n", "pool", "conn", "available",
+                "in-flight", "peak", "requests", "errors", "reconnects"));
+        for (ConnectionPool<?> pool : getPools()) {
+            for (PooledConnection<?> connection : pool.getConnections()) {
+                builder.append(String.format("%-50s %5d %10s %9d %6d %10d %8d %10d%n", pool.getKey(),
+                        connection.getIndex(), connection.isAvailable(), connection.getPending(),
+                        connection.getPeakPending(), connection.getRequests(), connection.getErrors(),
+                        connection.getReconnects()));
+            }
+        }
+        return builder.toString();
+    }
+}
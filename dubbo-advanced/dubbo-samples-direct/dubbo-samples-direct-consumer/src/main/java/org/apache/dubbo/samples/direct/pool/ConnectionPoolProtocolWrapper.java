@@ -0,0 +1,90 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.ProtocolServer;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.List;
+
+import static org.apache.dubbo.common.constants.CommonConstants.DUBBO;
+
+/**
+ * 引用上配置了 pool.connections 时，每个提供者使用一个多连接的连接池
+ * <p>
+ * 默认的dubbo协议对一个提供者只用一条共享连接，或者用 connections=N 个连接轮流发送，一条连接上排队的请求
+ * 会拖慢后面的请求。本包装在refer时不建立原来的连接，而是返回 {@link ConnectionPoolInvoker}，
+ * 它持有 pool.connections 个只有一条独占连接的invoker，每次选择在途请求最少的一个，见 {@link ConnectionPool}。
+ * 连接以lazy方式建立，断开后在下次选中时重建，见 {@link PooledConnection}。
+ * <p>
+ * 直连(url=)时 ReferenceConfig 固定用默认集群包装协议返回的invoker，不读取引用上的cluster，
+ * 所以连接池放在协议层；经注册中心发现的提供者同样由协议refer，也会使用连接池。
+ */
+public class ConnectionPoolProtocolWrapper implements Protocol {
+
+    public static final String POOL_CONNECTIONS_KEY = "pool.connections";
+    public static final String RECONNECT_INTERVAL_KEY = "pool.reconnect-interval";
+    public static final String POOL_INDEX_KEY = "pool.index";
+
+    public static final int DEFAULT_POOL_CONNECTIONS = 4;
+    public static final long DEFAULT_RECONNECT_INTERVAL_MS = 1000;
+
+    static final String CONNECTIONS_KEY = "connections";
+    static final String LAZY_CONNECT_KEY = "lazy";
+    static final String RECONNECT_KEY = "reconnect";
+
+    private final Protocol protocol;
+
+    public ConnectionPoolProtocolWrapper(Protocol protocol) {
+        this.protocol = protocol;
+    }
+
+    @Override
+    public int getDefaultPort() {
+        return protocol.getDefaultPort();
+    }
+
+    @Override
+    public <T> Exporter<T> export(Invoker<T> invoker) throws RpcException {
+        return protocol.export(invoker);
+    }
+
+    @Override
+    public <T> Invoker<T> refer(Class<T> type, URL url) throws RpcException {
+        if (!isPooled(url)) {
+            return protocol.refer(type, url);
+        }
+        return new ConnectionPoolInvoker<>(type, url, createPool(type, url));
+    }
+
+    /**
+     * 连接池内的invoker带有 pool.index，直接交给被包装的协议
+     */
+    static boolean isPooled(URL url) {
+        return DUBBO.equals(url.getProtocol()) && url.hasParameter(POOL_CONNECTIONS_KEY)
+                && !url.hasParameter(POOL_INDEX_KEY);
+    }
+
+    private <T> ConnectionPool<T> createPool(Class<T> type, URL url) {
+        int size = Math.max(url.getParameter(POOL_CONNECTIONS_KEY, DEFAULT_POOL_CONNECTIONS), 1);
+        long reconnectInterval = url.getParameter(RECONNECT_INTERVAL_KEY, DEFAULT_RECONNECT_INTERVAL_MS);
+        // 每个invoker独占一条连接，首次请求时才连接，断开后由连接池在下次选中时重建，不在后台重连
+        URL connectionUrl = url.addParameter(CONNECTIONS_KEY, 1)
+                .addParameter(LAZY_CONNECT_KEY, true)
+                .addParameter(RECONNECT_KEY, false);
+        return new ConnectionPool<>(url.getServiceKey() + "@" + url.getAddress(), url.getAddress(), size,
+                reconnectInterval, index -> protocol.refer(type, connectionUrl.addParameter(POOL_INDEX_KEY, index)));
+    }
+
+    @Override
+    public void destroy() {
+        protocol.destroy();
+    }
+
+    @Override
+    public List<ProtocolServer> getServers() {
+        return protocol.getServers();
+    }
+}
@@ -0,0 +1,126 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.rpc.Invoker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * 连接池中的一个连接，对应一个只持有一条独占连接的invoker
+ * <p>
+ * invoker以lazy方式创建，第一次发出请求时才建立连接；连接断开后不在后台重连，
+ * 而是在下一次被选中时重新创建invoker，两次重建之间至少间隔 pool.reconnect-interval。
+ */
+public final class PooledConnection<T> {
+
+    private final int index;
+    private final IntFunction<Invoker<T>> factory;
+    private final long reconnectIntervalNanos;
+    private volatile Invoker<T> invoker;
+    private volatile long lastReconnectNanos;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger reconnects = new AtomicInteger();
+
+    PooledConnection(int index, IntFunction<Invoker<T>> factory, long reconnectIntervalMillis) {
+        this.index = index;
+        this.factory = factory;
+        this.reconnectIntervalNanos = reconnectIntervalMillis * 1_000_000L;
+        this.invoker = factory.apply(index);
+        this.lastReconnectNanos = System.nanoTime() - reconnectIntervalNanos;
+    }
+
+    /**
+     * 连接可用时返回true；连接已断开时按重连间隔重新创建invoker，间隔内返回false
+     */
+    boolean prepare() {
+        if (invoker.isAvailable()) {
+            return true;
+        }
+        synchronized (this) {
+            if (invoker.isAvailable()) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (!canReconnect(now)) {
+                return false;
+            }
+            Invoker<T> broken = invoker;
+            invoker = factory.apply(index);
+            lastReconnectNanos = now;
+            reconnects.incrementAndGet();
+            broken.destroy();
+            return true;
+        }
+    }
+
+    boolean canReconnect() {
+        return canReconnect(System.nanoTime());
+    }
+
+    private boolean canReconnect(long now) {
+        return now - lastReconnectNanos >= reconnectIntervalNanos;
+    }
+
+    void begin() {
+        requests.increment();
+        int current = pending.incrementAndGet();
+        int peak;
+        while (current > (peak = peakPending.get()) && !peakPending.compareAndSet(peak, current)) {
+            // 其他线程更新了峰值，重新比较
+        }
+    }
+
+    void end(boolean error) {
+        pending.decrementAndGet();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    void destroy() {
+        invoker.destroy();
+    }
+
+    Invoker<T> getInvoker() {
+        return invoker;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isAvailable() {
+        return invoker.isAvailable();
+    }
+
+    /**
+     * 已发出但还没有返回的请求数
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getPeakPending() {
+        return peakPending.get();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * 调用失败(超时、连接断开等)的请求数，服务端返回的业务异常不计入
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public int getReconnects() {
+        return reconnects.get();
+    }
+}
@@ -0,0 +1,114 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.ProtocolServer;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboProtocol;
+import org.apache.dubbo.samples.direct.GreetingsService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 经 ReferenceConfig 直连(url=)的引用使用连接池: 提供者上应看到 pool.connections 条不同的连接
+ */
+public class ConnectionPoolReferenceTest {
+
+    private static final int POOL_CONNECTIONS = 4;
+
+    private static DubboBootstrap bootstrap;
+    private static ReferenceConfig<GreetingsService> reference;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ServiceConfig<GreetingsService> service = new ServiceConfig<>();
+        service.setInterface(GreetingsService.class);
+        service.setRef(new HelloService());
+
+        reference = new ReferenceConfig<>();
+        reference.setInterface(GreetingsService.class);
+        reference.setUrl("dubbo://127.0.0.1:" + port);
+        reference.setTimeout(5000);
+        reference.setParameters(Collections.singletonMap(ConnectionPoolProtocolWrapper.POOL_CONNECTIONS_KEY,
+                String.valueOf(POOL_CONNECTIONS)));
+
+        bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("connection-pool-test"))
+                .registry(new RegistryConfig("N/A"))
+                .protocol(new ProtocolConfig("dubbo", port))
+                .service(service)
+                .reference(reference);
+        bootstrap.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (bootstrap != null) {
+            bootstrap.stop();
+        }
+    }
+
+    @Test
+    public void testDirectReferenceUsesPool() throws Exception {
+        GreetingsService greetingsService = reference.get();
+        // 连接以lazy方式建立，空闲时请求依次分散到各个连接上
+        for (int i = 0; i < POOL_CONNECTIONS * 2; i++) {
+            assertEquals("Hello pool-" + i, greetingsService.sayHi("pool-" + i));
+        }
+        assertEquals(POOL_CONNECTIONS, awaitProviderChannels(POOL_CONNECTIONS));
+
+        ConnectionPool<?> pool = null;
+        for (ConnectionPool<?> candidate : ConnectionPoolMetrics.getPools()) {
+            if (candidate.getKey().startsWith(GreetingsService.class.getName() + "@")) {
+                pool = candidate;
+            }
+        }
+        assertNotNull(ConnectionPoolMetrics.report(), pool);
+        assertEquals(POOL_CONNECTIONS, pool.getConnections().size());
+        for (PooledConnection<?> connection : pool.getConnections()) {
+            assertEquals(2, connection.getRequests());
+            assertEquals(0, connection.getPending());
+        }
+    }
+
+    /**
+     * 提供者一端的连接数，连接的建立是异步的，等待达到期望值
+     */
+    private static int awaitProviderChannels(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        int channels;
+        while ((channels = providerChannels()) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return channels;
+    }
+
+    private static int providerChannels() {
+        int channels = 0;
+        for (ProtocolServer server : DubboProtocol.getDubboProtocol(bootstrap.getApplicationModel()).getServers()) {
+            channels += server.getRemotingServer().getChannels().size();
+        }
+        return channels;
+    }
+
+    private static class HelloService implements GreetingsService {
+        @Override
+        public String sayHi(String name) {
+            return "Hello " + name;
+        }
+    }
+}
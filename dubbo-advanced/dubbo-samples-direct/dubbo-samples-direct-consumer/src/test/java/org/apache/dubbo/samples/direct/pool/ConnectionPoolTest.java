@@ -0,0 +1,162 @@
+package org.apache.dubbo.samples.direct.pool;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.samples.direct.GreetingsService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * ConnectionPool测试: 按在途请求数选择连接、断开后延迟重建和统计
+ */
+public class ConnectionPoolTest {
+
+    private final List<FakeInvoker> created = new ArrayList<>();
+
+    @Test
+    public void testLeastPending() {
+        ConnectionPool<GreetingsService> pool = pool(4, 1000);
+        assertEquals(4, created.size());
+
+        // 空闲时依次分散到各个连接
+        Set<Integer> selected = new HashSet<>();
+        List<PooledConnection<GreetingsService>> busy = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PooledConnection<GreetingsService> connection = pool.select();
+            connection.begin();
+            busy.add(connection);
+            selected.add(connection.getIndex());
+        }
+        assertEquals(4, selected.size());
+
+        // 再压两个请求到连接0、1上，空出连接3后应选中连接3
+        pool.getConnections().get(0).begin();
+        pool.getConnections().get(1).begin();
+        busy.get(3).end(false);
+        PooledConnection<GreetingsService> least = pool.select();
+        assertEquals(busy.get(3).getIndex(), least.getIndex());
+        assertEquals(0, least.getPending());
+
+        assertEquals(2, pool.getConnections().get(0).getPending());
+        assertEquals(2, pool.getConnections().get(0).getPeakPending());
+    }
+
+    @Test
+    public void testLazyReconnect() {
+        ConnectionPool<GreetingsService> pool = pool(2, 0);
+        PooledConnection<GreetingsService> first = pool.getConnections().get(0);
+        FakeInvoker broken = created.get(0);
+        broken.available = false;
+        created.get(1).available = false;
+
+        // 断开的连接在被选中时才重建，旧的invoker被销毁
+        PooledConnection<GreetingsService> selected = pool.select();
+        assertTrue(selected.isAvailable());
+        assertEquals(3, created.size());
+        assertTrue(broken.destroyed);
+        assertEquals(1, first.getReconnects() + pool.getConnections().get(1).getReconnects());
+    }
+
+    @Test
+    public void testReconnectInterval() {
+        ConnectionPool<GreetingsService> pool = pool(2, 60_000);
+        created.get(0).available = false;
+        created.get(1).available = false;
+
+        // 每个连接第一次断开时立即重建
+        assertEquals(1, pool.select().getReconnects());
+        assertEquals(1, pool.select().getReconnects());
+        assertEquals(4, created.size());
+
+        // 间隔内再次断开不重建，没有可用的连接
+        created.get(2).available = false;
+        created.get(3).available = false;
+        try {
+            pool.select();
+            fail();
+        } catch (RpcException e) {
+            assertTrue(e.isNetwork());
+            assertTrue(e.getMessage(), e.getMessage().contains("all 2 connections to 127.0.0.1:20880"));
+        }
+        assertEquals(4, created.size());
+    }
+
+    @Test
+    public void testMetrics() {
+        ConnectionPool<GreetingsService> pool = pool(2, 1000);
+        PooledConnection<GreetingsService> connection = pool.select();
+        connection.begin();
+        connection.end(true);
+        connection.begin();
+        connection.end(false);
+        assertEquals(2, connection.getRequests());
+        assertEquals(1, connection.getErrors());
+        assertEquals(0, connection.getPending());
+
+        ConnectionPoolMetrics.register(pool);
+        try {
+            String report = ConnectionPoolMetrics.report();
+            assertTrue(report, report.contains(pool.getKey()));
+        } finally {
+            ConnectionPoolMetrics.unregister(pool);
+        }
+        assertFalse(ConnectionPoolMetrics.getPools().contains(pool));
+
+        pool.destroy();
+        assertTrue(created.get(0).destroyed && created.get(1).destroyed);
+    }
+
+    private ConnectionPool<GreetingsService> pool(int size, long reconnectIntervalMillis) {
+        return new ConnectionPool<>(GreetingsService.class.getName() + "@127.0.0.1:20880", "127.0.0.1:20880",
+                size, reconnectIntervalMillis, index -> {
+            FakeInvoker invoker = new FakeInvoker(index);
+            created.add(invoker);
+            return invoker;
+        });
+    }
+
+    private static class FakeInvoker implements Invoker<GreetingsService> {
+        private final URL url;
+        volatile boolean available = true;
+        volatile boolean destroyed;
+
+        FakeInvoker(int index) {
+            this.url = URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName() + "?pool.index=" + index);
+        }
+
+        @Override
+        public Class<GreetingsService> getInterface() {
+            return GreetingsService.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            return new AppResponse("hello");
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available && !destroyed;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
@@ -85,12 +85,20 @@ public class ExceptionConsumer {
     
     /**
      * 演示可恢复异常和重试机制
+     * 超时和网络异常的重试由 budgetfailover 集群完成(受重试预算约束)，
+     * 应用层不再叠加一层重试，避免重试次数相乘放大提供者负载
      */
     private static void demonstrateRetryMechanism(GreetingsService service) {
+        executeWithExceptionHandling(
+            () -> service.recoverableMethod("recoverable"),
+            "可恢复方法调用"
+        );
+        
+        // 应用层重试只用于集群层不会重试的场景，这里仅作对比演示
         executeWithRetry(
             () -> service.recoverableMethod("recoverable"),
             MAX_RETRIES,
-            "可恢复方法调用"
+            "可恢复方法调用(应用层重试)"
         );
     }
     
@@ -0,0 +1,225 @@
+package org.apache.dubbo.samples.exception.breaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于滑动窗口的熔断器
+ * <p>
+ * 状态流转:
+ * <ul>
+ *   <li>CLOSED: 正常放行，统计最近N次调用的失败率和慢调用比例，任一超过阈值则进入OPEN</li>
+ *   <li>OPEN: 本地直接拒绝，不再等待远端超时；等待一段时间后进入HALF_OPEN</li>
+ *   <li>HALF_OPEN: 放行少量探测调用，全部成功则回到CLOSED，否则重新进入OPEN</li>
+ * </ul>
+ * 放行判断在CLOSED/OPEN状态下只读取volatile字段，结果统计使用对象锁保护。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 状态变更监听器
+     */
+    public interface StateListener {
+        void onStateTransition(CircuitBreaker breaker, State from, State to);
+    }
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final StateListener listener;
+    private final long slowCallDurationNanos;
+    private final long waitDurationInOpenNanos;
+
+    // 滑动窗口: 每个槽位记录一次调用的结果位(FAILURE | SLOW)
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+    private int slowCount;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private int halfOpenSuccesses;
+
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config, StateListener listener) {
+        this.name = name;
+        this.config = config;
+        this.listener = listener;
+        this.slowCallDurationNanos = config.getSlowCallDurationNanos();
+        this.waitDurationInOpenNanos = TimeUnit.MILLISECONDS.toNanos(config.getWaitDurationInOpenMs());
+        this.window = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * 判断本次调用是否允许放行
+     *
+     * @return false表示熔断中，调用方应本地快速失败
+     */
+    public boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < waitDurationInOpenNanos) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            transitionIfCurrent(State.OPEN, State.HALF_OPEN);
+        }
+        if (acquireHalfOpenPermit()) {
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录一次已放行调用的结果
+     *
+     * @param durationNanos 调用耗时
+     * @param failure       是否计为失败
+     */
+    public void onResult(long durationNanos, boolean failure) {
+        boolean slow = durationNanos >= slowCallDurationNanos;
+        State from;
+        State to;
+        synchronized (this) {
+            from = state;
+            to = from;
+            if (from == State.HALF_OPEN) {
+                if (failure || slow) {
+                    to = State.OPEN;
+                } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                    to = State.CLOSED;
+                }
+            } else if (from == State.CLOSED) {
+                record(failure, slow);
+                if (windowCount >= config.getMinimumCalls()
+                        && (failureCount * 100 >= config.getFailureRateThreshold() * windowCount
+                        || slowCount * 100 >= config.getSlowCallRateThreshold() * windowCount)) {
+                    to = State.OPEN;
+                }
+            }
+            // OPEN状态下到达的结果属于熔断前发出的调用，直接忽略
+            if (to != from) {
+                enter(to);
+            }
+        }
+        if (to != from) {
+            fireTransition(from, to);
+        }
+    }
+
+    private void record(boolean failure, boolean slow) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            if ((evicted & FAILURE) != 0) {
+                failureCount--;
+            }
+            if ((evicted & SLOW) != 0) {
+                slowCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        byte outcome = 0;
+        if (failure) {
+            outcome |= FAILURE;
+            failureCount++;
+        }
+        if (slow) {
+            outcome |= SLOW;
+            slowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private boolean acquireHalfOpenPermit() {
+        for (; ; ) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void transitionIfCurrent(State expected, State to) {
+        synchronized (this) {
+            if (state != expected) {
+                return;
+            }
+            enter(to);
+        }
+        fireTransition(expected, to);
+    }
+
+    // 调用方需持有对象锁
+    private void enter(State to) {
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+        slowCount = 0;
+        halfOpenSuccesses = 0;
+        if (to == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        } else if (to == State.HALF_OPEN) {
+            halfOpenPermits.set(config.getHalfOpenCalls());
+        }
+        state = to;
+    }
+
+    private void fireTransition(State from, State to) {
+        if (listener != null) {
+            listener.onStateTransition(this, from, to);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 当前窗口内的失败率(百分比)，样本不足时返回-1
+     */
+    public synchronized float getFailureRate() {
+        return windowCount < config.getMinimumCalls() ? -1 : failureCount * 100f / windowCount;
+    }
+
+    /**
+     * 当前窗口内的慢调用比例(百分比)，样本不足时返回-1
+     */
+    public synchronized float getSlowCallRate() {
+        return windowCount < config.getMinimumCalls() ? -1 : slowCount * 100f / windowCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" + name + ", state=" + state + ", rejected=" + rejectedCount.get() + "}";
+    }
+}
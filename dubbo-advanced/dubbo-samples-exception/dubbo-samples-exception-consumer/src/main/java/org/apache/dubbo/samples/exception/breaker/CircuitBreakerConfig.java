@@ -0,0 +1,127 @@
+package org.apache.dubbo.samples.exception.breaker;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器配置
+ * 所有参数都可以通过URL参数按方法覆盖，例如:
+ * <pre>
+ *   &lt;dubbo:parameter key="circuit.failure-rate-threshold" value="50"/&gt;
+ * </pre>
+ */
+public class CircuitBreakerConfig {
+
+    public static final String FAILURE_RATE_THRESHOLD_KEY = "circuit.failure-rate-threshold";
+    public static final String SLOW_CALL_RATE_THRESHOLD_KEY = "circuit.slow-call-rate-threshold";
+    public static final String SLOW_CALL_DURATION_KEY = "circuit.slow-call-duration";
+    public static final String WINDOW_SIZE_KEY = "circuit.window-size";
+    public static final String MINIMUM_CALLS_KEY = "circuit.minimum-calls";
+    public static final String WAIT_DURATION_IN_OPEN_KEY = "circuit.wait-duration-in-open";
+    public static final String HALF_OPEN_CALLS_KEY = "circuit.half-open-calls";
+
+    // 失败率阈值(百分比)，达到即熔断
+    private int failureRateThreshold = 50;
+    // 慢调用比例阈值(百分比)，达到即熔断
+    private int slowCallRateThreshold = 80;
+    // 超过该耗时的调用视为慢调用
+    private long slowCallDurationMs = 3000;
+    // 滑动窗口大小(最近N次调用)
+    private int windowSize = 20;
+    // 窗口内至少有这么多次调用才开始计算比例
+    private int minimumCalls = 10;
+    // 打开状态持续时间，过后进入半开状态
+    private long waitDurationInOpenMs = 5000;
+    // 半开状态允许通过的探测调用数
+    private int halfOpenCalls = 3;
+
+    public static CircuitBreakerConfig fromUrl(URL url, String methodName) {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.failureRateThreshold = url.getMethodParameter(methodName, FAILURE_RATE_THRESHOLD_KEY, config.failureRateThreshold);
+        config.slowCallRateThreshold = url.getMethodParameter(methodName, SLOW_CALL_RATE_THRESHOLD_KEY, config.slowCallRateThreshold);
+        config.slowCallDurationMs = url.getMethodParameter(methodName, SLOW_CALL_DURATION_KEY, config.slowCallDurationMs);
+        config.windowSize = url.getMethodParameter(methodName, WINDOW_SIZE_KEY, config.windowSize);
+        config.minimumCalls = url.getMethodParameter(methodName, MINIMUM_CALLS_KEY, config.minimumCalls);
+        config.waitDurationInOpenMs = url.getMethodParameter(methodName, WAIT_DURATION_IN_OPEN_KEY, config.waitDurationInOpenMs);
+        config.halfOpenCalls = url.getMethodParameter(methodName, HALF_OPEN_CALLS_KEY, config.halfOpenCalls);
+        return config.validate();
+    }
+
+    public CircuitBreakerConfig validate() {
+        if (windowSize <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("windowSize and halfOpenCalls must be positive");
+        }
+        if (minimumCalls <= 0 || minimumCalls > windowSize) {
+            minimumCalls = windowSize;
+        }
+        return this;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public CircuitBreakerConfig setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public CircuitBreakerConfig setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+
+    public long getSlowCallDurationMs() {
+        return slowCallDurationMs;
+    }
+
+    public long getSlowCallDurationNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(slowCallDurationMs);
+    }
+
+    public CircuitBreakerConfig setSlowCallDurationMs(long slowCallDurationMs) {
+        this.slowCallDurationMs = slowCallDurationMs;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public CircuitBreakerConfig setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public CircuitBreakerConfig setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    public long getWaitDurationInOpenMs() {
+        return waitDurationInOpenMs;
+    }
+
+    public CircuitBreakerConfig setWaitDurationInOpenMs(long waitDurationInOpenMs) {
+        this.waitDurationInOpenMs = waitDurationInOpenMs;
+        return this;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public CircuitBreakerConfig setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+        return this;
+    }
+}
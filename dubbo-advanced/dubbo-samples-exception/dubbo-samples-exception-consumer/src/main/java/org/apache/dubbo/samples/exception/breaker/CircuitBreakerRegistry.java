@@ -0,0 +1,68 @@
+package org.apache.dubbo.samples.exception.breaker;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 熔断器注册表
+ * 按 "提供者地址/接口#方法" 维度维护熔断器，并把状态变更广播给监听器
+ */
+public class CircuitBreakerRegistry implements CircuitBreaker.StateListener {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+    private static final CircuitBreakerRegistry INSTANCE = new CircuitBreakerRegistry();
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final List<CircuitBreaker.StateListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static CircuitBreakerRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取(或创建)指定提供者、指定方法的熔断器
+     */
+    public CircuitBreaker getBreaker(URL url, String methodName) {
+        String key = url.getAddress() + "/" + url.getServiceInterface() + "#" + methodName;
+        CircuitBreaker breaker = breakers.get(key);
+        if (breaker != null) {
+            return breaker;
+        }
+        return breakers.computeIfAbsent(key, k -> new CircuitBreaker(k, CircuitBreakerConfig.fromUrl(url, methodName), this));
+    }
+
+    public void addListener(CircuitBreaker.StateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CircuitBreaker.StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 所有熔断器的只读视图，可用于暴露监控指标
+     */
+    public Map<String, CircuitBreaker> getBreakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    @Override
+    public void onStateTransition(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to) {
+        logger.warn("熔断器状态变更: " + breaker.getName() + " " + from + " -> " + to);
+        for (CircuitBreaker.StateListener listener : listeners) {
+            try {
+                listener.onStateTransition(breaker, from, to);
+            } catch (Throwable t) {
+                logger.error("熔断器状态监听器执行失败", t);
+            }
+        }
+    }
+}
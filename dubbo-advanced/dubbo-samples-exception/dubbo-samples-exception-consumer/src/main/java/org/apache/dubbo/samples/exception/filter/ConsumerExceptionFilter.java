@@ -7,25 +7,54 @@ import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.samples.exception.BusinessException;
+import org.apache.dubbo.samples.exception.breaker.CircuitBreaker;
+import org.apache.dubbo.samples.exception.breaker.CircuitBreakerRegistry;
+import org.apache.dubbo.samples.exception.log.ErrorReporter;
 
 /**
  * 消费端全局异常处理过滤器
- * 用于统一处理来自服务端的异常
+ * 用于统一处理来自服务端的异常，并按 提供者+方法 维度做熔断:
+ * 熔断打开期间本地快速失败，避免每次调用都等满超时时间
  */
 @Activate(group = CommonConstants.CONSUMER)
-public class ConsumerExceptionFilter implements Filter {
+public class ConsumerExceptionFilter implements Filter, Filter.Listener {
     private static final Logger logger = LoggerFactory.getLogger(ConsumerExceptionFilter.class);
+    // 相同失败聚合计数，只对采样到的调用打印完整堆栈
+    private static final ErrorReporter errorReporter = new ErrorReporter(logger);
+
+    // 放行调用的开始时间，未放行的调用不记录该属性
+    private static final String BREAKER_START_KEY = "consumer.breaker.start";
+
+    private final CircuitBreakerRegistry breakerRegistry;
+
+    public ConsumerExceptionFilter() {
+        this(CircuitBreakerRegistry.getInstance());
+    }
+
+    public ConsumerExceptionFilter(CircuitBreakerRegistry breakerRegistry) {
+        this.breakerRegistry = breakerRegistry;
+    }
 
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        CircuitBreaker breaker = breakerRegistry.getBreaker(invoker.getUrl(), invocation.getMethodName());
+        if (!breaker.tryAcquirePermission()) {
+            // 失败重试会复用同一个invocation，清掉上一次尝试留下的开始时间
+            invocation.getAttributes().remove(BREAKER_START_KEY);
+            // 熔断中，本地快速失败；集群容错层可以据此换一个提供者
+            throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION,
+                    "熔断器已打开，快速失败: " + breaker.getName());
+        }
+        invocation.put(BREAKER_START_KEY, System.nanoTime());
+
         try {
             Result result = invoker.invoke(invocation);
             if (result.hasException()) {
                 Throwable exception = result.getException();
-                
+
                 // 记录异常日志
-                logger.error("调用服务发生异常: " + exception.getMessage(), exception);
-                
+                errorReporter.report("调用服务发生异常: ", exception, invocation.getMethodName(), invoker.getUrl().getAddress());
+
                 // 根据异常类型进行处理
                 if (exception instanceof BusinessException) {
                     // 业务异常直接抛出，由业务代码处理
@@ -48,8 +77,42 @@ public class ConsumerExceptionFilter implements Filter {
             return result;
         } catch (RpcException e) {
             // 捕获框架可能抛出的RpcException
-            logger.error("RPC调用异常", e);
+            errorReporter.report("RPC调用异常: ", e, invocation.getMethodName(), invoker.getUrl().getAddress());
             throw e;
         }
     }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        recordOutcome(invoker, invocation, appResponse.hasException() ? appResponse.getException() : null);
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        recordOutcome(invoker, invocation, t);
+    }
+
+    /**
+     * 调用完成(含异步完成)时把结果计入熔断器的滑动窗口
+     */
+    private void recordOutcome(Invoker<?> invoker, Invocation invocation, Throwable exception) {
+        Object start = invocation.get(BREAKER_START_KEY);
+        if (!(start instanceof Long)) {
+            // 被熔断器拒绝的调用，不计入统计
+            return;
+        }
+        long duration = System.nanoTime() - (Long) start;
+        breakerRegistry.getBreaker(invoker.getUrl(), invocation.getMethodName())
+                .onResult(duration, isBreakerFailure(exception));
+    }
+
+    /**
+     * 业务异常说明提供者工作正常，不计为熔断失败
+     */
+    private static boolean isBreakerFailure(Throwable exception) {
+        if (exception == null || exception instanceof BusinessException) {
+            return false;
+        }
+        return !(exception instanceof RpcException) || !((RpcException) exception).isBiz();
+    }
 }
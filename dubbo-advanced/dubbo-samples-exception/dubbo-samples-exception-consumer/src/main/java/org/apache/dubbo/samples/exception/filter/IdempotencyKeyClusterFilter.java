@@ -0,0 +1,39 @@
+package org.apache.dubbo.samples.exception.filter;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.filter.ClusterFilter;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_ENABLED_KEY;
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_KEY;
+
+/**
+ * 消费端幂等键过滤器
+ * <p>
+ * ClusterFilter在集群容错之前执行，每次逻辑调用只执行一次，
+ * 因此生成的幂等键会被该调用的所有重试共享，提供端据此识别重复请求。
+ * 只对配置了 idempotency.enabled=true 的方法生效。
+ */
+@Activate(group = CommonConstants.CONSUMER)
+public class IdempotencyKeyClusterFilter implements ClusterFilter {
+
+    // 进程级前缀 + 自增序号，生成成本低且跨消费端唯一
+    private static final String KEY_PREFIX = UUID.randomUUID().toString().replace("-", "") + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (invoker.getUrl().getMethodParameter(invocation.getMethodName(), IDEMPOTENCY_ENABLED_KEY, false)
+                && invocation.getObjectAttachment(IDEMPOTENCY_KEY) == null) {
+            invocation.setAttachment(IDEMPOTENCY_KEY, KEY_PREFIX + SEQUENCE.incrementAndGet());
+        }
+        return invoker.invoke(invocation);
+    }
+}
@@ -0,0 +1,133 @@
+package org.apache.dubbo.samples.exception.retry;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 重试预算
+ * <p>
+ * 在最近 windowSeconds 秒内统计首次请求数和重试次数，只有满足
+ * <pre>
+ *   retries &lt; minRetriesPerSecond * windowSeconds + retryRatio * requests
+ * </pre>
+ * 时才允许重试。这样重试带来的额外负载被限制在首次请求的固定比例内，
+ * 提供者出问题时不会被成倍放大的重试流量压垮。
+ * 同一个消费端应用共享一个预算。
+ */
+public class RetryBudget {
+
+    public static final String RETRY_RATIO_KEY = "retry.budget.ratio";
+    public static final String MIN_RETRIES_PER_SECOND_KEY = "retry.budget.min-retries-per-second";
+    public static final String WINDOW_SECONDS_KEY = "retry.budget.window-seconds";
+
+    public static final double DEFAULT_RETRY_RATIO = 0.1;
+    public static final int DEFAULT_MIN_RETRIES_PER_SECOND = 5;
+    public static final int DEFAULT_WINDOW_SECONDS = 10;
+
+    private static final ConcurrentMap<String, RetryBudget> BUDGETS = new ConcurrentHashMap<>();
+
+    private final double retryRatio;
+    private final long minRetries;
+    private final Bucket[] buckets;
+    private final LongSupplier clock;
+
+    private final LongAdder rejectedRetries = new LongAdder();
+
+    /**
+     * 按消费端应用获取共享的重试预算，配置以第一次创建时的URL为准
+     */
+    public static RetryBudget getInstance(URL url) {
+        String application = url.getApplication();
+        String key = application == null ? "" : application;
+        RetryBudget budget = BUDGETS.get(key);
+        if (budget != null) {
+            return budget;
+        }
+        return BUDGETS.computeIfAbsent(key, k -> new RetryBudget(
+                url.getParameter(RETRY_RATIO_KEY, DEFAULT_RETRY_RATIO),
+                url.getParameter(MIN_RETRIES_PER_SECOND_KEY, DEFAULT_MIN_RETRIES_PER_SECOND),
+                url.getParameter(WINDOW_SECONDS_KEY, DEFAULT_WINDOW_SECONDS)));
+    }
+
+    public RetryBudget(double retryRatio, int minRetriesPerSecond, int windowSeconds) {
+        this(retryRatio, minRetriesPerSecond, windowSeconds, () -> System.currentTimeMillis() / 1000);
+    }
+
+    RetryBudget(double retryRatio, int minRetriesPerSecond, int windowSeconds, LongSupplier secondsClock) {
+        if (retryRatio < 0 || minRetriesPerSecond < 0 || windowSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid retry budget: ratio=" + retryRatio
+                    + ", minRetriesPerSecond=" + minRetriesPerSecond + ", windowSeconds=" + windowSeconds);
+        }
+        this.retryRatio = retryRatio;
+        this.minRetries = (long) minRetriesPerSecond * windowSeconds;
+        this.buckets = new Bucket[windowSeconds];
+        for (int i = 0; i < windowSeconds; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.clock = secondsClock;
+    }
+
+    /**
+     * 记录一次首次请求(存入预算)
+     */
+    public void recordRequest() {
+        currentBucket().requests.increment();
+    }
+
+    /**
+     * 申请一次重试(从预算中扣除)
+     *
+     * @return false表示预算已用完，不应再重试
+     */
+    public boolean tryAcquireRetry() {
+        long now = clock.getAsLong();
+        long requests = 0;
+        long retries = 0;
+        for (Bucket bucket : buckets) {
+            if (now - bucket.second < buckets.length) {
+                requests += bucket.requests.sum();
+                retries += bucket.retries.sum();
+            }
+        }
+        // 并发下允许少量超出，换取无锁的热路径
+        if (retries < minRetries + retryRatio * requests) {
+            currentBucket().retries.increment();
+            return true;
+        }
+        rejectedRetries.increment();
+        return false;
+    }
+
+    public long getRejectedRetries() {
+        return rejectedRetries.sum();
+    }
+
+    public double getRetryRatio() {
+        return retryRatio;
+    }
+
+    private Bucket currentBucket() {
+        long now = clock.getAsLong();
+        Bucket bucket = buckets[(int) (now % buckets.length)];
+        if (bucket.second != now) {
+            synchronized (bucket) {
+                if (bucket.second != now) {
+                    bucket.requests.reset();
+                    bucket.retries.reset();
+                    bucket.second = now;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        volatile long second = -1;
+        final LongAdder requests = new LongAdder();
+        final LongAdder retries = new LongAdder();
+    }
+}
@@ -0,0 +1,20 @@
+package org.apache.dubbo.samples.exception.retry;
+
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+import org.apache.dubbo.rpc.cluster.support.wrapper.AbstractCluster;
+
+/**
+ * 带重试预算的失败自动切换集群
+ * 使用方式: &lt;dubbo:reference cluster="budgetfailover" retries="2"/&gt;
+ */
+public class RetryBudgetCluster extends AbstractCluster {
+
+    public static final String NAME = "budgetfailover";
+
+    @Override
+    public <T> AbstractClusterInvoker<T> doJoin(Directory<T> directory) throws RpcException {
+        return new RetryBudgetClusterInvoker<>(directory);
+    }
+}
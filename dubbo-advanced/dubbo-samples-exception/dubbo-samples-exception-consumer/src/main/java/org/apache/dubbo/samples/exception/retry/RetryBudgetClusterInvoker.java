@@ -0,0 +1,145 @@
+package org.apache.dubbo.samples.exception.retry;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带重试预算的失败自动切换
+ * <p>
+ * 与默认的failover相比:
+ * <ul>
+ *   <li>重试前先向消费端共享的 {@link RetryBudget} 申请额度，预算耗尽时直接失败</li>
+ *   <li>重试之间按指数退避加全随机抖动(full jitter)等待，避免重试风暴同步到达</li>
+ *   <li>预算耗尽的告警每秒最多输出一次，避免故障期间刷屏</li>
+ *   <li>每次重试都排除已经尝试过的提供者</li>
+ * </ul>
+ * 与failover一样，只对非业务类的RpcException(超时、网络异常等)重试。
+ * <p>
+ * 退避等待直接阻塞调用线程: 与failover相同，doInvoke需要同步返回最终结果，
+ * 等待时间上限为 retry.backoff.max，调用线程本来也要等待这次调用的结果。
+ */
+public class RetryBudgetClusterInvoker<T> extends AbstractClusterInvoker<T> {
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudgetClusterInvoker.class);
+
+    public static final String RETRIES_KEY = "retries";
+    public static final String BACKOFF_BASE_KEY = "retry.backoff.base";
+    public static final String BACKOFF_MAX_KEY = "retry.backoff.max";
+
+    public static final int DEFAULT_RETRIES = 2;
+    public static final long DEFAULT_BACKOFF_BASE_MS = 20;
+    public static final long DEFAULT_BACKOFF_MAX_MS = 1000;
+
+    private static final long REJECT_WARN_INTERVAL_MS = 1000;
+
+    // 为空时使用消费端应用共享的预算
+    private final RetryBudget budget;
+    private final AtomicLong lastRejectWarn = new AtomicLong();
+
+    public RetryBudgetClusterInvoker(Directory<T> directory) {
+        this(directory, null);
+    }
+
+    RetryBudgetClusterInvoker(Directory<T> directory, RetryBudget budget) {
+        super(directory);
+        this.budget = budget;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Result doInvoke(Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
+        checkInvokers(invokers, invocation);
+        String methodName = invocation.getMethodName();
+        URL url = getUrl();
+        int maxAttempts = Math.max(url.getMethodParameter(methodName, RETRIES_KEY, DEFAULT_RETRIES), 0) + 1;
+        long backoffBaseMs = url.getMethodParameter(methodName, BACKOFF_BASE_KEY, DEFAULT_BACKOFF_BASE_MS);
+        long backoffMaxMs = url.getMethodParameter(methodName, BACKOFF_MAX_KEY, DEFAULT_BACKOFF_MAX_MS);
+
+        RetryBudget budget = this.budget != null ? this.budget : RetryBudget.getInstance(url);
+        budget.recordRequest();
+
+        List<Invoker<T>> candidates = invokers;
+        List<Invoker<T>> invoked = new ArrayList<>(maxAttempts);
+        RpcException lastException = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (attempt > 0) {
+                if (!budget.tryAcquireRetry()) {
+                    warnRetryRejected(budget, methodName, attempt);
+                    break;
+                }
+                sleep(backoffMillis(attempt, backoffBaseMs, backoffMaxMs));
+                // 重试前重新获取提供者列表，期间可能有提供者上下线
+                checkWhetherDestroyed();
+                candidates = list(invocation);
+                checkInvokers(candidates, invocation);
+            }
+            Invoker<T> invoker = select(loadbalance, invocation, candidates, invoked);
+            invoked.add(invoker);
+            RpcContext.getServiceContext().setInvokers((List) invoked);
+            try {
+                return invokeWithContext(invoker, invocation);
+            } catch (RpcException e) {
+                if (e.isBiz()) {
+                    throw e;
+                }
+                lastException = e;
+            } catch (Throwable e) {
+                lastException = new RpcException(e.getMessage(), e);
+            }
+        }
+        throw new RpcException(lastException.getCode(), "Failed to invoke method " + methodName
+                + " in service " + getInterface().getName() + ", tried " + invoked.size() + " of " + maxAttempts
+                + " attempts, last error: " + lastException.getMessage(),
+                lastException.getCause() != null ? lastException.getCause() : lastException);
+    }
+
+    private void warnRetryRejected(RetryBudget budget, String methodName, int attempt) {
+        long now = System.currentTimeMillis();
+        long last = lastRejectWarn.get();
+        if (now - last < REJECT_WARN_INTERVAL_MS || !lastRejectWarn.compareAndSet(last, now)) {
+            return;
+        }
+        logger.warn("重试预算已耗尽，放弃重试: " + methodName + ", 已尝试 " + attempt + " 次, 累计被拒绝的重试 "
+                + budget.getRejectedRetries() + " 次");
+    }
+
+    /**
+     * 指数退避 + 全随机抖动: [0, min(max, base * 2^(retry-1))]
+     */
+    static long backoffMillis(int retry, long baseMs, long maxMs) {
+        if (baseMs <= 0) {
+            return 0;
+        }
+        long ceiling = Math.min(maxMs, baseMs << Math.min(retry - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * 阻塞当前调用线程等待退避时间，见类注释
+     */
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("重试等待被中断", e);
+        }
+    }
+}
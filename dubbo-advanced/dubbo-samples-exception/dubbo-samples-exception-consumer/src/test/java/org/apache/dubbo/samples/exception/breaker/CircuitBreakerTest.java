@@ -0,0 +1,144 @@
+package org.apache.dubbo.samples.exception.breaker;
+
+import org.apache.dubbo.rpc.RpcException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 熔断器测试
+ * <p>
+ * 模拟提供者宕机: 每次放行的调用都要等满超时时间才失败。
+ * 对比不熔断和熔断两种情况下的p99延迟，熔断打开后调用在本地快速失败，
+ * p99应从超时时间量级下降到微秒量级。
+ */
+public class CircuitBreakerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerTest.class);
+
+    private static final long TIMEOUT_MS = 50;
+    private static final int CALLS = 2000;
+
+    @Test
+    public void testP99LatencyDropsDuringOutage() {
+        long[] withoutBreaker = new long[50];
+        for (int i = 0; i < withoutBreaker.length; i++) {
+            withoutBreaker[i] = callDeadProvider(null);
+        }
+
+        List<String> transitions = new ArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker("dead-provider#sayHi",
+                new CircuitBreakerConfig().setWindowSize(20).setMinimumCalls(10)
+                        .setSlowCallDurationMs(TIMEOUT_MS).setWaitDurationInOpenMs(60000).validate(),
+                (b, from, to) -> transitions.add(from + "->" + to));
+        long[] withBreaker = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            withBreaker[i] = callDeadProvider(breaker);
+        }
+
+        long p99Without = p99(withoutBreaker);
+        long p99With = p99(withBreaker);
+        logger.info("提供者宕机期间 p99: 无熔断={}us, 有熔断={}us",
+                TimeUnit.NANOSECONDS.toMicros(p99Without), TimeUnit.NANOSECONDS.toMicros(p99With));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(Arrays.asList("CLOSED->OPEN"), transitions);
+        assertEquals(CALLS - 10, breaker.getRejectedCount());
+        assertTrue("无熔断时p99应接近超时时间", p99Without >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS));
+        assertTrue("熔断后p99应在微秒级", p99With < TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testHalfOpenProbeClosesBreaker() throws InterruptedException {
+        List<String> transitions = new ArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker("recovering-provider#sayHi",
+                new CircuitBreakerConfig().setWindowSize(10).setMinimumCalls(5)
+                        .setWaitDurationInOpenMs(100).setHalfOpenCalls(2).validate(),
+                (b, from, to) -> transitions.add(from + "->" + to));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(0, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        // 半开状态只放行两个探测调用
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(0, false);
+        breaker.onResult(0, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    public void testHalfOpenProbeFailureReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("flapping-provider#sayHi",
+                new CircuitBreakerConfig().setWindowSize(10).setMinimumCalls(5)
+                        .setWaitDurationInOpenMs(100).validate(), null);
+        for (int i = 0; i < 5; i++) {
+            breaker.onResult(0, true);
+        }
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(0, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testSlowCallsOpenBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("slow-provider#sayHi",
+                new CircuitBreakerConfig().setWindowSize(10).setMinimumCalls(10)
+                        .setSlowCallDurationMs(100).setSlowCallRateThreshold(50).validate(), null);
+        long slow = TimeUnit.MILLISECONDS.toNanos(200);
+        for (int i = 0; i < 5; i++) {
+            breaker.onResult(0, false);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(slow, false);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onResult(slow, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    /**
+     * 模拟一次对已宕机提供者的调用，返回调用方感知到的耗时
+     */
+    private static long callDeadProvider(CircuitBreaker breaker) {
+        long start = System.nanoTime();
+        try {
+            if (breaker != null && !breaker.tryAcquirePermission()) {
+                throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION, "熔断器已打开，快速失败");
+            }
+            TimeUnit.MILLISECONDS.sleep(TIMEOUT_MS);
+            if (breaker != null) {
+                breaker.onResult(System.nanoTime() - start, true);
+            }
+        } catch (RpcException e) {
+            assertTrue(e.isLimitExceed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+}
@@ -0,0 +1,228 @@
+package org.apache.dubbo.samples.exception.filter;
+
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.filter.FilterChainBuilder;
+import org.apache.dubbo.samples.exception.BusinessException;
+import org.apache.dubbo.samples.exception.GreetingsService;
+import org.apache.dubbo.samples.exception.TestInvoker;
+import org.apache.dubbo.samples.exception.breaker.CircuitBreaker;
+import org.apache.dubbo.samples.exception.breaker.CircuitBreakerRegistry;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * ConsumerExceptionFilter 熔断路径测试
+ * <p>
+ * 过滤器挂在Dubbo的过滤器链节点上调用，调用结果经链上注册的 onResponse/onError 计入熔断器，
+ * 和真实调用时的路径相同。提供者宕机时对比不经过滤器和经过滤器调用的p99延迟。
+ */
+public class ConsumerExceptionFilterTest {
+
+    private static final String URL_PREFIX = "dubbo://127.0.0.1:20880/" + GreetingsService.class.getName()
+            + "?circuit.window-size=5&circuit.minimum-calls=5&circuit.half-open-calls=2";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerExceptionFilterTest.class);
+
+    private static final long OUTAGE_TIMEOUT_MS = 50;
+    private static final int OUTAGE_CALLS = 2000;
+
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    private final ConsumerExceptionFilter filter = new ConsumerExceptionFilter(registry);
+
+    @Test
+    public void testOpenBreakerRejectsWithoutCallingProvider() {
+        TestInvoker provider = provider(60_000, inv -> AsyncRpcResult.newDefaultAsyncResult(
+                new RpcException(RpcException.NETWORK_EXCEPTION, "connection refused"), inv));
+        Invoker<GreetingsService> chain = chain(provider);
+
+        // 结果中的网络异常经 onResponse 记为失败
+        for (int i = 0; i < 5; i++) {
+            assertTrue(chain.invoke(newInvocation()).hasException());
+        }
+        CircuitBreaker breaker = breaker(provider);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        try {
+            chain.invoke(newInvocation());
+            fail();
+        } catch (RpcException e) {
+            assertTrue(e.isLimitExceed());
+        }
+        assertEquals(5, provider.getInvocations());
+        assertEquals(1, breaker.getRejectedCount());
+        // 被拒绝的调用经 onError 回调时不计入窗口，也不会重置打开状态
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testP99LatencyDropsDuringOutage() {
+        // 提供者宕机: 每次调用都要等满超时时间才以超时失败
+        TestInvoker provider = provider(60_000, inv -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(OUTAGE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return AsyncRpcResult.newDefaultAsyncResult(
+                    new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"), inv);
+        });
+        long[] withoutBreaker = new long[20];
+        for (int i = 0; i < withoutBreaker.length; i++) {
+            long start = System.nanoTime();
+            provider.invoke(newInvocation());
+            withoutBreaker[i] = System.nanoTime() - start;
+        }
+
+        Invoker<GreetingsService> chain = chain(provider);
+        long[] withBreaker = new long[OUTAGE_CALLS];
+        for (int i = 0; i < OUTAGE_CALLS; i++) {
+            long start = System.nanoTime();
+            try {
+                assertTrue(chain.invoke(newInvocation()).hasException());
+            } catch (RpcException e) {
+                assertTrue(e.isLimitExceed());
+            }
+            withBreaker[i] = System.nanoTime() - start;
+        }
+
+        long p99Without = p99(withoutBreaker);
+        long p99With = p99(withBreaker);
+        logger.info("提供者宕机期间经过滤器调用的 p99: 无熔断={}us, 有熔断={}us",
+                TimeUnit.NANOSECONDS.toMicros(p99Without), TimeUnit.NANOSECONDS.toMicros(p99With));
+
+        CircuitBreaker breaker = breaker(provider);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // 窗口内的5次失败之后全部在本地拒绝
+        assertEquals(withoutBreaker.length + 5, provider.getInvocations());
+        assertEquals(OUTAGE_CALLS - 5, breaker.getRejectedCount());
+        assertTrue("无熔断时p99应接近超时时间", p99Without >= TimeUnit.MILLISECONDS.toNanos(OUTAGE_TIMEOUT_MS));
+        assertTrue("熔断后p99应在毫秒以下", p99With < TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void testBusinessExceptionsDoNotOpenBreaker() {
+        TestInvoker provider = provider(60_000, inv -> AsyncRpcResult.newDefaultAsyncResult(
+                new BusinessException("E001", "余额不足"), inv));
+        Invoker<GreetingsService> chain = chain(provider);
+        for (int i = 0; i < 10; i++) {
+            Result result = chain.invoke(newInvocation());
+            assertTrue(result.getException() instanceof BusinessException);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker(provider).getState());
+        assertEquals(0f, breaker(provider).getFailureRate(), 0f);
+    }
+
+    @Test
+    public void testHalfOpenProbesCloseBreakerOnAsyncSuccess() throws InterruptedException {
+        // 同步抛出的异常经 onError 记为失败
+        TestInvoker provider = provider(100, inv -> {
+            throw new RpcException(RpcException.NETWORK_EXCEPTION, "connection refused");
+        });
+        Invoker<GreetingsService> chain = chain(provider);
+        for (int i = 0; i < 5; i++) {
+            try {
+                chain.invoke(newInvocation());
+                fail();
+            } catch (RpcException e) {
+                assertTrue(e.isNetwork());
+            }
+        }
+        CircuitBreaker breaker = breaker(provider);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // 提供者恢复，探测调用的结果稍后异步完成
+        List<CompletableFuture<AppResponse>> pending = new ArrayList<>();
+        provider.setBehavior(inv -> {
+            CompletableFuture<AppResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return new AsyncRpcResult(future, inv);
+        });
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        chain.invoke(newInvocation());
+        chain.invoke(newInvocation());
+        try {
+            chain.invoke(newInvocation());
+            fail("半开状态只放行两个探测调用");
+        } catch (RpcException e) {
+            assertTrue(e.isLimitExceed());
+        }
+        assertEquals(7, provider.getInvocations());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        pending.get(0).complete(new AppResponse("hi"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        pending.get(1).complete(new AppResponse("hi"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbeFailureReopensBreaker() throws InterruptedException {
+        TestInvoker provider = provider(100, inv -> AsyncRpcResult.newDefaultAsyncResult(
+                new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"), inv));
+        Invoker<GreetingsService> chain = chain(provider);
+        for (int i = 0; i < 5; i++) {
+            chain.invoke(newInvocation());
+        }
+        CircuitBreaker breaker = breaker(provider);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CompletableFuture<AppResponse> probe = new CompletableFuture<>();
+        provider.setBehavior(inv -> new AsyncRpcResult(probe, inv));
+        TimeUnit.MILLISECONDS.sleep(150);
+        chain.invoke(newInvocation());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // 探测调用异步失败，经 onError 重新打开
+        probe.completeExceptionally(new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        try {
+            chain.invoke(newInvocation());
+            fail();
+        } catch (RpcException e) {
+            assertTrue(e.isLimitExceed());
+        }
+    }
+
+    private static TestInvoker provider(long waitDurationInOpenMs, Function<Invocation, Result> behavior) {
+        return new TestInvoker(URL_PREFIX + "&circuit.wait-duration-in-open=" + waitDurationInOpenMs, behavior);
+    }
+
+    private Invoker<GreetingsService> chain(TestInvoker provider) {
+        return new FilterChainBuilder.FilterChainNode<>(provider, provider, filter);
+    }
+
+    private CircuitBreaker breaker(TestInvoker provider) {
+        return registry.getBreaker(provider.getUrl(), "sayHi");
+    }
+
+    private static long p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+
+    private static RpcInvocation newInvocation() {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("sayHi");
+        invocation.setParameterTypes(new Class<?>[]{String.class});
+        invocation.setArguments(new Object[]{"dubbo"});
+        return invocation;
+    }
+}
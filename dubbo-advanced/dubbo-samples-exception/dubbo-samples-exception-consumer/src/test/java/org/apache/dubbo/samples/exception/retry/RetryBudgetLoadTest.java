@@ -0,0 +1,183 @@
+package org.apache.dubbo.samples.exception.retry;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.directory.StaticDirectory;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+import org.apache.dubbo.rpc.cluster.support.FailoverClusterInvoker;
+import org.apache.dubbo.samples.exception.GreetingsService;
+import org.apache.dubbo.samples.exception.TestInvoker;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * 重试预算负载测试
+ * <p>
+ * 模拟部分故障: 3个提供者中1个完全不可用，另外2个过载，30%的调用超时。
+ * 同一组提供者分别挂在Dubbo自带的failover(retries=2)和 RetryBudgetClusterInvoker(预算10%)下调用，
+ * 对比提供者实际收到的调用次数(尝试次数/请求数)和最终成功率。
+ */
+public class RetryBudgetLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudgetLoadTest.class);
+
+    private static final double[] PROVIDER_FAILURE_RATES = {1.0, 0.3, 0.3};
+    private static final int REQUESTS = 20_000;
+    private static final int REQUESTS_PER_SECOND = 10_000;
+    private static final int RETRIES = 2;
+    private static final double RETRY_RATIO = 0.1;
+
+    @Test
+    public void testRetryBudgetCapsProviderLoadDuringPartialOutage() {
+        LoadResult naive = run(FailoverClusterInvoker::new, new AtomicLong());
+
+        AtomicLong clock = new AtomicLong();
+        RetryBudget budget = new RetryBudget(RETRY_RATIO, 0, 10, clock::get);
+        LoadResult budgeted = run(directory -> new RetryBudgetClusterInvoker<>(directory, budget), clock);
+
+        logger.info("固定重试:   提供者负载={}x, 成功率={}%", format(naive.load()), format(naive.successRate() * 100));
+        logger.info("重试预算:   提供者负载={}x, 成功率={}%, 被拒绝的重试={}",
+                format(budgeted.load()), format(budgeted.successRate() * 100), budget.getRejectedRetries());
+
+        assertTrue("固定重试会把负载放大到1.5倍以上", naive.load() > 1.5);
+        assertTrue("重试预算把负载控制在 1 + ratio 以内", budgeted.load() <= 1 + RETRY_RATIO + 0.01);
+        assertTrue("重试预算仍然能挽回一部分失败", budgeted.successRate() > budgeted.firstAttemptSuccessRate());
+        assertTrue(budget.getRejectedRetries() > 0);
+    }
+
+    @Test
+    public void testMinRetriesAllowedWithoutTraffic() {
+        RetryBudget budget = new RetryBudget(0.0, 1, 10, () -> 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+        assertEquals(1, budget.getRejectedRetries());
+    }
+
+    @Test
+    public void testBudgetRefillsAfterWindow() {
+        AtomicLong clock = new AtomicLong();
+        RetryBudget budget = new RetryBudget(0.5, 0, 2, clock::get);
+        for (int i = 0; i < 4; i++) {
+            budget.recordRequest();
+        }
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        // 窗口滑过之后旧的请求和重试都不再计入
+        clock.set(2);
+        assertFalse(budget.tryAcquireRetry());
+        budget.recordRequest();
+        budget.recordRequest();
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+    }
+
+    @Test
+    public void testJitteredBackoffBounds() {
+        for (int retry = 1; retry <= 10; retry++) {
+            long ceiling = Math.min(1000, 20L << (retry - 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = RetryBudgetClusterInvoker.backoffMillis(retry, 20, 1000);
+                assertTrue(delay >= 0 && delay <= ceiling);
+            }
+        }
+        assertEquals(0, RetryBudgetClusterInvoker.backoffMillis(1, 0, 1000));
+    }
+
+    /**
+     * 经集群调用 REQUESTS 次，尝试次数按提供者实际收到的调用统计
+     */
+    private static LoadResult run(ClusterFactory factory, AtomicLong clock) {
+        List<TestInvoker> providers = new ArrayList<>();
+        for (int p = 0; p < PROVIDER_FAILURE_RATES.length; p++) {
+            double failureRate = PROVIDER_FAILURE_RATES[p];
+            providers.add(new TestInvoker("dubbo://127.0.0.1:" + (20880 + p) + "/" + GreetingsService.class.getName(),
+                    inv -> {
+                        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "provider overloaded");
+                        }
+                        return AsyncRpcResult.newDefaultAsyncResult(new AppResponse("hi"), inv);
+                    }));
+        }
+        URL url = URL.valueOf("dubbo://127.0.0.1/" + GreetingsService.class.getName()
+                + "?retries=" + RETRIES + "&" + RetryBudgetClusterInvoker.BACKOFF_BASE_KEY + "=0");
+        StaticDirectory<GreetingsService> directory = new StaticDirectory<>(url, new ArrayList<Invoker<GreetingsService>>(providers));
+        directory.buildRouterChain();
+        AbstractClusterInvoker<GreetingsService> cluster = factory.create(directory);
+
+        LoadResult result = new LoadResult();
+        for (int i = 0; i < REQUESTS; i++) {
+            clock.set(i / REQUESTS_PER_SECOND);
+            long before = attempts(providers);
+            try {
+                cluster.invoke(newInvocation());
+                result.successes++;
+                if (attempts(providers) - before == 1) {
+                    result.firstAttemptSuccesses++;
+                }
+            } catch (RpcException e) {
+                assertFalse(e.isBiz());
+            }
+        }
+        result.attempts = attempts(providers);
+        return result;
+    }
+
+    private static long attempts(List<TestInvoker> providers) {
+        long attempts = 0;
+        for (TestInvoker provider : providers) {
+            attempts += provider.getInvocations();
+        }
+        return attempts;
+    }
+
+    private static RpcInvocation newInvocation() {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("sayHi");
+        invocation.setParameterTypes(new Class<?>[]{String.class});
+        invocation.setArguments(new Object[]{"dubbo"});
+        return invocation;
+    }
+
+    private interface ClusterFactory {
+        AbstractClusterInvoker<GreetingsService> create(Directory<GreetingsService> directory);
+    }
+
+    private static String format(double value) {
+        return String.format("%.2f", value);
+    }
+
+    private static class LoadResult {
+        long attempts;
+        long successes;
+        long firstAttemptSuccesses;
+
+        double load() {
+            return attempts / (double) REQUESTS;
+        }
+
+        double successRate() {
+            return successes / (double) REQUESTS;
+        }
+
+        double firstAttemptSuccessRate() {
+            return firstAttemptSuccesses / (double) REQUESTS;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.apache.dubbo.samples.exception.idempotency;
+
+/**
+ * 幂等相关的常量，消费端和提供端共用
+ */
+public interface IdempotencyConstants {
+
+    /**
+     * 幂等键附件名，同一次逻辑调用的所有重试携带相同的值
+     */
+    String IDEMPOTENCY_KEY = "idempotency-key";
+
+    /**
+     * 消费端方法级开关，开启后为该方法的调用生成幂等键
+     */
+    String IDEMPOTENCY_ENABLED_KEY = "idempotency.enabled";
+
+    /**
+     * 提供端已完成结果的缓存时间(毫秒)
+     */
+    String IDEMPOTENCY_TTL_KEY = "idempotency.ttl";
+
+    /**
+     * 提供端最多缓存的已完成结果数
+     */
+    String IDEMPOTENCY_CAPACITY_KEY = "idempotency.capacity";
+
+    long DEFAULT_IDEMPOTENCY_TTL = 60_000;
+
+    int DEFAULT_IDEMPOTENCY_CAPACITY = 10_000;
+}
@@ -0,0 +1,242 @@
+package org.apache.dubbo.samples.exception.log;
+
+import org.apache.dubbo.common.logger.Logger;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 采样限流的异常日志上报器
+ * <p>
+ * 异常风暴时逐条打印完整堆栈会占满CPU和磁盘，这里把相同的失败
+ * (异常类型 + 方法 + 提供者地址)聚合成计数:
+ * <ul>
+ *   <li>每个失败维度每隔 sampleIntervalMs 最多打印一次完整堆栈</li>
+ *   <li>全局每秒最多打印 maxStackTracesPerSecond 次完整堆栈</li>
+ *   <li>其余的只计数，每隔 flushIntervalMs 输出一行汇总</li>
+ * </ul>
+ */
+public class ErrorReporter implements AutoCloseable {
+
+    public static final long DEFAULT_SAMPLE_INTERVAL_MS = 1000;
+    public static final int DEFAULT_MAX_STACK_TRACES_PER_SECOND = 10;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 10000;
+    public static final int DEFAULT_MAX_KEYS = 1024;
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ErrorReporter-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 失败维度超过上限后统一计入该维度，保证内存有界
+    private static final ErrorKey OVERFLOW_KEY = new ErrorKey(Throwable.class, "*", "*");
+
+    private static final long COUNT_UNIT = 1L << 32;
+    private static final long SUPPRESSED_MASK = COUNT_UNIT - 1;
+    private static final long RETIRED = -1;
+    private static final long NEVER_SAMPLED = Long.MIN_VALUE;
+
+    private final BiConsumer<String, Throwable> stackTraceSink;
+    private final Consumer<String> summarySink;
+    private final LongSupplier clock;
+    private final long sampleIntervalMs;
+    private final int maxStackTracesPerSecond;
+    private final int maxKeys;
+
+    private final ConcurrentMap<ErrorKey, ErrorStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong currentSecond = new AtomicLong(-1);
+    private final AtomicInteger stackTracesThisSecond = new AtomicInteger();
+    private final LongAdder totalErrors = new LongAdder();
+    private final LongAdder sampledErrors = new LongAdder();
+    private final ScheduledFuture<?> flushTask;
+
+    public ErrorReporter(Logger logger) {
+        this(logger::error, logger::warn, System::currentTimeMillis, DEFAULT_SAMPLE_INTERVAL_MS,
+                DEFAULT_MAX_STACK_TRACES_PER_SECOND, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * @param stackTraceSink          输出完整堆栈
+     * @param summarySink             输出汇总行
+     * @param clock                   毫秒时钟
+     * @param sampleIntervalMs        同一失败维度两次打印堆栈的最小间隔
+     * @param maxStackTracesPerSecond 全局每秒最多打印的堆栈数
+     * @param flushIntervalMs         汇总输出间隔，&lt;=0 表示不自动输出
+     * @param maxKeys                 最多跟踪的失败维度数
+     */
+    public ErrorReporter(BiConsumer<String, Throwable> stackTraceSink, Consumer<String> summarySink, LongSupplier clock,
+                         long sampleIntervalMs, int maxStackTracesPerSecond, long flushIntervalMs, int maxKeys) {
+        this.stackTraceSink = stackTraceSink;
+        this.summarySink = summarySink;
+        this.clock = clock;
+        this.sampleIntervalMs = sampleIntervalMs;
+        this.maxStackTracesPerSecond = maxStackTracesPerSecond;
+        this.maxKeys = maxKeys;
+        this.flushTask = flushIntervalMs > 0
+                ? FLUSHER.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * 上报一次失败
+     *
+     * @param message 日志前缀
+     * @param error   异常
+     * @param method  方法名
+     * @param address 提供者地址
+     * @return true表示本次打印了完整堆栈
+     */
+    public boolean report(String message, Throwable error, String method, String address) {
+        totalErrors.increment();
+        ErrorKey key = new ErrorKey(error.getClass(), method, address);
+        ErrorStats errorStats = statsFor(key);
+
+        long now = clock.getAsLong();
+        boolean sampled = errorStats.trySample(now, sampleIntervalMs) && tryAcquireStackTrace(now);
+        // 维度恰好在汇总时被移除，计入重新创建的维度
+        while (!errorStats.record(!sampled)) {
+            errorStats = statsFor(key);
+        }
+        if (!sampled) {
+            return false;
+        }
+        sampledErrors.increment();
+        stackTraceSink.accept(message + error.getMessage() + " [method=" + method + ", provider=" + address + "]", error);
+        return true;
+    }
+
+    /**
+     * 输出自上次汇总以来被抑制的失败计数
+     */
+    public synchronized void flush() {
+        for (Map.Entry<ErrorKey, ErrorStats> entry : stats.entrySet()) {
+            ErrorStats errorStats = entry.getValue();
+            if (errorStats.retireIfIdle()) {
+                // 一个汇总周期内都没有再出现的失败维度直接移除
+                stats.remove(entry.getKey(), errorStats);
+                continue;
+            }
+            // 次数和未打印次数一起取出并清零，和并发的上报不会错开
+            long counts = errorStats.counts.getAndSet(0);
+            long count = counts >>> 32;
+            long suppressed = counts & SUPPRESSED_MASK;
+            if (suppressed > 0) {
+                ErrorKey key = entry.getKey();
+                summarySink.accept("异常汇总: " + key.type.getName() + " [method=" + key.method
+                        + ", provider=" + key.address + "] 发生" + count + "次，其中" + suppressed + "次未打印堆栈");
+            }
+        }
+    }
+
+    public long getTotalErrors() {
+        return totalErrors.sum();
+    }
+
+    public long getSampledErrors() {
+        return sampledErrors.sum();
+    }
+
+    @Override
+    public void close() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush();
+    }
+
+    private ErrorStats statsFor(ErrorKey key) {
+        ErrorStats errorStats = stats.get(key);
+        if (errorStats != null) {
+            return errorStats;
+        }
+        if (stats.size() >= maxKeys) {
+            key = OVERFLOW_KEY;
+        }
+        return stats.computeIfAbsent(key, k -> new ErrorStats());
+    }
+
+    private boolean tryAcquireStackTrace(long now) {
+        long second = now / 1000;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            stackTracesThisSecond.set(0);
+        }
+        return stackTracesThisSecond.incrementAndGet() <= maxStackTracesPerSecond;
+    }
+
+    private static final class ErrorKey {
+        final Class<?> type;
+        final String method;
+        final String address;
+        final int hash;
+
+        ErrorKey(Class<?> type, String method, String address) {
+            this.type = type;
+            this.method = method;
+            this.address = address;
+            this.hash = Objects.hash(type, method, address);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ErrorKey)) {
+                return false;
+            }
+            ErrorKey that = (ErrorKey) o;
+            return type == that.type && Objects.equals(method, that.method) && Objects.equals(address, that.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class ErrorStats {
+        // 高32位是发生次数，低32位是未打印堆栈的次数，一次CAS同时更新
+        final AtomicLong counts = new AtomicLong();
+        final AtomicLong lastSampled = new AtomicLong(NEVER_SAMPLED);
+
+        boolean trySample(long now, long intervalMs) {
+            long last = lastSampled.get();
+            // 维度的第一次失败总是采样，不受时钟起点和采样间隔影响
+            return (last == NEVER_SAMPLED || now - last >= intervalMs) && lastSampled.compareAndSet(last, now);
+        }
+
+        /**
+         * @return false表示该维度已被移除
+         */
+        boolean record(boolean suppressed) {
+            long delta = suppressed ? COUNT_UNIT | 1 : COUNT_UNIT;
+            for (; ; ) {
+                long current = counts.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (counts.compareAndSet(current, current + delta)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean retireIfIdle() {
+            return counts.compareAndSet(0, RETIRED);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.apache.dubbo.samples.exception;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 测试用的提供者Invoker，调用结果由传入的函数决定，并统计被调用的次数
+ */
+public class TestInvoker implements Invoker<GreetingsService> {
+
+    private final URL url;
+    private volatile Function<Invocation, Result> behavior;
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    public TestInvoker(String url, Function<Invocation, Result> behavior) {
+        this.url = URL.valueOf(url);
+        this.behavior = behavior;
+    }
+
+    public static TestInvoker of(Function<Invocation, Result> behavior) {
+        return new TestInvoker("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName(), behavior);
+    }
+
+    /**
+     * 替换之后调用的行为，例如模拟提供者恢复
+     */
+    public void setBehavior(Function<Invocation, Result> behavior) {
+        this.behavior = behavior;
+    }
+
+    public int getInvocations() {
+        return invocations.get();
+    }
+
+    @Override
+    public Class<GreetingsService> getInterface() {
+        return GreetingsService.class;
+    }
+
+    @Override
+    public Result invoke(Invocation invocation) throws RpcException {
+        invocations.incrementAndGet();
+        return behavior.apply(invocation);
+    }
+
+    @Override
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
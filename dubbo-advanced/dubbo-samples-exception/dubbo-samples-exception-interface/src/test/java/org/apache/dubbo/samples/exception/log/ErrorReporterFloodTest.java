@@ -0,0 +1,212 @@
+package org.apache.dubbo.samples.exception.log;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * 异常风暴下的日志开销测试
+ * <p>
+ * 4个线程灌入10万次失败(3种失败维度)，对比逐条打印完整堆栈和
+ * ErrorReporter采样聚合两种方式的耗时和堆栈输出量。
+ * 堆栈写入一个丢弃输出的Writer，只计算格式化成本，不受磁盘速度影响。
+ * 耗时只输出不断言，断言只检查堆栈条数和汇总计数。
+ */
+public class ErrorReporterFloodTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorReporterFloodTest.class);
+
+    private static final int THREADS = 4;
+    private static final int ERRORS = 100_000;
+    private static final Pattern SUMMARY_TOTAL = Pattern.compile("发生(\\d+)次");
+    private static final Pattern SUMMARY_SUPPRESSED = Pattern.compile("其中(\\d+)次未打印堆栈");
+    private static final String[] METHODS = {"sayHi", "recoverableMethod", "timeoutMethod"};
+    private static final Throwable[] ERRORS_BY_METHOD = {
+            new IllegalStateException("provider down"),
+            new RuntimeException("网络连接断开"),
+            new IllegalArgumentException("timeout")
+    };
+
+    @Test
+    public void testFlood100kErrorsPerSecond() throws InterruptedException {
+        LongAdder naiveStackTraces = new LongAdder();
+        long naiveNanos = flood((message, error) -> {
+            formatStackTrace(error);
+            naiveStackTraces.increment();
+        });
+
+        LongAdder sampledStackTraces = new LongAdder();
+        List<String> summaries = new ArrayList<>();
+        ErrorReporter reporter = new ErrorReporter((message, error) -> {
+            formatStackTrace(error);
+            sampledStackTraces.increment();
+        }, summaries::add, System::currentTimeMillis, 1000, 10, 0, 1024);
+        long reporterNanos = flood((message, error) -> reporter.report(message, error,
+                methodOf(error), "127.0.0.1:20880"));
+        reporter.flush();
+
+        logger.info("逐条打印堆栈: 耗时{}ms, 平均{}ns/次, 堆栈{}条",
+                TimeUnit.NANOSECONDS.toMillis(naiveNanos), naiveNanos / ERRORS, naiveStackTraces.sum());
+        logger.info("采样聚合上报: 耗时{}ms, 平均{}ns/次, 堆栈{}条, 汇总{}行",
+                TimeUnit.NANOSECONDS.toMillis(reporterNanos), reporterNanos / ERRORS, sampledStackTraces.sum(), summaries.size());
+        summaries.forEach(logger::info);
+
+        assertEquals(ERRORS, naiveStackTraces.sum());
+        assertEquals(ERRORS, reporter.getTotalErrors());
+        // 每种失败维度每秒最多一条堆栈
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(reporterNanos) + 2;
+        assertTrue(sampledStackTraces.sum() <= METHODS.length * seconds);
+        assertEquals(METHODS.length, summaries.size());
+        assertEquals(ERRORS, totalOf(summaries));
+        assertEquals(ERRORS - sampledStackTraces.sum(), suppressedOf(summaries));
+    }
+
+    @Test
+    public void testFlushConcurrentWithReports() throws InterruptedException {
+        List<String> summaries = new CopyOnWriteArrayList<>();
+        // 只有第一次打印堆栈，其余全部计入汇总
+        ErrorReporter reporter = new ErrorReporter((message, error) -> {
+        }, summaries::add, () -> 0, Long.MAX_VALUE, 1, 0, 1024);
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (flooding.get()) {
+                reporter.flush();
+            }
+        });
+        flusher.start();
+        flood((message, error) -> reporter.report(message, ERRORS_BY_METHOD[0], METHODS[0], "127.0.0.1:20880"));
+        flooding.set(false);
+        flusher.join();
+        reporter.flush();
+
+        // 汇总之间的计数既不丢失也不重复
+        assertEquals(ERRORS, totalOf(summaries));
+        assertEquals(ERRORS - 1, suppressedOf(summaries));
+    }
+
+    @Test
+    public void testSamplingAndSummary() {
+        AtomicLong clock = new AtomicLong(10_000);
+        List<String> stackTraces = new ArrayList<>();
+        List<String> summaries = new ArrayList<>();
+        ErrorReporter reporter = new ErrorReporter((message, error) -> stackTraces.add(message),
+                summaries::add, clock::get, 1000, 2, 0, 1024);
+        RuntimeException error = new RuntimeException("boom");
+
+        assertTrue(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.1:20880"));
+        assertFalse(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.1:20880"));
+        // 不同提供者是不同的失败维度
+        assertTrue(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.2:20880"));
+        // 全局每秒限额已用完
+        assertFalse(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.3:20880"));
+
+        clock.addAndGet(1000);
+        assertTrue(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.1:20880"));
+        assertEquals(3, stackTraces.size());
+        assertEquals("调用服务发生异常: boom [method=sayHi, provider=10.0.0.1:20880]", stackTraces.get(0));
+
+        reporter.flush();
+        assertEquals(2, summaries.size());
+        assertTrue(summaries.get(0).contains("java.lang.RuntimeException"));
+
+        // 一个汇总周期内没有再出现的维度会被清理，下次出现重新采样
+        reporter.flush();
+        clock.addAndGet(10);
+        assertTrue(reporter.report("调用服务发生异常: ", error, "sayHi", "10.0.0.3:20880"));
+    }
+
+    @Test
+    public void testKeysAreBounded() {
+        List<String> summaries = new ArrayList<>();
+        ErrorReporter reporter = new ErrorReporter((message, error) -> {
+        }, summaries::add, () -> 0, 1000, 0, 0, 4);
+        for (int i = 0; i < 100; i++) {
+            reporter.report("", new RuntimeException(), "method" + i, "127.0.0.1:20880");
+        }
+        reporter.flush();
+        // 4个独立维度 + 1个溢出维度
+        assertEquals(5, summaries.size());
+    }
+
+    private static long flood(BiConsumer<String, Throwable> report) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ERRORS / THREADS; i++) {
+                        report.accept("调用服务发生异常: ", ERRORS_BY_METHOD[i % ERRORS_BY_METHOD.length]);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        return System.nanoTime() - begin;
+    }
+
+    private static long totalOf(List<String> summaries) {
+        return sum(summaries, SUMMARY_TOTAL);
+    }
+
+    private static long suppressedOf(List<String> summaries) {
+        return sum(summaries, SUMMARY_SUPPRESSED);
+    }
+
+    private static long sum(List<String> summaries, Pattern pattern) {
+        long sum = 0;
+        for (String summary : summaries) {
+            Matcher matcher = pattern.matcher(summary);
+            assertTrue(summary, matcher.find());
+            sum += Long.parseLong(matcher.group(1));
+        }
+        return sum;
+    }
+
+    private static String methodOf(Throwable error) {
+        for (int i = 0; i < ERRORS_BY_METHOD.length; i++) {
+            if (ERRORS_BY_METHOD[i] == error) {
+                return METHODS[i];
+            }
+        }
+        return "unknown";
+    }
+
+    private static void formatStackTrace(Throwable error) {
+        error.printStackTrace(new PrintWriter(new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }));
+    }
+}
@@ -5,46 +5,75 @@ import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.rpc.*;
+import org.apache.dubbo.samples.exception.log.ErrorReporter;
 
 /**
  * 服务提供者全局异常处理过滤器
  * 用于将异常转换成标准业务异常，避免框架细节泄露
+ * <p>
+ * 异常转换放在 {@link Filter.Listener} 回调中完成: 同步结果在返回前回调，
+ * 返回CompletableFuture的异步方法在结果完成时由完成线程直接回调，
+ * 既不会阻塞等待结果，也不会漏掉稍后才完成的异常，更不会额外切换线程。
  */
 @Activate(group = CommonConstants.PROVIDER)
-public class GlobalExceptionFilter implements Filter {
+public class GlobalExceptionFilter implements Filter, Filter.Listener {
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionFilter.class);
+    // 相同失败聚合计数，只对采样到的调用打印完整堆栈
+    private static final ErrorReporter errorReporter = new ErrorReporter(logger);
 
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
         try {
-            // 执行原始调用
-            Result result = invoker.invoke(invocation);
-            
-            // 检查结果中是否有异常
-            if (result.hasException()) {
-                Throwable exception = result.getException();
-                
-                // 记录异常日志
-                logger.error("服务调用过程中发生异常: " + exception.getMessage(), exception);
-                
-                // 对不同类型异常进行处理
-                if (exception instanceof RuntimeException) {
-                    // 运行时异常直接抛出
-                    return result;
-                } else if (exception instanceof OutOfMemoryError 
-                        || exception instanceof StackOverflowError) {
-                    // 系统严重错误，应记录并返回友好提示
-                    return new AppResponse(new RuntimeException("服务器内部错误，请稍后重试"));
-                } else {
-                    // 其他异常，包装成业务友好的异常
-                    return new AppResponse(new RuntimeException("服务处理失败: " + exception.getMessage()));
-                }
-            }
-            return result;
+            // 执行原始调用，结果(含异步结果)的异常在onResponse中处理
+            return invoker.invoke(invocation);
         } catch (Throwable t) {
             // 捕获可能的RPC框架异常
-            logger.error("RPC调用过程发生未预期异常", t);
+            errorReporter.report("RPC调用过程发生未预期异常: ", t, invocation.getMethodName(), invoker.getUrl().getAddress());
             throw new RpcException("服务暂时不可用，请稍后重试", t);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        // 检查结果中是否有异常
+        if (!appResponse.hasException()) {
+            return;
+        }
+        Throwable exception = appResponse.getException();
+
+        // 记录异常日志
+        errorReporter.report("服务调用过程中发生异常: ", exception, invocation.getMethodName(), invoker.getUrl().getAddress());
+
+        // 对不同类型异常进行处理
+        Throwable translated = translate(exception);
+        if (translated != exception) {
+            appResponse.setException(translated);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        // 框架层异常已在invoke中记录并包装，这里只补充异步路径上的失败
+        if (!(t instanceof RpcException)) {
+            errorReporter.report("服务异步调用失败: ", t, invocation.getMethodName(), invoker.getUrl().getAddress());
+        }
+    }
+
+    /**
+     * 异常转换规则:
+     * 运行时异常原样返回；系统严重错误返回友好提示；其他异常包装成业务友好的异常
+     */
+    static Throwable translate(Throwable exception) {
+        if (exception instanceof RuntimeException) {
+            // 运行时异常直接抛出
+            return exception;
+        } else if (exception instanceof OutOfMemoryError
+                || exception instanceof StackOverflowError) {
+            // 系统严重错误，应记录并返回友好提示
+            return new RuntimeException("服务器内部错误，请稍后重试");
+        } else {
+            // 其他异常，包装成业务友好的异常
+            return new RuntimeException("服务处理失败: " + exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.apache.dubbo.samples.exception.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.*;
+import org.apache.dubbo.samples.exception.idempotency.IdempotencyTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.DEFAULT_IDEMPOTENCY_CAPACITY;
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.DEFAULT_IDEMPOTENCY_TTL;
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_CAPACITY_KEY;
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_KEY;
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_TTL_KEY;
+
+/**
+ * 服务提供者幂等过滤器
+ * 消费端超时重试时，第一次执行往往还没结束，同一请求会被执行两次。
+ * 按请求附带的幂等键去重:
+ * <ul>
+ *   <li>第一次执行还在进行中: 重复请求异步等待同一个执行结果，不占用业务线程</li>
+ *   <li>第一次执行已成功: 在ttl内直接返回缓存的结果</li>
+ *   <li>第一次执行失败: 不缓存，之后的重试重新执行</li>
+ * </ul>
+ * 没有携带幂等键的请求直接放行。
+ */
+@Activate(group = CommonConstants.PROVIDER)
+public class IdempotencyFilter implements Filter, Filter.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    // 本次调用负责执行时登记的future，重复请求不设置该属性
+    private static final String EXECUTION_KEY = "provider.idempotency.execution";
+    private static final String TABLE_KEY = "provider.idempotency.key";
+
+    // 每个服务一张幂等表
+    private final ConcurrentMap<String, IdempotencyTable<AppResponse>> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        String idempotencyKey = invocation.getAttachment(IDEMPOTENCY_KEY);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return invoker.invoke(invocation);
+        }
+
+        IdempotencyTable<AppResponse> table = getTable(invoker.getUrl());
+        String key = invocation.getMethodName() + "#" + idempotencyKey;
+        CompletableFuture<AppResponse> execution = new CompletableFuture<>();
+        CompletableFuture<AppResponse> existing = table.register(key, execution);
+        if (existing != null) {
+            logger.info("重复请求未重复执行: " + key + ", 累计避免重复执行" + table.getDuplicatesAvoided() + "次");
+            return new AsyncRpcResult(existing.thenApply(response -> copy(response, invocation)), invocation);
+        }
+
+        invocation.put(EXECUTION_KEY, execution);
+        invocation.put(TABLE_KEY, key);
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        CompletableFuture<AppResponse> execution = takeExecution(invocation);
+        if (execution != null) {
+            // 只缓存成功的结果，失败的请求允许重试重新执行
+            getTable(invoker.getUrl()).complete((String) invocation.get(TABLE_KEY), execution,
+                    copy(appResponse, invocation), !appResponse.hasException());
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        CompletableFuture<AppResponse> execution = takeExecution(invocation);
+        if (execution != null) {
+            AppResponse response = new AppResponse(invocation);
+            response.setException(t);
+            getTable(invoker.getUrl()).complete((String) invocation.get(TABLE_KEY), execution, response, false);
+        }
+    }
+
+    /**
+     * 累计避免的重复执行次数
+     */
+    public long getDuplicatesAvoided() {
+        return tables.values().stream().mapToLong(IdempotencyTable::getDuplicatesAvoided).sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<AppResponse> takeExecution(Invocation invocation) {
+        return (CompletableFuture<AppResponse>) invocation.getAttributes().remove(EXECUTION_KEY);
+    }
+
+    private IdempotencyTable<AppResponse> getTable(URL url) {
+        return tables.computeIfAbsent(url.getServiceKey(), k -> new IdempotencyTable<>(
+                url.getParameter(IDEMPOTENCY_CAPACITY_KEY, DEFAULT_IDEMPOTENCY_CAPACITY),
+                url.getParameter(IDEMPOTENCY_TTL_KEY, DEFAULT_IDEMPOTENCY_TTL)));
+    }
+
+    /**
+     * 每个请求返回独立的响应对象，后续过滤器修改响应时互不影响
+     */
+    private static AppResponse copy(Result source, Invocation invocation) {
+        AppResponse response = new AppResponse(invocation);
+        if (source.hasException()) {
+            response.setException(source.getException());
+        } else {
+            response.setValue(source.getValue());
+        }
+        response.getObjectAttachments().putAll(source.getObjectAttachments());
+        return response;
+    }
+}
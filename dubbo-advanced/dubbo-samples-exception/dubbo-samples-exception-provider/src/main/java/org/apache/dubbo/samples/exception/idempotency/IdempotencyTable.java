@@ -0,0 +1,161 @@
+package org.apache.dubbo.samples.exception.idempotency;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 有界的幂等请求表
+ * <p>
+ * 记录执行中和最近完成的请求:
+ * <ul>
+ *   <li>执行中的请求: 重复请求直接复用同一个future，等第一次执行完成后拿到相同结果</li>
+ *   <li>已完成的请求: 在ttl内直接返回缓存的结果；最多缓存capacity条，超出时淘汰最早完成的</li>
+ * </ul>
+ * 执行中的请求不会被淘汰，其数量受提供者线程池大小约束。
+ */
+public class IdempotencyTable<V> {
+
+    private final ConcurrentMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    // 按完成顺序排列，用于过期和容量淘汰
+    private final ConcurrentLinkedQueue<Entry<V>> completed = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder joinedInFlight = new LongAdder();
+    private final LongAdder servedFromCache = new LongAdder();
+
+    public IdempotencyTable(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, System::nanoTime);
+    }
+
+    IdempotencyTable(int capacity, long ttlMillis, LongSupplier nanoClock) {
+        if (capacity <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("capacity and ttl must be positive");
+        }
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 登记一次请求
+     *
+     * @param key       幂等键
+     * @param execution 本次请求将要执行时使用的future
+     * @return null表示登记成功，调用方负责执行并调用 {@link #complete}；
+     * 否则返回已有请求的future，调用方应复用它而不是重复执行
+     */
+    public CompletableFuture<V> register(String key, CompletableFuture<V> execution) {
+        expire();
+        Entry<V> mine = new Entry<>(key, execution);
+        for (; ; ) {
+            Entry<V> existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                executions.increment();
+                return null;
+            }
+            if (existing.isExpired(nanoClock.getAsLong(), ttlNanos)) {
+                // 缓存的结果已过期，按新请求处理
+                if (entries.replace(key, existing, mine)) {
+                    executions.increment();
+                    return null;
+                }
+                continue;
+            }
+            if (existing.future.isDone()) {
+                servedFromCache.increment();
+            } else {
+                joinedInFlight.increment();
+            }
+            return existing.future;
+        }
+    }
+
+    /**
+     * 结束一次登记过的执行
+     *
+     * @param cacheable 为false时(例如执行失败)只通知等待中的重复请求，不缓存结果，
+     *                  之后的重试会重新执行
+     */
+    public void complete(String key, CompletableFuture<V> execution, V value, boolean cacheable) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.future != execution) {
+            execution.complete(value);
+            return;
+        }
+        if (cacheable) {
+            entry.completedAt = nanoClock.getAsLong();
+            completed.offer(entry);
+        } else {
+            entries.remove(key, entry);
+        }
+        execution.complete(value);
+        trim();
+    }
+
+    /**
+     * 重复执行被避免的次数(加入执行中请求 + 命中已完成缓存)
+     */
+    public long getDuplicatesAvoided() {
+        return joinedInFlight.sum() + servedFromCache.sum();
+    }
+
+    public long getJoinedInFlight() {
+        return joinedInFlight.sum();
+    }
+
+    public long getServedFromCache() {
+        return servedFromCache.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void expire() {
+        long now = nanoClock.getAsLong();
+        for (Entry<V> head = completed.peek(); head != null && head.isExpired(now, ttlNanos); head = completed.peek()) {
+            if (completed.remove(head)) {
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    private void trim() {
+        while (completed.size() > capacity) {
+            Entry<V> eldest = completed.poll();
+            if (eldest == null) {
+                return;
+            }
+            entries.remove(eldest.key, eldest);
+        }
+    }
+
+    private static final class Entry<V> {
+        final String key;
+        final CompletableFuture<V> future;
+        // 0表示仍在执行中
+        volatile long completedAt;
+
+        Entry(String key, CompletableFuture<V> future) {
+            this.key = key;
+            this.future = future;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            long at = completedAt;
+            return at != 0 && now - at >= ttlNanos;
+        }
+    }
+}
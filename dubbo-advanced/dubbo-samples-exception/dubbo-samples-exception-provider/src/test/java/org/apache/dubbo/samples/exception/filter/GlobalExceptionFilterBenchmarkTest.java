@@ -0,0 +1,195 @@
+package org.apache.dubbo.samples.exception.filter;
+
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.filter.FilterChainBuilder;
+import org.apache.dubbo.samples.exception.GreetingsService;
+import org.apache.dubbo.samples.exception.TestInvoker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * GlobalExceptionFilter 异步结果基准测试
+ * <p>
+ * 过滤器挂在Dubbo的过滤器链节点上，模拟返回CompletableFuture的服务方法: 结果由业务线程池稍后完成。
+ * 验证:
+ * 1. invoke立即返回，不阻塞调用线程
+ * 2. 过滤器链回调的 onResponse 在完成结果的业务线程上执行，没有额外的线程切换
+ * 3. 稍后才完成的异常同样会被转换
+ */
+public class GlobalExceptionFilterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionFilterBenchmarkTest.class);
+
+    private static final int CALLS = 100_000;
+    private static final String COMPLETER_THREAD = "biz-completer";
+
+    private final RecordingFilter filter = new RecordingFilter();
+    private ExecutorService completer;
+
+    @Before
+    public void setUp() {
+        completer = Executors.newSingleThreadExecutor(r -> new Thread(r, COMPLETER_THREAD));
+    }
+
+    @After
+    public void tearDown() {
+        completer.shutdownNow();
+    }
+
+    @Test
+    public void testAsyncResultsTranslatedOnCompletingThread() throws Exception {
+        AtomicInteger blockedInvokes = new AtomicInteger();
+        AtomicInteger translated = new AtomicInteger();
+        AtomicInteger untouched = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(CALLS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            final boolean fail = (i & 1) == 0;
+            CompletableFuture<AppResponse> future = new CompletableFuture<>();
+            Invoker<GreetingsService> chain = chain(TestInvoker.of(inv -> new AsyncRpcResult(future, inv)));
+
+            Result result = chain.invoke(newInvocation());
+            if (future.isDone()) {
+                blockedInvokes.incrementAndGet();
+            }
+            // 在过滤器链的回调之后执行，看到的是转换后的结果
+            result.whenCompleteWithContext((response, t) -> {
+                if (fail && response.getException() instanceof RuntimeException
+                        && response.getException().getMessage().equals("服务处理失败: checked failure")) {
+                    translated.incrementAndGet();
+                } else if (!fail && "ok".equals(response.getValue())) {
+                    untouched.incrementAndGet();
+                }
+                done.countDown();
+            });
+
+            completer.execute(() -> {
+                AppResponse response = new AppResponse();
+                if (fail) {
+                    response.setException(new Exception("checked failure"));
+                } else {
+                    response.setValue("ok");
+                }
+                future.complete(response);
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - start;
+
+        logger.info("{}次异步调用，总耗时{}ms，平均{}ns/次",
+                CALLS, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / CALLS);
+        assertEquals("invoke不应等待异步结果完成", 0, blockedInvokes.get());
+        assertEquals(CALLS, filter.responses.get());
+        assertEquals("onResponse应在完成结果的线程上执行", 0, filter.otherThreadCallbacks.get());
+        assertEquals("稍后完成的异常也应被转换", CALLS / 2, translated.get());
+        assertEquals(CALLS / 2, untouched.get());
+    }
+
+    @Test
+    public void testCompletedResultsTranslatedBeforeReturn() {
+        Invoker<GreetingsService> chain = chain(TestInvoker.of(inv -> {
+            AppResponse response = new AppResponse();
+            response.setException(new java.io.IOException("disk full"));
+            return AsyncRpcResult.newDefaultAsyncResult(response, inv);
+        }));
+
+        // 预热
+        for (int i = 0; i < CALLS; i++) {
+            chain.invoke(newInvocation());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            Result result = chain.invoke(newInvocation());
+            assertEquals("服务处理失败: disk full", result.getException().getMessage());
+        }
+        long elapsed = System.nanoTime() - start;
+        logger.info("已完成结果经过过滤器链: {}ns/次", elapsed / CALLS);
+
+        // 已完成的结果在返回前由调用线程回调
+        assertEquals(2 * CALLS, filter.responses.get());
+        assertEquals(0, filter.completerThreadCallbacks.get());
+    }
+
+    @Test
+    public void testTranslationRules() {
+        RuntimeException runtime = new IllegalArgumentException("bad");
+        assertSame(runtime, GlobalExceptionFilter.translate(runtime));
+        assertEquals("服务器内部错误，请稍后重试", GlobalExceptionFilter.translate(new StackOverflowError()).getMessage());
+        assertEquals("服务处理失败: io", GlobalExceptionFilter.translate(new java.io.IOException("io")).getMessage());
+    }
+
+    @Test
+    public void testSynchronousFrameworkFailureIsWrapped() {
+        try {
+            chain(TestInvoker.of(inv -> {
+                throw new IllegalStateException("boom");
+            })).invoke(newInvocation());
+            fail();
+        } catch (RpcException e) {
+            assertEquals("服务暂时不可用，请稍后重试", e.getMessage());
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // 过滤器链把同步抛出的异常交给 onError
+        assertEquals(1, filter.errors.get());
+    }
+
+    private Invoker<GreetingsService> chain(TestInvoker invoker) {
+        return new FilterChainBuilder.FilterChainNode<>(invoker, invoker, filter);
+    }
+
+    private static Invocation newInvocation() {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("sayHi");
+        return invocation;
+    }
+
+    /**
+     * 记录过滤器链回调 Listener 的线程
+     */
+    private static class RecordingFilter extends GlobalExceptionFilter {
+        final AtomicInteger responses = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger completerThreadCallbacks = new AtomicInteger();
+        final AtomicInteger otherThreadCallbacks = new AtomicInteger();
+
+        @Override
+        public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+            record();
+            responses.incrementAndGet();
+            super.onResponse(appResponse, invoker, invocation);
+        }
+
+        @Override
+        public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+            errors.incrementAndGet();
+            super.onError(t, invoker, invocation);
+        }
+
+        private void record() {
+            if (COMPLETER_THREAD.equals(Thread.currentThread().getName())) {
+                completerThreadCallbacks.incrementAndGet();
+            } else {
+                otherThreadCallbacks.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.apache.dubbo.samples.exception.filter;
+
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.filter.FilterChainBuilder;
+import org.apache.dubbo.samples.exception.GreetingsService;
+import org.apache.dubbo.samples.exception.TestInvoker;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.dubbo.samples.exception.idempotency.IdempotencyConstants.IDEMPOTENCY_KEY;
+import static org.junit.Assert.*;
+
+/**
+ * IdempotencyFilter 测试
+ * <p>
+ * 过滤器挂在Dubbo的过滤器链节点上，由链在结果完成时回调 Filter.Listener。
+ * 模拟消费端超时重试: 第一次执行还没结束时重试到达，之后又有一次重试到达。
+ * 业务方法应只执行一次，两次重试拿到同一个结果。
+ */
+public class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter();
+
+    @Test
+    public void testRetriesJoinInFlightAndHitCache() throws Exception {
+        CompletableFuture<AppResponse> slowExecution = new CompletableFuture<>();
+        TestInvoker invoker = TestInvoker.of(inv -> new AsyncRpcResult(slowExecution, inv));
+        Invoker<GreetingsService> chain = chain(invoker);
+
+        Result first = chain.invoke(invocation("key-1"));
+        // 第一次执行还在进行中，重试到达
+        Result joined = chain.invoke(invocation("key-1"));
+        assertFalse(joined.thenApply(r -> r).isDone());
+
+        slowExecution.complete(new AppResponse("恢复处理成功: recoverable"));
+        assertEquals("恢复处理成功: recoverable", first.get(1, TimeUnit.SECONDS).getValue());
+        assertEquals("恢复处理成功: recoverable", joined.get(1, TimeUnit.SECONDS).getValue());
+
+        // 第一次执行完成后再到达的重试直接命中缓存
+        Result cached = chain.invoke(invocation("key-1"));
+        assertEquals("恢复处理成功: recoverable", cached.get(1, TimeUnit.SECONDS).getValue());
+
+        assertEquals(1, invoker.getInvocations());
+        assertEquals(2, filter.getDuplicatesAvoided());
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        TestInvoker invoker = TestInvoker.of(inv -> AsyncRpcResult.newDefaultAsyncResult(
+                new AppResponse(new RuntimeException("网络连接断开")), inv));
+        Invoker<GreetingsService> chain = chain(invoker);
+
+        assertTrue(chain.invoke(invocation("key-2")).get(1, TimeUnit.SECONDS).hasException());
+        // 失败不缓存，重试会重新执行
+        invoker.setBehavior(inv -> AsyncRpcResult.newDefaultAsyncResult(new AppResponse("恢复处理成功: recoverable"), inv));
+        Result retried = chain.invoke(invocation("key-2"));
+        assertEquals("恢复处理成功: recoverable", retried.get(1, TimeUnit.SECONDS).getValue());
+        assertEquals(2, invoker.getInvocations());
+        assertEquals(0, filter.getDuplicatesAvoided());
+    }
+
+    @Test
+    public void testSynchronousFailureReleasesKey() throws Exception {
+        TestInvoker invoker = TestInvoker.of(inv -> {
+            throw new IllegalStateException("boom");
+        });
+        Invoker<GreetingsService> chain = chain(invoker);
+
+        try {
+            chain.invoke(invocation("key-3"));
+            fail();
+        } catch (IllegalStateException expected) {
+            // 过滤器链把同步抛出的异常交给 onError
+        }
+        invoker.setBehavior(inv -> AsyncRpcResult.newDefaultAsyncResult(new AppResponse("hi"), inv));
+        assertEquals("hi", chain.invoke(invocation("key-3")).get(1, TimeUnit.SECONDS).getValue());
+        assertEquals(2, invoker.getInvocations());
+    }
+
+    @Test
+    public void testRequestsWithoutKeyPassThrough() throws Exception {
+        TestInvoker invoker = TestInvoker.of(inv -> AsyncRpcResult.newDefaultAsyncResult(new AppResponse("hi"), inv));
+        Invoker<GreetingsService> chain = chain(invoker);
+
+        chain.invoke(invocation(null)).get(1, TimeUnit.SECONDS);
+        chain.invoke(invocation(null)).get(1, TimeUnit.SECONDS);
+        assertEquals(2, invoker.getInvocations());
+    }
+
+    private Invoker<GreetingsService> chain(TestInvoker invoker) {
+        return new FilterChainBuilder.FilterChainNode<>(invoker, invoker, filter);
+    }
+
+    private static Invocation invocation(String idempotencyKey) {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("recoverableMethod");
+        if (idempotencyKey != null) {
+            invocation.setAttachment(IDEMPOTENCY_KEY, idempotencyKey);
+        }
+        return invocation;
+    }
+}
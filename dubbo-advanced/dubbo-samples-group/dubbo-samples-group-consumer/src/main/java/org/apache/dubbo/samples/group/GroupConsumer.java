@@ -20,6 +20,8 @@
 package org.apache.dubbo.samples.group;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.group.connection.ConnectionMetrics;
+import org.apache.dubbo.samples.group.merge.GroupMergeReport;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 public class GroupConsumer {
@@ -36,5 +38,13 @@ public class GroupConsumer {
 
         String resultGroupB = groupBService.sayHi("world");
         System.out.println(resultGroupB);
+
+        GroupService allGroupsService = context.getBean("allGroupsService", GroupService.class);
+        System.out.println(allGroupsService.sayHi("world"));
+        System.out.println(allGroupsService.listMembers());
+        System.out.println(allGroupsService.countMembers());
+        System.out.println(GroupMergeReport.getLast());
+
+        System.out.println(ConnectionMetrics.report());
     }
 }
@@ -0,0 +1,165 @@
+package org.apache.dubbo.samples.group.connection;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按连接统计的多路复用情况: 每组连接上承载了哪些服务(分组/接口:版本)、请求数和同时在途的请求数
+ * <p>
+ * dubbo协议下，未配置connections的引用按提供者地址共用 shareconnections(默认1) 个连接，不同分组、版本的引用
+ * 只是同一连接上不同的服务键；配置了connections的引用独占自己的连接，单独统计。
+ */
+public final class ConnectionMetrics {
+
+    public static final String CONNECTION_METRICS_KEY = "connection.metrics";
+
+    static final String CONNECTIONS_KEY = "connections";
+    static final String SHARE_CONNECTIONS_KEY = "shareconnections";
+    static final int DEFAULT_SHARE_CONNECTIONS = 1;
+
+    private static final ConcurrentMap<String, ConnectionStats> CONNECTIONS = new ConcurrentHashMap<>();
+
+    private ConnectionMetrics() {
+    }
+
+    /**
+     * 找到提供者URL对应的连接，共享连接按地址归并，独占连接按地址和服务键区分
+     */
+    static ConnectionStats connection(URL url) {
+        int dedicated = url.getParameter(CONNECTIONS_KEY, 0);
+        String key = dedicated > 0 ? url.getAddress() + "#" + url.getServiceKey() : url.getAddress();
+        ConnectionStats stats = CONNECTIONS.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        return CONNECTIONS.computeIfAbsent(key, k -> dedicated > 0
+                ? new ConnectionStats(url.getAddress(), false, dedicated)
+                : new ConnectionStats(url.getAddress(), true,
+                Math.max(url.getParameter(SHARE_CONNECTIONS_KEY, DEFAULT_SHARE_CONNECTIONS), 1)));
+    }
+
+    /**
+     * @return 按地址排序，共享连接的键为地址，独占连接的键为 地址#服务键
+     */
+    public static Map<String, ConnectionStats> getConnections() {
+        return new TreeMap<>(CONNECTIONS);
+    }
+
+    /**
+     * 已发出过请求的引用所使用的TCP连接总数
+     */
+    public static int getConnectionCount() {
+        int count = 0;
+        for (ConnectionStats stats : CONNECTIONS.values()) {
+            count += stats.getConnections();
+        }
+        return count;
+    }
+
+    public static void reset() {
+        CONNECTIONS.clear();
+    }
+
+    public static String report() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-22s %-9s %11s %9s %12s %10s %8s %9s %9s%n", "address", "mode", "connections",
+                "services", "services/conn", "requests", "errors", "in-flight", "peak"));
+        for (ConnectionStats stats : getConnections().values()) {
+            builder.append(String.format("%-22s %-9s %11d %9d %12.1f %10d %8d %9d %9d%n", stats.getAddress(),
+                    stats.isShared() ? "shared" : "dedicated", stats.getConnections(), stats.getServices().size(),
+                    stats.getMultiplexing(), stats.getRequests(), stats.getErrors(), stats.getInFlight(),
+                    stats.getPeakInFlight()));
+        }
+        return builder.toString();
+    }
+
+    public static final class ConnectionStats {
+        private final String address;
+        private final boolean shared;
+        private final int connections;
+        private final Set<String> services = ConcurrentHashMap.newKeySet();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+
+        ConnectionStats(String address, boolean shared, int connections) {
+            this.address = address;
+            this.shared = shared;
+            this.connections = connections;
+        }
+
+        /**
+         * @return 该服务第一次经过这组连接时返回true
+         */
+        boolean begin(String serviceKey) {
+            boolean added = !services.contains(serviceKey) && services.add(serviceKey);
+            requests.increment();
+            int current = inFlight.incrementAndGet();
+            int peak;
+            while (current > (peak = peakInFlight.get()) && !peakInFlight.compareAndSet(peak, current)) {
+                // 其他线程更新了峰值，重新比较
+            }
+            return added;
+        }
+
+        void end(boolean error) {
+            inFlight.decrementAndGet();
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public List<String> getServices() {
+            return new ArrayList<>(new TreeSet<>(services));
+        }
+
+        /**
+         * 平均每个连接承载的服务数
+         */
+        public double getMultiplexing() {
+            return (double) services.size() / connections;
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * 调用失败(超时、连接断开等)的请求数，服务端返回的业务异常不计入
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public int getPeakInFlight() {
+            return peakInFlight.get();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.apache.dubbo.samples.group.connection;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import static org.apache.dubbo.common.constants.CommonConstants.CONSUMER;
+import static org.apache.dubbo.samples.group.connection.ConnectionMetrics.CONNECTIONS_KEY;
+import static org.apache.dubbo.samples.group.connection.ConnectionMetrics.CONNECTION_METRICS_KEY;
+
+/**
+ * 在每个提供者的调用链上记录请求经过的连接，见 {@link ConnectionMetrics}
+ * <p>
+ * 引用配置了connections时不再与其他分组、版本共用连接，第一次调用时打印警告。
+ */
+@Activate(group = CONSUMER, value = CONNECTION_METRICS_KEY)
+public class ConnectionMetricsFilter implements Filter, Filter.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionMetricsFilter.class);
+
+    static final String CONNECTION_ATTRIBUTE = "connection.metrics.stats";
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        ConnectionMetrics.ConnectionStats connection = ConnectionMetrics.connection(url);
+        if (connection.begin(url.getServiceKey()) && !connection.isShared()) {
+            logger.warn("Reference " + url.getServiceKey() + " uses " + connection.getConnections()
+                    + " dedicated connection(s) to " + connection.getAddress() + ", remove " + CONNECTIONS_KEY
+                    + " to share connections with other groups and versions");
+        }
+        invocation.put(CONNECTION_ATTRIBUTE, connection);
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        end(invocation, false);
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        end(invocation, true);
+    }
+
+    private void end(Invocation invocation, boolean error) {
+        Object connection = invocation.get(CONNECTION_ATTRIBUTE);
+        if (connection instanceof ConnectionMetrics.ConnectionStats) {
+            ((ConnectionMetrics.ConnectionStats) connection).end(error);
+        }
+    }
+}
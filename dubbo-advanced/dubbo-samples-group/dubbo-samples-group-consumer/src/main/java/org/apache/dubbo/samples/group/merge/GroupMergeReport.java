@@ -0,0 +1,123 @@
+package org.apache.dubbo.samples.group.merge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次并行分组合并调用中每个分组的结果
+ * <p>
+ * 合并调用在调用线程上等待各分组返回，调用结束后可以在同一线程上通过 {@link #getLast()} 查看哪些分组失败或超时。
+ */
+public final class GroupMergeReport {
+
+    private static final ThreadLocal<GroupMergeReport> LAST = new ThreadLocal<>();
+
+    public enum Status {
+        SUCCESS, FAILED, TIMEOUT
+    }
+
+    private final String methodName;
+    private final List<GroupOutcome> outcomes;
+    private final long elapsedMillis;
+
+    GroupMergeReport(String methodName, List<GroupOutcome> outcomes, long elapsedMillis) {
+        this.methodName = methodName;
+        this.outcomes = Collections.unmodifiableList(outcomes);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return 当前线程最近一次并行分组合并调用的结果，没有时返回null
+     */
+    public static GroupMergeReport getLast() {
+        return LAST.get();
+    }
+
+    static void setLast(GroupMergeReport report) {
+        LAST.set(report);
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public List<GroupOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<String> getSucceededGroups() {
+        return groups(true);
+    }
+
+    public List<String> getFailedGroups() {
+        return groups(false);
+    }
+
+    /**
+     * 有分组失败或超时，合并结果只包含部分分组
+     */
+    public boolean isPartial() {
+        return !getFailedGroups().isEmpty();
+    }
+
+    private List<String> groups(boolean succeeded) {
+        List<String> groups = new ArrayList<>();
+        for (GroupOutcome outcome : outcomes) {
+            if ((outcome.getStatus() == Status.SUCCESS) == succeeded) {
+                groups.add(outcome.getGroup());
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + " " + elapsedMillis + "ms " + outcomes;
+    }
+
+    public static final class GroupOutcome {
+        private final String group;
+        private final Status status;
+        private final long elapsedMillis;
+        private final String error;
+
+        GroupOutcome(String group, Status status, long elapsedMillis, String error) {
+            this.group = group;
+            this.status = status;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 分组返回所用的时间，超时的分组为等待的时间
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return 失败原因，成功时返回null
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return group + ": " + status + " " + elapsedMillis + "ms" + (error == null ? "" : " (" + error + ")");
+        }
+    }
+}
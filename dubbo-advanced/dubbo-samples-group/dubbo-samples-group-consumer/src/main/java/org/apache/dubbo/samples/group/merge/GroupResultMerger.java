@@ -0,0 +1,105 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Merger;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按merger配置合并各分组的返回值，配置方式与Dubbo内置的分组合并一致:
+ * <ul>
+ *   <li>{@code merger="list"}、{@code "map"}、{@code "set"} 或自定义的 {@link Merger} 扩展名，如 {@code "join"}</li>
+ *   <li>{@code merger="true"}: 按返回类型选择 list、set 或 map</li>
+ *   <li>{@code merger=".addAll"}: 调用第一个结果的该方法依次合并其余结果，方法返回值与返回类型兼容时作为新的结果</li>
+ * </ul>
+ * 返回null的分组不参与合并。
+ */
+final class GroupResultMerger {
+
+    private GroupResultMerger() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object merge(URL url, String merger, Class<?> returnType, List<Object> results) {
+        // 分组返回的null不参与合并
+        List<Object> values = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result != null) {
+                values.add(result);
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        if (values.size() == 1) {
+            return values.get(0);
+        }
+        if (merger.startsWith(".")) {
+            return mergeByMethod(merger.substring(1), returnType, values);
+        }
+        String name = "true".equals(merger) || "default".equals(merger) ? defaultMerger(returnType) : merger;
+        Merger resultMerger = url.getOrDefaultApplicationModel().getExtensionLoader(Merger.class).getExtension(name);
+        // Merger实现的参数是具体类型的数组，不能直接传Object[]
+        Object[] items = (Object[]) Array.newInstance(boxed(returnType), values.size());
+        return resultMerger.merge(values.toArray(items));
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        // 基本类型数组元素的默认值装箱后即为对应的包装类型
+        return Array.get(Array.newInstance(type, 1), 0).getClass();
+    }
+
+    private static String defaultMerger(Class<?> returnType) {
+        if (List.class.isAssignableFrom(returnType)) {
+            return "list";
+        }
+        if (Set.class.isAssignableFrom(returnType)) {
+            return "set";
+        }
+        if (Map.class.isAssignableFrom(returnType)) {
+            return "map";
+        }
+        throw new RpcException("No default merger for return type " + returnType.getName()
+                + ", please configure merger with an extension name or .methodName");
+    }
+
+    private static Object mergeByMethod(String methodName, Class<?> returnType, List<Object> values) {
+        Object result = values.get(0);
+        Method method = findMergeMethod(methodName, returnType);
+        boolean replaceResult = returnType.isAssignableFrom(method.getReturnType());
+        try {
+            for (int i = 1; i < values.size(); i++) {
+                Object merged = method.invoke(result, values.get(i));
+                if (replaceResult) {
+                    result = merged;
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RpcException("Can not merge result: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * 参数类型可以是返回类型的父类型，例如 List 的 addAll(Collection)
+     */
+    private static Method findMergeMethod(String methodName, Class<?> returnType) {
+        for (Method method : returnType.getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].isAssignableFrom(returnType)) {
+                return method;
+            }
+        }
+        throw new RpcException("Can not merge result because missing method [" + methodName + "] in class ["
+                + returnType.getName() + "]");
+    }
+}
@@ -0,0 +1,20 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker;
+import org.apache.dubbo.rpc.cluster.support.wrapper.AbstractCluster;
+
+/**
+ * 替换内置的mergeable集群，多分组引用(group="*"或"a,b")总是使用该名称的集群
+ * 未开启 group.merge=parallel 的引用行为与内置实现一致，见 {@link ParallelGroupMergeInvoker}
+ */
+public class ParallelGroupMergeCluster extends AbstractCluster {
+
+    public static final String NAME = "mergeable";
+
+    @Override
+    public <T> AbstractClusterInvoker<T> doJoin(Directory<T> directory) throws RpcException {
+        return new ParallelGroupMergeInvoker<>(directory);
+    }
+}
@@ -0,0 +1,207 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.cluster.support.MergeableClusterInvoker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_TIMEOUT;
+import static org.apache.dubbo.common.constants.CommonConstants.GROUP_KEY;
+import static org.apache.dubbo.common.constants.CommonConstants.TIMEOUT_KEY;
+import static org.apache.dubbo.rpc.Constants.ASYNC_KEY;
+
+/**
+ * 并行调用所有分组并合并结果
+ * <p>
+ * 引用配置 group="*" 或 group="a,b" 时Dubbo固定使用mergeable集群，本类替换该集群的实现，
+ * 只在引用配置了 group.merge=parallel 且方法配置了merger时生效，否则与内置实现完全一致。与内置实现相比:
+ * <ul>
+ *   <li>所有分组同时发出请求，共用一个截止时间(group.timeout，默认为调用超时)，总耗时取决于最慢的分组</li>
+ *   <li>分组失败或超时不影响其他分组，成功的分组数不少于 group.min-success(默认1，可配置为all)时返回部分合并结果，
+ *   否则抛出RpcException</li>
+ *   <li>每个分组的结果和耗时记录在 {@link GroupMergeReport} 中</li>
+ * </ul>
+ * 使用方式: &lt;dubbo:reference group="*"&gt;&lt;dubbo:parameter key="group.merge" value="parallel"/&gt;...，
+ * 方法上配置 merger="list"、"map"、"true"、自定义Merger扩展名或 ".方法名"，见 {@link GroupResultMerger}。
+ */
+public class ParallelGroupMergeInvoker<T> extends MergeableClusterInvoker<T> {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelGroupMergeInvoker.class);
+
+    public static final String GROUP_MERGE_KEY = "group.merge";
+    public static final String PARALLEL = "parallel";
+    public static final String GROUP_TIMEOUT_KEY = "group.timeout";
+    public static final String MIN_SUCCESS_KEY = "group.min-success";
+    public static final String MERGER_KEY = "merger";
+
+    public static final String ALL = "all";
+    public static final int DEFAULT_MIN_SUCCESS = 1;
+
+    public ParallelGroupMergeInvoker(Directory<T> directory) {
+        super(directory);
+    }
+
+    @Override
+    protected Result doInvoke(Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
+        String methodName = invocation.getMethodName();
+        URL url = getUrl();
+        String merger = url.getMethodParameter(methodName, MERGER_KEY);
+        Class<?> returnType = returnType(invocation);
+        if (!PARALLEL.equals(url.getParameter(GROUP_MERGE_KEY)) || merger == null || merger.isEmpty()
+                || returnType == null) {
+            return super.doInvoke(invocation, invokers, loadbalance);
+        }
+        checkInvokers(invokers, invocation);
+
+        long timeoutMillis = url.getMethodParameter(methodName, GROUP_TIMEOUT_KEY,
+                url.getMethodParameter(methodName, TIMEOUT_KEY, (long) DEFAULT_TIMEOUT));
+        Map<String, List<Invoker<T>>> groups = groupByGroup(invokers);
+        List<GroupCall> calls = new ArrayList<>(groups.size());
+        long start = System.nanoTime();
+        for (Map.Entry<String, List<Invoker<T>>> entry : groups.entrySet()) {
+            calls.add(send(entry.getKey(), entry.getValue(), invocation, loadbalance, timeoutMillis, start));
+        }
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<Object> values = new ArrayList<>(calls.size());
+        List<GroupMergeReport.GroupOutcome> outcomes = new ArrayList<>(calls.size());
+        for (GroupCall call : calls) {
+            GroupMergeReport.GroupOutcome outcome = call.await(deadline);
+            if (outcome.getStatus() == GroupMergeReport.Status.SUCCESS) {
+                values.add(call.value);
+            }
+            outcomes.add(outcome);
+        }
+        GroupMergeReport report = new GroupMergeReport(methodName, outcomes,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        GroupMergeReport.setLast(report);
+
+        int minSuccess = minSuccess(url, methodName, calls.size());
+        if (values.size() < minSuccess) {
+            throw new RpcException("Failed to merge groups of service " + getInterface().getName() + ", method: "
+                    + methodName + ", " + values.size() + " of " + calls.size() + " groups succeeded, required "
+                    + minSuccess + ": " + report.getOutcomes());
+        }
+        if (report.isPartial()) {
+            logger.warn("Partial group merge of " + getInterface().getName() + "." + methodName + ": "
+                    + report.getOutcomes());
+        }
+        if (returnType == void.class) {
+            return AsyncRpcResult.newDefaultAsyncResult(invocation);
+        }
+        return AsyncRpcResult.newDefaultAsyncResult(GroupResultMerger.merge(url, merger, returnType, values),
+                invocation);
+    }
+
+    /**
+     * 异步发出一个分组的请求，分组内有多个提供者时按负载均衡选择一个
+     */
+    private GroupCall send(String group, List<Invoker<T>> members, Invocation invocation, LoadBalance loadbalance,
+                           long timeoutMillis, long start) {
+        GroupCall call = new GroupCall(group, start);
+        try {
+            Invoker<T> invoker = members.size() == 1 ? members.get(0) : select(loadbalance, invocation, members, null);
+            RpcInvocation subInvocation = new RpcInvocation(invocation, invoker);
+            subInvocation.setAttachment(ASYNC_KEY, "true");
+            // 请求本身也在分组超时后结束，不在后台一直占用连接
+            subInvocation.setAttachment(TIMEOUT_KEY, String.valueOf(timeoutMillis));
+            call.result = invokeWithContext(invoker, subInvocation);
+            call.result.whenCompleteWithContext((r, t) -> call.completedAt = System.nanoTime());
+        } catch (RuntimeException e) {
+            call.error = e;
+            call.completedAt = System.nanoTime();
+        }
+        return call;
+    }
+
+    /**
+     * 目录已按分组合并时每个分组是一个集群调用者，否则是各个提供者，两种情况都按URL上的分组归类
+     */
+    private Map<String, List<Invoker<T>>> groupByGroup(List<Invoker<T>> invokers) {
+        Map<String, List<Invoker<T>>> groups = new TreeMap<>();
+        for (Invoker<T> invoker : invokers) {
+            groups.computeIfAbsent(invoker.getUrl().getParameter(GROUP_KEY, ""), g -> new ArrayList<>()).add(invoker);
+        }
+        return groups;
+    }
+
+    private Class<?> returnType(Invocation invocation) {
+        try {
+            return getInterface().getMethod(invocation.getMethodName(), invocation.getParameterTypes()).getReturnType();
+        } catch (NoSuchMethodException e) {
+            // 泛化调用等接口上没有的方法
+            return null;
+        }
+    }
+
+    static int minSuccess(URL url, String methodName, int groups) {
+        String value = url.getMethodParameter(methodName, MIN_SUCCESS_KEY);
+        if (value == null || value.isEmpty()) {
+            return Math.min(DEFAULT_MIN_SUCCESS, groups);
+        }
+        if (ALL.equalsIgnoreCase(value)) {
+            return groups;
+        }
+        return Math.min(Math.max(Integer.parseInt(value.trim()), 0), groups);
+    }
+
+    private static final class GroupCall {
+        final String group;
+        final long start;
+        Result result;
+        Throwable error;
+        Object value;
+        volatile long completedAt;
+
+        GroupCall(String group, long start) {
+            this.group = group;
+            this.start = start;
+        }
+
+        GroupMergeReport.GroupOutcome await(long deadline) {
+            if (error == null) {
+                try {
+                    Result response = result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (response.hasException()) {
+                        error = response.getException();
+                    } else {
+                        value = response.getValue();
+                        return outcome(GroupMergeReport.Status.SUCCESS, null);
+                    }
+                } catch (TimeoutException e) {
+                    return new GroupMergeReport.GroupOutcome(group, GroupMergeReport.Status.TIMEOUT,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), null);
+                } catch (ExecutionException e) {
+                    error = e.getCause() != null ? e.getCause() : e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    error = e;
+                }
+            }
+            // 请求自身的超时(与分组超时同时到达时)也记为超时
+            GroupMergeReport.Status status = error instanceof RpcException && ((RpcException) error).isTimeout()
+                    ? GroupMergeReport.Status.TIMEOUT : GroupMergeReport.Status.FAILED;
+            return outcome(status, error.getClass().getSimpleName() + ": " + error.getMessage());
+        }
+
+        private GroupMergeReport.GroupOutcome outcome(GroupMergeReport.Status status, String message) {
+            long end = completedAt != 0 ? completedAt : System.nanoTime();
+            return new GroupMergeReport.GroupOutcome(group, status, TimeUnit.NANOSECONDS.toMillis(end - start), message);
+        }
+    }
+}
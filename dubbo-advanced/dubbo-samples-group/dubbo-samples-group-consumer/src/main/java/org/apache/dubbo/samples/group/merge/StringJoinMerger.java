@@ -0,0 +1,27 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.rpc.cluster.Merger;
+
+/**
+ * 自定义合并: 各分组返回的字符串按行拼接
+ * 使用方式: &lt;dubbo:method name="sayHi" merger="join"/&gt;
+ */
+public class StringJoinMerger implements Merger<String> {
+
+    public static final String NAME = "join";
+
+    @Override
+    public String merge(String... items) {
+        StringBuilder builder = new StringBuilder();
+        for (String item : items) {
+            if (item == null) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(item);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package org.apache.dubbo.samples.group.connection;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.group.GroupService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * ConnectionMetricsFilter测试: 不同分组、版本按地址归并到共享连接，独占连接单独统计
+ */
+public class ConnectionMetricsFilterTest {
+
+    private static final String PROVIDER = "dubbo://127.0.0.1:20880/" + GroupService.class.getName();
+
+    private final ConnectionMetricsFilter filter = new ConnectionMetricsFilter();
+
+    @Before
+    public void reset() {
+        ConnectionMetrics.reset();
+    }
+
+    @Test
+    public void testGroupsAndVersionsShareConnection() {
+        call(invoker(PROVIDER + "?group=groupA"));
+        call(invoker(PROVIDER + "?group=groupB"));
+        call(invoker(PROVIDER + "?group=groupB&version=2.0.0"));
+        call(invoker(PROVIDER + "?group=groupA"));
+        call(invoker("dubbo://127.0.0.1:20881/" + GroupService.class.getName() + "?group=groupA"));
+
+        Map<String, ConnectionMetrics.ConnectionStats> connections = ConnectionMetrics.getConnections();
+        assertEquals(connections.keySet().toString(), 2, connections.size());
+        ConnectionMetrics.ConnectionStats shared = connections.get("127.0.0.1:20880");
+        assertTrue(shared.isShared());
+        assertEquals(1, shared.getConnections());
+        assertEquals(Arrays.asList("groupA/" + GroupService.class.getName(),
+                "groupB/" + GroupService.class.getName(), "groupB/" + GroupService.class.getName() + ":2.0.0"),
+                shared.getServices());
+        assertEquals(3.0, shared.getMultiplexing(), 0.001);
+        assertEquals(4, shared.getRequests());
+        assertEquals(0, shared.getInFlight());
+        assertEquals(2, ConnectionMetrics.getConnectionCount());
+    }
+
+    @Test
+    public void testDedicatedConnections() {
+        call(invoker(PROVIDER + "?group=groupA&shareconnections=2"));
+        call(invoker(PROVIDER + "?group=groupB&connections=3"));
+        call(invoker(PROVIDER + "?group=groupC&connections=3"));
+
+        Map<String, ConnectionMetrics.ConnectionStats> connections = ConnectionMetrics.getConnections();
+        assertEquals(connections.keySet().toString(), 3, connections.size());
+        assertEquals(2, connections.get("127.0.0.1:20880").getConnections());
+        ConnectionMetrics.ConnectionStats dedicated =
+                connections.get("127.0.0.1:20880#groupB/" + GroupService.class.getName());
+        assertFalse(dedicated.isShared());
+        assertEquals(3, dedicated.getConnections());
+        assertEquals(2 + 3 + 3, ConnectionMetrics.getConnectionCount());
+
+        String report = ConnectionMetrics.report();
+        assertTrue(report, report.contains("dedicated") && report.contains("shared"));
+    }
+
+    @Test
+    public void testInFlightAndErrors() {
+        Invoker<GroupService> groupA = invoker(PROVIDER + "?group=groupA");
+        Invoker<GroupService> groupB = invoker(PROVIDER + "?group=groupB");
+        List<Invocation> pending = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Invocation invocation = invocation();
+            filter.invoke(i % 2 == 0 ? groupA : groupB, invocation);
+            pending.add(invocation);
+        }
+        ConnectionMetrics.ConnectionStats connection = ConnectionMetrics.getConnections().get("127.0.0.1:20880");
+        assertEquals(3, connection.getInFlight());
+
+        filter.onResponse(new AppResponse(new IllegalStateException("business error")), groupA, pending.get(0));
+        filter.onError(new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"), groupB, pending.get(1));
+        filter.onResponse(new AppResponse("ok"), groupA, pending.get(2));
+        assertEquals(0, connection.getInFlight());
+        assertEquals(3, connection.getPeakInFlight());
+        // 业务异常也经由连接正常返回，只有调用失败计为错误
+        assertEquals(1, connection.getErrors());
+    }
+
+    private void call(Invoker<GroupService> invoker) {
+        Invocation invocation = invocation();
+        Result result = filter.invoke(invoker, invocation);
+        filter.onResponse(result, invoker, invocation);
+    }
+
+    private static Invocation invocation() {
+        return new RpcInvocation("sayHi", GroupService.class.getName(), null,
+                new Class<?>[]{String.class}, new Object[]{"world"});
+    }
+
+    private static Invoker<GroupService> invoker(String url) {
+        URL providerUrl = URL.valueOf(url);
+        return new Invoker<GroupService>() {
+            @Override
+            public Class<GroupService> getInterface() {
+                return GroupService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                return new AppResponse("hello");
+            }
+
+            @Override
+            public URL getUrl() {
+                return providerUrl;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
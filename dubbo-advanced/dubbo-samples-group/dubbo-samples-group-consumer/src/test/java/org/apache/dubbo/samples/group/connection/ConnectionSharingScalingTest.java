@@ -0,0 +1,209 @@
+package org.apache.dubbo.samples.group.connection;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.ProtocolServer;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboProtocol;
+import org.apache.dubbo.samples.group.GroupService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * 同一提供者上1到200个分组时，共享连接与每个引用独占连接的对比
+ * <p>
+ * 每一轮创建N个分组的直连引用，统计提供者上的连接数、每个引用占用的堆内存和多线程调用的吞吐量。
+ * 独占连接时连接数和心跳数随分组数线性增长，共享连接时始终只有一个连接。
+ */
+public class ConnectionSharingScalingTest {
+
+    private static final int[] GROUP_COUNTS = {1, 10, 50, 100, 200};
+    private static final int MAX_GROUPS = 200;
+    private static final int THREADS = 16;
+    private static final long DURATION_MILLIS = 1000;
+
+    private static DubboBootstrap bootstrap;
+    private static int port;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("connection-sharing-test"))
+                .registry(new RegistryConfig("N/A"))
+                .protocol(new ProtocolConfig("dubbo", port));
+        for (int i = 1; i <= MAX_GROUPS; i++) {
+            ServiceConfig<GroupService> service = new ServiceConfig<>();
+            service.setInterface(GroupService.class);
+            service.setGroup(group(i));
+            service.setRef(new EchoGroupService(group(i)));
+            bootstrap.service(service);
+        }
+        bootstrap.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (bootstrap != null) {
+            bootstrap.stop();
+        }
+    }
+
+    @Test
+    public void testConnectionSharingScaling() throws Exception {
+        System.out.println(String.format("%8s %-10s %12s %14s %12s %14s", "groups", "mode", "connections",
+                "heap/ref(KB)", "ops/s", "services/conn"));
+        for (int groups : GROUP_COUNTS) {
+            for (boolean shared : new boolean[]{true, false}) {
+                ConnectionMetrics.reset();
+                long heapBefore = usedHeap();
+                List<ReferenceConfig<GroupService>> references = new ArrayList<>(groups);
+                List<GroupService> services = new ArrayList<>(groups);
+                for (int i = 1; i <= groups; i++) {
+                    ReferenceConfig<GroupService> reference = reference(group(i), shared);
+                    references.add(reference);
+                    services.add(reference.get());
+                }
+                int expected = shared ? 1 : groups;
+                int connections = awaitProviderChannels(expected);
+                long heapPerReference = (usedHeap() - heapBefore) / groups / 1024;
+                // 每个引用先调用一次，连接都记入统计，建立连接的耗时也不算进吞吐量
+                for (GroupService service : services) {
+                    assertNotNull(service.sayHi("warmup"));
+                }
+
+                double throughput = throughput(services);
+                assertEquals(expected, ConnectionMetrics.getConnectionCount());
+                double multiplexing = ConnectionMetrics.getConnections().values().iterator().next().getMultiplexing();
+                System.out.println(String.format("%8d %-10s %12d %14d %12.0f %14.1f", groups,
+                        shared ? "shared" : "dedicated", connections, heapPerReference, throughput, multiplexing));
+
+                assertEquals(expected, connections);
+                if (shared) {
+                    assertEquals(groups, multiplexing, 0.001);
+                }
+                references.forEach(ReferenceConfig::destroy);
+                awaitProviderChannels(0);
+            }
+        }
+    }
+
+    private static ReferenceConfig<GroupService> reference(String group, boolean shared) {
+        ReferenceConfig<GroupService> reference = new ReferenceConfig<>();
+        reference.setInterface(GroupService.class);
+        reference.setGroup(group);
+        reference.setUrl("dubbo://127.0.0.1:" + port);
+        reference.setTimeout(5000);
+        reference.setParameters(Collections.singletonMap(ConnectionMetrics.CONNECTION_METRICS_KEY, "true"));
+        if (!shared) {
+            reference.setConnections(1);
+        }
+        return reference;
+    }
+
+    /**
+     * 多个线程轮流调用所有分组
+     *
+     * @return 每秒调用次数
+     */
+    private static double throughput(List<GroupService> services) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder calls = new LongAdder();
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                int i = offset;
+                while (running.get()) {
+                    assertNotNull(services.get(i++ % services.size()).sayHi("world"));
+                    calls.increment();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return calls.sum() * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    /**
+     * 提供者一端的连接数，连接的建立和关闭是异步的，等待达到期望值
+     */
+    private static int awaitProviderChannels(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        int channels;
+        while ((channels = providerChannels()) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return channels;
+    }
+
+    private static int providerChannels() {
+        int channels = 0;
+        for (ProtocolServer server : DubboProtocol.getDubboProtocol(bootstrap.getApplicationModel()).getServers()) {
+            channels += server.getRemotingServer().getChannels().size();
+        }
+        return channels;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String group(int i) {
+        return "g" + i;
+    }
+
+    private static class EchoGroupService implements GroupService {
+        private final String group;
+
+        EchoGroupService(String group) {
+            this.group = group;
+        }
+
+        @Override
+        public String sayHi(String name) {
+            return "Hello " + name + " from " + group;
+        }
+
+        @Override
+        public List<String> listMembers() {
+            return new ArrayList<>(Collections.singletonList(group));
+        }
+
+        @Override
+        public Map<String, Integer> countMembers() {
+            Map<String, Integer> counts = new HashMap<>();
+            counts.put(group, 1);
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.MethodConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.samples.group.EmbeddedZooKeeper;
+import org.apache.dubbo.samples.group.GroupService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 逐个调用各分组与并行分组合并的耗时对比
+ * <p>
+ * 分组gN的每次调用耗时 20+10*N ms，逐个调用的耗时是各分组之和，并行合并应接近最慢的分组。
+ */
+public class GroupMergeBenchmarkTest {
+
+    private static final int[] GROUP_COUNTS = {1, 2, 4, 8};
+    private static final int MAX_GROUPS = 8;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    private static EmbeddedZooKeeper zookeeper;
+    private static DubboBootstrap bootstrap;
+    private static final List<ReferenceConfig<GroupService>> singleGroups = new ArrayList<>();
+    private static final Map<Integer, ReferenceConfig<GroupService>> mergedGroups = new HashMap<>();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        zookeeper = new EmbeddedZooKeeper();
+        zookeeper.start();
+        awaitPort(zookeeper.getClientPort());
+
+        // 多分组引用需要接口级地址
+        System.setProperty("dubbo.application.service-discovery.migration", "FORCE_INTERFACE");
+        ApplicationConfig application = new ApplicationConfig("group-merge-benchmark");
+        application.setRegisterMode("interface");
+        bootstrap = DubboBootstrap.getInstance()
+                .application(application)
+                .registry(new RegistryConfig("zookeeper://127.0.0.1:" + zookeeper.getClientPort()))
+                .protocol(new ProtocolConfig("dubbo", -1));
+        for (int i = 1; i <= MAX_GROUPS; i++) {
+            ServiceConfig<GroupService> service = new ServiceConfig<>();
+            service.setInterface(GroupService.class);
+            service.setGroup(group(i));
+            service.setRef(new DelayedGroupService(group(i), delayMillis(i)));
+            bootstrap.service(service);
+
+            ReferenceConfig<GroupService> reference = reference(group(i));
+            singleGroups.add(reference);
+            bootstrap.reference(reference);
+        }
+        for (int groups : GROUP_COUNTS) {
+            if (groups == 1) {
+                continue;
+            }
+            ReferenceConfig<GroupService> reference = reference(groupList(groups));
+            reference.setParameters(Collections.singletonMap(ParallelGroupMergeInvoker.GROUP_MERGE_KEY,
+                    ParallelGroupMergeInvoker.PARALLEL));
+            MethodConfig method = new MethodConfig();
+            method.setName("listMembers");
+            method.setMerger("list");
+            reference.setMethods(Collections.singletonList(method));
+            mergedGroups.put(groups, reference);
+            bootstrap.reference(reference);
+        }
+        bootstrap.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (bootstrap != null) {
+            bootstrap.stop();
+        }
+        if (zookeeper != null) {
+            zookeeper.stop();
+        }
+        System.clearProperty("dubbo.application.service-discovery.migration");
+    }
+
+    @Test
+    public void testParallelMergeLatency() throws Exception {
+        System.out.println(String.format("%8s %10s %10s %14s %12s", "groups", "slowest", "sum", "sequential(ms)",
+                "parallel(ms)"));
+        for (int groups : GROUP_COUNTS) {
+            long slowest = delayMillis(groups);
+            long sum = 0;
+            for (int i = 1; i <= groups; i++) {
+                sum += delayMillis(i);
+            }
+            double sequential = measure(() -> assertEquals(groups, sequential(groups).size()));
+            double parallel = groups == 1 ? sequential : measure(() -> {
+                assertEquals(groups, mergedGroups.get(groups).get().listMembers().size());
+                assertFalse(GroupMergeReport.getLast().isPartial());
+            });
+            System.out.println(String.format("%8d %10d %10d %14.1f %12.1f", groups, slowest, sum, sequential, parallel));
+
+            assertTrue("sequential " + sequential, sequential >= sum);
+            if (groups > 1) {
+                // 总耗时接近最慢的分组，而不是各分组之和
+                assertTrue("parallel " + parallel, parallel >= slowest && parallel < (slowest + sum) / 2.0);
+            }
+        }
+    }
+
+    private static List<String> sequential(int groups) {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < groups; i++) {
+            members.addAll(singleGroups.get(i).get().listMembers());
+        }
+        return members;
+    }
+
+    private static double measure(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    private static ReferenceConfig<GroupService> reference(String group) {
+        ReferenceConfig<GroupService> reference = new ReferenceConfig<>();
+        reference.setInterface(GroupService.class);
+        reference.setGroup(group);
+        reference.setScope("remote");
+        reference.setTimeout(5000);
+        return reference;
+    }
+
+    private static String group(int i) {
+        return "g" + i;
+    }
+
+    private static String groupList(int groups) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= groups; i++) {
+            builder.append(i == 1 ? "" : ",").append(group(i));
+        }
+        return builder.toString();
+    }
+
+    private static long delayMillis(int i) {
+        return 20 + 10 * i;
+    }
+
+    private static void awaitPort(int port) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!isListening(port)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("embedded ZooKeeper not started on port " + port);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static boolean isListening(int port) {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 1000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static class DelayedGroupService implements GroupService {
+        private final String group;
+        private final long delayMillis;
+
+        DelayedGroupService(String group, long delayMillis) {
+            this.group = group;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public String sayHi(String name) {
+            sleep();
+            return "Hello " + name + " from " + group;
+        }
+
+        @Override
+        public List<String> listMembers() {
+            sleep();
+            return new ArrayList<>(Collections.singletonList(group));
+        }
+
+        @Override
+        public Map<String, Integer> countMembers() {
+            sleep();
+            Map<String, Integer> counts = new HashMap<>();
+            counts.put(group, 1);
+            return counts;
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
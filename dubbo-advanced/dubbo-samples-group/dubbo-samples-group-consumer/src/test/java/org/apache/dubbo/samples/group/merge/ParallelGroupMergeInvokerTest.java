@@ -0,0 +1,182 @@
+package org.apache.dubbo.samples.group.merge;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.directory.StaticDirectory;
+import org.apache.dubbo.rpc.model.ServiceModel;
+import org.apache.dubbo.samples.group.GroupService;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ParallelGroupMergeInvoker测试: 并行发出、部分失败、分组超时和合并方式
+ */
+public class ParallelGroupMergeInvokerTest {
+
+    private static final ScheduledExecutorService RESPONSES = Executors.newScheduledThreadPool(4);
+
+    private static final String SERVICE_URL = "dubbo://127.0.0.1:20880/" + GroupService.class.getName()
+            + "?group.merge=parallel&listMembers.merger=.addAll&sayHi.merger=join";
+
+    @AfterClass
+    public static void shutdown() {
+        RESPONSES.shutdownNow();
+    }
+
+    @Test
+    public void testLatencyIsSlowestGroup() {
+        List<Invoker<GroupService>> invokers = Arrays.asList(
+                group("groupC", 300, "carol"), group("groupA", 100, "alice"), group("groupB", 200, "bob"));
+        ParallelGroupMergeInvoker<GroupService> invoker = invoker(SERVICE_URL, invokers);
+
+        long start = System.nanoTime();
+        Result result = invoker.doInvoke(invocation("listMembers"), invokers, null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 按分组名排序后合并
+        assertEquals(Arrays.asList("alice", "bob", "carol"), result.getValue());
+        assertTrue("elapsed " + elapsed, elapsed >= 300 && elapsed < 500);
+        GroupMergeReport report = GroupMergeReport.getLast();
+        assertFalse(report.isPartial());
+        assertEquals(Arrays.asList("groupA", "groupB", "groupC"), report.getSucceededGroups());
+        assertTrue(report.toString(), report.getOutcomes().get(0).getElapsedMillis() < 250);
+    }
+
+    @Test
+    public void testPartialFailureAndGroupTimeout() {
+        List<Invoker<GroupService>> invokers = Arrays.asList(
+                group("groupA", 50, "alice"), failingGroup("groupB", 50), group("groupC", 3000, "carol"));
+        ParallelGroupMergeInvoker<GroupService> invoker = invoker(SERVICE_URL + "&group.timeout=300", invokers);
+
+        long start = System.nanoTime();
+        Result result = invoker.doInvoke(invocation("listMembers"), invokers, null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(Collections.singletonList("alice"), result.getValue());
+        assertTrue("elapsed " + elapsed, elapsed >= 300 && elapsed < 1000);
+        GroupMergeReport report = GroupMergeReport.getLast();
+        assertTrue(report.isPartial());
+        assertEquals(GroupMergeReport.Status.SUCCESS, report.getOutcomes().get(0).getStatus());
+        assertEquals(GroupMergeReport.Status.FAILED, report.getOutcomes().get(1).getStatus());
+        assertTrue(report.getOutcomes().get(1).getError(), report.getOutcomes().get(1).getError().contains("groupB down"));
+        assertEquals(GroupMergeReport.Status.TIMEOUT, report.getOutcomes().get(2).getStatus());
+        assertEquals(Arrays.asList("groupB", "groupC"), report.getFailedGroups());
+    }
+
+    @Test
+    public void testMinSuccess() {
+        List<Invoker<GroupService>> invokers = Arrays.asList(group("groupA", 10, "alice"), failingGroup("groupB", 10));
+        ParallelGroupMergeInvoker<GroupService> invoker = invoker(SERVICE_URL + "&group.min-success=all", invokers);
+        try {
+            invoker.doInvoke(invocation("listMembers"), invokers, null);
+            fail();
+        } catch (RpcException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("1 of 2 groups succeeded, required 2"));
+        }
+
+        // 所有分组都失败时即使默认配置也抛出异常
+        List<Invoker<GroupService>> failing = Arrays.asList(failingGroup("groupA", 10), failingGroup("groupB", 10));
+        try {
+            invoker(SERVICE_URL, failing).doInvoke(invocation("listMembers"), failing, null);
+            fail();
+        } catch (RpcException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("0 of 2 groups succeeded, required 1"));
+        }
+
+        assertEquals(1, ParallelGroupMergeInvoker.minSuccess(URL.valueOf(SERVICE_URL), "listMembers", 3));
+        assertEquals(2, ParallelGroupMergeInvoker.minSuccess(URL.valueOf(SERVICE_URL + "&group.min-success=5"),
+                "listMembers", 2));
+    }
+
+    @Test
+    public void testCustomMerger() {
+        List<Invoker<GroupService>> invokers = Arrays.asList(group("groupA", 10, "alice"), group("groupB", 10, "bob"));
+        Result result = invoker(SERVICE_URL, invokers).doInvoke(invocation("sayHi"), invokers, null);
+        assertEquals("Hello world from groupA\nHello world from groupB", result.getValue());
+
+        assertEquals("a\nc", new StringJoinMerger().merge("a", null, "c"));
+        assertNull(GroupResultMerger.merge(URL.valueOf(SERVICE_URL), "join", String.class, Arrays.asList(null, null)));
+    }
+
+    private static ParallelGroupMergeInvoker<GroupService> invoker(String url, List<Invoker<GroupService>> invokers) {
+        URL consumerUrl = URL.valueOf(url);
+        return new ParallelGroupMergeInvoker<GroupService>(new StaticDirectory<>(consumerUrl, invokers)) {
+            @Override
+            public URL getUrl() {
+                return consumerUrl;
+            }
+        };
+    }
+
+    private static Invocation invocation(String methodName) {
+        if ("sayHi".equals(methodName)) {
+            return new RpcInvocation((ServiceModel) null, methodName, GroupService.class.getName(), null,
+                    new Class<?>[]{String.class}, new Object[]{"world"});
+        }
+        return new RpcInvocation((ServiceModel) null, methodName, GroupService.class.getName(), null,
+                new Class<?>[0], new Object[0]);
+    }
+
+    private static Invoker<GroupService> group(String group, long delayMillis, String member) {
+        return invoker(group, delayMillis, invocation -> "sayHi".equals(invocation.getMethodName())
+                ? new AppResponse("Hello " + invocation.getArguments()[0] + " from " + group)
+                : new AppResponse(new ArrayList<>(Collections.singletonList(member))));
+    }
+
+    private static Invoker<GroupService> failingGroup(String group, long delayMillis) {
+        return invoker(group, delayMillis, invocation -> new AppResponse(new IllegalStateException(group + " down")));
+    }
+
+    /**
+     * 模拟异步调用: 立即返回，延迟后在另一个线程上完成
+     */
+    private static Invoker<GroupService> invoker(String group, long delayMillis,
+                                                 java.util.function.Function<Invocation, AppResponse> response) {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + GroupService.class.getName() + "?group=" + group);
+        return new Invoker<GroupService>() {
+            @Override
+            public Class<GroupService> getInterface() {
+                return GroupService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                assertEquals("true", invocation.getAttachment("async"));
+                CompletableFuture<AppResponse> future = new CompletableFuture<>();
+                RESPONSES.schedule(() -> future.complete(response.apply(invocation)), delayMillis, TimeUnit.MILLISECONDS);
+                return new AsyncRpcResult(future, invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
@@ -17,7 +17,20 @@
 
 package org.apache.dubbo.samples.group;
 
+import java.util.List;
+import java.util.Map;
+
 public interface GroupService {
 
     String sayHi(String name);
+
+    /**
+     * 分组内的成员，多分组引用时合并为一个列表
+     */
+    List<String> listMembers();
+
+    /**
+     * 分组名到成员数，多分组引用时合并为一个Map
+     */
+    Map<String, Integer> countMembers();
 }
@@ -23,10 +23,19 @@ import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.group.GroupService;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class GroupAServiceImpl implements GroupService {
+
+    private static final List<String> MEMBERS = Collections.unmodifiableList(Arrays.asList("alice", "bob"));
+
     @Override
     public String sayHi(String name) {
         System.out.println("[" + new SimpleDateFormat("HH:mm:ss").format(new Date()) + "] Hello " + name +
@@ -34,5 +43,15 @@ public class GroupAServiceImpl implements GroupService {
         return "Hello " + name + ", response from provider: " + RpcContext.getContext().getLocalAddress() + " in group A";
     }
 
+    @Override
+    public List<String> listMembers() {
+        return new ArrayList<>(MEMBERS);
+    }
 
+    @Override
+    public Map<String, Integer> countMembers() {
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("groupA", MEMBERS.size());
+        return counts;
+    }
 }
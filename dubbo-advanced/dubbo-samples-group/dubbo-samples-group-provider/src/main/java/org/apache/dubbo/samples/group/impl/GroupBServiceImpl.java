@@ -23,15 +23,35 @@ import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.group.GroupService;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class GroupBServiceImpl implements GroupService {
 
+    private static final List<String> MEMBERS = Collections.unmodifiableList(Arrays.asList("carol"));
+
     @Override
     public String sayHi(String name) {
         System.out.println("[" + new SimpleDateFormat("HH:mm:ss").format(new Date()) + "] Hello " + name +
                 ", request from consumer: " + RpcContext.getContext().getRemoteAddress() + "in groupB");
         return "Hello " + name + ", response from provider: " + RpcContext.getContext().getLocalAddress() + " in group B";
     }
+
+    @Override
+    public List<String> listMembers() {
+        return new ArrayList<>(MEMBERS);
+    }
+
+    @Override
+    public Map<String, Integer> countMembers() {
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("groupB", MEMBERS.size());
+        return counts;
+    }
 }
@@ -0,0 +1,44 @@
+package org.apache.dubbo.samples.local.benchmark;
+
+import org.apache.dubbo.rpc.AsyncContext;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.local.LocalService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 压测用的服务实现，不打印日志也不等待，只保留调用本身的开销
+ * <p>
+ * 记录最近一次收到的参数，用于判断参数是否被复制。
+ */
+public class BenchmarkLocalService implements LocalService {
+
+    private final ExecutorService asyncExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "BenchmarkAsync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile String lastArgument;
+
+    @Override
+    public String sayHello(String name) {
+        lastArgument = name;
+        return "Hello " + name;
+    }
+
+    @Override
+    public String sayHelloAsync(String name) {
+        AsyncContext asyncContext = RpcContext.startAsync();
+        asyncExecutor.execute(() -> {
+            asyncContext.signalContextSwitch();
+            asyncContext.write(sayHello(name));
+        });
+        return null;
+    }
+
+    public String getLastArgument() {
+        return lastArgument;
+    }
+}
@@ -0,0 +1,106 @@
+package org.apache.dubbo.samples.local.benchmark;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.samples.local.LocalService;
+import org.apache.dubbo.samples.local.injvm.ImmutableReferenceCopyUtil;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 同一JVM内调用LocalService的开销对比
+ * <ul>
+ *   <li>direct: 直接调用实现类</li>
+ *   <li>injvm-copy: injvm协议，默认对参数和返回值序列化复制</li>
+ *   <li>injvm-immutable-ref: injvm协议，injvm-copy-util=immutableRef，不可变类型传引用</li>
+ *   <li>injvm-same-module: injvm协议，injvm.ignore.same-module=true，同模块内不做任何复制</li>
+ *   <li>dubbo-loopback: dubbo协议经本机回环网络调用</li>
+ * </ul>
+ * 输出每种方式下 sayHello、sayHelloAsync 的平均耗时，以及提供者收到的参数是否是消费者传入的同一个对象。
+ * 迭代次数通过 -Dbenchmark.iterations 指定。
+ */
+public class LocalInvocationBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200_000);
+    private static final int WARMUP = ITERATIONS / 2;
+
+    public static void main(String[] args) {
+        BenchmarkLocalService impl = new BenchmarkLocalService();
+        int port = Integer.getInteger("benchmark.port", 20890);
+
+        ServiceConfig<LocalService> service = new ServiceConfig<>();
+        service.setInterface(LocalService.class);
+        service.setRef(impl);
+
+        Map<String, ReferenceConfig<LocalService>> references = new LinkedHashMap<>();
+        references.put("injvm-copy", reference("injvmCopy", Collections.emptyMap()));
+        references.put("injvm-immutable-ref", reference("injvmImmutableRef",
+                Collections.singletonMap("injvm-copy-util", ImmutableReferenceCopyUtil.NAME)));
+        references.put("injvm-same-module", reference("injvmSameModule",
+                Collections.singletonMap("injvm.ignore.same-module", "true")));
+        ReferenceConfig<LocalService> loopback = new ReferenceConfig<>();
+        loopback.setId("dubboLoopback");
+        loopback.setInterface(LocalService.class);
+        loopback.setUrl("dubbo://127.0.0.1:" + port);
+        references.put("dubbo-loopback", loopback);
+
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("local-benchmark"))
+                .registry(new RegistryConfig("N/A"))
+                .protocol(new ProtocolConfig("dubbo", port))
+                .service(service);
+        references.values().forEach(bootstrap::reference);
+        bootstrap.start();
+
+        System.out.printf("%-22s %16s %20s %14s%n", "mode", "sayHello ns/op", "sayHelloAsync ns/op", "same argument");
+        report("direct", impl, impl, false);
+        references.forEach((mode, reference) -> report(mode, reference.get(), impl, true));
+        System.out.println("immutableRef: referenced=" + ImmutableReferenceCopyUtil.getReferencedCount()
+                + ", copied=" + ImmutableReferenceCopyUtil.getCopiedCount());
+        bootstrap.stop();
+    }
+
+    private static ReferenceConfig<LocalService> reference(String id, Map<String, String> parameters) {
+        ReferenceConfig<LocalService> reference = new ReferenceConfig<>();
+        reference.setId(id);
+        reference.setInterface(LocalService.class);
+        reference.setScope("local");
+        reference.setParameters(parameters);
+        return reference;
+    }
+
+    private static void report(String mode, LocalService target, BenchmarkLocalService impl, boolean async) {
+        long hello = measure(target, LocalService::sayHello);
+        String asyncResult = async ? String.valueOf(measure(target, LocalService::sayHelloAsync)) : "-";
+        // new String保证参数不是常量池中共享的实例
+        String argument = new String("world");
+        target.sayHello(argument);
+        System.out.printf("%-22s %16d %20s %14s%n", mode, hello, asyncResult, impl.getLastArgument() == argument);
+    }
+
+    /**
+     * @return 平均每次调用的纳秒数
+     */
+    private static long measure(LocalService target, BiFunction<LocalService, String, String> call) {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += call.apply(target, "world").length();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += call.apply(target, "world").length();
+        }
+        long nanos = (System.nanoTime() - begin) / ITERATIONS;
+        if (checksum == 0) {
+            throw new IllegalStateException("unexpected empty response");
+        }
+        return nanos;
+    }
+}
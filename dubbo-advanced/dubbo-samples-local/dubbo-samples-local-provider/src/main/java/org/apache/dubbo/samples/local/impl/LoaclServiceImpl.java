@@ -23,30 +23,48 @@ import org.apache.dubbo.rpc.AsyncContext;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcServiceContext;
 import org.apache.dubbo.samples.local.LocalService;
-
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import org.apache.dubbo.samples.local.support.CachedTimestampFormatter;
+import org.apache.dubbo.samples.local.support.LocalAsyncExecutor;
 
 public class LoaclServiceImpl implements LocalService {
 
+    private static final CachedTimestampFormatter TIMESTAMP = new CachedTimestampFormatter();
+
+    private final LocalAsyncExecutor asyncExecutor;
+    private final long asyncDelayMillis;
+
+    public LoaclServiceImpl() {
+        this(LocalAsyncExecutor.shared(), 500);
+    }
+
+    /**
+     * @param asyncDelayMillis sayHelloAsync 模拟的处理耗时
+     */
+    public LoaclServiceImpl(LocalAsyncExecutor asyncExecutor, long asyncDelayMillis) {
+        this.asyncExecutor = asyncExecutor;
+        this.asyncDelayMillis = asyncDelayMillis;
+    }
+
     public String sayHello(String name) {
-        System.out.println("[" + new SimpleDateFormat("HH:mm:ss").format(new Date()) + "] Hello " + name +
+        System.out.println("[" + TIMESTAMP.now() + "] Hello " + name +
                 ", request from consumer: " + RpcContext.getContext().getRemoteAddress());
         return "Hello " + name + ", response from provider: " + RpcContext.getContext().getLocalAddress();
     }
 
+    /**
+     * 异步处理: 在共用的执行器上延迟执行，等待期间不占用线程
+     */
     @Override
     public String sayHelloAsync(String name) {
         AsyncContext asyncContext = RpcServiceContext.startAsync();
-        new Thread(() -> {
+        asyncExecutor.supplyDelayed(() -> {
             asyncContext.signalContextSwitch();
             try {
-                Thread.sleep(500);
-            } catch (InterruptedException ignore) {
-
+                return sayHello(name);
+            } finally {
+                asyncContext.resetContext();
             }
-            asyncContext.write(sayHello(name));
-        }).start();
+        }, asyncDelayMillis).whenComplete((result, t) -> asyncContext.write(t != null ? t : result));
         return null;
     }
 }
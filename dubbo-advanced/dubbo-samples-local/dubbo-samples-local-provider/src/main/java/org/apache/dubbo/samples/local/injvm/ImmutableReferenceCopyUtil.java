@@ -0,0 +1,116 @@
+package org.apache.dubbo.samples.local.injvm;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.protocol.injvm.DefaultParamDeepCopyUtil;
+import org.apache.dubbo.rpc.protocol.injvm.ParamDeepCopyUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * injvm调用的参数/返回值复制策略: 不可变类型直接传引用，其他类型仍按默认方式序列化复制
+ * <p>
+ * 默认的injvm调用会把每个参数和返回值序列化再反序列化一次，以保证提供者和消费者互不影响；
+ * 对String、包装类型、枚举等不可变对象，这次复制没有意义。
+ * 在引用上配置 injvm-copy-util=immutableRef 开启，通过 injvm.immutable-types 补充业务中的不可变类型(逗号分隔的类名)。
+ * <p>
+ * 与 injvm.ignore.same-module=true 不同，可变参数仍然会被复制，提供者修改参数不会影响消费者。
+ * <p>
+ * 注意: 默认的复制在序列化失败时(例如类型不在 security/serialize.allowlist 中，被STRICT检查拒绝)
+ * 只记录错误并返回原对象，此时可变参数实际是按引用共享的。本类对每个这样的类型打印一次警告，
+ * 需要隔离的类型应加入序列化白名单。
+ */
+public class ImmutableReferenceCopyUtil implements ParamDeepCopyUtil {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImmutableReferenceCopyUtil.class);
+
+    public static final String NAME = "immutableRef";
+
+    /**
+     * 引用参数，额外按引用传递的类名，逗号分隔
+     */
+    public static final String IMMUTABLE_TYPES_KEY = "injvm.immutable-types";
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class,
+            LocalDate.class, LocalTime.class, LocalDateTime.class, ZonedDateTime.class, Instant.class, Duration.class));
+
+    private static final LongAdder REFERENCED = new LongAdder();
+    private static final LongAdder COPIED = new LongAdder();
+
+    private final ParamDeepCopyUtil delegate = new DefaultParamDeepCopyUtil();
+
+    // injvm.immutable-types 的配置值 -> 解析后的类名集合
+    private final ConcurrentMap<String, Set<String>> configuredTypes = new ConcurrentHashMap<>();
+
+    // 复制失败、按引用共享过的可变类型，每个类型只警告一次
+    private final Set<Class<?>> sharedTypes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T copy(URL url, Object src, Class<T> targetClass) {
+        if (src == null || isImmutable(url, src.getClass())) {
+            REFERENCED.increment();
+            return (T) src;
+        }
+        COPIED.increment();
+        T copied = delegate.copy(url, src, targetClass);
+        if (copied == src && sharedTypes.add(src.getClass())) {
+            logger.warn("Failed to copy injvm param of type " + src.getClass().getName()
+                    + ", it is shared by reference between consumer and provider; add it to security/serialize.allowlist"
+                    + " to keep them isolated, or to " + IMMUTABLE_TYPES_KEY + " if it is immutable");
+        }
+        return copied;
+    }
+
+    /**
+     * 按引用传递的参数和返回值个数
+     */
+    public static long getReferencedCount() {
+        return REFERENCED.sum();
+    }
+
+    /**
+     * 序列化复制的参数和返回值个数
+     */
+    public static long getCopiedCount() {
+        return COPIED.sum();
+    }
+
+    private boolean isImmutable(URL url, Class<?> type) {
+        // 带方法体的枚举常量是枚举的匿名子类，isEnum()为false
+        if (IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type)) {
+            return true;
+        }
+        String configured = url == null ? null : url.getParameter(IMMUTABLE_TYPES_KEY);
+        return configured != null && !configured.isEmpty()
+                && configuredTypes.computeIfAbsent(configured, ImmutableReferenceCopyUtil::parseTypes).contains(type.getName());
+    }
+
+    private static Set<String> parseTypes(String configured) {
+        Set<String> types = new HashSet<>();
+        for (String name : configured.split(",")) {
+            if (!name.trim().isEmpty()) {
+                types.add(name.trim());
+            }
+        }
+        return Collections.unmodifiableSet(types);
+    }
+}
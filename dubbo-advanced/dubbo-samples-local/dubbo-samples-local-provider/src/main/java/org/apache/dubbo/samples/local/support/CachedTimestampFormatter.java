@@ -0,0 +1,63 @@
+package org.apache.dubbo.samples.local.support;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * HH:mm:ss 格式的时间戳，按秒缓存
+ * <p>
+ * 同一秒内的调用返回同一个String实例，不分配对象；每秒第一次调用时重新生成。
+ * 线程安全: 缓存的秒数和文本放在同一个不可变对象中，通过volatile引用整体替换。
+ */
+public final class CachedTimestampFormatter {
+
+    private final ZoneId zone;
+    private volatile Cached cached = new Cached(Long.MIN_VALUE, "");
+
+    public CachedTimestampFormatter() {
+        this(ZoneId.systemDefault());
+    }
+
+    public CachedTimestampFormatter(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public String now() {
+        return format(System.currentTimeMillis());
+    }
+
+    public String format(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        Cached current = cached;
+        if (current.second == second) {
+            return current.text;
+        }
+        String text = render(second);
+        cached = new Cached(second, text);
+        return text;
+    }
+
+    private String render(long epochSecond) {
+        int offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        int secondOfDay = (int) Math.floorMod(epochSecond + offset, 86400L);
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+        char[] chars = {
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10), ':',
+                (char) ('0' + second / 10), (char) ('0' + second % 10)
+        };
+        return new String(chars);
+    }
+
+    private static final class Cached {
+        private final long second;
+        private final String text;
+
+        Cached(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.apache.dubbo.samples.local.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 服务端异步处理共用的执行器
+ * <p>
+ * 固定数量的线程同时负责延迟和执行: 需要等待的任务登记到延迟队列，到期后才占用线程，
+ * 等待期间不占线程，线程数与并发请求数无关。
+ * 待执行的任务数超过上限时拒绝新任务，由调用方返回异常，避免请求堆积耗尽内存。
+ */
+public class LocalAsyncExecutor {
+
+    private static final LocalAsyncExecutor SHARED = new LocalAsyncExecutor(
+            Integer.getInteger("local.async.threads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("local.async.max-pending", 100_000));
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public LocalAsyncExecutor(int threads, int maxPending) {
+        if (threads <= 0 || maxPending <= 0) {
+            throw new IllegalArgumentException("threads and maxPending must be positive");
+        }
+        this.maxPending = maxPending;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "LocalAsync-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static LocalAsyncExecutor shared() {
+        return SHARED;
+    }
+
+    /**
+     * delayMillis毫秒后在执行器线程上执行task
+     *
+     * @return task的结果；待执行任务过多时以RejectedExecutionException异常完成
+     */
+    public <T> CompletableFuture<T> supplyDelayed(Supplier<T> task, long delayMillis) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Too many pending async tasks, max: " + maxPending));
+            return future;
+        }
+        executor.schedule(() -> {
+            pending.decrementAndGet();
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            completed.increment();
+        }, delayMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getThreadCount() {
+        return executor.getPoolSize();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package org.apache.dubbo.samples.local.injvm;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.protocol.injvm.DefaultParamDeepCopyUtil;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * ImmutableReferenceCopyUtil 测试
+ */
+public class ImmutableReferenceCopyUtilTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImmutableReferenceCopyUtilTest.class);
+
+    private static final URL URL_DEFAULT = URL.valueOf("injvm://127.0.0.1/org.apache.dubbo.samples.local.LocalService");
+
+    private final ImmutableReferenceCopyUtil copyUtil = new ImmutableReferenceCopyUtil();
+
+    @Test
+    public void testImmutableTypesPassedByReference() {
+        String name = new String("world");
+        assertSame(name, copyUtil.copy(URL_DEFAULT, name, String.class));
+        BigDecimal amount = new BigDecimal("12.50");
+        assertSame(amount, copyUtil.copy(URL_DEFAULT, amount, BigDecimal.class));
+        assertSame(TimeUnit.SECONDS, copyUtil.copy(URL_DEFAULT, TimeUnit.SECONDS, TimeUnit.class));
+        assertSame(Operation.PLUS, copyUtil.copy(URL_DEFAULT, Operation.PLUS, Operation.class));
+        assertNull(copyUtil.copy(URL_DEFAULT, null, String.class));
+    }
+
+    @Test
+    public void testMutableTypesCopied() {
+        List<String> names = new ArrayList<>(Collections.singletonList("world"));
+        List<?> copied = copyUtil.copy(URL_DEFAULT, names, List.class);
+        assertNotSame(names, copied);
+        assertEquals(names, copied);
+
+        // Money已加入测试资源中的 security/serialize.allowlist，否则默认的STRICT检查会拒绝序列化而返回原对象
+        Money money = new Money(100);
+        assertNotSame(money, copyUtil.copy(URL_DEFAULT, money, Money.class));
+        // 声明为不可变类型后传引用
+        URL configured = URL.valueOf(URL_DEFAULT + "?" + ImmutableReferenceCopyUtil.IMMUTABLE_TYPES_KEY
+                + "=java.util.Currency," + Money.class.getName());
+        assertSame(money, copyUtil.copy(configured, money, Money.class));
+    }
+
+    @Test
+    public void testReferenceCheaperThanCopy() {
+        DefaultParamDeepCopyUtil defaultUtil = new DefaultParamDeepCopyUtil();
+        int rounds = 100_000;
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            checksum += defaultUtil.copy(URL_DEFAULT, "world", String.class).length();
+            checksum += copyUtil.copy(URL_DEFAULT, "world", String.class).length();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            checksum += defaultUtil.copy(URL_DEFAULT, "world", String.class).length();
+        }
+        long copyNanos = (System.nanoTime() - begin) / rounds;
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            checksum += copyUtil.copy(URL_DEFAULT, "world", String.class).length();
+        }
+        long referenceNanos = (System.nanoTime() - begin) / rounds;
+        logger.info("String参数: 序列化复制{}ns, 传引用{}ns (checksum={})", copyNanos, referenceNanos, checksum);
+        assertTrue(referenceNanos < copyNanos);
+    }
+
+    /**
+     * 常量带方法体，运行时类型是枚举的匿名子类
+     */
+    enum Operation {
+        PLUS {
+            @Override
+            long apply(long a, long b) {
+                return a + b;
+            }
+        };
+
+        abstract long apply(long a, long b);
+    }
+
+    static final class Money implements Serializable {
+        private final long cents;
+
+        Money(long cents) {
+            this.cents = cents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Money && ((Money) o).cents == cents;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(cents);
+        }
+    }
+}
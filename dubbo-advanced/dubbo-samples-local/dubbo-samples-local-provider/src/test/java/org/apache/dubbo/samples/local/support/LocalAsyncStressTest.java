@@ -0,0 +1,183 @@
+package org.apache.dubbo.samples.local.support;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.local.LocalService;
+import org.apache.dubbo.samples.local.impl.LoaclServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * 异步执行器和时间戳格式化的压力测试
+ * <p>
+ * 经injvm引用以每秒5万次的速率持续异步调用sayHelloAsync(服务端每个请求延迟500ms)，
+ * 检查吞吐、执行器线程数和格式化的内存分配。
+ */
+public class LocalAsyncStressTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalAsyncStressTest.class);
+
+    private static final int RATE = 50_000;
+    private static final int SECONDS = 3;
+    private static final int THREADS = 4;
+
+    private PrintStream originalOut;
+    private LocalAsyncExecutor executor;
+
+    @Before
+    public void setUp() {
+        // sayHello每次调用都会打印，压测时丢弃输出
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        executor = new LocalAsyncExecutor(THREADS, 100_000);
+    }
+
+    @After
+    public void tearDown() {
+        System.setOut(originalOut);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSustainedAsyncRate() throws Exception {
+        ServiceConfig<LocalService> service = new ServiceConfig<>();
+        service.setInterface(LocalService.class);
+        service.setRef(new LoaclServiceImpl(executor, 500));
+
+        ReferenceConfig<LocalService> reference = new ReferenceConfig<>();
+        reference.setInterface(LocalService.class);
+        reference.setScope("local");
+        reference.setTimeout(10_000);
+
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("local-async-stress-test"))
+                .registry(new RegistryConfig("N/A"))
+                .protocol(new ProtocolConfig("injvm"))
+                .service(service)
+                .reference(reference);
+        try {
+            bootstrap.start();
+            LocalService localService = reference.get();
+            // 预热: 建立引用和调用链后再统计线程数
+            assertTrue(asyncSayHello(localService).get(10, TimeUnit.SECONDS).startsWith("Hello world"));
+            long warmupCompleted = executor.getCompletedCount();
+
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+            int maxThreads = threadsBefore;
+
+            // 每10ms提交一批，经injvm引用异步调用sayHelloAsync(服务端AsyncContext + 共用执行器)
+            int batch = RATE / 100;
+            List<CompletableFuture<String>> futures = new ArrayList<>(RATE * SECONDS);
+            long begin = System.nanoTime();
+            for (int tick = 0; tick < SECONDS * 100; tick++) {
+                for (int i = 0; i < batch; i++) {
+                    futures.add(asyncSayHello(localService));
+                }
+                maxThreads = Math.max(maxThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+                long next = begin + TimeUnit.MILLISECONDS.toNanos(10L * (tick + 1));
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+            long submitNanos = System.nanoTime() - begin;
+            for (CompletableFuture<String> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).startsWith("Hello world"));
+            }
+            long totalNanos = System.nanoTime() - begin;
+
+            double rate = futures.size() * 1e9 / submitNanos;
+            logger.info("提交{}个异步调用, 速率{}/s, 全部完成{}ms, 线程数{} -> 最多{}, 拒绝{}", futures.size(), (long) rate,
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos), threadsBefore, maxThreads, executor.getRejectedCount());
+            assertEquals(RATE * SECONDS, executor.getCompletedCount() - warmupCompleted);
+            assertEquals(0, executor.getRejectedCount());
+            assertTrue("实际速率: " + rate, rate >= RATE * 0.9);
+            // 服务端等待期间不占线程，执行器线程数固定
+            assertTrue(executor.getThreadCount() <= THREADS);
+        } finally {
+            bootstrap.stop();
+        }
+    }
+
+    private static CompletableFuture<String> asyncSayHello(LocalService localService) {
+        return RpcContext.getServiceContext().asyncCall(() -> localService.sayHelloAsync("world"));
+    }
+
+    @Test
+    public void testRejectsWhenTooManyPending() throws Exception {
+        LocalAsyncExecutor small = new LocalAsyncExecutor(1, 2);
+        try {
+            small.supplyDelayed(() -> "a", 200);
+            small.supplyDelayed(() -> "b", 200);
+            CompletableFuture<String> rejected = small.supplyDelayed(() -> "c", 200);
+            assertTrue(rejected.isCompletedExceptionally());
+            assertEquals(1, small.getRejectedCount());
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    public void testFormatterMatchesAndDoesNotAllocate() {
+        ZoneId zone = ZoneId.of("Asia/Shanghai");
+        CachedTimestampFormatter formatter = new CachedTimestampFormatter(zone);
+        SimpleDateFormat expected = new SimpleDateFormat("HH:mm:ss");
+        expected.setTimeZone(TimeZone.getTimeZone(zone));
+        long base = 1_700_000_000_000L;
+        for (long millis = base; millis < base + 100_000; millis += 777) {
+            assertEquals(expected.format(new Date(millis)), formatter.format(millis));
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int calls = 1_000_000;
+        long checksum = 0;
+        for (int i = 0; i < calls; i++) {
+            checksum += formatter.format(base + i / 1000).length();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            // 同一秒内的调用
+            checksum += formatter.format(base + i % 1000).length();
+        }
+        long cachedBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls / 10; i++) {
+            checksum += new SimpleDateFormat("HH:mm:ss").format(new Date(base + i)).length();
+        }
+        long simpleDateFormatBytes = (threads.getThreadAllocatedBytes(threadId) - before) / (calls / 10);
+
+        logger.info("格式化{}次分配{}字节, SimpleDateFormat每次分配{}字节 (checksum={})",
+                calls, cachedBytes, simpleDateFormatBytes, checksum);
+        assertTrue(cachedBytes < 1024);
+    }
+}
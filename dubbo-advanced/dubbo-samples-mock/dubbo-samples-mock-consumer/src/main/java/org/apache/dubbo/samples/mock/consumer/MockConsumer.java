@@ -20,7 +20,10 @@
 package org.apache.dubbo.samples.mock.consumer;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.samples.mock.GreetingsService;
+import org.apache.dubbo.samples.mock.fallback.FallbackConstants;
+import org.apache.dubbo.samples.mock.filter.LastKnownGoodFilter;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 /**
@@ -42,7 +45,7 @@ public class MockConsumer {
         // 获取远程服务代理
         RpcContext.getClientAttachment().setAttachment("consumer-key1", "consumer-value1");
         RpcContext.getServiceContext().setAttachment("consumer-key2", "consumer-value2");
-        GreetingsService attachmentService = context.getBean("attachmentService", GreetingsService.class);
+        GreetingsService attachmentService = context.getBean("mockService", GreetingsService.class);
         
         // 调用远程方法
         String world = attachmentService.sayHi("world");
@@ -55,6 +58,27 @@ public class MockConsumer {
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientResponseContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getServiceContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientAttachment().getAttachment("server-key2"));
+
+        testLastKnownGoodFallback(attachmentService);
         context.close();
     }
+
+    /**
+     * 最近成功结果降级: 循环调用期间停止提供者，调用失败时返回最近一次成功的结果，
+     * 响应附件 fallback-stale=true 表示结果来自降级缓存
+     */
+    private static void testLastKnownGoodFallback(GreetingsService service) throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            try {
+                String result = service.sayHi("world");
+                Object stale = RpcContext.getClientResponseContext().getObjectAttachment(FallbackConstants.STALE_ATTACHMENT);
+                Object age = RpcContext.getClientResponseContext().getObjectAttachment(FallbackConstants.STALE_AGE_ATTACHMENT);
+                System.out.println("sayHi: " + result + (stale != null ? " (stale, age: " + age + "ms)" : ""));
+            } catch (RpcException e) {
+                System.out.println("sayHi failed without fallback: " + e.getMessage());
+            }
+            Thread.sleep(1000);
+        }
+        System.out.println("fallback metrics: " + LastKnownGoodFilter.getMetrics());
+    }
 }
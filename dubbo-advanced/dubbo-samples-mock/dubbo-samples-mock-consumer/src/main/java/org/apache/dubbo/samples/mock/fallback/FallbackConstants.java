@@ -0,0 +1,36 @@
+package org.apache.dubbo.samples.mock.fallback;
+
+/**
+ * 最近成功结果降级相关的配置项和附件
+ */
+public interface FallbackConstants {
+
+    /**
+     * 方法参数，为true时开启降级
+     */
+    String FALLBACK_ENABLED_KEY = "fallback.enabled";
+
+    /**
+     * 每个服务最多缓存的成功结果数
+     */
+    String FALLBACK_CAPACITY_KEY = "fallback.capacity";
+
+    /**
+     * 缓存结果的最长可用时间(毫秒)，超过后不再用于降级
+     */
+    String FALLBACK_MAX_STALE_KEY = "fallback.max-stale";
+
+    int DEFAULT_FALLBACK_CAPACITY = 1024;
+
+    long DEFAULT_FALLBACK_MAX_STALE = 5 * 60 * 1000L;
+
+    /**
+     * 响应附件，值为true表示本次结果来自降级缓存
+     */
+    String STALE_ATTACHMENT = "fallback-stale";
+
+    /**
+     * 响应附件，降级结果距离缓存时的毫秒数
+     */
+    String STALE_AGE_ATTACHMENT = "fallback-stale-age";
+}
@@ -0,0 +1,248 @@
+package org.apache.dubbo.samples.mock.fallback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 最近一次成功结果的缓存
+ * <p>
+ * 按 方法名 + 参数 记录最近一次成功的返回值，调用失败时用来降级。
+ * 容量有上限，超过时淘汰最早写入的结果；超过maxStale的结果不再返回。
+ * <p>
+ * 降级结果会交给多个调用方，调用方修改返回值不能影响缓存: String、包装类型、枚举等不可变类型直接保存引用，
+ * 其他类型保存JDK序列化后的字节，每次返回反序列化出的新对象；不能序列化的结果不缓存。
+ */
+public class LastKnownGoodCache {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+    private final int capacity;
+    private final long maxStaleMillis;
+
+    // 按写入顺序排列，重新写入的结果移到末尾
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder uncopyable = new LongAdder();
+
+    public LastKnownGoodCache(int capacity, long maxStaleMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    /**
+     * 记录成功结果，保存的是value的副本，之后修改value不影响缓存
+     *
+     * @return value不能序列化、没有缓存时返回false
+     */
+    public boolean put(String methodName, Object[] arguments, Object value, long now) {
+        Entry entry;
+        if (isImmutable(value)) {
+            entry = new Entry(value, null, now);
+        } else if (value instanceof Serializable) {
+            try {
+                entry = new Entry(null, serialize(value), now);
+            } catch (UncheckedIOException e) {
+                // 对象图中有不能序列化的字段
+                uncopyable.increment();
+                return false;
+            }
+        } else {
+            uncopyable.increment();
+            return false;
+        }
+        Key key = new Key(methodName, arguments);
+        synchronized (entries) {
+            entries.remove(key);
+            entries.put(key, entry);
+            if (entries.size() > capacity) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evicted.increment();
+            }
+        }
+        recorded.increment();
+        return true;
+    }
+
+    /**
+     * @return 未过期的最近成功结果，没有时返回null
+     */
+    public Entry get(String methodName, Object[] arguments, long now) {
+        Key key = new Key(methodName, arguments);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && now - entry.storedAt > maxStaleMillis) {
+                entries.remove(key);
+                expired.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * 降级命中次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 需要降级但没有可用结果的次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * 因不能序列化而没有缓存的结果数
+     */
+    public long getUncopyableCount() {
+        return uncopyable.sum();
+    }
+
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("size", (long) size());
+        metrics.put("recorded", recorded.sum());
+        metrics.put("evicted", evicted.sum());
+        metrics.put("fallbackHits", hits.sum());
+        metrics.put("fallbackMisses", misses.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("uncopyable", uncopyable.sum());
+        return metrics;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass());
+    }
+
+    private static byte[] serialize(Object value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Class of cached value not found: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 缓存的成功结果
+     */
+    public static final class Entry {
+        // 不可变类型直接保存引用，其他类型保存序列化后的字节
+        private final Object value;
+        private final byte[] bytes;
+        private final long storedAt;
+
+        Entry(Object value, byte[] bytes, long storedAt) {
+            this.value = value;
+            this.bytes = bytes;
+            this.storedAt = storedAt;
+        }
+
+        /**
+         * @return 可变类型每次返回一个新的副本
+         */
+        public Object getValue() {
+            return bytes == null ? value : deserialize(bytes);
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+    }
+
+    /**
+     * 方法名 + 参数，参数按内容比较
+     */
+    private static final class Key {
+        private final String methodName;
+        private final Object[] arguments;
+        private final int hash;
+
+        Key(String methodName, Object[] arguments) {
+            this.methodName = methodName;
+            this.arguments = arguments == null ? new Object[0] : arguments.clone();
+            this.hash = 31 * methodName.hashCode() + Arrays.deepHashCode(this.arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && methodName.equals(other.methodName)
+                    && Arrays.deepEquals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
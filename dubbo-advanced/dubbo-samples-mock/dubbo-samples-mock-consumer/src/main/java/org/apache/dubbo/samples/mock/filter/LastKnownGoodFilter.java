@@ -0,0 +1,155 @@
+package org.apache.dubbo.samples.mock.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.filter.ClusterFilter;
+import org.apache.dubbo.samples.mock.fallback.LastKnownGoodCache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.DEFAULT_FALLBACK_CAPACITY;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.DEFAULT_FALLBACK_MAX_STALE;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.FALLBACK_CAPACITY_KEY;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.FALLBACK_ENABLED_KEY;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.FALLBACK_MAX_STALE_KEY;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.STALE_AGE_ATTACHMENT;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.STALE_ATTACHMENT;
+
+/**
+ * 最近成功结果降级过滤器
+ * <p>
+ * 对配置了 fallback.enabled=true 的方法，记录每组参数最近一次成功的返回值；
+ * 调用因超时、无可用提供者等RPC异常失败时，返回该参数最近一次成功的结果，
+ * 并在响应附件中标记 fallback-stale=true 和结果的时长 fallback-stale-age。
+ * 业务异常不降级；没有可用结果时原样抛出异常。
+ * <p>
+ * ClusterFilter在集群容错之外执行，只有重试全部失败后才降级。
+ * <ul>
+ *   <li>同步调用的RPC异常由invoke抛出，在invoke中降级</li>
+ *   <li>异步调用超时或网络失败时结果异常完成，在结果完成时降级，先于后续的Listener回调</li>
+ *   <li>结果中携带的RPC异常在onResponse中降级</li>
+ * </ul>
+ */
+@Activate(group = CommonConstants.CONSUMER)
+public class LastKnownGoodFilter implements ClusterFilter, ClusterFilter.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastKnownGoodFilter.class);
+
+    // 每个服务一个缓存
+    private static final ConcurrentMap<String, LastKnownGoodCache> CACHES = new ConcurrentHashMap<>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (!isEnabled(invoker, invocation)) {
+            return invoker.invoke(invocation);
+        }
+        try {
+            Result result = invoker.invoke(invocation);
+            if (result instanceof AsyncRpcResult) {
+                fallbackOnFailure((AsyncRpcResult) result, invoker, invocation);
+            }
+            return result;
+        } catch (RpcException e) {
+            AppResponse fallback = new AppResponse(invocation);
+            if (fallback(fallback, invoker, invocation, e)) {
+                return AsyncRpcResult.newDefaultAsyncResult(fallback, invocation);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        if (!isEnabled(invoker, invocation) || appResponse.getObjectAttachment(STALE_ATTACHMENT) != null) {
+            return;
+        }
+        if (!appResponse.hasException()) {
+            getCache(invoker.getUrl()).put(invocation.getMethodName(), invocation.getArguments(),
+                    appResponse.getValue(), System.currentTimeMillis());
+        } else if (appResponse.getException() instanceof RpcException) {
+            Throwable exception = appResponse.getException();
+            if (fallback(appResponse, invoker, invocation, exception)) {
+                appResponse.setException(null);
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        // 能降级的失败已在invoke和fallbackOnFailure中替换为最近成功的结果，到这里的是没有可用结果的失败
+    }
+
+    /**
+     * 各服务降级缓存的统计: 缓存数量、记录次数、降级命中/未命中次数等
+     */
+    public static Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+        CACHES.forEach((serviceKey, cache) -> metrics.put(serviceKey, cache.metrics()));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * 异步调用超时(TimeoutException)或网络失败时结果异常完成，替换为最近成功的结果
+     */
+    private void fallbackOnFailure(AsyncRpcResult result, Invoker<?> invoker, Invocation invocation) {
+        result.setResponseFuture(result.getResponseFuture().handle((response, t) -> {
+            if (t == null) {
+                return response;
+            }
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            if (cause instanceof RpcException || cause instanceof RemotingException) {
+                AppResponse fallback = new AppResponse(invocation);
+                if (fallback(fallback, invoker, invocation, cause)) {
+                    return fallback;
+                }
+            }
+            throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+        }));
+    }
+
+    /**
+     * 用最近成功的结果填充response
+     *
+     * @return 没有可用结果时返回false
+     */
+    private boolean fallback(Result response, Invoker<?> invoker, Invocation invocation, Throwable cause) {
+        long now = System.currentTimeMillis();
+        LastKnownGoodCache.Entry entry = getCache(invoker.getUrl())
+                .get(invocation.getMethodName(), invocation.getArguments(), now);
+        if (entry == null) {
+            return false;
+        }
+        long age = now - entry.getStoredAt();
+        response.setValue(entry.getValue());
+        response.setObjectAttachment(STALE_ATTACHMENT, "true");
+        response.setObjectAttachment(STALE_AGE_ATTACHMENT, String.valueOf(age));
+        logger.warn("调用失败，返回" + age + "ms前的成功结果: " + invocation.getTargetServiceUniqueName()
+                + "." + invocation.getMethodName() + ", 原因: " + cause.getMessage());
+        return true;
+    }
+
+    private static boolean isEnabled(Invoker<?> invoker, Invocation invocation) {
+        return invoker.getUrl().getMethodParameter(invocation.getMethodName(), FALLBACK_ENABLED_KEY, false);
+    }
+
+    private static LastKnownGoodCache getCache(URL url) {
+        return CACHES.computeIfAbsent(url.getServiceKey(), k -> new LastKnownGoodCache(
+                url.getParameter(FALLBACK_CAPACITY_KEY, DEFAULT_FALLBACK_CAPACITY),
+                url.getParameter(FALLBACK_MAX_STALE_KEY, DEFAULT_FALLBACK_MAX_STALE)));
+    }
+}
@@ -0,0 +1,176 @@
+package org.apache.dubbo.samples.mock.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.filter.ClusterFilter;
+import org.apache.dubbo.samples.mock.record.TrafficLogWriter;
+import org.apache.dubbo.samples.mock.record.TrafficRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.dubbo.samples.mock.record.RecordConstants.DEFAULT_RECORD_CHUNK_SIZE;
+import static org.apache.dubbo.samples.mock.record.RecordConstants.DEFAULT_RECORD_DIR;
+import static org.apache.dubbo.samples.mock.record.RecordConstants.RECORD_CHUNK_SIZE_KEY;
+import static org.apache.dubbo.samples.mock.record.RecordConstants.RECORD_DIR_KEY;
+import static org.apache.dubbo.samples.mock.record.RecordConstants.RECORD_ENABLED_KEY;
+
+/**
+ * 流量录制过滤器
+ * <p>
+ * 对配置了 record.enabled=true 的方法，把每次调用的服务、方法、参数、附件、响应和耗时
+ * 追加到 record.dir 目录下的录制文件，供 {@link org.apache.dubbo.samples.mock.record.TrafficReplayer} 回放。
+ * 参数和响应需要可以JDK序列化，不能序列化的调用不录制。
+ * <p>
+ * 录制在响应回调中完成，只做编码和内存拷贝，不做磁盘IO。
+ */
+@Activate(group = CommonConstants.CONSUMER)
+public class TrafficRecordFilter implements ClusterFilter, ClusterFilter.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficRecordFilter.class);
+
+    private static final String START_NANOS = "traffic-record-start";
+
+    // 每个目录一个录制文件
+    private static final ConcurrentMap<String, TrafficLogWriter> WRITERS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TrafficRecordFilter::closeAll, "TrafficRecordClose"));
+    }
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (isEnabled(invoker, invocation)) {
+            invocation.put(START_NANOS, System.nanoTime());
+        }
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        if (appResponse.hasException()) {
+            record(invoker, invocation, true, appResponse.getException());
+        } else {
+            record(invoker, invocation, false, appResponse.getValue());
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        record(invoker, invocation, true, t);
+    }
+
+    /**
+     * 各录制文件已写入和丢弃的记录数
+     */
+    public static Map<String, String> getMetrics() {
+        Map<String, String> metrics = new LinkedHashMap<>();
+        WRITERS.forEach((dir, writer) -> metrics.put(dir, "appended=" + writer.getAppendedCount()
+                + ", dropped=" + writer.getDroppedCount() + ", bytes=" + writer.size()));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * 刷盘并关闭所有录制文件，之后的调用写入新的文件
+     */
+    public static void closeAll() {
+        for (String dir : WRITERS.keySet()) {
+            TrafficLogWriter writer = WRITERS.remove(dir);
+            if (writer == null) {
+                continue;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close traffic log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void record(Invoker<?> invoker, Invocation invocation, boolean exception, Object response) {
+        Object start = invocation.get(START_NANOS);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        long startNanos = (Long) start;
+        long elapsedNanos = System.nanoTime() - startNanos;
+        TrafficLogWriter writer = getWriter(invoker.getUrl());
+        if (writer == null) {
+            return;
+        }
+        try {
+            TrafficRecord record = new TrafficRecord(System.currentTimeMillis(), startNanos - writer.getStartNanos(),
+                    elapsedNanos, exception, invocation.getServiceName(), invocation.getMethodName(),
+                    typeNames(invocation.getParameterTypes()), stringAttachments(invocation.getObjectAttachments()),
+                    TrafficRecord.serialize(invocation.getArguments()), TrafficRecord.serialize(response));
+            writer.append(record);
+        } catch (UncheckedIOException | IOException e) {
+            logger.warn("Failed to record " + invocation.getServiceName() + "." + invocation.getMethodName()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    private static String[] typeNames(Class<?>[] types) {
+        String[] names = new String[types == null ? 0 : types.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = types[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * 只录制字符串类型的附件
+     */
+    private static Map<String, String> stringAttachments(Map<String, Object> attachments) {
+        if (attachments == null || attachments.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        attachments.forEach((key, value) -> {
+            if (value instanceof String) {
+                values.put(key, (String) value);
+            }
+        });
+        return values;
+    }
+
+    private static boolean isEnabled(Invoker<?> invoker, Invocation invocation) {
+        return invoker.getUrl().getMethodParameter(invocation.getMethodName(), RECORD_ENABLED_KEY, false);
+    }
+
+    private static TrafficLogWriter getWriter(URL url) {
+        String dir = url.getParameter(RECORD_DIR_KEY, DEFAULT_RECORD_DIR);
+        try {
+            return WRITERS.computeIfAbsent(dir, d -> open(d, url.getParameter(RECORD_CHUNK_SIZE_KEY, DEFAULT_RECORD_CHUNK_SIZE)));
+        } catch (UncheckedIOException e) {
+            logger.warn("Failed to open traffic log in " + dir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static TrafficLogWriter open(String dir, int chunkSize) {
+        try {
+            Path directory = Files.createDirectories(Paths.get(dir));
+            Path file = directory.resolve("traffic-" + System.currentTimeMillis() + ".log");
+            logger.info("Recording traffic to " + file.toAbsolutePath());
+            return new TrafficLogWriter(file, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.apache.dubbo.samples.mock.record;
+
+/**
+ * 流量录制相关的配置项
+ */
+public interface RecordConstants {
+
+    /**
+     * 方法参数，为true时录制该方法的调用
+     */
+    String RECORD_ENABLED_KEY = "record.enabled";
+
+    /**
+     * 录制文件所在目录，每个进程生成一个 traffic-时间戳.log 文件
+     */
+    String RECORD_DIR_KEY = "record.dir";
+
+    /**
+     * 录制文件每段映射的字节数，回放时必须使用相同的值
+     */
+    String RECORD_CHUNK_SIZE_KEY = "record.chunk-size";
+
+    String DEFAULT_RECORD_DIR = "traffic";
+
+    int DEFAULT_RECORD_CHUNK_SIZE = 64 * 1024 * 1024;
+}
@@ -0,0 +1,108 @@
+package org.apache.dubbo.samples.mock.record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按录制结果应答，用于把录制文件作为mock提供者
+ * <p>
+ * 优先返回参数完全相同的调用最近一次录制的响应；没有相同参数的录制时，
+ * 依次轮流返回该方法录制过的响应。
+ * 录制按参数的 {@link Arrays#deepHashCode} 建立索引，应答时只比较哈希相同的录制。
+ */
+public class RecordedResponses {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Map<String, MethodResponses> methods = new HashMap<>();
+    private final Set<String> services = new LinkedHashSet<>();
+
+    public RecordedResponses(Iterable<TrafficRecord> records) {
+        for (TrafficRecord record : records) {
+            services.add(record.getService());
+            methods.computeIfAbsent(key(record.getService(), record.getMethod()), k -> new MethodResponses())
+                    .add(new Recorded(record.getArguments(), record.getResponse(), record.isException()));
+        }
+    }
+
+    /**
+     * 录制文件中出现过的服务
+     */
+    public Set<String> getServices() {
+        return services;
+    }
+
+    /**
+     * 返回录制的响应值，录制的响应为异常时抛出该异常
+     *
+     * @throws IllegalStateException 该方法没有录制
+     */
+    public Object answer(String service, String method, Object[] args) throws Throwable {
+        MethodResponses responses = methods.get(key(service, method));
+        if (responses == null) {
+            throw new IllegalStateException("No recorded response for " + service + "." + method);
+        }
+        Recorded recorded = responses.find(args);
+        if (recorded.exception) {
+            throw (Throwable) recorded.response;
+        }
+        return recorded.response;
+    }
+
+    private static String key(String service, String method) {
+        return service + '#' + method;
+    }
+
+    private static final class MethodResponses {
+        private final List<Recorded> responses = new ArrayList<>();
+        // 参数哈希 -> 每组不同参数最近一次的录制，哈希冲突时同一个桶里有多组参数
+        private final Map<Integer, List<Recorded>> latestByArgs = new HashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        void add(Recorded recorded) {
+            responses.add(recorded);
+            List<Recorded> bucket = latestByArgs.computeIfAbsent(recorded.argsHash, k -> new ArrayList<>(1));
+            for (int i = 0; i < bucket.size(); i++) {
+                if (Objects.deepEquals(bucket.get(i).args, recorded.args)) {
+                    bucket.set(i, recorded);
+                    return;
+                }
+            }
+            bucket.add(recorded);
+        }
+
+        Recorded find(Object[] args) {
+            Object[] key = args == null ? NO_ARGS : args;
+            List<Recorded> bucket = latestByArgs.get(Arrays.deepHashCode(key));
+            if (bucket != null) {
+                for (Recorded recorded : bucket) {
+                    if (Objects.deepEquals(recorded.args, key)) {
+                        return recorded;
+                    }
+                }
+            }
+            return responses.get(Math.floorMod(next.getAndIncrement(), responses.size()));
+        }
+    }
+
+    private static final class Recorded {
+        private final Object[] args;
+        private final int argsHash;
+        private final Object response;
+        private final boolean exception;
+
+        Recorded(Object[] args, Object response, boolean exception) {
+            this.args = args == null ? NO_ARGS : args;
+            this.argsHash = Arrays.deepHashCode(this.args);
+            this.response = response;
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.apache.dubbo.samples.mock.record;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回放节奏控制
+ * <p>
+ * 按录制时的发起间隔除以倍速计算每条记录的发起时间；倍速为max时不等待。
+ * 发起时间相对回放开始计算，单次等待的误差不会累积。
+ */
+public class ReplayPacer {
+
+    private final double speed;
+    private long firstOffsetNanos = -1;
+    private long startNanos;
+
+    /**
+     * @param speed 倍速，不大于0表示不限速
+     */
+    public ReplayPacer(double speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * 解析 1x、10x、0.5x、max 形式的倍速
+     */
+    public static ReplayPacer parse(String speed) {
+        String value = speed == null ? "1x" : speed.trim().toLowerCase();
+        if ("max".equals(value)) {
+            return new ReplayPacer(0);
+        }
+        if (value.endsWith("x")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        double factor;
+        try {
+            factor = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal replay speed: " + speed);
+        }
+        if (factor <= 0) {
+            throw new IllegalArgumentException("Illegal replay speed: " + speed);
+        }
+        return new ReplayPacer(factor);
+    }
+
+    public boolean isUnlimited() {
+        return speed <= 0;
+    }
+
+    /**
+     * 记录相对回放开始应当发起的时间
+     */
+    public long dueNanos(long recordedOffsetNanos) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        if (firstOffsetNanos < 0) {
+            firstOffsetNanos = recordedOffsetNanos;
+        }
+        return (long) ((recordedOffsetNanos - firstOffsetNanos) / speed);
+    }
+
+    /**
+     * 等待到该记录的发起时间
+     */
+    public void await(TrafficRecord record) {
+        if (isUnlimited()) {
+            return;
+        }
+        if (firstOffsetNanos < 0) {
+            startNanos = System.nanoTime();
+        }
+        long deadline = startNanos + dueNanos(record.getOffsetNanos());
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "max" : speed + "x";
+    }
+}
@@ -0,0 +1,114 @@
+package org.apache.dubbo.samples.mock.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 录制日志读取，按写入顺序遍历记录
+ * <p>
+ * 录制在响应回调中追加，写入顺序是调用完成的顺序；需要按请求发起顺序时使用 {@link #readAllInRequestOrder}。
+ * <p>
+ * 分段大小必须与写入时一致。
+ */
+public class TrafficLogReader implements Closeable, Iterable<TrafficRecord> {
+
+    private final FileChannel channel;
+    private final int chunkSize;
+
+    public TrafficLogReader(Path file, int chunkSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.chunkSize = chunkSize;
+    }
+
+    public static List<TrafficRecord> readAll(Path file, int chunkSize) throws IOException {
+        List<TrafficRecord> records = new ArrayList<>();
+        try (TrafficLogReader reader = new TrafficLogReader(file, chunkSize)) {
+            for (TrafficRecord record : reader) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 读取全部记录，按发起时间(offsetNanos)排序，发起时间相同的保持写入顺序
+     */
+    public static List<TrafficRecord> readAllInRequestOrder(Path file, int chunkSize) throws IOException {
+        List<TrafficRecord> records = readAll(file, chunkSize);
+        records.sort(Comparator.comparingLong(TrafficRecord::getOffsetNanos));
+        return records;
+    }
+
+    @Override
+    public Iterator<TrafficRecord> iterator() {
+        return new Iterator<TrafficRecord>() {
+            private long chunkStart;
+            private MappedByteBuffer chunk = map(0);
+            private TrafficRecord next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public TrafficRecord next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                TrafficRecord current = next;
+                next = advance();
+                return current;
+            }
+
+            private TrafficRecord advance() {
+                while (chunk != null && chunk.remaining() >= 4) {
+                    int length = chunk.getInt();
+                    if (length == TrafficLogWriter.END) {
+                        return null;
+                    }
+                    if (length == TrafficLogWriter.SKIP) {
+                        chunkStart += chunkSize;
+                        chunk = map(chunkStart);
+                        continue;
+                    }
+                    if (length < 0 || length > chunk.remaining()) {
+                        throw new IllegalStateException("Corrupted traffic log at " + (chunkStart + chunk.position() - 4));
+                    }
+                    int limit = chunk.limit();
+                    chunk.limit(chunk.position() + length);
+                    TrafficRecord record = TrafficRecord.decode(chunk.slice());
+                    chunk.position(chunk.limit()).limit(limit);
+                    return record;
+                }
+                return null;
+            }
+        };
+    }
+
+    private MappedByteBuffer map(long position) {
+        try {
+            long size = channel.size();
+            if (position >= size) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map traffic log at " + position, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,121 @@
+package org.apache.dubbo.samples.mock.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 录制日志写入
+ * <p>
+ * 文件按chunkSize分段做内存映射，只追加: 每条记录为 长度(int) + 内容，记录不跨段，
+ * 当前段剩余空间不足时写入 {@link #SKIP} 标记并映射下一段。写入只是内存拷贝，由操作系统异步刷盘。
+ * 映射区域中未写入的部分为0，读取时遇到长度0即结束，因此进程异常退出也不会留下半条记录。
+ * <p>
+ * 记录的编码在锁外完成，锁内只做拷贝。
+ */
+public class TrafficLogWriter implements Closeable {
+
+    static final int SKIP = -1;
+    static final int END = 0;
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final long startNanos = System.nanoTime();
+
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private boolean closed;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param chunkSize 每段映射的字节数，单条记录不能超过 chunkSize - 8
+     */
+    public TrafficLogWriter(Path file, int chunkSize) throws IOException {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("chunkSize must be at least 1024");
+        }
+        this.chunkSize = chunkSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.chunk = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+    }
+
+    /**
+     * 录制开始时间，记录的offsetNanos相对于该时间
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录过大或已关闭时丢弃并返回false
+     */
+    public boolean append(TrafficRecord record) throws IOException {
+        byte[] body = record.encode();
+        // 段尾至少保留一个int，用于写入SKIP或END
+        if (body.length + 8 > chunkSize) {
+            dropped.increment();
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                dropped.increment();
+                return false;
+            }
+            if (chunk.remaining() < body.length + 8) {
+                chunk.putInt(SKIP);
+                chunkStart += chunkSize;
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, chunkSize);
+            }
+            // 先写内容再写长度，读取方看到非0长度时内容已完整
+            int position = chunk.position();
+            chunk.position(position + 4);
+            chunk.put(body);
+            chunk.putInt(position, body.length);
+        }
+        appended.increment();
+        return true;
+    }
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 已使用的字节数
+     */
+    public synchronized long size() {
+        return chunkStart + chunk.position();
+    }
+
+    /**
+     * 把已映射的内容刷到磁盘
+     */
+    public synchronized void force() {
+        if (!closed) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunk.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,200 @@
+package org.apache.dubbo.samples.mock.record;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次录制的调用
+ * <p>
+ * 参数和响应使用JDK序列化保存为字节数组，回放时才反序列化。
+ * 二进制格式(不含外层长度):
+ * 墙上时间(long) + 相对录制开始的纳秒偏移(long) + 耗时纳秒(long) + 标记(byte) +
+ * 服务名 + 方法名 + 参数类型列表 + 附件 + 参数字节 + 响应字节，字符串为 长度(int) + UTF-8。
+ */
+public final class TrafficRecord {
+
+    private static final byte FLAG_EXCEPTION = 1;
+
+    private final long timestamp;
+    private final long offsetNanos;
+    private final long elapsedNanos;
+    private final boolean exception;
+    private final String service;
+    private final String method;
+    private final String[] parameterTypes;
+    private final Map<String, String> attachments;
+    private final byte[] arguments;
+    private final byte[] response;
+
+    public TrafficRecord(long timestamp, long offsetNanos, long elapsedNanos, boolean exception,
+                         String service, String method, String[] parameterTypes, Map<String, String> attachments,
+                         byte[] arguments, byte[] response) {
+        this.timestamp = timestamp;
+        this.offsetNanos = offsetNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.exception = exception;
+        this.service = service;
+        this.method = method;
+        this.parameterTypes = parameterTypes;
+        this.attachments = attachments;
+        this.arguments = arguments;
+        this.response = response;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 相对录制开始的发起时间
+     */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    /**
+     * 录制时的调用耗时
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 响应是否为异常
+     */
+    public boolean isException() {
+        return exception;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    public Map<String, String> getAttachments() {
+        return attachments;
+    }
+
+    public byte[] getArgumentBytes() {
+        return arguments;
+    }
+
+    public byte[] getResponseBytes() {
+        return response;
+    }
+
+    public Object[] getArguments() {
+        return (Object[]) deserialize(arguments);
+    }
+
+    /**
+     * 响应值，或 isException() 为true时的异常
+     */
+    public Object getResponse() {
+        return deserialize(response);
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(128 + arguments.length + response.length);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeLong(timestamp);
+            out.writeLong(offsetNanos);
+            out.writeLong(elapsedNanos);
+            out.writeByte(exception ? FLAG_EXCEPTION : 0);
+            writeString(out, service);
+            writeString(out, method);
+            out.writeInt(parameterTypes.length);
+            for (String type : parameterTypes) {
+                writeString(out, type);
+            }
+            out.writeInt(attachments.size());
+            for (Map.Entry<String, String> entry : attachments.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            writeBytes(out, arguments);
+            writeBytes(out, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    static TrafficRecord decode(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        long offsetNanos = buffer.getLong();
+        long elapsedNanos = buffer.getLong();
+        boolean exception = (buffer.get() & FLAG_EXCEPTION) != 0;
+        String service = readString(buffer);
+        String method = readString(buffer);
+        String[] parameterTypes = new String[buffer.getInt()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = readString(buffer);
+        }
+        int attachmentCount = buffer.getInt();
+        Map<String, String> attachments = new LinkedHashMap<>(attachmentCount * 4 / 3 + 1);
+        for (int i = 0; i < attachmentCount; i++) {
+            attachments.put(readString(buffer), readString(buffer));
+        }
+        byte[] arguments = readBytes(buffer);
+        byte[] response = readBytes(buffer);
+        return new TrafficRecord(timestamp, offsetNanos, elapsedNanos, exception, service, method,
+                parameterTypes, Collections.unmodifiableMap(attachments), arguments, response);
+    }
+
+    public static byte[] serialize(Object value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    public static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Class of recorded value not found: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
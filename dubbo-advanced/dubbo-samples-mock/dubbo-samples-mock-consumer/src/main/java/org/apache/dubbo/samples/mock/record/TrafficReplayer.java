@@ -0,0 +1,178 @@
+package org.apache.dubbo.samples.mock.record;
+
+import org.apache.dubbo.common.utils.PojoUtils;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.service.GenericException;
+import org.apache.dubbo.rpc.service.GenericService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.samples.mock.record.RecordConstants.DEFAULT_RECORD_CHUNK_SIZE;
+import static org.apache.dubbo.samples.mock.record.RecordConstants.RECORD_CHUNK_SIZE_KEY;
+
+/**
+ * 录制流量回放工具
+ * <pre>
+ * 压测提供者: TrafficReplayer replay traffic/traffic-xxx.log [1x|10x|max]
+ * 作为mock提供者: TrafficReplayer mock traffic/traffic-xxx.log [port]
+ * </pre>
+ * replay模式通过泛化调用按录制的请求发起顺序和间隔发起请求，并对比响应与录制结果是否一致；
+ * max模式不等待，同时进行中的请求数受 replay.concurrency 限制(默认1000)。
+ * mock模式为录制文件中的每个服务导出一个泛化实现，按 {@link RecordedResponses} 返回录制的响应。
+ * <p>
+ * 注册中心地址通过 -Dzookeeper.address 指定，分段大小通过 -Drecord.chunk-size 指定，须与录制时一致。
+ */
+public class TrafficReplayer {
+
+    // 由框架生成的附件，回放时不重复设置
+    private static final Set<String> FRAMEWORK_ATTACHMENTS = new HashSet<>(Arrays.asList(
+            "path", "interface", "version", "group", "timeout", "dubbo", "generic", "remote.application", "async"));
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: TrafficReplayer replay <file> [1x|10x|max]");
+            System.out.println("       TrafficReplayer mock <file> [port]");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+        int chunkSize = Integer.getInteger(RECORD_CHUNK_SIZE_KEY, DEFAULT_RECORD_CHUNK_SIZE);
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("traffic-replayer"))
+                .registry(new RegistryConfig("zookeeper://" + System.getProperty("zookeeper.address", "127.0.0.1") + ":2181"));
+
+        if ("mock".equals(args[0])) {
+            int port = args.length > 2 ? Integer.parseInt(args[2]) : 20880;
+            serve(bootstrap, TrafficLogReader.readAllInRequestOrder(file, chunkSize), port);
+        } else {
+            ReplayPacer pacer = ReplayPacer.parse(args.length > 2 ? args[2] : "1x");
+            replay(bootstrap, file, chunkSize, pacer, Integer.getInteger("replay.concurrency", 1000));
+        }
+    }
+
+    private static void replay(DubboBootstrap bootstrap, Path file, int chunkSize, ReplayPacer pacer,
+                               int concurrency) throws Exception {
+        // 录制文件是完成顺序，按请求发起顺序回放
+        List<TrafficRecord> records = TrafficLogReader.readAllInRequestOrder(file, chunkSize);
+        Map<String, ReferenceConfig<GenericService>> references = new HashMap<>();
+        for (TrafficRecord record : records) {
+            references.computeIfAbsent(record.getService(), service -> {
+                ReferenceConfig<GenericService> reference = new ReferenceConfig<>();
+                reference.setInterface(service);
+                reference.setGeneric("true");
+                reference.setCheck(false);
+                bootstrap.reference(reference);
+                return reference;
+            });
+        }
+        bootstrap.start();
+
+        Semaphore inflight = new Semaphore(concurrency);
+        LongAdder sent = new LongAdder();
+        LongAdder matched = new LongAdder();
+        LongAdder mismatched = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        long begin = System.nanoTime();
+        for (TrafficRecord record : records) {
+            pacer.await(record);
+            inflight.acquire();
+            GenericService service = references.get(record.getService()).get();
+            record.getAttachments().forEach((key, value) -> {
+                if (!FRAMEWORK_ATTACHMENTS.contains(key)) {
+                    RpcContext.getClientAttachment().setAttachment(key, value);
+                }
+            });
+            long start = System.nanoTime();
+            CompletableFuture<Object> future;
+            try {
+                future = service.$invokeAsync(record.getMethod(), record.getParameterTypes(), record.getArguments());
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            sent.increment();
+            future.whenComplete((value, t) -> {
+                latencyNanos.add(System.nanoTime() - start);
+                inflight.release();
+                if (t != null) {
+                    failed.increment();
+                } else if (matches(value, record)) {
+                    matched.increment();
+                } else {
+                    mismatched.increment();
+                }
+            });
+        }
+        // 等待进行中的请求完成
+        inflight.acquire(concurrency);
+        long elapsedNanos = System.nanoTime() - begin;
+        long count = sent.sum();
+        System.out.println("replay " + file + " at " + pacer + ": sent=" + count
+                + ", matched=" + matched.sum() + ", mismatched=" + mismatched.sum() + ", failed=" + failed.sum()
+                + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+                + ", qps=" + (elapsedNanos == 0 ? 0 : count * TimeUnit.SECONDS.toNanos(1) / elapsedNanos)
+                + ", avg latency=" + (count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(latencyNanos.sum() / count)) + "us");
+        bootstrap.stop();
+    }
+
+    /**
+     * 泛化调用返回的是 PojoUtils.generalize 后的结果(POJO为Map)，录制的是原始类型的响应，泛化后再比较
+     */
+    static boolean matches(Object genericValue, TrafficRecord record) {
+        return !record.isException() && Objects.deepEquals(genericValue, PojoUtils.generalize(record.getResponse()));
+    }
+
+        private static void serve(DubboBootstrap bootstrap, List<TrafficRecord> records, int port) {
+        RecordedResponses responses = new RecordedResponses(records);
+        bootstrap.protocol(new ProtocolConfig("dubbo", port));
+        for (String name : responses.getServices()) {
+            ServiceConfig<GenericService> service = new ServiceConfig<>();
+            service.setInterface(name);
+            service.setGeneric("true");
+            service.setRef(new RecordedGenericService(name, responses));
+            bootstrap.service(service);
+        }
+        System.out.println("serving " + records.size() + " recorded responses of " + responses.getServices()
+                + " on port " + port);
+        bootstrap.start().await();
+    }
+
+    private static final class RecordedGenericService implements GenericService {
+        private final String service;
+        private final RecordedResponses responses;
+
+        RecordedGenericService(String service, RecordedResponses responses) {
+            this.service = service;
+            this.responses = responses;
+        }
+
+        @Override
+        public Object $invoke(String method, String[] parameterTypes, Object[] args) throws GenericException {
+            try {
+                return responses.answer(service, method, args);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new GenericException(t);
+            }
+        }
+    }
+}
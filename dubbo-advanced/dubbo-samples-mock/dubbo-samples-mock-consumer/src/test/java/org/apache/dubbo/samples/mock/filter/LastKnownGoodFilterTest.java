@@ -0,0 +1,230 @@
+package org.apache.dubbo.samples.mock.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.TimeoutException;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.mock.GreetingsService;
+import org.apache.dubbo.samples.mock.fallback.LastKnownGoodCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.STALE_AGE_ATTACHMENT;
+import static org.apache.dubbo.samples.mock.fallback.FallbackConstants.STALE_ATTACHMENT;
+import static org.junit.Assert.*;
+
+/**
+ * LastKnownGoodFilter 测试
+ */
+public class LastKnownGoodFilterTest {
+
+    private static final URL URL_ENABLED = URL.valueOf(
+            "dubbo://127.0.0.1:20880/org.apache.dubbo.samples.mock.GreetingsService?sayHi.fallback.enabled=true");
+
+    private final LastKnownGoodFilter filter = new LastKnownGoodFilter();
+
+    @Test
+    public void testServesLastSuccessWhenCallFails() {
+        Result ok = call(URL_ENABLED, "world", inv -> AsyncRpcResult.newDefaultAsyncResult("hi, world", inv));
+        assertEquals("hi, world", ok.getValue());
+
+        Result fallback = call(URL_ENABLED, "world", inv -> {
+            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout");
+        });
+        assertEquals("hi, world", fallback.getValue());
+        assertEquals("true", fallback.getObjectAttachment(STALE_ATTACHMENT));
+        assertNotNull(fallback.getObjectAttachment(STALE_AGE_ATTACHMENT));
+
+        // 不同参数没有成功记录，原样抛出
+        try {
+            call(URL_ENABLED, "other", inv -> {
+                throw new RpcException(RpcException.NETWORK_EXCEPTION, "down");
+            });
+            fail();
+        } catch (RpcException expected) {
+            assertEquals("down", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testRpcExceptionInResultReplaced() {
+        call(URL_ENABLED, "async", inv -> AsyncRpcResult.newDefaultAsyncResult("hi, async", inv));
+        AppResponse failed = new AppResponse(new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"));
+        filter.onResponse(failed, invoker(URL_ENABLED, null), invocation("async"));
+        assertFalse(failed.hasException());
+        assertEquals("hi, async", failed.getValue());
+        assertEquals("true", failed.getObjectAttachment(STALE_ATTACHMENT));
+    }
+
+    @Test
+    public void testAsyncTimeoutReplaced() throws Exception {
+        call(URL_ENABLED, "slow", inv -> AsyncRpcResult.newDefaultAsyncResult("hi, slow", inv));
+
+        CompletableFuture<AppResponse> pending = new CompletableFuture<>();
+        Result result = callAsync(URL_ENABLED, "slow", inv -> new AsyncRpcResult(pending, inv));
+        assertFalse(result.thenApply(r -> r).isDone());
+        // 异步调用超时，结果异常完成
+        pending.completeExceptionally(new TimeoutException(false, null, "Waiting server-side response timeout"));
+
+        Result fallback = result.get(1, TimeUnit.SECONDS);
+        assertFalse(fallback.hasException());
+        assertEquals("hi, slow", fallback.getValue());
+        assertEquals("true", fallback.getObjectAttachment(STALE_ATTACHMENT));
+    }
+
+    @Test
+    public void testAsyncTimeoutWithoutRecordFails() throws Exception {
+        CompletableFuture<AppResponse> pending = new CompletableFuture<>();
+        Result result = callAsync(URL_ENABLED, "never-succeeded", inv -> new AsyncRpcResult(pending, inv));
+        pending.completeExceptionally(new TimeoutException(false, null, "Waiting server-side response timeout"));
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testBusinessExceptionNotReplaced() {
+        call(URL_ENABLED, "biz", inv -> AsyncRpcResult.newDefaultAsyncResult("hi, biz", inv));
+        AppResponse failed = new AppResponse(new IllegalArgumentException("bad name"));
+        filter.onResponse(failed, invoker(URL_ENABLED, null), invocation("biz"));
+        assertTrue(failed.hasException());
+    }
+
+    @Test
+    public void testDisabledMethodPassesThrough() {
+        URL disabled = URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.samples.mock.GreetingsService");
+        call(disabled, "world", inv -> AsyncRpcResult.newDefaultAsyncResult("hi, world", inv));
+        try {
+            call(disabled, "world", inv -> {
+                throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout");
+            });
+            fail();
+        } catch (RpcException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void testCacheBoundedAndExpires() {
+        LastKnownGoodCache cache = new LastKnownGoodCache(2, 1000);
+        cache.put("sayHi", new Object[]{"a"}, "A", 0);
+        cache.put("sayHi", new Object[]{"b"}, "B", 0);
+        cache.put("sayHi", new Object[]{"a"}, "A2", 10);
+        cache.put("sayHi", new Object[]{"c"}, "C", 20);
+
+        // b最早写入，被淘汰；a重新写入后保留最新值
+        assertNull(cache.get("sayHi", new Object[]{"b"}, 30));
+        assertEquals("A2", cache.get("sayHi", new Object[]{"a"}, 30).getValue());
+        assertEquals(1, cache.getEvictedCount());
+
+        assertNull(cache.get("sayHi", new Object[]{"c"}, 1021));
+        assertEquals(1, cache.getExpiredCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // 数组参数按内容比较
+        cache.put("batch", new Object[]{new String[]{"x", "y"}}, "XY", 0);
+        assertEquals("XY", cache.get("batch", new Object[]{new String[]{"x", "y"}}, 1).getValue());
+    }
+
+    @Test
+    public void testCacheHandsOutCopies() {
+        LastKnownGoodCache cache = new LastKnownGoodCache(4, 1000);
+        List<String> names = new ArrayList<>(Arrays.asList("a", "b"));
+        assertTrue(cache.put("list", new Object[0], names, 0));
+        // 写入后修改原对象不影响缓存
+        names.add("c");
+
+        List<?> first = (List<?>) cache.get("list", new Object[0], 1).getValue();
+        assertEquals(Arrays.asList("a", "b"), first);
+        assertNotSame(names, first);
+        // 一个调用方修改拿到的结果不影响其他调用方
+        first.clear();
+        assertEquals(Arrays.asList("a", "b"), cache.get("list", new Object[0], 2).getValue());
+
+        // 不可变类型直接保存引用
+        String value = new String("hi");
+        cache.put("sayHi", new Object[]{"a"}, value, 0);
+        assertSame(value, cache.get("sayHi", new Object[]{"a"}, 1).getValue());
+
+        // 不能序列化的结果不缓存
+        assertFalse(cache.put("raw", new Object[0], new Object(), 0));
+        assertNull(cache.get("raw", new Object[0], 1));
+        assertEquals(1, cache.getUncopyableCount());
+    }
+
+    /**
+     * 模拟过滤器链: invoke 正常返回后回调 onResponse
+     */
+    private Result call(URL url, String name, Function<Invocation, Result> remote) {
+        Invocation invocation = invocation(name);
+        Invoker<GreetingsService> invoker = invoker(url, remote);
+        Result result = filter.invoke(invoker, invocation);
+        filter.onResponse(result, invoker, invocation);
+        return result;
+    }
+
+    /**
+     * 模拟过滤器链: 结果完成时回调 onResponse / onError
+     */
+    private Result callAsync(URL url, String name, Function<Invocation, Result> remote) {
+        Invocation invocation = invocation(name);
+        Invoker<GreetingsService> invoker = invoker(url, remote);
+        Result result = filter.invoke(invoker, invocation);
+        return result.whenCompleteWithContext((r, t) -> {
+            if (t == null) {
+                filter.onResponse(r, invoker, invocation);
+            } else {
+                filter.onError(t, invoker, invocation);
+            }
+        });
+    }
+
+    private static Invocation invocation(String name) {
+        return new RpcInvocation("sayHi", GreetingsService.class.getName(), null,
+                new Class<?>[]{String.class}, new Object[]{name});
+    }
+
+    private static Invoker<GreetingsService> invoker(URL url, Function<Invocation, Result> remote) {
+        return new Invoker<GreetingsService>() {
+            @Override
+            public Class<GreetingsService> getInterface() {
+                return GreetingsService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                return remote.apply(invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
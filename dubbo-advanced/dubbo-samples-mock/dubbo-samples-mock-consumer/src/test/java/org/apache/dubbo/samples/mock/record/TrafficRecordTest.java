@@ -0,0 +1,260 @@
+package org.apache.dubbo.samples.mock.record;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.PojoUtils;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.mock.GreetingsService;
+import org.apache.dubbo.samples.mock.filter.TrafficRecordFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流量录制和回放测试
+ */
+public class TrafficRecordTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficRecordTest.class);
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("traffic");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TrafficRecordFilter.closeAll();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testRecordsSpanChunks() throws IOException {
+        Path file = dir.resolve("log");
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, CHUNK_SIZE)) {
+            for (int i = 0; i < 200; i++) {
+                assertTrue(writer.append(record(i, "name-" + i, "hi, name-" + i)));
+            }
+            // 超过单段大小的记录丢弃
+            assertFalse(writer.append(record(200, new String(new char[CHUNK_SIZE]), "")));
+            assertEquals(1, writer.getDroppedCount());
+            assertTrue(writer.size() > CHUNK_SIZE * 2);
+        }
+
+        List<TrafficRecord> records = TrafficLogReader.readAll(file, CHUNK_SIZE);
+        assertEquals(200, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            TrafficRecord record = records.get(i);
+            assertEquals(i, record.getOffsetNanos());
+            assertEquals(GreetingsService.class.getName(), record.getService());
+            assertArrayEquals(new Object[]{"name-" + i}, record.getArguments());
+            assertEquals("hi, name-" + i, record.getResponse());
+            assertEquals("v" + i, record.getAttachments().get("trace-id"));
+        }
+    }
+
+    @Test
+    public void testFilterRecordsAndServesRecordedResponses() throws Throwable {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName()
+                + "?record.dir=" + dir + "&record.chunk-size=" + CHUNK_SIZE + "&sayHi.record.enabled=true");
+        TrafficRecordFilter filter = new TrafficRecordFilter();
+        Invoker<GreetingsService> invoker = invoker(url);
+
+        for (String name : new String[]{"a", "b", "boom"}) {
+            Invocation invocation = new RpcInvocation("sayHi", GreetingsService.class.getName(), null,
+                    new Class<?>[]{String.class}, new Object[]{name});
+            invocation.setAttachment("trace-id", "t-" + name);
+            try {
+                Result result = filter.invoke(invoker, invocation);
+                filter.onResponse(result, invoker, invocation);
+            } catch (RpcException e) {
+                filter.onError(e, invoker, invocation);
+            }
+        }
+        TrafficRecordFilter.closeAll();
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.collect(Collectors.toList());
+        }
+        assertEquals(1, files.size());
+        List<TrafficRecord> records = TrafficLogReader.readAll(files.get(0), CHUNK_SIZE);
+        assertEquals(3, records.size());
+        assertEquals("t-b", records.get(1).getAttachments().get("trace-id"));
+        assertArrayEquals(new String[]{String.class.getName()}, records.get(1).getParameterTypes());
+        assertTrue(records.get(2).isException());
+        assertTrue(records.get(1).getOffsetNanos() >= records.get(0).getOffsetNanos());
+
+        RecordedResponses responses = new RecordedResponses(records);
+        assertEquals(Collections.singleton(GreetingsService.class.getName()), responses.getServices());
+        assertEquals("hi, b", responses.answer(GreetingsService.class.getName(), "sayHi", new Object[]{"b"}));
+        try {
+            responses.answer(GreetingsService.class.getName(), "sayHi", new Object[]{"boom"});
+            fail();
+        } catch (RpcException expected) {
+            assertEquals("provider down", expected.getMessage());
+        }
+        // 没有相同参数时轮流返回录制过的响应
+        assertNotNull(responses.answer(GreetingsService.class.getName(), "sayHi", new Object[]{"c"}));
+    }
+
+    @Test
+    public void testReadInRequestOrder() throws IOException {
+        Path file = dir.resolve("completion-order");
+        // 录制在响应回调中追加: 后发起的快调用先写入
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, CHUNK_SIZE)) {
+            for (long offset : new long[]{30, 10, 20, 10}) {
+                assertTrue(writer.append(record(offset, "name-" + offset, "hi, name-" + offset)));
+            }
+        }
+        List<TrafficRecord> records = TrafficLogReader.readAllInRequestOrder(file, CHUNK_SIZE);
+        assertEquals(4, records.size());
+        long previous = -1;
+        for (TrafficRecord record : records) {
+            assertTrue(record.getOffsetNanos() >= previous);
+            previous = record.getOffsetNanos();
+        }
+        assertEquals(30, TrafficLogReader.readAll(file, CHUNK_SIZE).get(0).getOffsetNanos());
+    }
+
+    @Test
+    public void testGenericResultMatchesRecordedPojo() {
+        Greeting greeting = new Greeting("hi", 3);
+        TrafficRecord record = new TrafficRecord(System.currentTimeMillis(), 0, 1000, false,
+                GreetingsService.class.getName(), "greet", new String[0], Collections.emptyMap(),
+                TrafficRecord.serialize(new Object[0]), TrafficRecord.serialize(greeting));
+        // 泛化调用返回的是Map，与录制的POJO泛化后比较
+        Object genericValue = PojoUtils.generalize(new Greeting("hi", 3));
+        assertTrue(genericValue instanceof Map);
+        assertTrue(TrafficReplayer.matches(genericValue, record));
+        assertFalse(TrafficReplayer.matches(PojoUtils.generalize(new Greeting("hi", 4)), record));
+        assertTrue(TrafficReplayer.matches("hi, a", record(0, "a", "hi, a")));
+    }
+
+    @Test
+    public void testPacer() {
+        ReplayPacer tenTimes = ReplayPacer.parse("10x");
+        assertEquals(0, tenTimes.dueNanos(5_000_000));
+        assertEquals(1_000_000, tenTimes.dueNanos(15_000_000));
+        ReplayPacer original = ReplayPacer.parse("1x");
+        original.dueNanos(0);
+        assertEquals(20_000_000, original.dueNanos(20_000_000));
+        assertTrue(ReplayPacer.parse("max").isUnlimited());
+        try {
+            ReplayPacer.parse("0x");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void testAppendThroughput() throws IOException {
+        int count = 200_000;
+        TrafficRecord record = record(0, "world", "hi, world");
+        Path file = dir.resolve("throughput");
+        long begin = System.nanoTime();
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, 16 * 1024 * 1024)) {
+            for (int i = 0; i < count; i++) {
+                writer.append(record);
+            }
+            long nanos = System.nanoTime() - begin;
+            logger.info("追加{}条记录, 每条{}ns, 共{}KB", count, nanos / count, writer.size() / 1024);
+            assertEquals(count, writer.getAppendedCount());
+            assertTrue(nanos < TimeUnit.SECONDS.toNanos(30));
+        }
+    }
+
+    public static class Greeting implements Serializable {
+        private String text;
+        private int times;
+
+        public Greeting() {
+        }
+
+        Greeting(String text, int times) {
+            this.text = text;
+            this.times = times;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public int getTimes() {
+            return times;
+        }
+
+        public void setTimes(int times) {
+            this.times = times;
+        }
+    }
+
+    private static TrafficRecord record(long offset, String name, String response) {
+        return new TrafficRecord(System.currentTimeMillis(), offset, 1000, false, GreetingsService.class.getName(),
+                "sayHi", new String[]{String.class.getName()}, Collections.singletonMap("trace-id", "v" + offset),
+                TrafficRecord.serialize(new Object[]{name}), TrafficRecord.serialize(response));
+    }
+
+    private static Invoker<GreetingsService> invoker(URL url) {
+        return new Invoker<GreetingsService>() {
+            @Override
+            public Class<GreetingsService> getInterface() {
+                return GreetingsService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                String name = (String) invocation.getArguments()[0];
+                if ("boom".equals(name)) {
+                    throw new RpcException(RpcException.NETWORK_EXCEPTION, "provider down");
+                }
+                return AsyncRpcResult.newDefaultAsyncResult("hi, " + name, invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package org.apache.dubbo.samples.mock.fault;
+
+/**
+ * 故障注入相关的配置项
+ */
+public interface FaultConstants {
+
+    /**
+     * 服务参数，故障场景脚本的位置，classpath:开头表示类路径资源，否则为文件路径；为空时不注入故障
+     */
+    String FAULT_SCENARIO_KEY = "fault.scenario";
+
+    /**
+     * outage-mode=hang 时请求挂起的最长时间(毫秒)，之后返回异常，避免消费端未配置超时时永久挂起
+     */
+    String FAULT_HANG_TIMEOUT_KEY = "fault.hang-timeout";
+
+    long DEFAULT_FAULT_HANG_TIMEOUT = 60_000L;
+}
@@ -0,0 +1,59 @@
+package org.apache.dubbo.samples.mock.fault;
+
+import java.util.Random;
+
+/**
+ * 单个方法的故障规则
+ * <ul>
+ *   <li>latency: 响应耗时的分布，见 {@link LatencyDistribution}</li>
+ *   <li>error-rate: 注入异常的比例，0~1</li>
+ *   <li>outage: 周期性不可用，如 5s/20s 表示每20秒中前5秒不可用</li>
+ *   <li>outage-mode: 不可用期间的表现，fail 立即返回异常(默认)，hang 不响应直到消费端超时</li>
+ * </ul>
+ */
+public class FaultRule {
+
+    public enum OutageMode {
+        FAIL, HANG
+    }
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final long outageNanos;
+    private final long outagePeriodNanos;
+    private final OutageMode outageMode;
+
+    public FaultRule(LatencyDistribution latency, double errorRate, long outageNanos, long outagePeriodNanos,
+                     OutageMode outageMode) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("error-rate must be between 0 and 1");
+        }
+        if (outageNanos < 0 || (outageNanos > 0 && outagePeriodNanos < outageNanos)) {
+            throw new IllegalArgumentException("outage must not be longer than its period");
+        }
+        this.latency = latency == null ? LatencyDistribution.NONE : latency;
+        this.errorRate = errorRate;
+        this.outageNanos = outageNanos;
+        this.outagePeriodNanos = outagePeriodNanos;
+        this.outageMode = outageMode == null ? OutageMode.FAIL : outageMode;
+    }
+
+    public long sampleLatencyNanos(Random random) {
+        return latency.sampleNanos(random);
+    }
+
+    public boolean sampleError(Random random) {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    /**
+     * @param phaseElapsedNanos 所在阶段已经过的时间
+     */
+    public boolean isOutage(long phaseElapsedNanos) {
+        return outageNanos > 0 && phaseElapsedNanos % outagePeriodNanos < outageNanos;
+    }
+
+    public OutageMode getOutageMode() {
+        return outageMode;
+    }
+}
@@ -0,0 +1,243 @@
+package org.apache.dubbo.samples.mock.fault;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 故障场景脚本
+ * <p>
+ * 场景由依次执行的若干阶段组成，每个阶段为各方法配置 {@link FaultRule}，方法名为*时作为该阶段的默认规则:
+ * <pre>
+ * phases=warmup,degraded,outage
+ * loop=true
+ * warmup.duration=30s
+ * warmup.*.latency=lognormal:median=5ms,p99=50ms
+ * degraded.duration=60s
+ * degraded.sayHi.latency=histogram:5ms=50,20ms=30,100ms=15,1s=5
+ * degraded.sayHi.error-rate=0.05
+ * outage.duration=20s
+ * outage.sayHi.outage=5s/10s
+ * outage.sayHi.outage-mode=hang
+ * </pre>
+ * 没有配置duration的阶段一直持续，只能放在最后。loop=true时最后一个阶段结束后从头开始，
+ * 否则之后不再注入故障。时间从场景加载时开始计算。
+ */
+public class FaultScenario {
+
+    private final Phase[] phases;
+    private final boolean loop;
+    private final long cycleNanos;
+    private final long startNanos;
+
+    public FaultScenario(List<Phase> phases, boolean loop, long startNanos) {
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("scenario must have at least one phase");
+        }
+        this.phases = phases.toArray(new Phase[0]);
+        long offset = 0;
+        for (int i = 0; i < this.phases.length; i++) {
+            Phase phase = this.phases[i];
+            if (phase.durationNanos <= 0 && i != this.phases.length - 1) {
+                throw new IllegalArgumentException("only the last phase can be unbounded: " + phase.name);
+            }
+            phase.offsetNanos = offset;
+            offset += phase.durationNanos;
+        }
+        this.loop = loop && this.phases[this.phases.length - 1].durationNanos > 0;
+        this.cycleNanos = offset;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 从classpath:开头的资源或文件路径加载
+     */
+    public static FaultScenario load(String location) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = location.startsWith("classpath:")
+                ? FaultScenario.class.getClassLoader().getResourceAsStream(location.substring("classpath:".length()))
+                : Files.newInputStream(Paths.get(location));
+        if (in == null) {
+            throw new IOException("Fault scenario not found: " + location);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties, System.nanoTime());
+    }
+
+    public static FaultScenario parse(Properties properties, long startNanos) {
+        String names = properties.getProperty("phases", "").trim();
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("phases must be configured");
+        }
+        List<Phase> phases = new ArrayList<>();
+        for (String name : names.split(",")) {
+            phases.add(parsePhase(name.trim(), properties));
+        }
+        return new FaultScenario(phases, Boolean.parseBoolean(properties.getProperty("loop", "false")), startNanos);
+    }
+
+    /**
+     * 当前所在阶段，非循环场景结束后返回null
+     *
+     * @param elapsedNanos {@link #elapsed} 的返回值
+     */
+    public Phase phaseAt(long elapsedNanos) {
+        if (elapsedNanos < 0) {
+            return null;
+        }
+        for (Phase phase : phases) {
+            if (phase.durationNanos <= 0 || elapsedNanos < phase.offsetNanos + phase.durationNanos) {
+                return phase;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 场景开始后经过的时间，循环场景取一个周期内的偏移
+     */
+    public long elapsed(long nowNanos) {
+        long elapsed = nowNanos - startNanos;
+        return loop ? elapsed % cycleNanos : elapsed;
+    }
+
+    private static Phase parsePhase(String name, Properties properties) {
+        String prefix = name + ".";
+        String duration = properties.getProperty(prefix + "duration");
+        Map<String, Map<String, String>> methods = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(prefix) || key.equals(prefix + "duration")) {
+                continue;
+            }
+            String rest = key.substring(prefix.length());
+            int dot = rest.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Illegal fault rule key: " + key);
+            }
+            methods.computeIfAbsent(rest.substring(0, dot), m -> new HashMap<>())
+                    .put(rest.substring(dot + 1), properties.getProperty(key).trim());
+        }
+        Map<String, FaultRule> rules = new HashMap<>();
+        methods.forEach((method, attributes) -> rules.put(method, parseRule(method, attributes)));
+        return new Phase(name, duration == null ? 0 : parseDuration(duration), rules);
+    }
+
+    private static FaultRule parseRule(String method, Map<String, String> attributes) {
+        LatencyDistribution latency = null;
+        double errorRate = 0;
+        long outage = 0;
+        long period = 0;
+        FaultRule.OutageMode mode = FaultRule.OutageMode.FAIL;
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "latency":
+                    latency = LatencyDistribution.parse(value);
+                    break;
+                case "error-rate":
+                    errorRate = Double.parseDouble(value);
+                    break;
+                case "outage":
+                    String[] window = value.split("/");
+                    if (window.length != 2) {
+                        throw new IllegalArgumentException("Illegal outage of " + method + ": " + value);
+                    }
+                    outage = parseDuration(window[0]);
+                    period = parseDuration(window[1]);
+                    break;
+                case "outage-mode":
+                    mode = FaultRule.OutageMode.valueOf(value.toUpperCase());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown fault attribute of " + method + ": " + entry.getKey());
+            }
+        }
+        return new FaultRule(latency, errorRate, outage, period, mode);
+    }
+
+    /**
+     * 解析 500us、20ms、1.5s、2m 形式的时长，没有单位时按毫秒
+     */
+    static long parseDuration(String value) {
+        String s = value.trim().toLowerCase();
+        int end = s.length();
+        while (end > 0 && Character.isLetter(s.charAt(end - 1))) {
+            end--;
+        }
+        String unit = s.substring(end);
+        double amount;
+        try {
+            amount = Double.parseDouble(s.substring(0, end));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal duration: " + value);
+        }
+        long unitNanos;
+        switch (unit) {
+            case "ns":
+                unitNanos = 1;
+                break;
+            case "us":
+                unitNanos = TimeUnit.MICROSECONDS.toNanos(1);
+                break;
+            case "":
+            case "ms":
+                unitNanos = TimeUnit.MILLISECONDS.toNanos(1);
+                break;
+            case "s":
+                unitNanos = TimeUnit.SECONDS.toNanos(1);
+                break;
+            case "m":
+                unitNanos = TimeUnit.MINUTES.toNanos(1);
+                break;
+            default:
+                throw new IllegalArgumentException("Illegal duration: " + value);
+        }
+        return (long) (amount * unitNanos);
+    }
+
+    public static final class Phase {
+        private final String name;
+        private final long durationNanos;
+        private final Map<String, FaultRule> rules;
+        private long offsetNanos;
+
+        public Phase(String name, long durationNanos, Map<String, FaultRule> rules) {
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.rules = Collections.unmodifiableMap(new HashMap<>(rules));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 方法的规则，没有单独配置时使用*的规则
+         */
+        public FaultRule rule(String method) {
+            FaultRule rule = rules.get(method);
+            return rule != null ? rule : rules.get("*");
+        }
+
+        /**
+         * 在本阶段内经过的时间
+         */
+        public long elapsedInPhase(long elapsedNanos) {
+            return elapsedNanos - offsetNanos;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.apache.dubbo.samples.mock.fault;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注入延迟的分布
+ * <ul>
+ *   <li>fixed:50ms 固定延迟</li>
+ *   <li>uniform:10ms-200ms 均匀分布</li>
+ *   <li>lognormal:median=20ms,p99=400ms 对数正态分布，由中位数和P99确定，适合模拟长尾</li>
+ *   <li>histogram:5ms=70,20ms=20,200ms=9,1s=1 按直方图回放，格式为 桶上界=次数，桶内均匀取值；
+ *       可以直接使用监控系统导出的耗时分布</li>
+ * </ul>
+ */
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = random -> 0;
+
+    long sampleNanos(Random random);
+
+    static LatencyDistribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        String type = (colon < 0 ? spec : spec.substring(0, colon)).trim();
+        String args = colon < 0 ? "" : spec.substring(colon + 1).trim();
+        switch (type) {
+            case "fixed":
+                return fixed(FaultScenario.parseDuration(args));
+            case "uniform":
+                String[] range = args.split("-");
+                if (range.length != 2) {
+                    throw new IllegalArgumentException("Illegal uniform latency: " + spec);
+                }
+                return uniform(FaultScenario.parseDuration(range[0]), FaultScenario.parseDuration(range[1]));
+            case "lognormal":
+                long median = 0;
+                long p99 = 0;
+                for (String part : args.split(",")) {
+                    String[] kv = part.split("=");
+                    if (kv.length == 2 && "median".equals(kv[0].trim())) {
+                        median = FaultScenario.parseDuration(kv[1]);
+                    } else if (kv.length == 2 && "p99".equals(kv[0].trim())) {
+                        p99 = FaultScenario.parseDuration(kv[1]);
+                    } else {
+                        throw new IllegalArgumentException("Illegal lognormal latency: " + spec);
+                    }
+                }
+                return logNormal(median, p99);
+            case "histogram":
+                List<long[]> buckets = new ArrayList<>();
+                for (String part : args.split(",")) {
+                    String[] kv = part.split("=");
+                    if (kv.length != 2) {
+                        throw new IllegalArgumentException("Illegal histogram latency: " + spec);
+                    }
+                    buckets.add(new long[]{FaultScenario.parseDuration(kv[0]), Long.parseLong(kv[1].trim())});
+                }
+                return histogram(buckets);
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+
+    static LatencyDistribution fixed(long nanos) {
+        return random -> nanos;
+    }
+
+    static LatencyDistribution uniform(long minNanos, long maxNanos) {
+        if (minNanos < 0 || maxNanos < minNanos) {
+            throw new IllegalArgumentException("uniform latency must satisfy 0 <= min <= max");
+        }
+        long span = maxNanos - minNanos;
+        return random -> minNanos + (span == 0 ? 0 : (long) (random.nextDouble() * span));
+    }
+
+    static LatencyDistribution logNormal(long medianNanos, long p99Nanos) {
+        if (medianNanos <= 0 || p99Nanos < medianNanos) {
+            throw new IllegalArgumentException("lognormal latency must satisfy 0 < median <= p99");
+        }
+        // P99对应标准正态分布的2.326倍标准差
+        double mu = Math.log(medianNanos);
+        double sigma = Math.log((double) p99Nanos / medianNanos) / 2.326348;
+        // 截断极端值，避免个别请求等待过久
+        long cap = Math.max(p99Nanos * 10, TimeUnit.SECONDS.toNanos(1));
+        return random -> Math.min(cap, (long) Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * @param buckets 按上界升序的 [上界纳秒, 次数]
+     */
+    static LatencyDistribution histogram(List<long[]> buckets) {
+        int size = buckets.size();
+        long[] bounds = new long[size];
+        long[] cumulative = new long[size];
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            long[] bucket = buckets.get(i);
+            if (bucket[1] < 0 || (i > 0 && bucket[0] <= bounds[i - 1])) {
+                throw new IllegalArgumentException("histogram buckets must be ascending with non-negative counts");
+            }
+            bounds[i] = bucket[0];
+            total += bucket[1];
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("histogram must not be empty");
+        }
+        long count = total;
+        return random -> {
+            long n = (long) (random.nextDouble() * count);
+            int lo = 0;
+            int hi = size - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] > n) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            long lower = lo == 0 ? 0 : bounds[lo - 1];
+            return lower + (long) (random.nextDouble() * (bounds[lo] - lower));
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package org.apache.dubbo.samples.mock.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.samples.mock.fault.FaultRule;
+import org.apache.dubbo.samples.mock.fault.FaultScenario;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.samples.mock.fault.FaultConstants.DEFAULT_FAULT_HANG_TIMEOUT;
+import static org.apache.dubbo.samples.mock.fault.FaultConstants.FAULT_HANG_TIMEOUT_KEY;
+import static org.apache.dubbo.samples.mock.fault.FaultConstants.FAULT_SCENARIO_KEY;
+
+/**
+ * 服务提供者故障注入过滤器
+ * <p>
+ * 按 fault.scenario 指定的 {@link FaultScenario} 为每次调用注入延迟、异常或不可用:
+ * <ul>
+ *   <li>延迟: 从分布中取样的值作为响应总耗时，业务执行更久时不再额外等待</li>
+ *   <li>异常: 不执行业务方法，在取样的延迟之后返回RpcException</li>
+ *   <li>不可用: fail模式立即返回异常，hang模式直到 fault.hang-timeout 才返回异常</li>
+ * </ul>
+ * 延迟通过异步结果实现: 业务线程立即返回，由一个定时线程在到期时完成结果，
+ * 等待中的请求不占用线程，适合在高并发下模拟长尾。
+ */
+@Activate(group = CommonConstants.PROVIDER)
+public class FaultInjectionFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaultInjectionFilter.class);
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "FaultInjectionTimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 每个场景脚本只加载一次
+    private final ConcurrentMap<String, FaultScenario> scenarios = new ConcurrentHashMap<>();
+
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder outages = new LongAdder();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String location = url.getParameter(FAULT_SCENARIO_KEY);
+        if (location == null || location.isEmpty()) {
+            return invoker.invoke(invocation);
+        }
+        FaultScenario scenario = getScenario(location);
+        long now = System.nanoTime();
+        long elapsed = scenario.elapsed(now);
+        FaultScenario.Phase phase = scenario.phaseAt(elapsed);
+        FaultRule rule = phase == null ? null : phase.rule(invocation.getMethodName());
+        if (rule == null) {
+            return invoker.invoke(invocation);
+        }
+
+        if (rule.isOutage(phase.elapsedInPhase(elapsed))) {
+            outages.increment();
+            Result failed = AsyncRpcResult.newDefaultAsyncResult(new RpcException(RpcException.NETWORK_EXCEPTION,
+                    "Injected outage of " + invocation.getMethodName() + " in phase " + phase.getName()), invocation);
+            if (rule.getOutageMode() == FaultRule.OutageMode.FAIL) {
+                return failed;
+            }
+            long hangNanos = TimeUnit.MILLISECONDS.toNanos(url.getParameter(FAULT_HANG_TIMEOUT_KEY, DEFAULT_FAULT_HANG_TIMEOUT));
+            return delay(failed, now + hangNanos, invocation);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = rule.sampleLatencyNanos(random);
+        Result result;
+        if (rule.sampleError(random)) {
+            errors.increment();
+            result = AsyncRpcResult.newDefaultAsyncResult(new RpcException(RpcException.UNKNOWN_EXCEPTION,
+                    "Injected error of " + invocation.getMethodName() + " in phase " + phase.getName()), invocation);
+        } else {
+            result = invoker.invoke(invocation);
+        }
+        if (latency <= 0) {
+            return result;
+        }
+        delayed.increment();
+        return delay(result, now + latency, invocation);
+    }
+
+    public long getDelayedCount() {
+        return delayed.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getOutageCount() {
+        return outages.sum();
+    }
+
+    /**
+     * 在deadline时完成结果；结果完成时已过deadline则立即完成
+     */
+    private static Result delay(Result result, long deadline, Invocation invocation) {
+        CompletableFuture<AppResponse> future = new CompletableFuture<>();
+        result.whenCompleteWithContext((r, t) -> {
+            AppResponse response = copy(r, t, invocation);
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                future.complete(response);
+            } else {
+                TIMER.schedule(() -> future.complete(response), remaining, TimeUnit.NANOSECONDS);
+            }
+        });
+        return new AsyncRpcResult(future, invocation);
+    }
+
+    private static AppResponse copy(Result source, Throwable t, Invocation invocation) {
+        AppResponse response = new AppResponse(invocation);
+        if (t != null) {
+            response.setException(t);
+        } else if (source.hasException()) {
+            response.setException(source.getException());
+        } else {
+            response.setValue(source.getValue());
+        }
+        if (source != null) {
+            response.getObjectAttachments().putAll(source.getObjectAttachments());
+        }
+        return response;
+    }
+
+    private FaultScenario getScenario(String location) {
+        return scenarios.computeIfAbsent(location, l -> {
+            try {
+                FaultScenario scenario = FaultScenario.load(l);
+                logger.info("Loaded fault scenario " + l);
+                return scenario;
+            } catch (IOException | IllegalArgumentException e) {
+                throw new RpcException("Failed to load fault scenario " + l + ": " + e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,211 @@
+package org.apache.dubbo.samples.mock.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.mock.GreetingsService;
+import org.apache.dubbo.samples.mock.fault.FaultRule;
+import org.apache.dubbo.samples.mock.fault.FaultScenario;
+import org.apache.dubbo.samples.mock.fault.LatencyDistribution;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * FaultInjectionFilter 和故障场景测试
+ */
+public class FaultInjectionFilterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaultInjectionFilterTest.class);
+
+    private final FaultInjectionFilter filter = new FaultInjectionFilter();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final List<Path> scripts = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path script : scripts) {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Test
+    public void testDistributions() {
+        Random random = new Random(42);
+        long[] samples = sample(LatencyDistribution.parse("lognormal:median=20ms,p99=400ms"), random, 100_000);
+        assertEquals(20.0, samples[50_000] / 1e6, 2.0);
+        assertEquals(400.0, samples[99_000] / 1e6, 60.0);
+
+        samples = sample(LatencyDistribution.parse("histogram:5ms=70,20ms=20,200ms=10"), random, 100_000);
+        assertTrue(samples[69_000] <= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(samples[71_000] > TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(samples[99_999] <= TimeUnit.MILLISECONDS.toNanos(200));
+
+        samples = sample(LatencyDistribution.parse("uniform:10ms-20ms"), random, 10_000);
+        assertTrue(samples[0] >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(samples[9_999] < TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(1_500_000, LatencyDistribution.parse("fixed:1.5ms").sampleNanos(random));
+    }
+
+    @Test
+    public void testScenarioPhases() throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(String.join("\n",
+                "phases=slow,down",
+                "loop=true",
+                "slow.duration=10s",
+                "slow.*.latency=fixed:100ms",
+                "down.duration=20s",
+                "down.sayHi.outage=5s/10s")));
+        FaultScenario scenario = FaultScenario.parse(properties, 0);
+        long second = TimeUnit.SECONDS.toNanos(1);
+
+        FaultScenario.Phase phase = scenario.phaseAt(scenario.elapsed(3 * second));
+        assertEquals("slow", phase.getName());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), phase.rule("anyMethod").sampleLatencyNanos(new Random()));
+
+        long elapsed = scenario.elapsed(12 * second);
+        phase = scenario.phaseAt(elapsed);
+        assertEquals("down", phase.getName());
+        FaultRule rule = phase.rule("sayHi");
+        assertTrue(rule.isOutage(phase.elapsedInPhase(elapsed)));
+        assertFalse(rule.isOutage(phase.elapsedInPhase(scenario.elapsed(17 * second))));
+        assertTrue(rule.isOutage(phase.elapsedInPhase(scenario.elapsed(22 * second))));
+        // down阶段没有默认规则
+        assertNull(phase.rule("other"));
+
+        // 循环回到第一个阶段
+        assertEquals("slow", scenario.phaseAt(scenario.elapsed(31 * second)).getName());
+    }
+
+    @Test
+    public void testDelayDoesNotHoldThreads() throws Exception {
+        URL url = url("phases=slow", "slow.*.latency=fixed:200ms");
+        int requests = 2_000;
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        long begin = System.nanoTime();
+        List<Result> results = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            results.add(filter.invoke(invoker(url), invocation("n" + i)));
+        }
+        long submitNanos = System.nanoTime() - begin;
+        int threadsDuring = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        for (Result result : results) {
+            assertTrue(((AsyncRpcResult) result).get(5, TimeUnit.SECONDS).getValue().toString().startsWith("hi, n"));
+        }
+        long totalNanos = System.nanoTime() - begin;
+        logger.info("{}个延迟200ms的请求: 提交耗时{}ms, 全部完成{}ms, 线程数{} -> {}", requests,
+                TimeUnit.NANOSECONDS.toMillis(submitNanos), TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                threadsBefore, threadsDuring);
+        assertTrue(totalNanos >= TimeUnit.MILLISECONDS.toNanos(200));
+        // 提交时不等待延迟，逐个阻塞等待需要400秒
+        assertTrue(submitNanos < TimeUnit.SECONDS.toNanos(2));
+        // 只多出一个定时线程
+        assertTrue(threadsDuring - threadsBefore <= 1);
+        assertEquals(requests, executions.get());
+        assertEquals(requests, filter.getDelayedCount());
+    }
+
+    @Test
+    public void testErrorsAndOutage() throws Exception {
+        URL url = url("phases=flaky", "flaky.sayHi.error-rate=0.3");
+        int failed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Result result = ((AsyncRpcResult) filter.invoke(invoker(url), invocation("x"))).get(1, TimeUnit.SECONDS);
+            if (result.hasException()) {
+                assertTrue(result.getException() instanceof RpcException);
+                failed++;
+            }
+        }
+        assertEquals(3_000, failed, 300);
+        assertEquals(10_000 - failed, executions.get());
+
+        executions.set(0);
+        URL down = url("phases=down", "down.sayHi.outage=1m/1m");
+        Result result = ((AsyncRpcResult) filter.invoke(invoker(down), invocation("x"))).get(1, TimeUnit.SECONDS);
+        assertTrue(result.getException().getMessage().contains("Injected outage"));
+        assertEquals(0, executions.get());
+        assertEquals(1, filter.getOutageCount());
+    }
+
+    @Test
+    public void testWithoutScenarioPassesThrough() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName());
+        Result result = filter.invoke(invoker(url), invocation("world"));
+        assertEquals("hi, world", ((AsyncRpcResult) result).get(1, TimeUnit.SECONDS).getValue());
+    }
+
+    private static long[] sample(LatencyDistribution distribution, Random random, int count) {
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = distribution.sampleNanos(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private URL url(String... lines) throws IOException {
+        Path script = Files.createTempFile("fault", ".properties");
+        scripts.add(script);
+        Files.write(script, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName() + "?fault.scenario=" + script);
+    }
+
+    private static Invocation invocation(String name) {
+        return new RpcInvocation("sayHi", GreetingsService.class.getName(), null,
+                new Class<?>[]{String.class}, new Object[]{name});
+    }
+
+    private Invoker<GreetingsService> invoker(URL url) {
+        return new Invoker<GreetingsService>() {
+            @Override
+            public Class<GreetingsService> getInterface() {
+                return GreetingsService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                executions.incrementAndGet();
+                return AsyncRpcResult.newDefaultAsyncResult("hi, " + invocation.getArguments()[0], invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package org.apache.dubbo.samples.validation.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计字节数的TCP转发
+ * <p>
+ * 消费者连接本地端口，数据原样转发到提供者，分别统计两个方向的字节数，用于测量实际的网络流量。
+ * 每个连接两个转发线程，只适合连接数很少的测试场景。
+ */
+public class ByteCountingRelay implements Closeable {
+
+    private final InetSocketAddress target;
+    private final ServerSocket server;
+    private final LongAdder upstream = new LongAdder();
+    private final LongAdder downstream = new LongAdder();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public ByteCountingRelay(InetSocketAddress target) throws IOException {
+        this.target = target;
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        daemon(this::accept, "RelayAcceptor").start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * 消费者发往提供者的字节数
+     */
+    public long getUpstreamBytes() {
+        return upstream.sum();
+    }
+
+    /**
+     * 提供者返回消费者的字节数
+     */
+    public long getDownstreamBytes() {
+        return downstream.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(server);
+        sockets.forEach(ByteCountingRelay::closeQuietly);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket client = server.accept();
+                Socket provider = new Socket(target.getAddress(), target.getPort());
+                client.setTcpNoDelay(true);
+                provider.setTcpNoDelay(true);
+                sockets.add(client);
+                sockets.add(provider);
+                daemon(() -> pump(client, provider, upstream), "RelayUpstream").start();
+                daemon(() -> pump(provider, client, downstream), "RelayDownstream").start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Relay failed to accept connection: " + e);
+                }
+            }
+        }
+    }
+
+    private static void pump(Socket from, Socket to, LongAdder counter) {
+        byte[] buffer = new byte[64 * 1024];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                counter.add(n);
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
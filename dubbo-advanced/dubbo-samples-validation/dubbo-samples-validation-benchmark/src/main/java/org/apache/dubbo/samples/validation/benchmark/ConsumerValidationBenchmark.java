@@ -0,0 +1,231 @@
+package org.apache.dubbo.samples.validation.benchmark;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.samples.validation.GreetingRequest;
+import org.apache.dubbo.samples.validation.GreetingsService;
+import org.apache.dubbo.samples.validation.filter.PrecompiledValidationFilter;
+import org.apache.dubbo.samples.validation.impl.GreetingImpl;
+
+import javax.validation.ValidationException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.samples.validation.plan.ValidationPlanConstants.VALIDATION_PLAN_KEY;
+
+/**
+ * 消费端预校验节省的网络流量和服务端CPU
+ * <p>
+ * 同一个进程内暴露服务(服务端开启校验)，消费者经 {@link ByteCountingRelay} 连接提供者，
+ * 用同一批请求(按 benchmark.invalid-rate 混入不合法请求，默认20%)分别测试:
+ * <ul>
+ *   <li>provider-only: 只在服务端校验，不合法的请求也发送到服务端，由服务端返回异常</li>
+ *   <li>consumer-first: 消费端先用同一份校验计划校验，不合法的请求在本地返回</li>
+ * </ul>
+ * 网络流量为转发两个方向的字节数；服务端CPU为Netty服务端IO线程和Dubbo业务线程的CPU时间之和。
+ * 参数: -Dbenchmark.requests、-Dbenchmark.invalid-rate、-Dbenchmark.threads、-Dbenchmark.port。
+ */
+public class ConsumerValidationBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 100_000);
+    private static final double INVALID_RATE = Double.parseDouble(System.getProperty("benchmark.invalid-rate", "0.2"));
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+
+    private static final String[] PROVIDER_THREAD_PREFIXES = {"NettyServerWorker", "DubboServerHandler"};
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("benchmark.port", 20891);
+
+        ServiceConfig<GreetingsService> service = new ServiceConfig<>();
+        service.setInterface(GreetingsService.class);
+        service.setRef(new GreetingImpl());
+        service.setParameters(Collections.singletonMap(VALIDATION_PLAN_KEY, "true"));
+
+        ByteCountingRelay relay = new ByteCountingRelay(new InetSocketAddress("127.0.0.1", port));
+        ReferenceConfig<GreetingsService> providerOnly = reference("providerOnly", relay.getPort(), false);
+        ReferenceConfig<GreetingsService> consumerFirst = reference("consumerFirst", relay.getPort(), true);
+
+        DubboBootstrap bootstrap = DubboBootstrap.getInstance()
+                .application(new ApplicationConfig("validation-benchmark"))
+                .registry(new RegistryConfig("N/A"))
+                .protocol(new ProtocolConfig("dubbo", port))
+                .service(service)
+                .reference(providerOnly)
+                .reference(consumerFirst);
+        bootstrap.start();
+
+        GreetingRequest[] requests = requests(REQUESTS, INVALID_RATE, new Random(42));
+
+        // 预热
+        run(providerOnly.get(), requests, REQUESTS / 5, relay);
+        run(consumerFirst.get(), requests, REQUESTS / 5, relay);
+
+        Phase remote = run(providerOnly.get(), requests, REQUESTS, relay);
+        Phase local = run(consumerFirst.get(), requests, REQUESTS, relay);
+
+        System.out.printf("requests=%d, invalid-rate=%.0f%%, threads=%d%n", REQUESTS, INVALID_RATE * 100, THREADS);
+        System.out.printf("%-16s %10s %14s %14s %14s %12s %14s %12s%n", "mode", "rejected", "provider calls",
+                "wire bytes", "bytes/request", "provider CPU", "CPU/request", "elapsed");
+        remote.print("provider-only");
+        local.print("consumer-first");
+        System.out.printf("saved: wire traffic %.1f%%, provider CPU %.1f%%, provider calls %.1f%%%n",
+                saving(remote.wireBytes(), local.wireBytes()),
+                saving(remote.providerCpuNanos, local.providerCpuNanos),
+                saving(remote.providerCalls, local.providerCalls));
+
+        bootstrap.stop();
+        relay.close();
+    }
+
+    private static ReferenceConfig<GreetingsService> reference(String id, int port, boolean validateOnConsumer) {
+        ReferenceConfig<GreetingsService> reference = new ReferenceConfig<>();
+        reference.setId(id);
+        reference.setInterface(GreetingsService.class);
+        reference.setUrl("dubbo://127.0.0.1:" + port);
+        reference.setTimeout(10_000);
+        reference.setParameters(Collections.singletonMap(VALIDATION_PLAN_KEY, String.valueOf(validateOnConsumer)));
+        return reference;
+    }
+
+    /**
+     * 不合法的请求轮流违反不同的约束
+     */
+    private static GreetingRequest[] requests(int count, double invalidRate, Random random) {
+        GreetingRequest[] requests = new GreetingRequest[count];
+        for (int i = 0; i < count; i++) {
+            GreetingRequest request = new GreetingRequest("user" + i, 20 + i % 50, "user" + i + "@example.com", "en_US");
+            if (random.nextDouble() < invalidRate) {
+                switch (i % 4) {
+                    case 0:
+                        request.setName(" ");
+                        break;
+                    case 1:
+                        request.setAge(-1);
+                        break;
+                    case 2:
+                        request.setEmail("user" + i);
+                        break;
+                    default:
+                        request.setLocale("english");
+                }
+            }
+            requests[i] = request;
+        }
+        return requests;
+    }
+
+    private static Phase run(GreetingsService service, GreetingRequest[] requests, int count, ByteCountingRelay relay)
+            throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long up = relay.getUpstreamBytes();
+        long down = relay.getDownstreamBytes();
+        long providerCalls = PrecompiledValidationFilter.getValidatedCount();
+        Map<Long, Long> cpu = providerCpu(threads);
+
+        AtomicInteger next = new AtomicInteger();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long begin = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < count) {
+                    try {
+                        service.greet(requests[i % requests.length]);
+                    } catch (ValidationException e) {
+                        rejected.increment();
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - begin;
+
+        Phase phase = new Phase();
+        phase.requests = count;
+        phase.rejected = rejected.sum();
+        phase.failed = failed.sum();
+        phase.providerCalls = PrecompiledValidationFilter.getValidatedCount() - providerCalls;
+        phase.upstreamBytes = relay.getUpstreamBytes() - up;
+        phase.downstreamBytes = relay.getDownstreamBytes() - down;
+        phase.providerCpuNanos = cpuSince(threads, cpu);
+        phase.elapsedNanos = elapsed;
+        return phase;
+    }
+
+    private static Map<Long, Long> providerCpu(ThreadMXBean threads) {
+        Map<Long, Long> cpu = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (isProviderThread(thread.getName())) {
+                cpu.put(thread.getId(), threads.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return cpu;
+    }
+
+    /**
+     * 期间新建的线程从0开始计算
+     */
+    private static long cpuSince(ThreadMXBean threads, Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : providerCpu(threads).entrySet()) {
+            total += Math.max(0, entry.getValue() - before.getOrDefault(entry.getKey(), 0L));
+        }
+        return total;
+    }
+
+    private static boolean isProviderThread(String name) {
+        for (String prefix : PROVIDER_THREAD_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double saving(long before, long after) {
+        return before == 0 ? 0 : (before - after) * 100.0 / before;
+    }
+
+    private static class Phase {
+        int requests;
+        long rejected;
+        long failed;
+        long providerCalls;
+        long upstreamBytes;
+        long downstreamBytes;
+        long providerCpuNanos;
+        long elapsedNanos;
+
+        long wireBytes() {
+            return upstreamBytes + downstreamBytes;
+        }
+
+        void print(String mode) {
+            System.out.printf("%-16s %10d %14d %14d %14d %10dms %12dus %10dms%n", mode, rejected, providerCalls,
+                    wireBytes(), wireBytes() / requests, TimeUnit.NANOSECONDS.toMillis(providerCpuNanos),
+                    TimeUnit.NANOSECONDS.toMicros(providerCpuNanos / requests), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            if (failed > 0) {
+                System.out.println("  failed: " + failed);
+            }
+        }
+    }
+}
@@ -20,8 +20,11 @@
 package org.apache.dubbo.samples.validation;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.validation.filter.ConsumerValidationFilter;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import javax.validation.ValidationException;
+
 public class ValidationConsumer {
 
     public static void main(String[] args) throws Exception {
@@ -45,6 +48,15 @@ public class ValidationConsumer {
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientResponseContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getServiceContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientAttachment().getAttachment("server-key2"));
+
+        // 参数校验: 合法的请求正常返回，不合法的请求在消费端被拒绝，不发送到服务端
+        System.out.println(validationService.greet(new GreetingRequest("dubbo", 18, "dubbo@apache.org", "zh_CN")));
+        try {
+            validationService.greet(new GreetingRequest(" ", 200, "not-an-email", "chinese"));
+        } catch (ValidationException e) {
+            System.out.println("rejected: " + e.getMessage());
+        }
+        System.out.println("rejected locally: " + ConsumerValidationFilter.getRejectedCount());
         context.close();
     }
 }
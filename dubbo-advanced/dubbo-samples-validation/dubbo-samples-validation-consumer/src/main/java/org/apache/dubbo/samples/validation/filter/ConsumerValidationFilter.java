@@ -0,0 +1,81 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.filter.ClusterFilter;
+import org.apache.dubbo.samples.validation.plan.MethodValidationPlan;
+import org.apache.dubbo.samples.validation.plan.ServiceValidationPlan;
+import org.apache.dubbo.samples.validation.plan.UnsupportedConstraintException;
+
+import javax.validation.ValidationException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.samples.validation.plan.ValidationPlanConstants.VALIDATION_PLAN_KEY;
+
+/**
+ * 消费端参数预校验
+ * <p>
+ * 引用或方法配置 validation.plan=true 时，在路由、负载均衡和序列化之前执行与服务端相同的校验计划，
+ * 不合法的请求直接在本地返回 {@link ValidationException}，不产生网络IO，也不占用服务端资源。
+ * 合法的请求照常发送，服务端的校验仍然是最终依据: 计划不支持的方法(自定义约束、分组等)在这里直接放行，
+ * 接口版本不一致导致的差异也由服务端兜底。
+ */
+@Activate(group = CommonConstants.CONSUMER, order = 10000)
+public class ConsumerValidationFilter implements ClusterFilter {
+
+    private static final LongAdder VALIDATED = new LongAdder();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder SKIPPED = new LongAdder();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        String methodName = invocation.getMethodName();
+        if (!invoker.getUrl().getMethodParameter(methodName, VALIDATION_PLAN_KEY, false)) {
+            return invoker.invoke(invocation);
+        }
+        MethodValidationPlan plan = ServiceValidationPlan.forInterface(invoker.getInterface())
+                .getMethodPlan(methodName, invocation.getParameterTypes());
+        if (plan == null) {
+            // 泛化调用等，交给服务端校验
+            return invoker.invoke(invocation);
+        }
+        List<String> violations;
+        try {
+            violations = plan.validate(invocation.getArguments());
+        } catch (UnsupportedConstraintException e) {
+            SKIPPED.increment();
+            return invoker.invoke(invocation);
+        }
+        VALIDATED.increment();
+        if (!violations.isEmpty()) {
+            REJECTED.increment();
+            return AsyncRpcResult.newDefaultAsyncResult(
+                    new ValidationException(plan.toMessage(invoker.getInterface(), violations)), invocation);
+        }
+        return invoker.invoke(invocation);
+    }
+
+    public static long getValidatedCount() {
+        return VALIDATED.sum();
+    }
+
+    /**
+     * 在本地拒绝、没有发送到服务端的调用数
+     */
+    public static long getRejectedCount() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * 计划不支持、未经本地校验直接发送的调用数
+     */
+    public static long getSkippedCount() {
+        return SKIPPED.sum();
+    }
+}
@@ -0,0 +1,33 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.InvokerListener;
+import org.apache.dubbo.samples.validation.plan.ServiceValidationPlan;
+
+/**
+ * 服务引用时编译校验计划，避免第一次调用时才做反射
+ */
+@Activate
+public class ValidationPlanInvokerListener implements InvokerListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationPlanInvokerListener.class);
+
+    @Override
+    public void referred(Invoker<?> invoker) {
+        if (ServiceValidationPlan.isPlanEnabled(invoker.getUrl(), invoker.getInterface())) {
+            // 每个接口只编译一次，引用多个提供者时后续直接取缓存
+            ServiceValidationPlan plan = ServiceValidationPlan.forInterface(invoker.getInterface());
+            if (logger.isInfoEnabled()) {
+                logger.info("Validation plan of referred " + plan);
+            }
+        }
+    }
+
+    @Override
+    public void destroyed(Invoker<?> invoker) {
+        // 计划按接口缓存，与接口类的生命周期一致
+    }
+}
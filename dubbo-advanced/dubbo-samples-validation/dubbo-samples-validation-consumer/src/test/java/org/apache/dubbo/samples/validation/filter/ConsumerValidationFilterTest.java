@@ -0,0 +1,121 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.validation.GreetingRequest;
+import org.apache.dubbo.samples.validation.GreetingsService;
+import org.junit.Test;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import javax.validation.ValidationException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * ConsumerValidationFilter 测试
+ */
+public class ConsumerValidationFilterTest {
+
+    private final ConsumerValidationFilter filter = new ConsumerValidationFilter();
+    private final AtomicInteger sent = new AtomicInteger();
+
+    @Test
+    public void testRejectsLocally() {
+        URL url = URL.valueOf("consumer://127.0.0.1/" + GreetingsService.class.getName() + "?validation.plan=true");
+        Invoker<GreetingsService> invoker = invoker(GreetingsService.class, url);
+        long rejected = ConsumerValidationFilter.getRejectedCount();
+
+        Result result = filter.invoke(invoker, invocation("greet", GreetingRequest.class,
+                new GreetingRequest("dubbo", 18, "dubbo@apache.org", "en")));
+        assertEquals("sent", result.getValue());
+        assertEquals(1, sent.get());
+
+        result = filter.invoke(invoker, invocation("greet", GreetingRequest.class,
+                new GreetingRequest("", 18, "dubbo@apache.org", "en")));
+        assertTrue(result.getException() instanceof ValidationException);
+        assertTrue(result.getException().getMessage().endsWith("cause: [arg0.name: must not be blank]"));
+        assertEquals(1, sent.get());
+        assertEquals(rejected + 1, ConsumerValidationFilter.getRejectedCount());
+
+        result = filter.invoke(invoker, invocation("sayHi", String.class, null));
+        assertTrue(result.getException() instanceof ValidationException);
+        assertEquals(1, sent.get());
+    }
+
+    @Test
+    public void testProviderRemainsAuthority() {
+        // 未开启时全部发送
+        URL url = URL.valueOf("consumer://127.0.0.1/" + GreetingsService.class.getName());
+        filter.invoke(invoker(GreetingsService.class, url), invocation("sayHi", String.class, ""));
+        assertEquals(1, sent.get());
+
+        // 计划不支持的约束不在本地判断
+        long skipped = ConsumerValidationFilter.getSkippedCount();
+        url = URL.valueOf("consumer://127.0.0.1/" + CustomService.class.getName() + "?validation.plan=true");
+        Result result = filter.invoke(invoker(CustomService.class, url), invocation("submit", int.class, 3));
+        assertFalse(result.hasException());
+        assertEquals(2, sent.get());
+        assertEquals(skipped + 1, ConsumerValidationFilter.getSkippedCount());
+    }
+
+    @Constraint(validatedBy = {})
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Even {
+        String message() default "must be even";
+
+        Class<?>[] groups() default {};
+
+        Class<? extends Payload>[] payload() default {};
+    }
+
+    public interface CustomService {
+
+        void submit(@Even int value);
+    }
+
+    private static Invocation invocation(String methodName, Class<?> parameterType, Object argument) {
+        return new RpcInvocation(methodName, GreetingsService.class.getName(), null,
+                new Class<?>[]{parameterType}, new Object[]{argument});
+    }
+
+    private <T> Invoker<T> invoker(Class<T> type, URL url) {
+        return new Invoker<T>() {
+            @Override
+            public Class<T> getInterface() {
+                return type;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                sent.incrementAndGet();
+                return AsyncRpcResult.newDefaultAsyncResult("sent", invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
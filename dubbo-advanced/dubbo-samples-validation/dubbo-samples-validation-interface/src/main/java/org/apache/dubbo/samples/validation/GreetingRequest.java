@@ -0,0 +1,80 @@
+package org.apache.dubbo.samples.validation;
+
+import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+
+/**
+ * 问候请求，字段约束由服务端校验
+ */
+public class GreetingRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotBlank
+    @Size(max = 32)
+    private String name;
+
+    @Min(0)
+    @Max(150)
+    private int age;
+
+    @NotNull
+    @Email
+    private String email;
+
+    @Pattern(regexp = "[a-z]{2}(_[A-Z]{2})?")
+    private String locale;
+
+    public GreetingRequest() {
+    }
+
+    public GreetingRequest(String name, int age, String email, String locale) {
+        this.name = name;
+        this.age = age;
+        this.email = email;
+        this.locale = locale;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public void setLocale(String locale) {
+        this.locale = locale;
+    }
+
+    @Override
+    public String toString() {
+        return "GreetingRequest{name='" + name + "', age=" + age + ", email='" + email + "', locale='" + locale + "'}";
+    }
+}
@@ -17,7 +17,16 @@
 
 package org.apache.dubbo.samples.validation;
 
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
 public interface GreetingsService {
 
-    String sayHi(String name);
+    String sayHi(@NotBlank @Size(max = 32) String name);
+
+    /**
+     * 按请求中的语言问候，请求字段的约束见 {@link GreetingRequest}
+     */
+    String greet(@NotNull GreetingRequest request);
 }
@@ -0,0 +1,271 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import javax.validation.Valid;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 一个类的校验计划: 带约束或 {@link Valid} 的字段和getter，以及每个属性编译好的约束和读取函数
+ * <p>
+ * 每个类只编译一次，缓存在 {@link ClassValue} 中。级联校验(@Valid)按值的实际类型取对应的计划，
+ * 集合、Map和数组逐个元素校验；级联深度超过 {@link #MAX_DEPTH} 时不再深入，避免循环引用导致栈溢出。
+ */
+public final class BeanValidationPlan {
+
+    static final int MAX_DEPTH = 16;
+
+    static final BeanValidationPlan EMPTY = new BeanValidationPlan(Object.class, new Property[0], null);
+
+    private static final ClassValue<BeanValidationPlan> PLANS = new ClassValue<BeanValidationPlan>() {
+        @Override
+        protected BeanValidationPlan computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Property[] properties;
+    private final String unsupportedReason;
+
+    private BeanValidationPlan(Class<?> type, Property[] properties, String unsupportedReason) {
+        this.type = type;
+        this.properties = properties;
+        this.unsupportedReason = unsupportedReason;
+    }
+
+    public static BeanValidationPlan forClass(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isSupported() {
+        return unsupportedReason == null;
+    }
+
+    /**
+     * @return 不支持的原因，支持时返回null
+     */
+    public String getUnsupportedReason() {
+        return unsupportedReason;
+    }
+
+    public boolean isEmpty() {
+        return properties.length == 0;
+    }
+
+    /**
+     * 本类直接声明的约束个数，不含级联的类
+     */
+    public int getConstraintCount() {
+        int count = 0;
+        for (Property property : properties) {
+            count += property.checks.length;
+        }
+        return count;
+    }
+
+    /**
+     * 校验一个对象
+     *
+     * @param path       对象在参数中的路径，用于违例信息
+     * @param violations 已收集的违例信息，可以为null
+     * @return 追加后的违例信息；没有任何违例时原样返回传入的值
+     * @throws UnsupportedConstraintException 级联到了不支持的类
+     */
+    List<String> validate(Object bean, String path, List<String> violations, int depth) {
+        if (unsupportedReason != null) {
+            throw new UnsupportedConstraintException(unsupportedReason);
+        }
+        for (Property property : properties) {
+            Object value = property.accessor.apply(bean);
+            for (ConstraintCheck check : property.checks) {
+                if (!check.isValid(value)) {
+                    violations = add(violations, path + "." + property.name + ": " + check.getMessage());
+                }
+            }
+            if (property.cascade && value != null && depth < MAX_DEPTH) {
+                violations = cascade(value, path + "." + property.name, violations, depth + 1);
+            }
+        }
+        return violations;
+    }
+
+    private static List<String> cascade(Object value, String path, List<String> violations, int depth) {
+        if (value instanceof Iterable) {
+            int i = 0;
+            for (Object element : (Iterable<?>) value) {
+                violations = cascadeElement(element, path + "[" + i++ + "]", violations, depth);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                violations = cascadeElement(entry.getValue(), path + "[" + entry.getKey() + "]", violations, depth);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            for (int i = 0; i < array.length; i++) {
+                violations = cascadeElement(array[i], path + "[" + i + "]", violations, depth);
+            }
+        } else {
+            violations = forClass(value.getClass()).validate(value, path, violations, depth);
+        }
+        return violations;
+    }
+
+    private static List<String> cascadeElement(Object element, String path, List<String> violations, int depth) {
+        return element == null ? violations : forClass(element.getClass()).validate(element, path, violations, depth);
+    }
+
+    static List<String> add(List<String> violations, String violation) {
+        if (violations == null) {
+            violations = new ArrayList<>(4);
+        }
+        violations.add(violation);
+        return violations;
+    }
+
+    private static BeanValidationPlan compile(Class<?> type) {
+        if (!isBean(type)) {
+            return EMPTY;
+        }
+        List<Property> properties = new ArrayList<>();
+        String unsupportedReason = null;
+        try {
+            for (Annotation annotation : type.getAnnotations()) {
+                if (ConstraintCompiler.isConstraint(annotation)) {
+                    throw new UnsupportedConstraintException("class level constraint @"
+                            + annotation.annotationType().getName() + " on " + type.getName());
+                }
+            }
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    checkContainerElements(field, field.getAnnotatedType());
+                    if (isConstrained(field)) {
+                        properties.add(new Property(field.getName(), PropertyAccessors.forField(field),
+                                compileChecks(field, field.getType()), field.isAnnotationPresent(Valid.class)));
+                    }
+                }
+                for (Method method : c.getDeclaredMethods()) {
+                    String name = propertyName(method);
+                    if (name == null || method.isBridge()) {
+                        continue;
+                    }
+                    checkContainerElements(method, method.getAnnotatedReturnType());
+                    if (isConstrained(method)) {
+                        properties.add(new Property(name, PropertyAccessors.forGetter(method),
+                                compileChecks(method, method.getReturnType()), method.isAnnotationPresent(Valid.class)));
+                    }
+                }
+            }
+        } catch (UnsupportedConstraintException e) {
+            unsupportedReason = type.getName() + ": " + e.getMessage();
+        }
+        if (unsupportedReason == null && properties.isEmpty()) {
+            return EMPTY;
+        }
+        return new BeanValidationPlan(type, properties.toArray(new Property[0]), unsupportedReason);
+    }
+
+    /**
+     * JDK自带的类型、基本类型、数组和枚举不作为Bean检查
+     */
+    private static boolean isBean(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isAnnotation()) {
+            return false;
+        }
+        String name = type.getName();
+        return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("jdk.");
+    }
+
+    private static boolean isConstrained(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            if (annotation instanceof Valid || ConstraintCompiler.isConstraint(annotation)
+                    || ConstraintCompiler.isConstraintList(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ConstraintCheck[] compileChecks(AnnotatedElement element, Class<?> type) {
+        List<ConstraintCheck> checks = new ArrayList<>();
+        for (Annotation annotation : element.getAnnotations()) {
+            ConstraintCheck check = ConstraintCompiler.compile(annotation, type);
+            if (check != null) {
+                checks.add(check);
+            }
+        }
+        return checks.toArray(new ConstraintCheck[0]);
+    }
+
+    /**
+     * 容器元素上的约束(如 {@code List<@NotNull String>})需要按元素执行，暂不支持
+     */
+    static void checkContainerElements(Member member, AnnotatedType type) {
+        AnnotatedType[] elements;
+        if (type instanceof AnnotatedParameterizedType) {
+            elements = ((AnnotatedParameterizedType) type).getAnnotatedActualTypeArguments();
+        } else if (type instanceof AnnotatedArrayType) {
+            elements = new AnnotatedType[]{((AnnotatedArrayType) type).getAnnotatedGenericComponentType()};
+        } else {
+            return;
+        }
+        for (AnnotatedType element : elements) {
+            for (Annotation annotation : element.getAnnotations()) {
+                if (ConstraintCompiler.isConstraint(annotation)) {
+                    throw new UnsupportedConstraintException("container element constraint on " + member);
+                }
+            }
+            checkContainerElements(member, element);
+        }
+    }
+
+    /**
+     * @return getter对应的属性名，不是getter时返回null
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) {
+            return null;
+        }
+        String name = method.getName();
+        String suffix;
+        if (name.startsWith("get") && name.length() > 3 && method.getReturnType() != void.class) {
+            suffix = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+            suffix = name.substring(2);
+        } else {
+            return null;
+        }
+        return Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+    }
+
+    private static final class Property {
+        final String name;
+        final Function<Object, Object> accessor;
+        final ConstraintCheck[] checks;
+        final boolean cascade;
+
+        Property(String name, Function<Object, Object> accessor, ConstraintCheck[] checks, boolean cascade) {
+            this.name = name;
+            this.accessor = accessor;
+            this.checks = checks;
+            this.cascade = cascade;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import java.util.function.Predicate;
+
+/**
+ * 编译后的单个约束
+ * <p>
+ * 判断逻辑和违例信息在编译时确定，校验时只执行判断，不再读取注解。
+ */
+public final class ConstraintCheck {
+
+    private final String name;
+    private final Predicate<Object> predicate;
+    private final String message;
+
+    ConstraintCheck(String name, Predicate<Object> predicate, String message) {
+        this.name = name;
+        this.predicate = predicate;
+        this.message = message;
+    }
+
+    public boolean isValid(Object value) {
+        return predicate.test(value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + name;
+    }
+}
@@ -0,0 +1,336 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import javax.validation.Constraint;
+import javax.validation.constraints.AssertFalse;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * 把约束注解编译为 {@link ConstraintCheck}
+ * <p>
+ * 支持常用的内置约束: NotNull、NotEmpty、NotBlank、Size、Min、Max、Positive、PositiveOrZero、
+ * Pattern、Email、AssertTrue、AssertFalse，判断规则与Hibernate Validator一致。
+ * 以下情况抛出 {@link UnsupportedConstraintException}，由调用方回退到完整的Bean Validation:
+ * 自定义约束、指定了非默认分组、消息模板引用其他消息键或EL表达式、约束与声明类型不匹配。
+ */
+final class ConstraintCompiler {
+
+    private static final String DEFAULT_MESSAGE_PREFIX = "{javax.validation.constraints.";
+
+    // 与Hibernate Validator的AbstractEmailValidator规则一致
+    private static final String LOCAL_PART_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]";
+    private static final String LOCAL_PART_QUOTED = "\"(?:[a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\")+\"";
+    private static final String LOCAL_PART_WORD = "(?:" + LOCAL_PART_ATOM + "+|" + LOCAL_PART_QUOTED + ")";
+    private static final java.util.regex.Pattern EMAIL_LOCAL_PART = java.util.regex.Pattern.compile(
+            LOCAL_PART_WORD + "(?:\\." + LOCAL_PART_WORD + ")*", java.util.regex.Pattern.CASE_INSENSITIVE);
+    private static final String DOMAIN_LABEL = "[\\p{Alnum}\u0080-\uFFFF](?:[\\p{Alnum}\u0080-\uFFFF-]{0,61}[\\p{Alnum}\u0080-\uFFFF])?";
+    private static final java.util.regex.Pattern EMAIL_DOMAIN = java.util.regex.Pattern.compile(
+            DOMAIN_LABEL + "(?:\\." + DOMAIN_LABEL + ")*"
+                    + "|\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}]"
+                    + "|\\[IPv6:[0-9a-f:.]+]", java.util.regex.Pattern.CASE_INSENSITIVE);
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+
+    private ConstraintCompiler() {
+    }
+
+    static boolean isConstraint(Annotation annotation) {
+        return annotation.annotationType().isAnnotationPresent(Constraint.class);
+    }
+
+    /**
+     * @param type 属性或参数的声明类型，用于提前发现不匹配的约束
+     * @return 不是约束注解时返回null
+     */
+    static ConstraintCheck compile(Annotation annotation, Class<?> type) {
+        Class<?> boxed = box(type);
+        if (!isConstraint(annotation)) {
+            if (isConstraintList(annotation)) {
+                throw unsupported(annotation, "repeated constraints");
+            }
+            return null;
+        }
+        if (annotation instanceof NotNull) {
+            NotNull c = (NotNull) annotation;
+            checkGroups(annotation, c.groups());
+            return check(annotation, Objects::nonNull, message(annotation, c.message(), "must not be null"));
+        }
+        if (annotation instanceof NotEmpty) {
+            NotEmpty c = (NotEmpty) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isSized(boxed), type);
+            return check(annotation, v -> v != null && sizeOf(annotation, v) > 0,
+                    message(annotation, c.message(), "must not be empty"));
+        }
+        if (annotation instanceof NotBlank) {
+            NotBlank c = (NotBlank) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isText(boxed), type);
+            return check(annotation, v -> v != null && !isBlank(text(annotation, v)),
+                    message(annotation, c.message(), "must not be blank"));
+        }
+        if (annotation instanceof Size) {
+            Size c = (Size) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isSized(boxed), type);
+            int min = c.min();
+            int max = c.max();
+            return check(annotation, v -> {
+                if (v == null) {
+                    return true;
+                }
+                int size = sizeOf(annotation, v);
+                return size >= min && size <= max;
+            }, message(annotation, c.message(), "size must be between {min} and {max}", "min", min, "max", max));
+        }
+        if (annotation instanceof Min) {
+            Min c = (Min) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isNumber(boxed), type);
+            long min = c.value();
+            return check(annotation, v -> v == null || compare(annotation, v, min, -1) >= 0,
+                    message(annotation, c.message(), "must be greater than or equal to {value}", "value", min));
+        }
+        if (annotation instanceof Max) {
+            Max c = (Max) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isNumber(boxed), type);
+            long max = c.value();
+            return check(annotation, v -> v == null || compare(annotation, v, max, 1) <= 0,
+                    message(annotation, c.message(), "must be less than or equal to {value}", "value", max));
+        }
+        if (annotation instanceof Positive) {
+            Positive c = (Positive) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isNumber(boxed), type);
+            return check(annotation, v -> v == null || compare(annotation, v, 0, -1) > 0,
+                    message(annotation, c.message(), "must be greater than 0"));
+        }
+        if (annotation instanceof PositiveOrZero) {
+            PositiveOrZero c = (PositiveOrZero) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isNumber(boxed), type);
+            return check(annotation, v -> v == null || compare(annotation, v, 0, -1) >= 0,
+                    message(annotation, c.message(), "must be greater than or equal to 0"));
+        }
+        if (annotation instanceof Pattern) {
+            Pattern c = (Pattern) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isText(boxed), type);
+            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(c.regexp(), flags(c.flags()));
+            return check(annotation, v -> v == null || pattern.matcher(text(annotation, v)).matches(),
+                    message(annotation, c.message(), "must match \"{regexp}\"", "regexp", c.regexp()));
+        }
+        if (annotation instanceof Email) {
+            Email c = (Email) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, isText(boxed), type);
+            java.util.regex.Pattern extra = ".*".equals(c.regexp()) ? null
+                    : java.util.regex.Pattern.compile(c.regexp(), flags(c.flags()));
+            return check(annotation, v -> {
+                if (v == null) {
+                    return true;
+                }
+                CharSequence value = text(annotation, v);
+                return isEmail(value) && (extra == null || extra.matcher(value).matches());
+            }, message(annotation, c.message(), "must be a well-formed email address"));
+        }
+        if (annotation instanceof AssertTrue) {
+            AssertTrue c = (AssertTrue) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, boxed == Boolean.class || boxed == Object.class, type);
+            return check(annotation, v -> v == null || Boolean.TRUE.equals(v),
+                    message(annotation, c.message(), "must be true"));
+        }
+        if (annotation instanceof AssertFalse) {
+            AssertFalse c = (AssertFalse) annotation;
+            checkGroups(annotation, c.groups());
+            checkType(annotation, boxed == Boolean.class || boxed == Object.class, type);
+            return check(annotation, v -> v == null || Boolean.FALSE.equals(v),
+                    message(annotation, c.message(), "must be false"));
+        }
+        throw unsupported(annotation, "constraint not supported");
+    }
+
+    private static ConstraintCheck check(Annotation annotation, Predicate<Object> predicate, String message) {
+        return new ConstraintCheck(annotation.annotationType().getSimpleName(), predicate, message);
+    }
+
+    /**
+     * 默认消息模板替换为Hibernate Validator的英文默认消息，并替换约束属性占位符
+     *
+     * @param attributes 占位符名与值交替排列
+     */
+    private static String message(Annotation annotation, String template, String defaultText, Object... attributes) {
+        String defaultTemplate = DEFAULT_MESSAGE_PREFIX + annotation.annotationType().getSimpleName() + ".message}";
+        String text = defaultTemplate.equals(template) ? defaultText : template;
+        String stripped = text;
+        for (int i = 0; i < attributes.length; i += 2) {
+            stripped = stripped.replace("{" + attributes[i] + "}", "");
+        }
+        if (stripped.indexOf('{') >= 0) {
+            // 其他消息键或EL表达式需要完整的消息插值
+            throw unsupported(annotation, "message template " + template);
+        }
+        for (int i = 0; i < attributes.length; i += 2) {
+            text = text.replace("{" + attributes[i] + "}", String.valueOf(attributes[i + 1]));
+        }
+        return text;
+    }
+
+    private static void checkGroups(Annotation annotation, Class<?>[] groups) {
+        for (Class<?> group : groups) {
+            if (group != Default.class) {
+                throw unsupported(annotation, "group " + group.getName());
+            }
+        }
+    }
+
+    private static void checkType(Annotation annotation, boolean supported, Class<?> type) {
+        if (!supported) {
+            throw unsupported(annotation, "type " + type.getName());
+        }
+    }
+
+    static boolean isConstraintList(Annotation annotation) {
+        Class<?> enclosing = annotation.annotationType().getEnclosingClass();
+        return "List".equals(annotation.annotationType().getSimpleName())
+                && enclosing != null && enclosing.isAnnotationPresent(Constraint.class);
+    }
+
+    private static UnsupportedConstraintException unsupported(Annotation annotation, String reason) {
+        return new UnsupportedConstraintException("@" + annotation.annotationType().getName() + ": " + reason);
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    // 声明类型为Object时无法在编译时判断，由运行时的值决定
+
+    private static boolean isSized(Class<?> type) {
+        return type == Object.class || CharSequence.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type) || type.isArray();
+    }
+
+    private static boolean isText(Class<?> type) {
+        return type == Object.class || CharSequence.class.isAssignableFrom(type);
+    }
+
+    private static boolean isNumber(Class<?> type) {
+        return type == Object.class || type == Integer.class || type == Long.class || type == Short.class
+                || type == Byte.class || type == Double.class || type == Float.class
+                || type == BigDecimal.class || type == BigInteger.class;
+    }
+
+    private static int sizeOf(Annotation annotation, Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        } else if (value instanceof Object[]) {
+            return ((Object[]) value).length;
+        } else if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        throw unsupported(annotation, "type " + value.getClass().getName());
+    }
+
+    private static CharSequence text(Annotation annotation, Object value) {
+        if (value instanceof CharSequence) {
+            return (CharSequence) value;
+        }
+        throw unsupported(annotation, "type " + value.getClass().getName());
+    }
+
+    /**
+     * 与String.trim()的规则一致
+     */
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param nanResult 浮点数为NaN时的比较结果，使NaN总是不满足约束
+     */
+    private static int compare(Annotation annotation, Object value, long bound, int nanResult) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Long.compare(((Number) value).longValue(), bound);
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isNaN(d) ? nanResult : Double.compare(d, bound);
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).compareTo(BigDecimal.valueOf(bound));
+        } else if (value instanceof BigInteger) {
+            return ((BigInteger) value).compareTo(BigInteger.valueOf(bound));
+        }
+        throw unsupported(annotation, "type " + value.getClass().getName());
+    }
+
+    private static boolean isEmail(CharSequence value) {
+        if (value.length() == 0) {
+            return true;
+        }
+        String email = value.toString();
+        int at = email.lastIndexOf('@');
+        if (at < 0) {
+            return false;
+        }
+        String localPart = email.substring(0, at);
+        String domain = email.substring(at + 1);
+        return localPart.length() <= MAX_LOCAL_PART_LENGTH && domain.length() <= MAX_DOMAIN_LENGTH
+                && !domain.endsWith(".")
+                && EMAIL_LOCAL_PART.matcher(localPart).matches() && EMAIL_DOMAIN.matcher(domain).matches();
+    }
+
+    private static int flags(Pattern.Flag[] flags) {
+        int value = 0;
+        for (Pattern.Flag flag : flags) {
+            value |= flag.getValue();
+        }
+        return value;
+    }
+}
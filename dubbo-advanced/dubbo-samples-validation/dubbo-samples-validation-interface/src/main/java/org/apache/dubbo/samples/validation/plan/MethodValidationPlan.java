@@ -0,0 +1,139 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一个服务方法的校验计划
+ * <p>
+ * 与Dubbo默认的JValidation校验范围一致: 参数上的约束，以及每个参数对象自身声明的约束。
+ * 参数的声明类型在编译时就取得对应的 {@link BeanValidationPlan}，实际类型是子类时再按实际类型查找一次。
+ * 校验过程不读取注解、不做反射，全部通过时不分配对象。
+ */
+public final class MethodValidationPlan {
+
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+    private final String[] parameterNames;
+    private final ConstraintCheck[][] parameterChecks;
+    private final BeanValidationPlan[] parameterPlans;
+    private final String unsupportedReason;
+
+    private MethodValidationPlan(String methodName, Class<?>[] parameterTypes, String[] parameterNames,
+                                 ConstraintCheck[][] parameterChecks, BeanValidationPlan[] parameterPlans,
+                                 String unsupportedReason) {
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+        this.parameterNames = parameterNames;
+        this.parameterChecks = parameterChecks;
+        this.parameterPlans = parameterPlans;
+        this.unsupportedReason = unsupportedReason;
+    }
+
+    public static MethodValidationPlan compile(Method method) {
+        Parameter[] parameters = method.getParameters();
+        String[] names = new String[parameters.length];
+        ConstraintCheck[][] checks = new ConstraintCheck[parameters.length][];
+        BeanValidationPlan[] plans = new BeanValidationPlan[parameters.length];
+        String unsupportedReason = null;
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            names[i] = parameter.getName();
+            try {
+                BeanValidationPlan.checkContainerElements(method, parameter.getAnnotatedType());
+                checks[i] = BeanValidationPlan.compileChecks(parameter, parameter.getType());
+            } catch (UnsupportedConstraintException e) {
+                checks[i] = new ConstraintCheck[0];
+                unsupportedReason = names[i] + ": " + e.getMessage();
+            }
+            plans[i] = BeanValidationPlan.forClass(parameter.getType());
+            if (unsupportedReason == null && !plans[i].isSupported()) {
+                unsupportedReason = names[i] + ": " + plans[i].getUnsupportedReason();
+            }
+        }
+        return new MethodValidationPlan(method.getName(), method.getParameterTypes(), names, checks, plans,
+                unsupportedReason);
+    }
+
+    /**
+     * @return 违例信息，全部通过时返回空列表
+     * @throws UnsupportedConstraintException 计划不支持该方法，或参数的实际类型包含不支持的约束
+     */
+    public List<String> validate(Object[] arguments) {
+        if (unsupportedReason != null) {
+            throw new UnsupportedConstraintException(unsupportedReason);
+        }
+        List<String> violations = null;
+        for (int i = 0; i < parameterChecks.length; i++) {
+            Object argument = arguments[i];
+            for (ConstraintCheck check : parameterChecks[i]) {
+                if (!check.isValid(argument)) {
+                    violations = BeanValidationPlan.add(violations, parameterNames[i] + ": " + check.getMessage());
+                }
+            }
+            if (argument != null) {
+                BeanValidationPlan plan = argument.getClass() == parameterTypes[i]
+                        ? parameterPlans[i] : BeanValidationPlan.forClass(argument.getClass());
+                if (!plan.isEmpty()) {
+                    violations = plan.validate(argument, parameterNames[i], violations, 0);
+                }
+            }
+        }
+        return violations == null ? Collections.emptyList() : violations;
+    }
+
+    /**
+     * 与Dubbo默认校验失败时的异常信息格式一致
+     */
+    public String toMessage(Class<?> serviceInterface, List<String> violations) {
+        return "Failed to validate service: " + serviceInterface.getName() + ", method: " + methodName
+                + ", cause: " + violations;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    boolean matches(Class<?>[] types) {
+        if (types == null || types.length != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != parameterTypes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isSupported() {
+        return unsupportedReason == null;
+    }
+
+    public String getUnsupportedReason() {
+        return unsupportedReason;
+    }
+
+    /**
+     * 参数上的约束加上参数声明类型自身的约束
+     */
+    public int getConstraintCount() {
+        int count = 0;
+        for (int i = 0; i < parameterChecks.length; i++) {
+            count += parameterChecks[i].length + parameterPlans[i].getConstraintCount();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + "(" + parameterTypes.length + " parameters, " + getConstraintCount() + " constraints"
+                + (unsupportedReason == null ? "" : ", unsupported: " + unsupportedReason) + ")";
+    }
+}
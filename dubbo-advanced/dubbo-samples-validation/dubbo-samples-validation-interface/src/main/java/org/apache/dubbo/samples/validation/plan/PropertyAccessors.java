@@ -0,0 +1,95 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+/**
+ * 属性读取函数
+ * <p>
+ * 公有类的公有getter通过 {@link LambdaMetafactory} 生成函数对象，调用开销与直接调用getter相同；
+ * 其他情况(没有getter、类或方法不是公有的)使用方法句柄读取。两种方式都只在编译计划时做一次反射。
+ */
+final class PropertyAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private PropertyAccessors() {
+    }
+
+    static Function<Object, Object> forField(Field field) {
+        Method getter = findGetter(field);
+        if (getter != null) {
+            return forGetter(getter);
+        }
+        try {
+            field.setAccessible(true);
+            return wrap(LOOKUP.unreflectGetter(field), field.getDeclaringClass().getName() + "." + field.getName());
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new UnsupportedConstraintException("Cannot access field " + field + ": " + e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> forGetter(Method getter) {
+        if (Modifier.isPublic(getter.getModifiers()) && Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+            try {
+                MethodHandle target = LOOKUP.unreflect(getter);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                        OBJECT_GETTER, target, target.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                // 类加载器不可见等情况，改用方法句柄
+            }
+        }
+        try {
+            getter.setAccessible(true);
+            return wrap(LOOKUP.unreflect(getter), getter.getDeclaringClass().getName() + "." + getter.getName() + "()");
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new UnsupportedConstraintException("Cannot access method " + getter + ": " + e);
+        }
+    }
+
+    /**
+     * 按JavaBean规范查找字段对应的无参getter
+     */
+    static Method findGetter(Field field) {
+        String name = field.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Class<?> owner = field.getDeclaringClass();
+        Method getter = findMethod(owner, "get" + suffix);
+        if (getter == null && (field.getType() == boolean.class || field.getType() == Boolean.class)) {
+            getter = findMethod(owner, "is" + suffix);
+        }
+        return getter != null && getter.getReturnType() == field.getType() ? getter : null;
+    }
+
+    private static Method findMethod(Class<?> owner, String name) {
+        try {
+            Method method = owner.getDeclaredMethod(name);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Function<Object, Object> wrap(MethodHandle handle, String description) {
+        MethodHandle getter = handle.asType(OBJECT_GETTER);
+        return bean -> {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to read " + description, e);
+            }
+        };
+    }
+}
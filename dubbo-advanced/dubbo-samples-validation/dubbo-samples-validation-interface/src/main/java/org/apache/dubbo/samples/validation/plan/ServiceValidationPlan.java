@@ -0,0 +1,119 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import org.apache.dubbo.common.URL;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.dubbo.samples.validation.plan.ValidationPlanConstants.VALIDATION_PLAN_KEY;
+
+/**
+ * 服务接口所有方法的校验计划
+ * <p>
+ * 每个接口只编译一次，缓存在 {@link ClassValue} 中；在服务暴露或引用时调用 {@link #forInterface}
+ * 即可提前完成编译，调用时只需按方法名和参数类型查找。
+ */
+public final class ServiceValidationPlan {
+
+    private static final ClassValue<ServiceValidationPlan> PLANS = new ClassValue<ServiceValidationPlan>() {
+        @Override
+        protected ServiceValidationPlan computeValue(Class<?> type) {
+            return new ServiceValidationPlan(type);
+        }
+    };
+
+    private final Class<?> serviceInterface;
+    // 按方法名分组，重载方法再按参数类型区分
+    private final Map<String, MethodValidationPlan[]> methods = new HashMap<>();
+
+    private ServiceValidationPlan(Class<?> serviceInterface) {
+        this.serviceInterface = serviceInterface;
+        Map<String, List<MethodValidationPlan>> grouped = new HashMap<>();
+        for (Method method : serviceInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                grouped.computeIfAbsent(method.getName(), n -> new ArrayList<>()).add(MethodValidationPlan.compile(method));
+            }
+        }
+        grouped.forEach((name, plans) -> methods.put(name, plans.toArray(new MethodValidationPlan[0])));
+    }
+
+    public static ServiceValidationPlan forInterface(Class<?> serviceInterface) {
+        return PLANS.get(serviceInterface);
+    }
+
+    /**
+     * 服务URL上是否有方法开启了 {@link ValidationPlanConstants#VALIDATION_PLAN_KEY}，
+     * 提供者暴露和消费者引用时据此决定是否提前编译
+     */
+    public static boolean isPlanEnabled(URL url, Class<?> serviceInterface) {
+        for (Method method : serviceInterface.getMethods()) {
+            if (url.getMethodParameter(method.getName(), VALIDATION_PLAN_KEY, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 方法不存在(如泛化调用的$invoke)时返回null
+     */
+    public MethodValidationPlan getMethodPlan(String methodName, Class<?>[] parameterTypes) {
+        MethodValidationPlan[] plans = methods.get(methodName);
+        if (plans == null) {
+            return null;
+        }
+        for (MethodValidationPlan plan : plans) {
+            if (plan.matches(parameterTypes)) {
+                return plan;
+            }
+        }
+        return null;
+    }
+
+    public Class<?> getServiceInterface() {
+        return serviceInterface;
+    }
+
+    public int getMethodCount() {
+        int count = 0;
+        for (MethodValidationPlan[] plans : methods.values()) {
+            count += plans.length;
+        }
+        return count;
+    }
+
+    public int getConstraintCount() {
+        int count = 0;
+        for (MethodValidationPlan[] plans : methods.values()) {
+            for (MethodValidationPlan plan : plans) {
+                count += plan.getConstraintCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 需要回退到完整Bean Validation的方法
+     */
+    public List<MethodValidationPlan> getUnsupportedMethods() {
+        List<MethodValidationPlan> unsupported = new ArrayList<>();
+        for (MethodValidationPlan[] plans : methods.values()) {
+            for (MethodValidationPlan plan : plans) {
+                if (!plan.isSupported()) {
+                    unsupported.add(plan);
+                }
+            }
+        }
+        return unsupported;
+    }
+
+    @Override
+    public String toString() {
+        return serviceInterface.getName() + ": " + getMethodCount() + " methods, " + getConstraintCount()
+                + " constraints, " + getUnsupportedMethods().size() + " unsupported";
+    }
+}
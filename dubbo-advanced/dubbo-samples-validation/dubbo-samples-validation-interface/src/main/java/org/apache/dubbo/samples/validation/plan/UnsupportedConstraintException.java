@@ -0,0 +1,11 @@
+package org.apache.dubbo.samples.validation.plan;
+
+/**
+ * 约束不在校验计划的支持范围内，调用方应回退到完整的Bean Validation
+ */
+public class UnsupportedConstraintException extends IllegalArgumentException {
+
+    public UnsupportedConstraintException(String message) {
+        super(message);
+    }
+}
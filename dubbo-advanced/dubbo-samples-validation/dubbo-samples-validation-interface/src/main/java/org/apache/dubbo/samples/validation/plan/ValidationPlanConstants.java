@@ -0,0 +1,12 @@
+package org.apache.dubbo.samples.validation.plan;
+
+/**
+ * 校验计划相关的URL参数
+ */
+public interface ValidationPlanConstants {
+
+    /**
+     * 是否使用预编译的校验计划，可以配置到服务或方法上
+     */
+    String VALIDATION_PLAN_KEY = "validation.plan";
+}
@@ -0,0 +1,107 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.samples.validation.plan.MethodValidationPlan;
+import org.apache.dubbo.samples.validation.plan.ServiceValidationPlan;
+import org.apache.dubbo.samples.validation.plan.UnsupportedConstraintException;
+import org.apache.dubbo.validation.Validation;
+import org.apache.dubbo.validation.Validator;
+
+import javax.validation.ValidationException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.dubbo.samples.validation.plan.ValidationPlanConstants.VALIDATION_PLAN_KEY;
+
+/**
+ * 使用预编译校验计划的服务端参数校验
+ * <p>
+ * 服务或方法配置 validation.plan=true 时生效，用来替代Dubbo自带的ValidationFilter，两者不要同时配置。
+ * 校验计划在服务暴露时由 {@link ValidationPlanExporterListener} 编译好，调用时只按方法名和参数类型查找后执行。
+ * 计划不支持的方法(自定义约束、分组等)回退到Dubbo的 {@link Validation} 扩展，默认即JValidation。
+ * 校验失败时与ValidationFilter一样返回 {@link ValidationException}，不执行业务方法。
+ */
+@Activate(group = CommonConstants.PROVIDER, order = 10000)
+public class PrecompiledValidationFilter implements Filter {
+
+    private static final LongAdder VALIDATED = new LongAdder();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder FALLBACKS = new LongAdder();
+
+    private Validation validation;
+
+    /**
+     * 由Dubbo注入自适应扩展
+     */
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        String methodName = invocation.getMethodName();
+        if (!invoker.getUrl().getMethodParameter(methodName, VALIDATION_PLAN_KEY, false)) {
+            return invoker.invoke(invocation);
+        }
+        MethodValidationPlan plan = ServiceValidationPlan.forInterface(invoker.getInterface())
+                .getMethodPlan(methodName, invocation.getParameterTypes());
+        if (plan == null) {
+            // $echo等内置方法
+            return invoker.invoke(invocation);
+        }
+        List<String> violations;
+        try {
+            violations = plan.validate(invocation.getArguments());
+        } catch (UnsupportedConstraintException e) {
+            return fallback(invoker, invocation);
+        }
+        VALIDATED.increment();
+        if (!violations.isEmpty()) {
+            REJECTED.increment();
+            return AsyncRpcResult.newDefaultAsyncResult(
+                    new ValidationException(plan.toMessage(invoker.getInterface(), violations)), invocation);
+        }
+        return invoker.invoke(invocation);
+    }
+
+    private Result fallback(Invoker<?> invoker, Invocation invocation) {
+        FALLBACKS.increment();
+        if (validation != null) {
+            try {
+                Validator validator = validation.getValidator(invoker.getUrl());
+                if (validator != null) {
+                    validator.validate(invocation.getMethodName(), invocation.getParameterTypes(), invocation.getArguments());
+                }
+            } catch (RpcException e) {
+                throw e;
+            } catch (ValidationException e) {
+                return AsyncRpcResult.newDefaultAsyncResult(new ValidationException(e.getMessage()), invocation);
+            } catch (Throwable t) {
+                return AsyncRpcResult.newDefaultAsyncResult(t, invocation);
+            }
+        }
+        return invoker.invoke(invocation);
+    }
+
+    /**
+     * 经校验计划校验的调用数，不含回退的调用
+     */
+    public static long getValidatedCount() {
+        return VALIDATED.sum();
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED.sum();
+    }
+
+    public static long getFallbackCount() {
+        return FALLBACKS.sum();
+    }
+}
@@ -0,0 +1,38 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.ExporterListener;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.samples.validation.plan.MethodValidationPlan;
+import org.apache.dubbo.samples.validation.plan.ServiceValidationPlan;
+
+/**
+ * 服务暴露时编译校验计划，避免第一次调用时才做反射，并提前打印需要回退的方法
+ */
+@Activate
+public class ValidationPlanExporterListener implements ExporterListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationPlanExporterListener.class);
+
+    @Override
+    public void exported(Exporter<?> exporter) {
+        Invoker<?> invoker = exporter.getInvoker();
+        if (!ServiceValidationPlan.isPlanEnabled(invoker.getUrl(), invoker.getInterface())) {
+            return;
+        }
+        ServiceValidationPlan plan = ServiceValidationPlan.forInterface(invoker.getInterface());
+        logger.info("Compiled validation plan of " + plan);
+        for (MethodValidationPlan method : plan.getUnsupportedMethods()) {
+            logger.warn("Method " + method.getMethodName() + " of " + invoker.getInterface().getName()
+                    + " falls back to bean validation: " + method.getUnsupportedReason());
+        }
+    }
+
+    @Override
+    public void unexported(Exporter<?> exporter) {
+        // 计划按接口缓存，与接口类的生命周期一致
+    }
+}
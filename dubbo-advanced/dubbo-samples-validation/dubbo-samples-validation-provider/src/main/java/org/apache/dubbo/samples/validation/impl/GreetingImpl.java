@@ -21,6 +21,7 @@ package org.apache.dubbo.samples.validation.impl;
 
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.validation.GreetingRequest;
 import org.apache.dubbo.samples.validation.GreetingsService;
 
 public class GreetingImpl implements GreetingsService {
@@ -38,4 +39,11 @@ public class GreetingImpl implements GreetingsService {
         RpcContext.getServerContext().setAttachment("server-key2", "server-value2");
         return "hello, " + name;
     }
+
+    @Override
+    public String greet(GreetingRequest request) {
+        // 参数已由校验过滤器校验
+        String greeting = request.getLocale() != null && request.getLocale().startsWith("zh") ? "你好, " : "hello, ";
+        return greeting + request.getName() + " <" + request.getEmail() + ">";
+    }
 }
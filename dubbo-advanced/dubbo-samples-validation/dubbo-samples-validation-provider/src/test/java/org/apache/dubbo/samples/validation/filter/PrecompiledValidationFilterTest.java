@@ -0,0 +1,183 @@
+package org.apache.dubbo.samples.validation.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.samples.validation.GreetingRequest;
+import org.apache.dubbo.samples.validation.GreetingsService;
+import org.apache.dubbo.samples.validation.plan.MethodValidationPlan;
+import org.apache.dubbo.samples.validation.plan.ServiceValidationPlan;
+import org.junit.Test;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import javax.validation.ValidationException;
+import javax.validation.constraints.Size;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * PrecompiledValidationFilter 和校验计划测试
+ */
+public class PrecompiledValidationFilterTest {
+
+    private static final URL URL_WITH_PLAN =
+            URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName() + "?validation.plan=true");
+
+    private final PrecompiledValidationFilter filter = new PrecompiledValidationFilter();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger fallbacks = new AtomicInteger();
+
+    @Test
+    public void testCompileServicePlan() {
+        ServiceValidationPlan plan = ServiceValidationPlan.forInterface(GreetingsService.class);
+        assertSame(plan, ServiceValidationPlan.forInterface(GreetingsService.class));
+        assertEquals(2, plan.getMethodCount());
+        // sayHi: NotBlank+Size; greet: NotNull + GreetingRequest的7个约束
+        assertEquals(2, plan.getMethodPlan("sayHi", new Class<?>[]{String.class}).getConstraintCount());
+        assertEquals(8, plan.getMethodPlan("greet", new Class<?>[]{GreetingRequest.class}).getConstraintCount());
+        assertTrue(plan.getUnsupportedMethods().isEmpty());
+        assertNull(plan.getMethodPlan("sayHi", new Class<?>[]{Object.class}));
+        assertNull(plan.getMethodPlan("$echo", new Class<?>[]{Object.class}));
+    }
+
+    @Test
+    public void testViolations() {
+        MethodValidationPlan greet = ServiceValidationPlan.forInterface(GreetingsService.class)
+                .getMethodPlan("greet", new Class<?>[]{GreetingRequest.class});
+        assertTrue(greet.validate(new Object[]{new GreetingRequest("dubbo", 18, "dubbo@apache.org", "zh_CN")}).isEmpty());
+        assertTrue(greet.validate(new Object[]{new GreetingRequest("dubbo", 0, "a.b+c@[127.0.0.1]", null)}).isEmpty());
+
+        assertEquals(Arrays.asList("arg0: must not be null"), greet.validate(new Object[]{null}));
+
+        List<String> violations = greet.validate(new Object[]{
+                new GreetingRequest(" ", 151, "not-an-email", "chinese")});
+        assertEquals(4, violations.size());
+        assertTrue(violations.contains("arg0.name: must not be blank"));
+        assertTrue(violations.contains("arg0.age: must be less than or equal to 150"));
+        assertTrue(violations.contains("arg0.email: must be a well-formed email address"));
+        assertTrue(violations.contains("arg0.locale: must match \"[a-z]{2}(_[A-Z]{2})?\""));
+
+        violations = greet.validate(new Object[]{new GreetingRequest("dubbo-dubbo-dubbo-dubbo-dubbo-dubbo", -1, null, "en")});
+        assertEquals(Arrays.asList("arg0.name: size must be between 0 and 32",
+                "arg0.age: must be greater than or equal to 0", "arg0.email: must not be null"), violations);
+
+        MethodValidationPlan sayHi = ServiceValidationPlan.forInterface(GreetingsService.class)
+                .getMethodPlan("sayHi", new Class<?>[]{String.class});
+        assertEquals(Arrays.asList("arg0: must not be blank"), sayHi.validate(new Object[]{""}));
+    }
+
+    @Test
+    public void testFilterRejectsInvalidArguments() throws Exception {
+        Invoker<GreetingsService> invoker = invoker(GreetingsService.class, URL_WITH_PLAN);
+
+        Result result = filter.invoke(invoker, invocation("greet", GreetingRequest.class,
+                new GreetingRequest("dubbo", 18, "dubbo@apache.org", "en")));
+        assertFalse(result.hasException());
+        assertEquals(1, executions.get());
+
+        result = filter.invoke(invoker, invocation("greet", GreetingRequest.class,
+                new GreetingRequest("dubbo", 18, "dubbo", "en")));
+        assertTrue(result.getException() instanceof ValidationException);
+        assertEquals("Failed to validate service: " + GreetingsService.class.getName()
+                        + ", method: greet, cause: [arg0.email: must be a well-formed email address]",
+                result.getException().getMessage());
+        assertEquals(1, executions.get());
+
+        // 未开启时不校验
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + GreetingsService.class.getName());
+        filter.invoke(invoker(GreetingsService.class, url), invocation("sayHi", String.class, ""));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testFallbackForUnsupportedConstraints() {
+        MethodValidationPlan plan = ServiceValidationPlan.forInterface(LegacyService.class)
+                .getMethodPlan("submit", new Class<?>[]{int.class});
+        assertFalse(plan.isSupported());
+        assertTrue(plan.getUnsupportedReason(), plan.getUnsupportedReason().contains(Even.class.getName()));
+        assertFalse(ServiceValidationPlan.forInterface(LegacyService.class)
+                .getMethodPlan("rename", new Class<?>[]{String.class}).isSupported());
+
+        filter.setValidation(url -> (methodName, parameterTypes, arguments) -> {
+            fallbacks.incrementAndGet();
+            if ((Integer) arguments[0] % 2 != 0) {
+                throw new ValidationException("odd");
+            }
+        });
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + LegacyService.class.getName() + "?validation.plan=true");
+        Invoker<LegacyService> invoker = invoker(LegacyService.class, url);
+
+        assertFalse(filter.invoke(invoker, invocation("submit", int.class, 2)).hasException());
+        Result result = filter.invoke(invoker, invocation("submit", int.class, 3));
+        assertEquals("odd", result.getException().getMessage());
+        assertEquals(2, fallbacks.get());
+        assertEquals(1, executions.get());
+    }
+
+    @Constraint(validatedBy = {})
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Even {
+        String message() default "must be even";
+
+        Class<?>[] groups() default {};
+
+        Class<? extends Payload>[] payload() default {};
+    }
+
+    public interface Rename {
+    }
+
+    public interface LegacyService {
+
+        void submit(@Even int value);
+
+        void rename(@Size(max = 8, groups = Rename.class) String name);
+    }
+
+    private static Invocation invocation(String methodName, Class<?> parameterType, Object argument) {
+        return new RpcInvocation(methodName, GreetingsService.class.getName(), null,
+                new Class<?>[]{parameterType}, new Object[]{argument});
+    }
+
+    private <T> Invoker<T> invoker(Class<T> type, URL url) {
+        return new Invoker<T>() {
+            @Override
+            public Class<T> getInterface() {
+                return type;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                executions.incrementAndGet();
+                return AsyncRpcResult.newDefaultAsyncResult("ok", invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package org.apache.dubbo.samples.validation.plan;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.samples.validation.GreetingRequest;
+import org.apache.dubbo.samples.validation.GreetingsService;
+import org.apache.dubbo.validation.support.jvalidation.JValidator;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 校验计划与Dubbo默认的JValidation对比
+ * <p>
+ * 分别对带5、20、50个约束的参数对象计时，参数全部合法(最常见的情况)。
+ * 表单类只有公有字段，校验计划通过方法句柄读取；带getter的类(如 {@link GreetingRequest})会更快一些。
+ */
+public class ValidationPlanBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationPlanBenchmarkTest.class);
+
+    private static final int ROUNDS = 200_000;
+
+    private final JValidator jValidator = new JValidator(
+            URL.valueOf("dubbo://127.0.0.1:20880/" + BenchmarkService.class.getName()));
+
+    @Test
+    public void testAgreesWithHibernateValidator() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        MethodValidationPlan plan = ServiceValidationPlan.forInterface(GreetingsService.class)
+                .getMethodPlan("greet", new Class<?>[]{GreetingRequest.class});
+        String[] emails = {"dubbo@apache.org", "a.b+c@sub.example.com", "\"quoted name\"@example.com", "user@[127.0.0.1]",
+                "user@localhost", "", "plain", "a@b@c", "user@-example.com", "user@example..com", ".user@example.com",
+                "用户@例子.中国"};
+        String[] names = {"dubbo", " ", "", "\t\n", "x", "0123456789012345678901234567890123"};
+        int[] ages = {-1, 0, 150, 151};
+        String[] locales = {null, "en", "zh_CN", "zh-CN", "EN", "eng"};
+        for (String email : emails) {
+            assertEquals(email, validator.validate(new GreetingRequest("dubbo", 1, email, null)).size(),
+                    plan.validate(new Object[]{new GreetingRequest("dubbo", 1, email, null)}).size());
+        }
+        for (String name : names) {
+            assertEquals(name, validator.validate(new GreetingRequest(name, 1, "a@b.c", null)).size(),
+                    plan.validate(new Object[]{new GreetingRequest(name, 1, "a@b.c", null)}).size());
+        }
+        for (int age : ages) {
+            assertEquals(String.valueOf(age), validator.validate(new GreetingRequest("dubbo", age, "a@b.c", null)).size(),
+                    plan.validate(new Object[]{new GreetingRequest("dubbo", age, "a@b.c", null)}).size());
+        }
+        for (String locale : locales) {
+            assertEquals(locale, validator.validate(new GreetingRequest("dubbo", 1, "a@b.c", locale)).size(),
+                    plan.validate(new Object[]{new GreetingRequest("dubbo", 1, "a@b.c", locale)}).size());
+        }
+    }
+
+    @Test
+    public void testSameViolationsAsJValidation() throws Exception {
+        Form50 form = new Form50();
+        form.name3 = "";
+        form.name9 = "a b";
+        form.age7 = 200;
+        form.age10 = -5;
+        List<String> violations = plan("submit50", Form50.class).validate(new Object[]{form});
+        assertEquals(violations.toString(), 5, violations.size());
+        try {
+            jValidator.validate("submit50", new Class<?>[]{Form50.class}, new Object[]{form});
+            fail();
+        } catch (ConstraintViolationException e) {
+            assertEquals(5, e.getConstraintViolations().size());
+        }
+    }
+
+    @Test
+    public void testFasterThanJValidation() throws Exception {
+        run("submit5", Form5.class, new Form5(), 5);
+        run("submit20", Form20.class, new Form20(), 20);
+        run("submit50", Form50.class, new Form50(), 50);
+    }
+
+    private void run(String methodName, Class<?> type, Object form, int constraints) throws Exception {
+        MethodValidationPlan plan = plan(methodName, type);
+        assertEquals(constraints, plan.getConstraintCount());
+        Class<?>[] parameterTypes = {type};
+        Object[] arguments = {form};
+
+        // 预热
+        long checksum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += plan.validate(arguments).size();
+        }
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            jValidator.validate(methodName, parameterTypes, arguments);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += plan.validate(arguments).size();
+        }
+        long planNanos = (System.nanoTime() - begin) / ROUNDS;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            jValidator.validate(methodName, parameterTypes, arguments);
+        }
+        long jValidationNanos = (System.nanoTime() - begin) / (ROUNDS / 10);
+
+        logger.info("{}个约束: 校验计划{}ns/次, JValidation{}ns/次, 快{}倍 (checksum={})", constraints, planNanos,
+                jValidationNanos, jValidationNanos / Math.max(planNanos, 1), checksum);
+        assertEquals(0, checksum);
+        assertTrue(planNanos < jValidationNanos);
+    }
+
+    private static MethodValidationPlan plan(String methodName, Class<?> type) {
+        return ServiceValidationPlan.forInterface(BenchmarkService.class).getMethodPlan(methodName, new Class<?>[]{type});
+    }
+
+    public interface BenchmarkService {
+
+        void submit5(Form5 form);
+
+        void submit20(Form20 form);
+
+        void submit50(Form50 form);
+    }
+
+    /**
+     * 5个约束: 1组 名称(NotNull/Size/Pattern) + 数值(Min/Max)
+     */
+    public static class Form5 {
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name1 = "name_1";
+        @Min(0) @Max(150)
+        public int age1 = 10;
+    }
+
+    /**
+     * 20个约束: 4组 名称(NotNull/Size/Pattern) + 数值(Min/Max)
+     */
+    public static class Form20 {
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name1 = "name_1";
+        @Min(0) @Max(150)
+        public int age1 = 10;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name2 = "name_2";
+        @Min(0) @Max(150)
+        public int age2 = 20;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name3 = "name_3";
+        @Min(0) @Max(150)
+        public int age3 = 30;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name4 = "name_4";
+        @Min(0) @Max(150)
+        public int age4 = 40;
+    }
+
+    /**
+     * 50个约束: 10组 名称(NotNull/Size/Pattern) + 数值(Min/Max)
+     */
+    public static class Form50 {
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name1 = "name_1";
+        @Min(0) @Max(150)
+        public int age1 = 10;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name2 = "name_2";
+        @Min(0) @Max(150)
+        public int age2 = 20;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name3 = "name_3";
+        @Min(0) @Max(150)
+        public int age3 = 30;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name4 = "name_4";
+        @Min(0) @Max(150)
+        public int age4 = 40;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name5 = "name_5";
+        @Min(0) @Max(150)
+        public int age5 = 50;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name6 = "name_6";
+        @Min(0) @Max(150)
+        public int age6 = 60;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name7 = "name_7";
+        @Min(0) @Max(150)
+        public int age7 = 70;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name8 = "name_8";
+        @Min(0) @Max(150)
+        public int age8 = 80;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name9 = "name_9";
+        @Min(0) @Max(150)
+        public int age9 = 90;
+        @NotNull @Size(min = 1, max = 32) @Pattern(regexp = "[A-Za-z0-9_]+")
+        public String name10 = "name_10";
+        @Min(0) @Max(150)
+        public int age10 = 100;
+    }
+}
@@ -20,8 +20,12 @@
 package org.apache.dubbo.samples.version;
 
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.samples.version.canary.CanaryMetrics;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.util.Map;
+import java.util.TreeMap;
+
 public class VersionConsumer {
 
     public static void main(String[] args) throws Exception {
@@ -45,6 +49,16 @@ public class VersionConsumer {
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientResponseContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getServiceContext().getAttachment("server-key2"));
         System.out.println("consumer-key2 from attachment: " + RpcContext.getClientAttachment().getAttachment("server-key2"));
+
+        // 按userId灰度: 同一个用户总是访问同一个版本
+        Map<String, Integer> users = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            RpcContext.getClientAttachment().setAttachment("userId", "user-" + i % 200);
+            String result = versionService.sayHi("user-" + i % 200);
+            users.merge(result.substring(result.lastIndexOf(' ') + 1), 1, Integer::sum);
+        }
+        System.out.println("calls by version: " + users);
+        System.out.println(CanaryMetrics.report(GreetingsService.class.getName()));
         context.close();
     }
 }
@@ -0,0 +1,37 @@
+package org.apache.dubbo.samples.version.canary;
+
+/**
+ * 灰度路由相关的参数名
+ */
+public interface CanaryConstants {
+
+    /**
+     * 引用上的开关，如 {@code <dubbo:parameter key="canary" value="true"/>}
+     */
+    String CANARY_KEY = "canary";
+
+    /**
+     * 初始权重，如 {@code 1.0.0=95,2.0.0=5}；配置中心有规则时以配置中心为准
+     */
+    String CANARY_WEIGHTS_KEY = "canary.weights";
+
+    /**
+     * 按哪个附件的值固定分配版本，不配置或调用没有该附件时随机分配
+     */
+    String CANARY_STICKY_KEY = "canary.sticky-key";
+
+    /**
+     * 配置中心中规则的key为 接口名 + 该后缀，分组为dubbo
+     */
+    String CANARY_RULE_SUFFIX = ".canary";
+
+    /**
+     * 调用属性: 路由选中的版本
+     */
+    String CANARY_VERSION_ATTRIBUTE = "canary.version";
+
+    /**
+     * 调用属性: 发往提供者的开始时间
+     */
+    String CANARY_START_ATTRIBUTE = "canary.start";
+}
@@ -0,0 +1,116 @@
+package org.apache.dubbo.samples.version.canary;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按服务和版本统计的调用数、错误数和延迟，用于灰度时对比新旧版本
+ */
+public final class CanaryMetrics {
+
+    private static final ConcurrentMap<String, ServiceStats> SERVICES = new ConcurrentHashMap<>();
+
+    private CanaryMetrics() {
+    }
+
+    public static void record(String service, String version, long nanos, boolean error) {
+        VersionStats stats = service(service).versions.computeIfAbsent(version, v -> new VersionStats());
+        stats.calls.increment();
+        if (error) {
+            stats.errors.increment();
+        }
+        stats.latency.record(nanos);
+    }
+
+    /**
+     * 路由规则变化时更新，报表中与实际流量比例对照
+     */
+    static void updateWeights(String service, CanaryWeights weights) {
+        service(service).weights = weights;
+    }
+
+    public static CanaryWeights getWeights(String service) {
+        ServiceStats stats = SERVICES.get(service);
+        return stats == null ? null : stats.weights;
+    }
+
+    /**
+     * @return 按版本排序，没有记录时返回空Map
+     */
+    public static Map<String, VersionStats> getStats(String service) {
+        ServiceStats stats = SERVICES.get(service);
+        return stats == null ? new TreeMap<>() : new TreeMap<>(stats.versions);
+    }
+
+    /**
+     * 清空调用统计，保留当前的路由规则
+     */
+    public static void reset() {
+        SERVICES.values().forEach(stats -> stats.versions.clear());
+    }
+
+    /**
+     * 各版本并排的报表，延迟单位毫秒
+     */
+    public static String report(String service) {
+        Map<String, VersionStats> versions = getStats(service);
+        CanaryWeights weights = getWeights(service);
+        long total = 0;
+        for (VersionStats stats : versions.values()) {
+            total += stats.getCalls();
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(service).append(" weights: ").append(weights == null ? "-" : weights).append('\n');
+        builder.append(String.format("%-10s %8s %8s %10s %8s %8s %9s %9s %9s %9s%n", "version", "weight", "share",
+                "calls", "errors", "error%", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (Map.Entry<String, VersionStats> entry : versions.entrySet()) {
+            VersionStats stats = entry.getValue();
+            LatencyHistogram latency = stats.getLatency();
+            builder.append(String.format("%-10s %7.2f%% %7.2f%% %10d %8d %9.2f%% %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey(), weights == null ? 0 : weights.getShare(entry.getKey()),
+                    total == 0 ? 0 : stats.getCalls() * 100.0 / total, stats.getCalls(), stats.getErrors(),
+                    stats.getErrorRate() * 100, millis(latency.getPercentile(50)), millis(latency.getPercentile(90)),
+                    millis(latency.getPercentile(99)), millis(latency.getMax())));
+        }
+        return builder.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static ServiceStats service(String service) {
+        return SERVICES.computeIfAbsent(service, s -> new ServiceStats());
+    }
+
+    private static final class ServiceStats {
+        final ConcurrentMap<String, VersionStats> versions = new ConcurrentHashMap<>();
+        volatile CanaryWeights weights;
+    }
+
+    public static final class VersionStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public double getErrorRate() {
+            long n = calls.sum();
+            return n == 0 ? 0 : (double) errors.sum() / n;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
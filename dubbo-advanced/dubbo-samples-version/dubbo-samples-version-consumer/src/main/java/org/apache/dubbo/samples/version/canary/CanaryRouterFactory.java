@@ -0,0 +1,44 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.cluster.Router;
+import org.apache.dubbo.rpc.cluster.RouterFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_KEY;
+
+/**
+ * 只为带canary参数的引用创建 {@link CanaryVersionRouter}
+ * <p>
+ * 同一个服务的路由共用一个 {@link CanaryRule}，最后一个路由停止时才移除配置中心上的监听器。
+ */
+@Activate(value = CANARY_KEY)
+public class CanaryRouterFactory implements RouterFactory {
+
+    private final Map<String, CanaryRule> rules = new HashMap<>();
+
+    @Override
+    public Router getRouter(URL url) {
+        return new CanaryVersionRouter(url, this, acquire(url));
+    }
+
+    private synchronized CanaryRule acquire(URL url) {
+        CanaryRule rule = rules.get(url.getServiceInterface());
+        if (rule == null) {
+            rule = new CanaryRule(url);
+            rule.start();
+            rules.put(rule.getService(), rule);
+        }
+        rule.references++;
+        return rule;
+    }
+
+    synchronized void release(CanaryRule rule) {
+        if (--rule.references == 0 && rules.remove(rule.getService(), rule)) {
+            rule.stop();
+        }
+    }
+}
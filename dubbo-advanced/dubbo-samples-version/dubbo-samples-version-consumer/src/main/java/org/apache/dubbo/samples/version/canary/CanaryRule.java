@@ -0,0 +1,105 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.config.configcenter.ConfigChangeType;
+import org.apache.dubbo.common.config.configcenter.ConfigChangedEvent;
+import org.apache.dubbo.common.config.configcenter.ConfigurationListener;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.cluster.governance.GovernanceRuleRepository;
+
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_RULE_SUFFIX;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_WEIGHTS_KEY;
+
+/**
+ * 一个服务当前生效的灰度权重
+ * <p>
+ * 同一个引用可能有多个目录(接口级/应用级地址、迁移时重建的目录)，各自创建路由，
+ * 由 {@link CanaryRouterFactory} 让它们共用一个规则对象，配置中心上只注册一个监听器。
+ * 删除规则(或规则内容为空)时恢复引用上配置的初始权重，规则格式不对时保留当前权重。
+ */
+class CanaryRule implements ConfigurationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanaryRule.class);
+
+    private final String service;
+    private final String ruleKey;
+    private final CanaryWeights initialWeights;
+    private final GovernanceRuleRepository ruleRepository;
+
+    private volatile CanaryWeights weights;
+
+    /**
+     * 引用该规则的路由数，由 {@link CanaryRouterFactory} 加锁维护
+     */
+    int references;
+
+    CanaryRule(URL url) {
+        this.service = url.getServiceInterface();
+        this.ruleKey = service + CANARY_RULE_SUFFIX;
+        this.initialWeights = parse(url.getParameter(CANARY_WEIGHTS_KEY), "reference parameter");
+        this.ruleRepository = url.getOrDefaultModuleModel().getExtensionLoader(GovernanceRuleRepository.class)
+                .getDefaultExtension();
+    }
+
+    void start() {
+        updateWeights(initialWeights);
+        ruleRepository.addListener(ruleKey, this);
+        String rule = ruleRepository.getRule(ruleKey, GovernanceRuleRepository.DEFAULT_GROUP);
+        if (!isBlank(rule)) {
+            applyRule(rule);
+        }
+    }
+
+    void stop() {
+        ruleRepository.removeListener(ruleKey, this);
+    }
+
+    @Override
+    public void process(ConfigChangedEvent event) {
+        // 部分配置中心删除节点时推送的是内容为空的修改事件
+        if (event.getChangeType() == ConfigChangeType.DELETED || isBlank(event.getContent())) {
+            logger.info("Canary rule of " + service + " deleted, restore weights: " + initialWeights);
+            updateWeights(initialWeights);
+        } else {
+            applyRule(event.getContent());
+        }
+    }
+
+    private void applyRule(String rule) {
+        CanaryWeights parsed = parse(rule, "config center");
+        if (parsed != null) {
+            logger.info("Canary weights of " + service + " changed to: " + parsed);
+            updateWeights(parsed);
+        }
+    }
+
+    private void updateWeights(CanaryWeights weights) {
+        this.weights = weights;
+        CanaryMetrics.updateWeights(service, weights);
+    }
+
+    private CanaryWeights parse(String rule, String source) {
+        if (isBlank(rule)) {
+            return null;
+        }
+        try {
+            return CanaryWeights.parse(rule);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignore canary weights of " + service + " from " + source + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String rule) {
+        return rule == null || rule.trim().isEmpty();
+    }
+
+    String getService() {
+        return service;
+    }
+
+    CanaryWeights getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,139 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.router.AbstractRouter;
+import org.apache.dubbo.rpc.cluster.router.RouterResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.dubbo.common.constants.CommonConstants.VERSION_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_STICKY_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_VERSION_ATTRIBUTE;
+
+/**
+ * 按权重把流量分到服务的不同版本
+ * <p>
+ * 引用配置 {@code version="*"} 订阅所有版本的提供者，每次调用先按规则选出版本，只保留该版本的提供者，
+ * 再交给负载均衡。配置了 canary.sticky-key 时用该附件值的哈希选桶，同一个值总是分到同一个版本。
+ * <p>
+ * 权重可以在运行时修改: 向配置中心写入key为 {@code 接口名.canary}、分组为dubbo的规则，
+ * 如 {@code 1.0.0=50,2.0.0=50}，见 {@link CanaryRule}。
+ */
+public class CanaryVersionRouter extends AbstractRouter {
+
+    private final String stickyKey;
+    private final CanaryRouterFactory factory;
+    private final CanaryRule rule;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private volatile Partition<?> partition;
+
+    CanaryVersionRouter(URL url, CanaryRouterFactory factory, CanaryRule rule) {
+        super(url);
+        this.stickyKey = url.getParameter(CANARY_STICKY_KEY);
+        this.factory = factory;
+        this.rule = rule;
+    }
+
+    @Override
+    public <T> RouterResult<Invoker<T>> route(List<Invoker<T>> invokers, URL url, Invocation invocation,
+                                              boolean needToPrintMessage) throws RpcException {
+        CanaryWeights current = rule.getWeights();
+        if (current == null || invokers == null || invokers.isEmpty()) {
+            return new RouterResult<>(invokers);
+        }
+        Partition<T> byVersion = partition(invokers);
+        String version = current.select(bucket(invocation));
+        List<Invoker<T>> selected = byVersion.get(version);
+        if (selected == null) {
+            for (String fallback : current.getFallbackOrder()) {
+                selected = byVersion.get(fallback);
+                if (selected != null) {
+                    version = fallback;
+                    break;
+                }
+            }
+        }
+        if (selected == null) {
+            // 规则中的版本都没有提供者，不做限制
+            return new RouterResult<>(invokers);
+        }
+        invocation.put(CANARY_VERSION_ATTRIBUTE, version);
+        return new RouterResult<>(selected);
+    }
+
+    private int bucket(Invocation invocation) {
+        if (stickyKey == null) {
+            return CanaryWeights.randomBucket();
+        }
+        String value = invocation.getAttachment(stickyKey);
+        if (value == null) {
+            value = RpcContext.getClientAttachment().getAttachment(stickyKey);
+        }
+        return value == null ? CanaryWeights.randomBucket() : CanaryWeights.bucket(value);
+    }
+
+    /**
+     * 提供者列表不变时复用上次的分组，不用每次调用都重新分组
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Partition<T> partition(List<Invoker<T>> invokers) {
+        Partition<T> current = (Partition<T>) partition;
+        if (current == null || !current.isFor(invokers)) {
+            current = new Partition<>(invokers);
+            partition = current;
+        }
+        return current;
+    }
+
+    public CanaryWeights getWeights() {
+        return rule.getWeights();
+    }
+
+    @Override
+    public void stop() {
+        if (stopped.compareAndSet(false, true)) {
+            factory.release(rule);
+        }
+    }
+
+    private static final class Partition<T> {
+        private final Invoker<?>[] members;
+        private final Map<String, List<Invoker<T>>> byVersion = new HashMap<>();
+
+        Partition(List<Invoker<T>> invokers) {
+            this.members = invokers.toArray(new Invoker<?>[0]);
+            for (Invoker<T> invoker : invokers) {
+                byVersion.computeIfAbsent(invoker.getUrl().getParameter(VERSION_KEY, ""), v -> new ArrayList<>())
+                        .add(invoker);
+            }
+        }
+
+        /**
+         * 前面的路由每次可能返回新的列表对象，逐个比较元素
+         */
+        boolean isFor(List<? extends Invoker<?>> invokers) {
+            if (invokers.size() != members.length) {
+                return false;
+            }
+            for (int i = 0; i < members.length; i++) {
+                if (invokers.get(i) != members[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<Invoker<T>> get(String version) {
+            return byVersion.get(version);
+        }
+    }
+}
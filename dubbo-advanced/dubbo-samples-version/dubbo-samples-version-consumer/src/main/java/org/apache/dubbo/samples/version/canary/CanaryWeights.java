@@ -0,0 +1,181 @@
+package org.apache.dubbo.samples.version.canary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 各版本的流量权重
+ * <p>
+ * 规则格式为 {@code 版本=权重,版本=权重}，权重可以是小数，不要求加起来等于100。
+ * 流量按 {@link #BUCKETS} 个桶划分，每个版本按规则中的顺序占一段连续的桶；同一个粘性值总是落在同一个桶，
+ * 所以权重不变时总是分到同一个版本。灰度版本写在最后，调大它的权重时已经分到灰度版本的请求不会回到旧版本。
+ */
+public final class CanaryWeights {
+
+    public static final int BUCKETS = 10000;
+
+    private final String[] versions;
+    // 每个版本占用的桶的上界(不含)
+    private final int[] bounds;
+    // 按权重从大到小排列，选中的版本没有提供者时依次回退
+    private final String[] fallbackOrder;
+
+    private CanaryWeights(String[] versions, double[] weights) {
+        this.versions = versions;
+        this.bounds = new int[versions.length];
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double sum = 0;
+        for (int i = 0; i < versions.length; i++) {
+            sum += weights[i];
+            bounds[i] = (int) Math.round(sum / total * BUCKETS);
+        }
+        bounds[versions.length - 1] = BUCKETS;
+
+        Integer[] order = new Integer[versions.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(weights[b], weights[a]));
+        this.fallbackOrder = new String[versions.length];
+        for (int i = 0; i < order.length; i++) {
+            fallbackOrder[i] = versions[order[i]];
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException 规则格式不对、版本重复、权重为负或全部为0
+     */
+    public static CanaryWeights parse(String rule) {
+        if (rule == null || rule.trim().isEmpty()) {
+            throw new IllegalArgumentException("empty canary weights");
+        }
+        List<String> versions = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        double total = 0;
+        for (String item : rule.split(",")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            int index = item.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("illegal canary weight '" + item.trim() + "' in: " + rule);
+            }
+            String version = item.substring(0, index).trim();
+            double weight;
+            try {
+                weight = Double.parseDouble(item.substring(index + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("illegal canary weight '" + item.trim() + "' in: " + rule);
+            }
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("illegal canary weight '" + item.trim() + "' in: " + rule);
+            }
+            if (versions.contains(version)) {
+                throw new IllegalArgumentException("duplicate version " + version + " in: " + rule);
+            }
+            versions.add(version);
+            weights.add(weight);
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("no version has positive weight in: " + rule);
+        }
+        double[] values = new double[weights.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = weights.get(i);
+        }
+        return new CanaryWeights(versions.toArray(new String[0]), values);
+    }
+
+    /**
+     * @param bucket [0, BUCKETS)
+     */
+    public String select(int bucket) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (bucket < bounds[i]) {
+                return versions[i];
+            }
+        }
+        return versions[versions.length - 1];
+    }
+
+    /**
+     * 粘性值对应的桶，与进程无关，不同的消费者对同一个值得到相同的结果
+     */
+    public static int bucket(String stickyValue) {
+        // FNV-1a，再用murmur3的fmix64打散
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < stickyValue.length(); i++) {
+            h ^= stickyValue.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) ((h >>> 1) % BUCKETS);
+    }
+
+    public static int randomBucket() {
+        return ThreadLocalRandom.current().nextInt(BUCKETS);
+    }
+
+    public List<String> getVersions() {
+        return Collections.unmodifiableList(Arrays.asList(versions));
+    }
+
+    /**
+     * 选中的版本没有提供者时的回退顺序
+     */
+    String[] getFallbackOrder() {
+        return fallbackOrder;
+    }
+
+    /**
+     * @return 版本分到的流量百分比，不在规则中时返回0
+     */
+    public double getShare(String version) {
+        for (int i = 0; i < versions.length; i++) {
+            if (versions[i].equals(version)) {
+                return (bounds[i] - (i == 0 ? 0 : bounds[i - 1])) * 100.0 / BUCKETS;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CanaryWeights)) {
+            return false;
+        }
+        CanaryWeights that = (CanaryWeights) o;
+        return Arrays.equals(versions, that.versions) && Arrays.equals(bounds, that.bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(versions) + Arrays.hashCode(bounds);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (String version : versions) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(version).append('=').append(getShare(version));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import static org.apache.dubbo.common.constants.CommonConstants.CONSUMER;
+import static org.apache.dubbo.common.constants.CommonConstants.VERSION_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_START_ATTRIBUTE;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_VERSION_ATTRIBUTE;
+
+/**
+ * 记录经过灰度路由的调用在各版本上的延迟和错误
+ * <p>
+ * 挂在每个提供者的调用链上，版本取实际调用的提供者的版本，选中的版本没有提供者而回退时也能记到正确的版本；
+ * 重试时每次尝试分别记录。服务端抛出的业务异常也算作错误。
+ */
+@Activate(group = CONSUMER, value = CANARY_KEY)
+public class VersionTelemetryFilter implements Filter, Filter.Listener {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (invocation.get(CANARY_VERSION_ATTRIBUTE) != null) {
+            invocation.put(CANARY_START_ATTRIBUTE, System.nanoTime());
+        }
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        record(invoker, invocation, appResponse.hasException());
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        record(invoker, invocation, true);
+    }
+
+    private void record(Invoker<?> invoker, Invocation invocation, boolean error) {
+        Object start = invocation.get(CANARY_START_ATTRIBUTE);
+        if (start instanceof Long) {
+            CanaryMetrics.record(invoker.getUrl().getServiceInterface(),
+                    invoker.getUrl().getParameter(VERSION_KEY, ""), System.nanoTime() - (Long) start, error);
+        }
+    }
+}
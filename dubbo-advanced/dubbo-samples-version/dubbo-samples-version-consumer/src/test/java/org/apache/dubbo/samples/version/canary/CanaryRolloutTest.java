@@ -0,0 +1,245 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.config.configcenter.DynamicConfiguration;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.cluster.governance.GovernanceRuleRepository;
+import org.apache.dubbo.samples.version.EmbeddedZooKeeper;
+import org.apache.dubbo.samples.version.GreetingsService;
+import org.apache.dubbo.samples.version.impl.GreetingImpl;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_RULE_SUFFIX;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_STICKY_KEY;
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_WEIGHTS_KEY;
+import static org.junit.Assert.*;
+
+/**
+ * 内嵌ZooKeeper上暴露1.0.0和2.0.0两个版本的GreetingImpl，验证灰度路由、动态权重和各版本的统计
+ */
+public class CanaryRolloutTest {
+
+    private static final String SERVICE = GreetingsService.class.getName();
+    private static final String RULE_KEY = SERVICE + CANARY_RULE_SUFFIX;
+    private static final String INITIAL_WEIGHTS = "1.0.0=80,2.0.0=20";
+    private static final int USERS = 200;
+
+    private static EmbeddedZooKeeper zookeeper;
+    private static DubboBootstrap bootstrap;
+    private static GreetingsService greetingsService;
+    private static DynamicConfiguration configuration;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        zookeeper = new EmbeddedZooKeeper();
+        zookeeper.start();
+        awaitPort(zookeeper.getClientPort());
+
+        // 只用接口级地址，消费者按接口订阅所有版本的提供者
+        System.setProperty("dubbo.application.service-discovery.migration", "FORCE_INTERFACE");
+        ApplicationConfig application = new ApplicationConfig("canary-test");
+        application.setRegisterMode("interface");
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(CANARY_KEY, "true");
+        parameters.put(CANARY_WEIGHTS_KEY, INITIAL_WEIGHTS);
+        parameters.put(CANARY_STICKY_KEY, "userId");
+        ReferenceConfig<GreetingsService> reference = new ReferenceConfig<>();
+        reference.setInterface(GreetingsService.class);
+        reference.setVersion("*");
+        reference.setScope("remote");
+        reference.setTimeout(10_000);
+        reference.setParameters(parameters);
+
+        bootstrap = DubboBootstrap.getInstance()
+                .application(application)
+                .registry(new RegistryConfig("zookeeper://127.0.0.1:" + zookeeper.getClientPort()))
+                .protocol(new ProtocolConfig("dubbo", -1))
+                .service(service("1.0.0"))
+                .service(service("2.0.0"))
+                .reference(reference);
+        bootstrap.start();
+        greetingsService = reference.get();
+        configuration = bootstrap.getApplicationModel().modelEnvironment().getDynamicConfiguration()
+                .orElseThrow(() -> new IllegalStateException("registry is not used as config center"));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (bootstrap != null) {
+            bootstrap.stop();
+        }
+        if (zookeeper != null) {
+            zookeeper.stop();
+        }
+        System.clearProperty("dubbo.application.service-discovery.migration");
+    }
+
+    @Before
+    public void restoreWeights() throws Exception {
+        configuration.removeConfig(RULE_KEY, GovernanceRuleRepository.DEFAULT_GROUP);
+        awaitRouting(INITIAL_WEIGHTS);
+    }
+
+    @Test
+    public void testStickyWeightedRouting() {
+        CanaryWeights weights = CanaryWeights.parse(INITIAL_WEIGHTS);
+        Set<String> canaryUsers = new HashSet<>();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < USERS; i++) {
+                String user = "user-" + i;
+                String version = call(user);
+                assertEquals(user, weights.select(CanaryWeights.bucket(user)), version);
+                if ("2.0.0".equals(version)) {
+                    canaryUsers.add(user);
+                }
+            }
+        }
+        double share = canaryUsers.size() * 100.0 / USERS;
+        assertTrue("canary share " + share, share > 12 && share < 28);
+    }
+
+    @Test
+    public void testDynamicWeights() throws Exception {
+        Set<String> canaryUsers = new HashSet<>();
+        for (int i = 0; i < USERS; i++) {
+            if ("2.0.0".equals(call("user-" + i))) {
+                canaryUsers.add("user-" + i);
+            }
+        }
+
+        assertTrue(configuration.publishConfig(RULE_KEY, GovernanceRuleRepository.DEFAULT_GROUP, "1.0.0=50,2.0.0=50"));
+        awaitRouting("1.0.0=50,2.0.0=50");
+        int canary = 0;
+        for (int i = 0; i < USERS; i++) {
+            String user = "user-" + i;
+            String version = call(user);
+            if (canaryUsers.contains(user)) {
+                // 调大灰度比例时已在新版本的用户不回到旧版本
+                assertEquals(user, "2.0.0", version);
+            }
+            if ("2.0.0".equals(version)) {
+                canary++;
+            }
+        }
+        assertTrue("canary users " + canary, canary > USERS * 0.4 && canary < USERS * 0.6);
+
+        // 格式不对的规则不生效
+        assertTrue(configuration.publishConfig(RULE_KEY, GovernanceRuleRepository.DEFAULT_GROUP, "2.0.0=all"));
+        Thread.sleep(1000);
+        assertEquals(CanaryWeights.parse("1.0.0=50,2.0.0=50"), CanaryMetrics.getWeights(SERVICE));
+
+        // 回滚: 全部流量回到旧版本
+        assertTrue(configuration.publishConfig(RULE_KEY, GovernanceRuleRepository.DEFAULT_GROUP, "1.0.0=100,2.0.0=0"));
+        awaitRouting("1.0.0=100,2.0.0=0");
+        for (int i = 0; i < USERS; i++) {
+            assertEquals("1.0.0", call("user-" + i));
+        }
+    }
+
+    @Test
+    public void testVersionTelemetry() {
+        CanaryMetrics.reset();
+        int calls = 1000;
+        for (int i = 0; i < calls; i++) {
+            call("user-" + i % USERS);
+        }
+        Map<String, CanaryMetrics.VersionStats> stats = CanaryMetrics.getStats(SERVICE);
+        assertEquals(stats.keySet().toString(), 2, stats.size());
+        long total = 0;
+        for (CanaryMetrics.VersionStats versionStats : stats.values()) {
+            assertTrue(versionStats.getCalls() > 0);
+            assertEquals(0, versionStats.getErrors());
+            assertTrue(versionStats.getLatency().getPercentile(99) > 0);
+            total += versionStats.getCalls();
+        }
+        assertEquals(calls, total);
+
+        String report = CanaryMetrics.report(SERVICE);
+        System.out.println(report);
+        assertTrue(report, report.contains("1.0.0") && report.contains("2.0.0"));
+    }
+
+    private static String call(String user) {
+        RpcContext.getClientAttachment().setAttachment("userId", user);
+        String result = greetingsService.sayHi(user);
+        return result.substring(result.lastIndexOf(' ') + 1);
+    }
+
+    /**
+     * 等待规则生效，并且所有用户都按规则分到对应的版本(两个版本的提供者都已被发现)
+     */
+    private static void awaitRouting(String rule) throws InterruptedException {
+        CanaryWeights weights = CanaryWeights.parse(rule);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            if (weights.equals(CanaryMetrics.getWeights(SERVICE)) && allRouted(weights)) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("canary weights " + rule + " not applied, current: " + CanaryMetrics.getWeights(SERVICE));
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static boolean allRouted(CanaryWeights weights) {
+        for (int i = 0; i < USERS; i++) {
+            String user = "user-" + i;
+            if (!weights.select(CanaryWeights.bucket(user)).equals(call(user))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ServiceConfig<GreetingsService> service(String version) {
+        ServiceConfig<GreetingsService> service = new ServiceConfig<>();
+        service.setInterface(GreetingsService.class);
+        service.setRef(new GreetingImpl(version));
+        service.setVersion(version);
+        return service;
+    }
+
+    private static void awaitPort(int port) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!isListening(port)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("embedded ZooKeeper not started on port " + port);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static boolean isListening(int port) {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 1000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.apache.dubbo.samples.version.canary;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.model.ServiceModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.apache.dubbo.samples.version.canary.CanaryConstants.CANARY_VERSION_ATTRIBUTE;
+import static org.junit.Assert.*;
+
+/**
+ * 灰度权重、直方图和版本统计测试
+ */
+public class CanaryRoutingTest {
+
+    @Test
+    public void testParseWeights() {
+        CanaryWeights weights = CanaryWeights.parse(" 1.0.0 = 95 , 2.0.0=5 ");
+        assertEquals(Arrays.asList("1.0.0", "2.0.0"), weights.getVersions());
+        assertEquals(95.0, weights.getShare("1.0.0"), 0);
+        assertEquals(5.0, weights.getShare("2.0.0"), 0);
+        assertEquals(0.0, weights.getShare("3.0.0"), 0);
+        assertEquals("1.0.0", weights.select(9499));
+        assertEquals("2.0.0", weights.select(9500));
+        assertEquals(weights, CanaryWeights.parse("1.0.0=19,2.0.0=1"));
+
+        // 小数权重和0权重
+        weights = CanaryWeights.parse("1.0.0=99.5,2.0.0=0.5,3.0.0=0");
+        assertEquals(0.5, weights.getShare("2.0.0"), 0);
+        assertEquals("2.0.0", weights.select(CanaryWeights.BUCKETS - 1));
+        assertArrayEquals(new String[]{"1.0.0", "2.0.0", "3.0.0"}, weights.getFallbackOrder());
+
+        for (String illegal : new String[]{"", "1.0.0", "=5", "1.0.0=x", "1.0.0=-1", "1.0.0=0", "1.0.0=1,1.0.0=2"}) {
+            try {
+                CanaryWeights.parse(illegal);
+                fail(illegal);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testStickyBucketsMatchWeights() {
+        int users = 100_000;
+        for (double canary : new double[]{1, 5, 50}) {
+            CanaryWeights weights = CanaryWeights.parse("1.0.0=" + (100 - canary) + ",2.0.0=" + canary);
+            int hits = 0;
+            for (int i = 0; i < users; i++) {
+                if ("2.0.0".equals(weights.select(CanaryWeights.bucket("user-" + i)))) {
+                    hits++;
+                }
+            }
+            double share = hits * 100.0 / users;
+            assertEquals("share of " + canary + "%: " + share, canary, share, Math.max(0.2, canary * 0.05));
+        }
+        assertEquals(CanaryWeights.bucket("user-42"), CanaryWeights.bucket("user-42"));
+    }
+
+    @Test
+    public void testIncreasingCanaryKeepsAssignedUsers() {
+        CanaryWeights five = CanaryWeights.parse("1.0.0=95,2.0.0=5");
+        CanaryWeights fifty = CanaryWeights.parse("1.0.0=50,2.0.0=50");
+        for (int i = 0; i < 10_000; i++) {
+            int bucket = CanaryWeights.bucket("user-" + i);
+            if ("2.0.0".equals(five.select(bucket))) {
+                assertEquals("2.0.0", fifty.select(bucket));
+            }
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value + " <= upper bound", value <= LatencyHistogram.upperBound(index));
+            assertTrue(value + " > previous upper bound", index == 0 || value > LatencyHistogram.upperBound(index - 1));
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // 1ms到2ms均匀分布
+            histogram.record(1_000_000 + random.nextInt(1_000_000));
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1_500_000, histogram.getPercentile(50), 1_500_000 / 8.0);
+        assertEquals(1_990_000, histogram.getPercentile(99), 1_990_000 / 8.0);
+        assertTrue(histogram.getPercentile(100) <= histogram.getMax());
+        assertEquals(1_500_000, histogram.getMean(), 10_000);
+    }
+
+    @Test
+    public void testTelemetryFilterRecordsActualVersion() {
+        String service = "org.example.TelemetryService";
+        VersionTelemetryFilter filter = new VersionTelemetryFilter();
+        Invoker<?> v1 = invoker(URL.valueOf("dubbo://127.0.0.1:20880/" + service + "?version=1.0.0"));
+        Invoker<?> v2 = invoker(URL.valueOf("dubbo://127.0.0.1:20881/" + service + "?version=2.0.0"));
+
+        for (int i = 0; i < 10; i++) {
+            call(filter, v1, new AppResponse("ok"));
+        }
+        call(filter, v2, new AppResponse("ok"));
+        call(filter, v2, new AppResponse(new IllegalStateException("boom")));
+        Invocation failed = routed();
+        filter.invoke(v2, failed);
+        filter.onError(new RpcException("timeout"), v2, failed);
+        // 没有经过灰度路由的调用不记录
+        Invocation plain = new RpcInvocation((ServiceModel) null, "sayHi", service, null, new Class<?>[0], new Object[0]);
+        filter.invoke(v1, plain);
+        filter.onResponse(new AppResponse("ok"), v1, plain);
+
+        Map<String, CanaryMetrics.VersionStats> stats = CanaryMetrics.getStats(service);
+        assertEquals(10, stats.get("1.0.0").getCalls());
+        assertEquals(0, stats.get("1.0.0").getErrors());
+        assertEquals(3, stats.get("2.0.0").getCalls());
+        assertEquals(2, stats.get("2.0.0").getErrors());
+        assertEquals(2.0 / 3, stats.get("2.0.0").getErrorRate(), 1e-9);
+
+        String report = CanaryMetrics.report(service);
+        assertTrue(report, report.contains("1.0.0") && report.contains("2.0.0") && report.contains("66.67%"));
+    }
+
+    private static Invocation routed() {
+        Invocation invocation = new RpcInvocation((ServiceModel) null, "sayHi", "org.example.TelemetryService", null,
+                new Class<?>[0], new Object[0]);
+        invocation.put(CANARY_VERSION_ATTRIBUTE, "1.0.0");
+        return invocation;
+    }
+
+    private static void call(VersionTelemetryFilter filter, Invoker<?> invoker, AppResponse response) {
+        Invocation invocation = routed();
+        filter.invoke(invoker, invocation);
+        filter.onResponse(response, invoker, invocation);
+    }
+
+    private static Invoker<Object> invoker(URL url) {
+        return new Invoker<Object>() {
+            @Override
+            public Class<Object> getInterface() {
+                return Object.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                return AsyncRpcResult.newDefaultAsyncResult("ok", invocation);
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+    }
+}
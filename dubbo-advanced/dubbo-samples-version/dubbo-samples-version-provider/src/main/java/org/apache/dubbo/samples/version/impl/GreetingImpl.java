@@ -24,8 +24,32 @@ import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.samples.version.GreetingsService;
 
 public class GreetingImpl implements GreetingsService {
+
+    private final String version;
+
+    public GreetingImpl() {
+        this(null);
+    }
+
+    /**
+     * @param version 暴露的服务版本，附在返回值中方便区分请求被哪个版本处理
+     */
+    public GreetingImpl(String version) {
+        this.version = version;
+    }
+
     @Override
     public String sayHi(String name) {
+        if (RpcContext.getServerAttachment().getAttachment("consumer-key1") != null) {
+            printAttachments();
+        }
+
+        RpcContext.getClientResponseContext().setAttachment("server-key1", "server-value1");
+        RpcContext.getServerContext().setAttachment("server-key2", "server-value2");
+        return version == null ? "hello, " + name : "hello, " + name + " from " + version;
+    }
+
+    private void printAttachments() {
         // 读取客户端发送的附件值
         System.out.println("consumer-key1 from attachment: " + (String) RpcContext.getServerAttachment().getAttachment("consumer-key1"));
         System.out.println("consumer-key1 from attachment: " + (String) RpcContext.getServiceContext().getAttachment("consumer-key1"));
@@ -33,9 +57,5 @@ public class GreetingImpl implements GreetingsService {
         System.out.println("consumer-key2 from attachment: " + (String) RpcContext.getServerAttachment().getAttachment("consumer-key2"));
         System.out.println("consumer-key2 from attachment: " + (String) RpcContext.getServiceContext().getAttachment("consumer-key2"));
         System.out.println("consumer-key2 from attachment: " + (String) RpcContext.getServerContext().getAttachment("consumer-key2"));
-
-        RpcContext.getClientResponseContext().setAttachment("server-key1", "server-value1");
-        RpcContext.getServerContext().setAttachment("server-key2", "server-value2");
-        return "hello, " + name;
     }
 }